@@ -0,0 +1,74 @@
+package org.st.shc.framework.concurrent;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 装饰器链每个任务的耗时与分配，配合 {@code -prof gc} 查看 gc.alloc.rate.norm 。
+ * <p>
+ * nested 为合并前的做法：每个装饰器各套一层包装、各取一次时钟； fused 为 {@link ConcurrentTaskDecorators}
+ * 合并后的做法。
+ *
+ * @author abomb4 2026-10-17
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DecoratorBenchmark {
+
+    /** 计时装饰器个数 */
+    @Param({"0", "1", "3"})
+    public int decorators;
+
+    /** 合并后的装饰器链 */
+    private ConcurrentTaskDecorator fused;
+    /** 逐个包装的装饰器 */
+    private List<ConcurrentTaskDecorator> nested;
+    /** 被装饰的任务 */
+    private Runnable task;
+
+    @Setup
+    public void setup() {
+        this.nested = new ArrayList<>();
+        for (int i = 0; i < this.decorators; i++) {
+            this.nested.add(new TaskTimingDecorator("bench-" + i));
+        }
+        this.fused = new ConcurrentTaskDecorators(this.nested);
+        this.task = () -> {
+        };
+    }
+
+    @Benchmark
+    public void fused(Blackhole bh) {
+        Runnable decorated = this.fused.decorate(this.task);
+        decorated.run();
+        bh.consume(decorated);
+    }
+
+    @Benchmark
+    public void nested(Blackhole bh) {
+        Runnable decorated = this.task;
+        for (ConcurrentTaskDecorator decorator : this.nested) {
+            decorated = decorator.decorate(decorated);
+        }
+        decorated.run();
+        bh.consume(decorated);
+    }
+}
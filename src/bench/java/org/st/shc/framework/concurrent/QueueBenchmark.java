@@ -0,0 +1,93 @@
+package org.st.shc.framework.concurrent;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link MpmcArrayBlockingQueue} 与 JDK 的 {@link ArrayBlockingQueue} 、 {@link LinkedBlockingQueue}
+ * 在多生产者多消费者下的吞吐，配合 {@code -prof gc} 查看每次操作的分配。
+ * <p>
+ * offerPoll 为不阻塞的放入与取出，失败即返回；timed 为带超时的放入与取出，与线程池的提交和空闲线程取任务相同，
+ * 队列空或满时会走到 park 与唤醒。各组四个线程，一半放一半取，线程数可用 {@code -tg} 调整。
+ *
+ * @author abomb4 2026-10-17
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueueBenchmark {
+
+    /** 带超时操作的等待时间 */
+    private static final long TIMEOUT_MICROS = 100;
+    /** 放入的元素，不计入分配 */
+    private static final Integer ELEMENT = 1;
+
+    /** 队列实现 */
+    @Param({"mpmc", "abq", "lbq"})
+    public String implementation;
+
+    /** 容量 */
+    @Param({"1024"})
+    public int capacity;
+
+    /** 被测队列 */
+    private BlockingQueue<Integer> queue;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        this.queue = switch (this.implementation) {
+            case "mpmc" -> new MpmcArrayBlockingQueue<>(this.capacity);
+            case "abq" -> new ArrayBlockingQueue<>(this.capacity);
+            case "lbq" -> new LinkedBlockingQueue<>(this.capacity);
+            default -> throw new IllegalArgumentException("unknown implementation " + this.implementation);
+        };
+    }
+
+    @Benchmark
+    @Group("offerPoll")
+    @GroupThreads(2)
+    public boolean offer() {
+        return this.queue.offer(ELEMENT);
+    }
+
+    @Benchmark
+    @Group("offerPoll")
+    @GroupThreads(2)
+    public Integer poll() {
+        return this.queue.poll();
+    }
+
+    @Benchmark
+    @Group("timed")
+    @GroupThreads(2)
+    public boolean timedOffer() throws InterruptedException {
+        return this.queue.offer(ELEMENT, TIMEOUT_MICROS, TimeUnit.MICROSECONDS);
+    }
+
+    @Benchmark
+    @Group("timed")
+    @GroupThreads(2)
+    public Integer timedPoll() throws InterruptedException {
+        return this.queue.poll(TIMEOUT_MICROS, TimeUnit.MICROSECONDS);
+    }
+}
@@ -1,5 +1,7 @@
 module org.st.shc {
+    requires java.management;
     requires java.net.http;
+    requires jdk.management;
     requires javafx.controls;
     requires lombok;
     requires org.slf4j;
@@ -7,6 +9,10 @@ module org.st.shc {
 
     exports org.st.shc;
     exports org.st.shc.framework.i18n;
+    exports org.st.shc.framework.metrics;
     exports org.st.shc.services;
+    exports org.st.shc.services.limit;
+    exports org.st.shc.services.load;
+    exports org.st.shc.services.nio;
     exports org.st.shc.components;
 }
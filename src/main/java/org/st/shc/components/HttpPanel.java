@@ -8,18 +8,29 @@ import javafx.scene.control.TextArea;
 import javafx.scene.control.TextField;
 import javafx.scene.layout.ColumnConstraints;
 import javafx.scene.layout.GridPane;
+import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
 import javafx.scene.layout.RowConstraints;
 import javafx.scene.layout.StackPane;
-import javafx.scene.layout.VBox;
 import org.st.shc.framework.i18n.I18n;
+import org.st.shc.services.ContentType;
 import org.st.shc.services.HttpClientRequest;
 import org.st.shc.services.HttpClientService;
+import org.st.shc.services.HttpTimeouts;
+import org.st.shc.services.ResponseBodySinks;
+import org.st.shc.services.TimedHttpResponse;
 
 import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.Objects;
 import java.util.ResourceBundle;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
 
 /**
  * http 请求面板视图
@@ -34,7 +45,18 @@ public class HttpPanel extends StackPane {
     private final Label labelBody;
     private final TextArea fieldBody;
     private final TextArea fieldResponseBody;
+    private final Label labelTiming;
+    private final Label fieldTiming;
     private final Button btnSend;
+    private final Button btnCancel;
+
+    /** 响应体最多展示的字节数，超出部分只计数，避免大响应撑爆内存 */
+    private static final int MAX_DISPLAY_BYTES = 1024 * 1024;
+    /** 单次调用的总超时，卡住的接口不会一直占着连接 */
+    private static final Duration CALL_TIMEOUT = Duration.ofSeconds(60);
+
+    /** 进行中的调用，没有时为空 */
+    private volatile CompletableFuture<?> currentCall;
 
     private final HttpClientService httpClientService;
     private final I18n lang;
@@ -48,11 +70,17 @@ public class HttpPanel extends StackPane {
         this.labelBody = new Label();
         this.fieldBody = new TextArea("{\n  \"aaa\": \"111\"\n}");
         this.fieldResponseBody = new TextArea("");
+        this.labelTiming = new Label();
+        this.fieldTiming = new Label();
         this.btnSend = new Button();
+        this.btnCancel = new Button();
+        this.btnCancel.setDisable(true);
 
         lang.bind(this.labelUrl, "http.url");
         lang.bind(this.labelBody, "http.body");
+        lang.bind(this.labelTiming, "http.timing");
         lang.bind(this.btnSend, "http.send");
+        lang.bind(this.btnCancel, "http.cancel");
 
         this.initLayout();
         this.initBindings();
@@ -70,7 +98,8 @@ public class HttpPanel extends StackPane {
         RowConstraints rowResponse = new RowConstraints(100, 100, Integer.MAX_VALUE);
         rowResponse.setVgrow(Priority.ALWAYS);
         RowConstraints rowBtn = new RowConstraints();
-        this.grid.getRowConstraints().addAll(new RowConstraints(), new RowConstraints(), rowBody, rowResponse, rowBtn);
+        this.grid.getRowConstraints().addAll(new RowConstraints(), new RowConstraints(), rowBody, rowResponse,
+                new RowConstraints(), rowBtn);
         this.getChildren().add(this.grid);
 
         this.grid.add(this.labelUrl, 0, 0);
@@ -81,28 +110,85 @@ public class HttpPanel extends StackPane {
         this.grid.add(this.fieldBody, 0, 2, 2, 1);
 
         this.grid.add(this.fieldResponseBody, 0, 3, 2, 1);
-        VBox v = new VBox(this.btnSend);
-        v.setAlignment(Pos.BASELINE_RIGHT);
-        this.grid.add(v, 0, 4, 2, 1);
+
+        this.grid.add(this.labelTiming, 0, 4);
+        this.grid.add(this.fieldTiming, 1, 4);
+
+        HBox h = new HBox(8, this.btnCancel, this.btnSend);
+        h.setAlignment(Pos.BASELINE_RIGHT);
+        this.grid.add(h, 0, 5, 2, 1);
     }
 
     private void initBindings() {
         this.btnSend.armedProperty().addListener((observable, oldValue, newValue) -> {
             if (newValue) {
-                CompletableFuture<HttpResponse<String>> future =
-                        httpClientService.httpCall(HttpClientRequest.builder()
-                                .setUrl(this.fieldUrl.getText())
-                                .build());
-                future.whenComplete((stringHttpResponse, throwable) -> {
+                CompletableFuture<TimedHttpResponse<ResponseBodySinks.BoundedBody>> future =
+                        httpClientService.httpCallTimed(HttpClientRequest.builder()
+                                        .setUrl(this.fieldUrl.getText())
+                                        .setTimeouts(HttpTimeouts.total(CALL_TIMEOUT))
+                                        .build(), httpClientService.getDefaultClientConfig(),
+                                ResponseBodySinks.boundedPrefix(MAX_DISPLAY_BYTES));
+                this.currentCall = future;
+                this.btnCancel.setDisable(false);
+                future.whenComplete((timed, throwable) -> {
                     String content;
+                    String timing;
                     if (throwable != null) {
                         content = throwable.toString();
+                        timing = null;
                     } else {
-                        content = stringHttpResponse.body();
+                        content = this.displayBody(timed.response());
+                        timing = timed.timing().toString();
                     }
-                    Platform.runLater(() -> this.fieldResponseBody.setText(content));
+                    Platform.runLater(() -> {
+                        if (this.currentCall == future) {
+                            this.currentCall = null;
+                            this.btnCancel.setDisable(true);
+                        }
+                        this.fieldResponseBody.setText(content);
+                        this.fieldTiming.setText(timing != null ? timing
+                                : this.lang.r(outcomeKey(throwable)).get());
+                    });
                 });
             }
         });
+        this.btnCancel.setOnAction(event -> {
+            CompletableFuture<?> call = this.currentCall;
+            if (call != null) {
+                call.cancel(true);
+            }
+        });
+    }
+
+    /**
+     * 失败调用的结果描述
+     *
+     * @param throwable 失败原因
+     * @return i18n key
+     */
+    private static String outcomeKey(Throwable throwable) {
+        Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+                ? throwable.getCause() : throwable;
+        if (cause instanceof CancellationException) {
+            return "http.outcome.cancelled";
+        } else if (cause instanceof TimeoutException || cause instanceof HttpTimeoutException) {
+            return "http.outcome.timedOut";
+        } else {
+            return "http.outcome.failed";
+        }
+    }
+
+    private String displayBody(HttpResponse<ResponseBodySinks.BoundedBody> response) {
+        ContentType contentType = ContentType.parse(
+                response.headers().firstValue(HttpClientService.CONTENT_TYPE).orElse(null));
+        Charset charset = contentType != null && contentType.charset() != null
+                ? contentType.charset()
+                : StandardCharsets.UTF_8;
+        ResponseBodySinks.BoundedBody body = response.body();
+        String text = body.asString(charset);
+        if (body.truncated()) {
+            text += "\n... (" + body.totalBytes() + " bytes)";
+        }
+        return text;
     }
 }
@@ -4,8 +4,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.st.shc.framework.bean.BeanDefinition;
 import org.st.shc.framework.bean.helper.BeanDefinitionsProvider;
+import org.st.shc.framework.concurrent.AdaptivePoolSizer;
 import org.st.shc.framework.concurrent.ExecutorsBuilder;
+import org.st.shc.framework.concurrent.TaskTimingDecorator;
 import org.st.shc.framework.concurrent.ThreadFactoryWithThreadId;
+import org.st.shc.services.HostBulkheads;
 import org.st.shc.services.HttpClientService;
 
 import java.util.Collection;
@@ -27,15 +30,40 @@ public class HttpClientServiceConfiguration implements BeanDefinitionsProvider {
 
     /** 彬名称 */
     public static final String BEAN_NAME_EXECUTOR_NAME = "httpClientServiceExecutor";
+    /** 线程池任务计时的彬名称 */
+    public static final String BEAN_NAME_EXECUTOR_TIMING_NAME = "httpClientServiceExecutorTiming";
+    /** 线程池大小调整器的彬名称 */
+    public static final String BEAN_NAME_EXECUTOR_SIZER_NAME = "httpClientServiceExecutorSizer";
+
+    /** 每个主机的并发上限，远小于线程池队列，一个慢主机占不满整个线程池；压测的发送路径不经过隔舱 */
+    private static final int HOST_MAX_CONCURRENT = 16;
+    /** 每个主机的等待队列长度 */
+    private static final int HOST_MAX_QUEUED = 128;
 
     @Override
     public Collection<BeanDefinition<?>> getDefinitions() {
         return List.of(
+                httpClientServiceExecutorTiming(),
                 httpClientServiceExecutor(),
+                httpClientServiceExecutorSizer(),
                 httpClientService()
         );
     }
 
+    /**
+     * 创建线程池任务计时 Bean 定义，可按名称取出查看排队与执行时间
+     *
+     * @return Bean 定义
+     */
+    public BeanDefinition<TaskTimingDecorator> httpClientServiceExecutorTiming() {
+
+        return BeanDefinition.<TaskTimingDecorator>builder()
+                .setType(TaskTimingDecorator.class)
+                .setName(BEAN_NAME_EXECUTOR_TIMING_NAME)
+                .setCreator(params -> new TaskTimingDecorator(BEAN_NAME_EXECUTOR_NAME))
+                .build();
+    }
+
     /**
      * 创建 ThreadPoolExecutor Bean 定义
      *
@@ -43,11 +71,15 @@ public class HttpClientServiceConfiguration implements BeanDefinitionsProvider {
      */
     public BeanDefinition<ThreadPoolExecutor> httpClientServiceExecutor() {
 
+        BeanDefinition.BeanRequirement<TaskTimingDecorator> requireTiming = BeanDefinition.BeanRequirement
+                .requireObject(TaskTimingDecorator.class, BEAN_NAME_EXECUTOR_TIMING_NAME);
         return BeanDefinition.<ThreadPoolExecutor>builder()
                 .setType(ThreadPoolExecutor.class)
                 .setName(BEAN_NAME_EXECUTOR_NAME)
+                .addRequirement(requireTiming)
                 .setCreator(params -> ExecutorsBuilder.newBuilder()
                         .setThreadFactory(new ThreadFactoryWithThreadId(tid -> "http-client-t-" + tid) {})
+                        .setDecorator(params.get(requireTiming))
                         .setCorePoolSize(16)
                         .setMaximumPoolSize(32)
                         .setWorkQueue(new ArrayBlockingQueue<>(1024))
@@ -63,6 +95,35 @@ public class HttpClientServiceConfiguration implements BeanDefinitionsProvider {
                 .build();
     }
 
+    /**
+     * 创建线程池大小调整器 Bean 定义。线程数在 max(4, CPU 数) 与 max(32, CPU 数的 8 倍) 之间自动调整，
+     * 同一份配置在笔记本与多核压测机上都不必手工改线程数
+     *
+     * @return Bean 定义
+     */
+    public BeanDefinition<AdaptivePoolSizer> httpClientServiceExecutorSizer() {
+
+        BeanDefinition.BeanRequirement<ThreadPoolExecutor> requireExecutor = BeanDefinition.BeanRequirement
+                .requireObject(ThreadPoolExecutor.class, BEAN_NAME_EXECUTOR_NAME);
+        BeanDefinition.BeanRequirement<TaskTimingDecorator> requireTiming = BeanDefinition.BeanRequirement
+                .requireObject(TaskTimingDecorator.class, BEAN_NAME_EXECUTOR_TIMING_NAME);
+        int cpus = Runtime.getRuntime().availableProcessors();
+        return BeanDefinition.<AdaptivePoolSizer>builder()
+                .setType(AdaptivePoolSizer.class)
+                .setName(BEAN_NAME_EXECUTOR_SIZER_NAME)
+                .addRequirement(requireExecutor)
+                .addRequirement(requireTiming)
+                .setCreator(params -> ExecutorsBuilder.newAdaptiveSizer(params.get(requireExecutor))
+                        .setName(BEAN_NAME_EXECUTOR_NAME)
+                        .setTiming(params.get(requireTiming))
+                        .setMinPoolSize(Math.max(4, cpus))
+                        .setMaxPoolSize(Math.max(32, cpus * 8))
+                        .build())
+                .setInitializer(AdaptivePoolSizer::start)
+                .setDestoryer(AdaptivePoolSizer::close)
+                .build();
+    }
+
     /**
      * 创建 HttpClientService Bean 定义
      *
@@ -77,8 +138,8 @@ public class HttpClientServiceConfiguration implements BeanDefinitionsProvider {
                 .setName("httpClientService")
                 .addRequirement(requireExecutor)
                 .setCreator(params -> new HttpClientService(params.get(requireExecutor)))
-                .setInitializer(instance -> {
-                })
+                .setInitializer(instance -> instance.setHostBulkheads(
+                        new HostBulkheads(HOST_MAX_CONCURRENT, HOST_MAX_QUEUED)))
                 .setDestoryer(instance -> {
                 })
                 .build();
@@ -0,0 +1,483 @@
+package org.st.shc.framework.concurrent;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.st.shc.framework.metrics.LatencyHistogram;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按运行情况自动调整线程池大小的爬山控制器。
+ * <p>
+ * 每个周期采样一次完成任务的吞吐、排队时间（来自 {@link TaskTimingDecorator} ，可选）与整机 CPU 使用率，
+ * 然后在上下限之间调整核心线程数，最大线程数固定为上限，只在等待队列满时作为突发的余量：
+ * <ul>
+ *     <li>CPU 使用率超过上限时缩小，再加线程只会增加切换；</li>
+ *     <li>队列为空、排队时间低于目标且多半线程空闲时缩小；</li>
+ *     <li>有积压时沿当前方向走一步，上一步让吞吐明显下降就掉头，变化不明显就原地观察一个周期。</li>
+ * </ul>
+ * 每次调整都会以 info 级别记录原因与采样数据。被调整的线程池关闭后自动停止。
+ *
+ * @author abomb4 2026-10-17
+ */
+public class AdaptivePoolSizer implements AutoCloseable {
+
+    /** Slf4J */
+    private static final Logger log = LoggerFactory.getLogger(AdaptivePoolSizer.class);
+
+    /** 吞吐变化小于此比例视为没有变化 */
+    private static final double THROUGHPUT_TOLERANCE = 0.05;
+
+    /** 名称，用于日志 */
+    private final String name;
+    /** 被调整的线程池 */
+    private final ThreadPoolExecutor executor;
+    /** 排队时间来源，可以为空 */
+    private final TaskTimingDecorator timing;
+    /** 线程数下限 */
+    private final int minPoolSize;
+    /** 线程数上限 */
+    private final int maxPoolSize;
+    /** 每次调整的线程数 */
+    private final int step;
+    /** 采样周期 */
+    private final Duration interval;
+    /** CPU 使用率上限 */
+    private final double cpuCeiling;
+    /** 目标排队时间，纳秒 */
+    private final long queueWaitTargetNanos;
+    /** 整机 CPU 使用率来源 */
+    private final OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+
+    /** 采样线程 */
+    private ScheduledThreadPoolExecutor scheduler;
+    /** 采样任务 */
+    private ScheduledFuture<?> sampling;
+    /** 最近一次决定 */
+    private volatile Decision lastDecision;
+
+    /** 上次采样时刻，以下状态只在采样线程中读写 */
+    private long lastSampleNanos;
+    /** 上次采样时的完成任务数 */
+    private long lastCompleted;
+    /** 上次采样时的排队时间 */
+    private LatencyHistogram.Snapshot lastQueueWait = LatencyHistogram.Snapshot.EMPTY;
+    /** 上个周期的吞吐 */
+    private double lastThroughput;
+    /** 上个周期爬山走的一步，正为加线程，负为减线程， 0 为没有走；CPU 饱和与空闲时的缩小不算爬山 */
+    private int lastClimb;
+    /** 爬山方向， 1 为加线程， -1 为减线程 */
+    private int direction = 1;
+
+    /**
+     * 由构造器构造
+     *
+     * @param builder 构造器
+     */
+    private AdaptivePoolSizer(Builder builder) {
+        this.name = builder.name;
+        this.executor = builder.executor;
+        this.timing = builder.timing;
+        this.minPoolSize = builder.minPoolSize;
+        this.maxPoolSize = builder.maxPoolSize;
+        this.step = builder.step;
+        this.interval = builder.interval;
+        this.cpuCeiling = builder.cpuCeiling;
+        this.queueWaitTargetNanos = builder.queueWaitTarget.toNanos();
+    }
+
+    /**
+     * 新建构造器
+     *
+     * @param executor 被调整的线程池
+     * @return 构造器
+     */
+    public static Builder newBuilder(@Nonnull ThreadPoolExecutor executor) {
+        return new Builder(executor);
+    }
+
+    /**
+     * 开始周期采样，线程池先被放进上下限之间
+     */
+    public synchronized void start() {
+        if (this.scheduler != null) {
+            throw new IllegalStateException("AdaptivePoolSizer " + this.name + " already started");
+        }
+        int initial = Math.max(this.minPoolSize, Math.min(this.maxPoolSize, this.executor.getCorePoolSize()));
+        this.resize(initial);
+        this.lastSampleNanos = System.nanoTime();
+        this.lastCompleted = this.executor.getCompletedTaskCount();
+        this.lastQueueWait = this.timing == null ? LatencyHistogram.Snapshot.EMPTY : this.timing.stats().queueWait();
+        log.info("AdaptivePoolSizer {} started, pool size {} within [{}, {}], interval {}",
+                this.name, initial, this.minPoolSize, this.maxPoolSize, this.interval);
+
+        this.scheduler = ExecutorsBuilder.newScheduledBuilder()
+                .setCorePoolSize(1)
+                .setThreadFactory(new ThreadFactoryWithThreadId(tid -> "adaptive-sizer-" + this.name) {})
+                .build();
+        long period = this.interval.toNanos();
+        this.sampling = this.scheduler.scheduleWithFixedDelay(this::sample, period, period, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 最近一次决定
+     *
+     * @return 决定，还没有采样过时为空
+     */
+    @Nullable
+    public Decision lastDecision() {
+        return this.lastDecision;
+    }
+
+    /**
+     * 停止采样，线程池保持当前大小
+     */
+    @Override
+    public synchronized void close() {
+        if (this.sampling != null) {
+            this.sampling.cancel(false);
+        }
+        if (this.scheduler != null) {
+            this.scheduler.shutdown();
+        }
+    }
+
+    /**
+     * 采样一次并决定是否调整
+     */
+    private void sample() {
+        try {
+            if (this.executor.isShutdown()) {
+                log.info("AdaptivePoolSizer {} stopped because the pool is shut down", this.name);
+                this.close();
+                return;
+            }
+            this.decide(this.measure());
+        } catch (RuntimeException e) {
+            // 不让异常取消周期任务
+            log.warn("AdaptivePoolSizer {} sampling failed", this.name, e);
+        }
+    }
+
+    /**
+     * 采集本周期数据
+     *
+     * @return 采样
+     */
+    private Sample measure() {
+        long now = System.nanoTime();
+        long completed = this.executor.getCompletedTaskCount();
+        double seconds = Math.max(1, now - this.lastSampleNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+        double throughput = (completed - this.lastCompleted) / seconds;
+        this.lastSampleNanos = now;
+        this.lastCompleted = completed;
+
+        double queueWaitNanos = -1;
+        if (this.timing != null) {
+            LatencyHistogram.Snapshot current = this.timing.stats().queueWait();
+            queueWaitNanos = windowMean(this.lastQueueWait, current);
+            this.lastQueueWait = current;
+        }
+
+        double cpu = -1;
+        if (this.os instanceof com.sun.management.OperatingSystemMXBean sunOs) {
+            cpu = sunOs.getCpuLoad();
+        }
+        return new Sample(throughput, queueWaitNanos, cpu, this.executor.getQueue().size(),
+                this.executor.getActiveCount());
+    }
+
+    /**
+     * 爬山决定
+     *
+     * @param sample 本周期采样
+     */
+    void decide(Sample sample) {
+        int size = this.executor.getCorePoolSize();
+        boolean backlog = sample.queued() > 0
+                || (sample.queueWaitNanos() >= 0 && sample.queueWaitNanos() >= this.queueWaitTargetNanos);
+
+        int target = size;
+        String reason;
+        boolean climbing = false;
+        if (sample.cpuLoad() >= this.cpuCeiling) {
+            target = size - this.step;
+            reason = "cpu saturated";
+        } else if (!backlog) {
+            if (sample.active() < size / 2) {
+                target = size - this.step;
+                reason = "idle";
+            } else {
+                reason = "no backlog";
+            }
+        } else if (this.lastClimb == 0) {
+            // 上个周期没有爬山，吞吐的变化与方向无关，重新试探一步
+            climbing = true;
+            target = size + this.direction * this.step;
+            reason = "backlog, probing " + (this.direction > 0 ? "up" : "down");
+        } else {
+            climbing = true;
+            double change = (sample.throughput() - this.lastThroughput) / Math.max(1, this.lastThroughput);
+            if (change < -THROUGHPUT_TOLERANCE) {
+                this.direction = -Integer.signum(this.lastClimb);
+                target = size + this.direction * this.step;
+                reason = String.format("throughput %+.0f%% after last step, reversing", change * 100);
+            } else if (change > THROUGHPUT_TOLERANCE) {
+                this.direction = Integer.signum(this.lastClimb);
+                target = size + this.direction * this.step;
+                reason = String.format("throughput %+.0f%% after last step, continuing", change * 100);
+            } else {
+                reason = "throughput flat after last step, holding";
+            }
+        }
+
+        target = Math.max(this.minPoolSize, Math.min(this.maxPoolSize, target));
+        if (backlog && target == size && size == (this.direction > 0 ? this.maxPoolSize : this.minPoolSize)) {
+            // 撞到边界，下次从另一个方向试
+            this.direction = -this.direction;
+        }
+
+        Decision decision = new Decision(size, target, sample.throughput(), sample.queueWaitNanos(),
+                sample.cpuLoad(), sample.queued(), reason);
+        this.lastDecision = decision;
+        this.lastThroughput = sample.throughput();
+        this.lastClimb = climbing ? target - size : 0;
+        if (target != size) {
+            this.resize(target);
+            log.info("AdaptivePoolSizer {} resize: {}", this.name, decision);
+        } else if (log.isDebugEnabled()) {
+            log.debug("AdaptivePoolSizer {} keep: {}", this.name, decision);
+        }
+    }
+
+    /**
+     * 调整核心线程数，最大线程数保持为上限
+     *
+     * @param size 核心线程数
+     */
+    private void resize(int size) {
+        if (this.executor.getMaximumPoolSize() < this.maxPoolSize) {
+            this.executor.setMaximumPoolSize(this.maxPoolSize);
+        }
+        this.executor.setCorePoolSize(size);
+        if (this.executor.getMaximumPoolSize() > this.maxPoolSize) {
+            this.executor.setMaximumPoolSize(this.maxPoolSize);
+        }
+    }
+
+    /**
+     * 两次快照之间新增记录的平均值
+     *
+     * @param before 前一次快照
+     * @param after  后一次快照
+     * @return 平均值，没有新增记录时为 0
+     */
+    private static double windowMean(LatencyHistogram.Snapshot before, LatencyHistogram.Snapshot after) {
+        if (after.totalCount() < before.totalCount()) {
+            // 中间被清空过
+            before = LatencyHistogram.Snapshot.EMPTY;
+        }
+        long count = after.totalCount() - before.totalCount();
+        if (count <= 0) {
+            return 0;
+        }
+        double sum = after.mean() * after.totalCount() - before.mean() * before.totalCount();
+        return Math.max(0, sum / count);
+    }
+
+    /**
+     * 一个周期的采样
+     *
+     * @param throughput     每秒完成任务数
+     * @param queueWaitNanos 平均排队时间，没有计时来源时为 -1
+     * @param cpuLoad        整机 CPU 使用率 0 ~ 1 ，取不到时为负数
+     * @param queued         等待队列长度
+     * @param active         正在执行任务的线程数
+     */
+    record Sample(double throughput, double queueWaitNanos, double cpuLoad, int queued, int active) {
+    }
+
+    /**
+     * 一次调整决定
+     *
+     * @param from           调整前的核心线程数
+     * @param to             调整后的核心线程数，不调整时与调整前相同
+     * @param throughput     本周期每秒完成任务数
+     * @param queueWaitNanos 本周期平均排队时间，没有计时来源时为 -1
+     * @param cpuLoad        整机 CPU 使用率 0 ~ 1 ，取不到时为负数
+     * @param queued         等待队列长度
+     * @param reason         原因
+     */
+    public record Decision(int from, int to, double throughput, double queueWaitNanos, double cpuLoad, int queued,
+                           String reason) {
+
+        @Override
+        public String toString() {
+            return String.format("%d -> %d (%s), throughput=%.1f/s, queueWait=%s, cpu=%s, queued=%d",
+                    from, to, reason, throughput,
+                    queueWaitNanos < 0 ? "n/a" : String.format("%.2fms", queueWaitNanos / 1_000_000),
+                    cpuLoad < 0 ? "n/a" : String.format("%.0f%%", cpuLoad * 100), queued);
+        }
+    }
+
+    /** 构造器 */
+    public static class Builder {
+
+        /** 被调整的线程池 */
+        private final ThreadPoolExecutor executor;
+        /** 名称，用于日志 */
+        private String name = "pool";
+        /** 排队时间来源 */
+        private TaskTimingDecorator timing;
+        /** 线程数下限 */
+        private int minPoolSize = Runtime.getRuntime().availableProcessors();
+        /** 线程数上限 */
+        private int maxPoolSize = Runtime.getRuntime().availableProcessors() * 16;
+        /** 每次调整的线程数 */
+        private int step = 2;
+        /** 采样周期 */
+        private Duration interval = Duration.ofSeconds(5);
+        /** CPU 使用率上限 */
+        private double cpuCeiling = 0.9;
+        /** 目标排队时间 */
+        private Duration queueWaitTarget = Duration.ofMillis(10);
+
+        /**
+         * 完整构造
+         *
+         * @param executor 被调整的线程池
+         */
+        private Builder(@Nonnull ThreadPoolExecutor executor) {
+            this.executor = Objects.requireNonNull(executor, "executor cannot be null");
+        }
+
+        /**
+         * 构造，需调用 {@link AdaptivePoolSizer#start()} 开始调整
+         *
+         * @return 调整器
+         */
+        public AdaptivePoolSizer build() {
+            if (this.minPoolSize > this.maxPoolSize) {
+                throw new IllegalArgumentException("minPoolSize cannot greater than maxPoolSize");
+            }
+            return new AdaptivePoolSizer(this);
+        }
+
+        /**
+         * 设置名称，用于日志
+         *
+         * @param name 名称
+         * @return this
+         */
+        public Builder setName(@Nonnull String name) {
+            this.name = Objects.requireNonNull(name, "name cannot be null");
+            return this;
+        }
+
+        /**
+         * 设置排队时间来源，需同时作为该线程池的装饰器；不设置时只按等待队列长度判断积压
+         *
+         * @param timing 任务计时装饰器
+         * @return this
+         */
+        public Builder setTiming(@Nullable TaskTimingDecorator timing) {
+            this.timing = timing;
+            return this;
+        }
+
+        /**
+         * 设置线程数下限，默认为 CPU 数
+         *
+         * @param minPoolSize 下限
+         * @return this
+         */
+        public Builder setMinPoolSize(int minPoolSize) {
+            if (minPoolSize < 1) {
+                throw new IllegalArgumentException("minPoolSize cannot lesser than 1");
+            }
+            this.minPoolSize = minPoolSize;
+            return this;
+        }
+
+        /**
+         * 设置线程数上限，默认为 CPU 数的 16 倍
+         *
+         * @param maxPoolSize 上限
+         * @return this
+         */
+        public Builder setMaxPoolSize(int maxPoolSize) {
+            if (maxPoolSize < 1) {
+                throw new IllegalArgumentException("maxPoolSize cannot lesser than 1");
+            }
+            this.maxPoolSize = maxPoolSize;
+            return this;
+        }
+
+        /**
+         * 设置每次调整的线程数，默认 2
+         *
+         * @param step 线程数
+         * @return this
+         */
+        public Builder setStep(int step) {
+            if (step < 1) {
+                throw new IllegalArgumentException("step cannot lesser than 1");
+            }
+            this.step = step;
+            return this;
+        }
+
+        /**
+         * 设置采样周期，默认 5 秒
+         *
+         * @param interval 周期
+         * @return this
+         */
+        public Builder setInterval(@Nonnull Duration interval) {
+            Objects.requireNonNull(interval, "interval cannot be null");
+            if (interval.isNegative() || interval.isZero()) {
+                throw new IllegalArgumentException("interval must be positive");
+            }
+            this.interval = interval;
+            return this;
+        }
+
+        /**
+         * 设置整机 CPU 使用率上限，默认 0.9
+         *
+         * @param cpuCeiling 0 ~ 1
+         * @return this
+         */
+        public Builder setCpuCeiling(double cpuCeiling) {
+            if (cpuCeiling <= 0 || cpuCeiling > 1) {
+                throw new IllegalArgumentException("cpuCeiling must be in (0, 1]");
+            }
+            this.cpuCeiling = cpuCeiling;
+            return this;
+        }
+
+        /**
+         * 设置目标排队时间，平均排队时间达到此值视为积压，默认 10 毫秒
+         *
+         * @param queueWaitTarget 排队时间
+         * @return this
+         */
+        public Builder setQueueWaitTarget(@Nonnull Duration queueWaitTarget) {
+            Objects.requireNonNull(queueWaitTarget, "queueWaitTarget cannot be null");
+            if (queueWaitTarget.isNegative()) {
+                throw new IllegalArgumentException("queueWaitTarget cannot be negative");
+            }
+            this.queueWaitTarget = queueWaitTarget;
+            return this;
+        }
+    }
+}
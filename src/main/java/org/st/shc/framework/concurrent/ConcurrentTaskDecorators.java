@@ -1,10 +1,19 @@
 package org.st.shc.framework.concurrent;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.RunnableScheduledFuture;
 
 /**
  * 集合一堆裱框师的裱框师
+ * <p>
+ * 装饰器按列表顺序一层套一层，靠前的在里面，与逐个调用各装饰器的结果一致。构造时把相邻的
+ * {@link TaskLifecycleDecorator} 合并成一层，不论连续有几个都只多一个包装对象、只取一次时刻；
+ * 被普通装饰器隔开的生命周期装饰器各自成层、留在原来的位置，排在普通装饰器前面的仍在它里面，
+ * 看得到它准备好的上下文。
+ * 没有任何装饰器时原样返回任务，不产生包装。嵌套的本类实例会被展开。
  *
  * @author yangrl14628
  * @date 2022-05-18 09:37:11
@@ -13,16 +22,56 @@ import java.util.concurrent.Callable;
  */
 public class ConcurrentTaskDecorators implements ConcurrentTaskDecorator {
 
-    /** 集合 */
-    private final Collection<ConcurrentTaskDecorator> decorators;
+    /** 各层装饰器，从里到外；相邻的生命周期装饰器已合并为 {@link FusedTasks.Hooks} */
+    private final ConcurrentTaskDecorator[] stages;
 
     /**
      * 完整构造
      *
-     * @param decorators 装饰器
+     * @param decorators 装饰器，按顺序生效，空元素会被忽略
      */
     public ConcurrentTaskDecorators(Collection<ConcurrentTaskDecorator> decorators) {
-        this.decorators = decorators;
+        List<ConcurrentTaskDecorator> flat = new ArrayList<>(decorators.size());
+        for (ConcurrentTaskDecorator decorator : decorators) {
+            if (decorator instanceof ConcurrentTaskDecorators nested) {
+                for (ConcurrentTaskDecorator stage : nested.stages) {
+                    if (stage instanceof FusedTasks.Hooks hooks) {
+                        flat.addAll(List.of(hooks.hooks()));
+                    } else {
+                        flat.add(stage);
+                    }
+                }
+            } else if (decorator != null) {
+                flat.add(decorator);
+            }
+        }
+
+        List<ConcurrentTaskDecorator> merged = new ArrayList<>(flat.size());
+        List<TaskLifecycleDecorator> run = new ArrayList<>();
+        for (ConcurrentTaskDecorator decorator : flat) {
+            if (decorator instanceof TaskLifecycleDecorator hook) {
+                run.add(hook);
+                continue;
+            }
+            if (!run.isEmpty()) {
+                merged.add(new FusedTasks.Hooks(run.toArray(new TaskLifecycleDecorator[0])));
+                run.clear();
+            }
+            merged.add(decorator);
+        }
+        if (!run.isEmpty()) {
+            merged.add(new FusedTasks.Hooks(run.toArray(new TaskLifecycleDecorator[0])));
+        }
+        this.stages = merged.toArray(new ConcurrentTaskDecorator[0]);
+    }
+
+    /**
+     * 是否没有任何装饰器，此时装饰方法原样返回任务
+     *
+     * @return 是否为空
+     */
+    public boolean isEmpty() {
+        return this.stages.length == 0;
     }
 
     @Override
@@ -31,8 +80,8 @@ public class ConcurrentTaskDecorators implements ConcurrentTaskDecorator {
             return null;
         }
 
-        for (ConcurrentTaskDecorator decorator : decorators) {
-            runnable = decorator.decorate(runnable);
+        for (ConcurrentTaskDecorator stage : this.stages) {
+            runnable = stage.decorate(runnable);
         }
 
         return runnable;
@@ -44,10 +93,30 @@ public class ConcurrentTaskDecorators implements ConcurrentTaskDecorator {
             return null;
         }
 
-        for (ConcurrentTaskDecorator decorator : decorators) {
-            callable = decorator.decorate(callable);
+        for (ConcurrentTaskDecorator stage : this.stages) {
+            callable = stage.decorate(callable);
         }
 
         return callable;
     }
+
+    @Override
+    public <V> RunnableScheduledFuture<V> decorate(RunnableScheduledFuture<V> task) {
+        if (this.isEmpty()) {
+            return task;
+        }
+
+        // 里层的生命周期装饰器按计划时刻计算排队时间，最外层与任务本身合成一个对象
+        int outermost = this.stages.length - 1;
+        Runnable body = task;
+        for (int i = 0; i < outermost; i++) {
+            body = this.stages[i] instanceof FusedTasks.Hooks hooks
+                    ? new FusedTasks.FusedScheduledRunnable(hooks.hooks(), task, body)
+                    : this.stages[i].decorate(body);
+        }
+
+        return this.stages[outermost] instanceof FusedTasks.Hooks hooks
+                ? new FusedTasks.FusedScheduledFuture<>(hooks.hooks(), task, body)
+                : new RunnableScheduledFutureDecorate<>(task, this.stages[outermost].decorate(body));
+    }
 }
@@ -1,15 +1,29 @@
 package org.st.shc.framework.concurrent;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
 import java.util.concurrent.RejectedExecutionHandler;
-import java.util.concurrent.RunnableFuture;
 import java.util.concurrent.RunnableScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * 线程池构造器，支持装饰器模式，每次创建任务时在 runnable 或 callable 外面套一层东西
@@ -39,6 +53,43 @@ public class ExecutorsBuilder {
         return new ThreadPoolExecutorBuilder();
     }
 
+    /**
+     * 构造每个任务一个虚拟线程的线程池，运行时不支持虚拟线程时退回平台线程
+     *
+     * @return 构造器
+     */
+    public static VirtualThreadExecutorBuilder newVirtualThreadBuilder() {
+        return new VirtualThreadExecutorBuilder();
+    }
+
+    /**
+     * 构造工作窃取线程池，适合解析、比对、断言等 CPU 密集的后处理
+     *
+     * @return 构造器
+     */
+    public static ForkJoinPoolBuilder newForkJoinBuilder() {
+        return new ForkJoinPoolBuilder();
+    }
+
+    /**
+     * 构造线程池大小的自动调整器，按吞吐、排队时间与 CPU 使用率在上下限之间调整线程数
+     *
+     * @param executor 被调整的线程池
+     * @return 构造器
+     */
+    public static AdaptivePoolSizer.Builder newAdaptiveSizer(ThreadPoolExecutor executor) {
+        return AdaptivePoolSizer.newBuilder(executor);
+    }
+
+    /**
+     * 当前运行时是否支持虚拟线程
+     *
+     * @return 是否支持
+     */
+    public static boolean isVirtualThreadSupported() {
+        return VirtualThreads.SUPPORTED;
+    }
+
     /** 构造定时线程池 */
     public static class ScheduledThreadPoolExecutorBuilder {
 
@@ -57,6 +108,7 @@ public class ExecutorsBuilder {
          * @return 线程池
          */
         public ScheduledThreadPoolExecutor build() {
+            ConcurrentTaskDecorator decorator = effective(this.decorator);
             if (threadFactory != null && rejectExecutionHandler != null) {
                 if (decorator != null) {
                     return new ScheduledThreadPoolExecutorDecorated(corePoolSize, threadFactory,
@@ -137,7 +189,9 @@ public class ExecutorsBuilder {
             return this;
         }
 
-        /** 带有装饰器的计划线程池 */
+        /**
+         * 带有装饰器的计划线程池。execute 与 submit 最终都经由 schedule 进入 decorateTask ，只在那里装饰一次
+         */
         private static class ScheduledThreadPoolExecutorDecorated extends ScheduledThreadPoolExecutor {
 
             /** 任务装饰器 */
@@ -214,21 +268,6 @@ public class ExecutorsBuilder {
             protected <V> RunnableScheduledFuture<V> decorateTask(Runnable runnable, RunnableScheduledFuture<V> task) {
                 return decorator.decorate(super.decorateTask(runnable, task));
             }
-
-            @Override
-            public void execute(Runnable command) {
-                super.execute(decorator.decorate(command));
-            }
-
-            @Override
-            protected <V> RunnableFuture<V> newTaskFor(Callable<V> c) {
-                return super.newTaskFor(decorator.decorate(c));
-            }
-
-            @Override
-            protected <V> RunnableFuture<V> newTaskFor(Runnable r, V v) {
-                return super.newTaskFor(decorator.decorate(r), v);
-            }
         }
     }
 
@@ -257,6 +296,7 @@ public class ExecutorsBuilder {
          * @return 线程池
          */
         public ThreadPoolExecutor build() {
+            ConcurrentTaskDecorator decorator = effective(this.decorator);
             if (threadFactory != null && rejectExecutionHandler != null) {
                 if (decorator != null) {
                     return new ThreadPoolExecutorDecorated(corePoolSize, maximumPoolSize, keepAliveTime,
@@ -317,7 +357,7 @@ public class ExecutorsBuilder {
          * @return this
          */
         public ThreadPoolExecutorBuilder setMaximumPoolSize(int maximumPoolSize) {
-            if (corePoolSize < 1) {
+            if (maximumPoolSize < 1) {
                 throw new IllegalArgumentException("maximumPoolSize cannot lesser than 1");
             }
             this.maximumPoolSize = maximumPoolSize;
@@ -363,6 +403,18 @@ public class ExecutorsBuilder {
             return this;
         }
 
+        /**
+         * 使用无锁的有界等待队列 {@link MpmcArrayBlockingQueue} ，
+         * 提交任务的线程多、任务短小时可减少默认 {@link ArrayBlockingQueue} 单把锁上的争抢
+         *
+         * @param capacity 容量，向上取整到 2 的幂，至少为 2
+         * @return this
+         */
+        public ThreadPoolExecutorBuilder setLockFreeWorkQueue(int capacity) {
+            this.workQueue = new MpmcArrayBlockingQueue<>(capacity);
+            return this;
+        }
+
         /**
          * 设置线程工厂
          *
@@ -396,7 +448,9 @@ public class ExecutorsBuilder {
             return this;
         }
 
-        /** 带装饰的线程池 */
+        /**
+         * 带装饰的线程池。submit 生成的 FutureTask 也经由 execute 进入，只在 execute 装饰一次
+         */
         private static class ThreadPoolExecutorDecorated extends ThreadPoolExecutor {
 
             /** 任务装饰器 */
@@ -479,17 +533,533 @@ public class ExecutorsBuilder {
             public void execute(Runnable command) {
                 super.execute(decorator.decorate(command));
             }
+        }
+    }
+
+    /**
+     * 构造每个任务一个虚拟线程的线程池。
+     * <p>
+     * 本项目以 Java 17 编译，虚拟线程相关的 API 在运行时通过反射查找，只在启动时查找一次；
+     * 运行在 Java 21 及以上时每个任务一个虚拟线程，阻塞式的 I/O 代码可以撑到上万个并发调用。
+     * 运行时不支持时退回平台线程的缓存线程池，线程数以 {@link #setFallbackMaximumPoolSize} 为上限。
+     * 两种情况下任务都会经过装饰器，线程名都由 {@link ThreadFactoryWithThreadId} 决定。
+     */
+    public static class VirtualThreadExecutorBuilder {
+
+        /** 退回平台线程时默认的最大线程数 */
+        private static final int DEFAULT_FALLBACK_MAXIMUM_POOL_SIZE = 256;
+
+        /** 线程工厂，只用于命名 */
+        private ThreadFactoryWithThreadId threadFactory;
+        /** 任务装饰器 */
+        private ConcurrentTaskDecorator decorator;
+        /** 退回平台线程时的最大线程数 */
+        private int fallbackMaximumPoolSize = DEFAULT_FALLBACK_MAXIMUM_POOL_SIZE;
+        /** 退回平台线程时的拒绝策略 */
+        private RejectedExecutionHandler rejectExecutionHandler;
+
+        /**
+         * 构造线程池
+         *
+         * @return 线程池
+         */
+        public ExecutorService build() {
+            if (!VirtualThreads.SUPPORTED) {
+                return this.buildFallback();
+            }
+            ThreadFactory factory = new VirtualThreadFactory(this.threadFactory);
+            ExecutorService executor = VirtualThreads.newThreadPerTaskExecutor(factory);
+            ConcurrentTaskDecorator decorator = effective(this.decorator);
+            return decorator == null ? executor : new ExecutorServiceDecorated(executor, decorator);
+        }
+
+        /**
+         * 设置线程工厂。线程名按工厂的规则生成；工厂覆盖了 newThread 时，
+         * 它设置的守护、优先级、未捕获异常处理器与上下文类加载器同样生效
+         *
+         * @param threadFactory 线程工厂
+         * @return this
+         */
+        public VirtualThreadExecutorBuilder setThreadFactory(ThreadFactoryWithThreadId threadFactory) {
+            this.threadFactory = threadFactory;
+            return this;
+        }
+
+        /**
+         * 设置任务装饰器
+         *
+         * @param decorator 任务装饰器
+         * @return this
+         */
+        public VirtualThreadExecutorBuilder setDecorator(ConcurrentTaskDecorator decorator) {
+            this.decorator = decorator;
+            return this;
+        }
+
+        /**
+         * 设置退回平台线程时的最大线程数
+         *
+         * @param fallbackMaximumPoolSize 最大线程数
+         * @return this
+         */
+        public VirtualThreadExecutorBuilder setFallbackMaximumPoolSize(int fallbackMaximumPoolSize) {
+            if (fallbackMaximumPoolSize < 1) {
+                throw new IllegalArgumentException("fallbackMaximumPoolSize cannot lesser than 1");
+            }
+            this.fallbackMaximumPoolSize = fallbackMaximumPoolSize;
+            return this;
+        }
+
+        /**
+         * 设置退回平台线程时的拒绝策略，默认由提交任务的线程自己执行
+         *
+         * @param rejectExecutionHandler 拒绝策略
+         * @return this
+         */
+        public VirtualThreadExecutorBuilder setRejectExecutionHandler(
+                RejectedExecutionHandler rejectExecutionHandler) {
+            this.rejectExecutionHandler = rejectExecutionHandler;
+            return this;
+        }
+
+        /**
+         * 退回平台线程：没有核心线程，任务直接交给空闲线程或新建线程
+         *
+         * @return 线程池
+         */
+        private ExecutorService buildFallback() {
+            ThreadPoolExecutorBuilder builder = newBuilder()
+                    .setCorePoolSize(0)
+                    .setMaximumPoolSize(this.fallbackMaximumPoolSize)
+                    .setKeepAliveTime(60)
+                    .setKeepAliveTimeUnit(TimeUnit.SECONDS)
+                    .setWorkQueue(new SynchronousQueue<>())
+                    .setRejectExecutionHandler(this.rejectExecutionHandler == null
+                            ? new ThreadPoolExecutor.CallerRunsPolicy()
+                            : this.rejectExecutionHandler)
+                    .setDecorator(this.decorator);
+            if (this.threadFactory != null) {
+                builder.setThreadFactory(this.threadFactory);
+            }
+            return builder.build();
+        }
+
+        /** 创建虚拟线程，按命名工厂的规则命名 */
+        private static class VirtualThreadFactory implements ThreadFactory {
+
+            /** 虚拟线程工厂 */
+            private final ThreadFactory virtualFactory;
+            /** 命名工厂，可以为空 */
+            private final ThreadFactoryWithThreadId naming;
+
+            /**
+             * 完整构造
+             *
+             * @param naming 命名工厂，可以为空
+             */
+            private VirtualThreadFactory(ThreadFactoryWithThreadId naming) {
+                this.virtualFactory = VirtualThreads.newFactory();
+                this.naming = naming;
+            }
 
             @Override
-            protected <V> RunnableFuture<V> newTaskFor(Callable<V> c) {
-                return super.newTaskFor(decorator.decorate(c));
+            public Thread newThread(Runnable r) {
+                Thread thread = this.virtualFactory.newThread(r);
+                if (thread != null && this.naming != null) {
+                    thread.setName(this.naming.makeName(this.naming.threadIdGen.incrementAndGet()));
+                }
+                return thread;
+            }
+        }
+
+        /**
+         * 带装饰的线程池包装。只在 execute 时装饰一次，submit 生成的 FutureTask 也经由 execute 进入，不会重复装饰
+         */
+        private static class ExecutorServiceDecorated extends AbstractExecutorService {
+
+            /** 被包装的线程池 */
+            private final ExecutorService delegate;
+            /** 任务装饰器 */
+            private final ConcurrentTaskDecorator decorator;
+
+            /**
+             * 完整构造
+             *
+             * @param delegate  被包装的线程池
+             * @param decorator 任务装饰器
+             */
+            private ExecutorServiceDecorated(ExecutorService delegate, ConcurrentTaskDecorator decorator) {
+                this.delegate = delegate;
+                this.decorator = decorator;
             }
 
             @Override
-            protected <V> RunnableFuture<V> newTaskFor(Runnable r, V v) {
-                return super.newTaskFor(decorator.decorate(r), v);
+            public void execute(Runnable command) {
+                this.delegate.execute(this.decorator.decorate(command));
             }
+
+            @Override
+            public void shutdown() {
+                this.delegate.shutdown();
+            }
+
+            @Override
+            public List<Runnable> shutdownNow() {
+                return this.delegate.shutdownNow();
+            }
+
+            @Override
+            public boolean isShutdown() {
+                return this.delegate.isShutdown();
+            }
+
+            @Override
+            public boolean isTerminated() {
+                return this.delegate.isTerminated();
+            }
+
+            @Override
+            public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+                return this.delegate.awaitTermination(timeout, unit);
+            }
+        }
+    }
+
+    /**
+     * 构造工作窃取线程池。
+     * <p>
+     * 从外部提交的 Runnable 与 Callable （ execute 、 submit 、 invokeAll 、 invokeAny 及以 Runnable 身份提交的
+     * CompletableFuture 异步任务）会经过装饰器，且只装饰一次；直接提交的 {@link ForkJoinTask}
+     * 以及任务内部 fork 出的子任务不经过装饰器，以免每个细粒度子任务都多一层包装。
+     * 线程名由 {@link ThreadFactoryWithFactoryIdAndThreadId} 决定，运行状态可用 {@link ForkJoinPoolStats#of} 查看。
+     */
+    public static class ForkJoinPoolBuilder {
+
+        /** 并行度 */
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+        /** 线程工厂 */
+        private ThreadFactoryWithFactoryIdAndThreadId threadFactory;
+        /** 任务装饰器 */
+        private ConcurrentTaskDecorator decorator;
+        /** 工作线程未捕获异常的处理器 */
+        private Thread.UncaughtExceptionHandler uncaughtExceptionHandler;
+        /** 是否按先进先出调度从未 join 的任务 */
+        private boolean asyncMode;
+
+        /**
+         * 构造线程池
+         *
+         * @return 线程池
+         */
+        public ForkJoinPool build() {
+            ForkJoinPool.ForkJoinWorkerThreadFactory factory = this.threadFactory == null
+                    ? ForkJoinPool.defaultForkJoinWorkerThreadFactory
+                    : new NamedForkJoinWorkerThreadFactory(this.threadFactory);
+            ConcurrentTaskDecorator decorator = effective(this.decorator);
+            if (decorator != null) {
+                return new ForkJoinPoolDecorated(parallelism, factory, uncaughtExceptionHandler, asyncMode,
+                        decorator);
+            } else {
+                return new ForkJoinPool(parallelism, factory, uncaughtExceptionHandler, asyncMode);
+            }
+        }
+
+        /**
+         * 设置并行度，默认为 CPU 数
+         *
+         * @param parallelism 并行度
+         * @return this
+         */
+        public ForkJoinPoolBuilder setParallelism(int parallelism) {
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("parallelism cannot lesser than 1");
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * 设置线程工厂。线程名按工厂的规则生成；工厂覆盖了 newThread 时，
+         * 它设置的守护、优先级、未捕获异常处理器与上下文类加载器同样生效
+         *
+         * @param threadFactory 线程工厂
+         * @return this
+         */
+        public ForkJoinPoolBuilder setThreadFactory(ThreadFactoryWithFactoryIdAndThreadId threadFactory) {
+            this.threadFactory = threadFactory;
+            return this;
+        }
+
+        /**
+         * 设置任务装饰器
+         *
+         * @param decorator 任务装饰器
+         * @return this
+         */
+        public ForkJoinPoolBuilder setDecorator(ConcurrentTaskDecorator decorator) {
+            this.decorator = decorator;
+            return this;
+        }
+
+        /**
+         * 设置工作线程未捕获异常的处理器
+         *
+         * @param uncaughtExceptionHandler 处理器
+         * @return this
+         */
+        public ForkJoinPoolBuilder setUncaughtExceptionHandler(
+                Thread.UncaughtExceptionHandler uncaughtExceptionHandler) {
+            this.uncaughtExceptionHandler = uncaughtExceptionHandler;
+            return this;
+        }
+
+        /**
+         * 设置是否按先进先出调度，只提交不 join 的事件型任务适合开启，递归拆分的任务保持默认
+         *
+         * @param asyncMode 是否先进先出
+         * @return this
+         */
+        public ForkJoinPoolBuilder setAsyncMode(boolean asyncMode) {
+            this.asyncMode = asyncMode;
+            return this;
+        }
+
+        /**
+         * 按命名工厂的规则创建工作线程。工作线程必须是 {@link ForkJoinWorkerThread} ，不能直接用工厂造的线程；
+         * 工厂覆盖了 {@link ThreadFactoryWithFactoryIdAndThreadId#newThread} 时，先用它造一个不启动的样板线程，
+         * 再把名称、守护、优先级、未捕获异常处理器与上下文类加载器照搬到工作线程上，线程组无法更改
+         */
+        private static class NamedForkJoinWorkerThreadFactory implements ForkJoinPool.ForkJoinWorkerThreadFactory {
+
+            /** 样板线程的任务，不会被执行 */
+            private static final Runnable NOOP = () -> {
+            };
+
+            /** 命名工厂 */
+            private final ThreadFactoryWithFactoryIdAndThreadId naming;
+            /** 命名工厂是否覆盖了 newThread */
+            private final boolean customized;
+
+            /**
+             * 完整构造
+             *
+             * @param naming 命名工厂
+             */
+            private NamedForkJoinWorkerThreadFactory(ThreadFactoryWithFactoryIdAndThreadId naming) {
+                this.naming = naming;
+                this.customized = overridesNewThread(naming.getClass());
+            }
+
+            @Override
+            public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                if (thread == null) {
+                    return null;
+                }
+                if (!this.customized) {
+                    thread.setName(this.naming.makeName(this.naming.factoryId,
+                            this.naming.threadIdGen.incrementAndGet()));
+                    return thread;
+                }
+                Thread prototype = this.naming.newThread(NOOP);
+                if (prototype == null) {
+                    // 与 ThreadFactory 的约定一致，工厂拒绝创建时不再补线程
+                    return null;
+                }
+                thread.setName(prototype.getName());
+                thread.setDaemon(prototype.isDaemon());
+                thread.setPriority(prototype.getPriority());
+                thread.setContextClassLoader(prototype.getContextClassLoader());
+                Thread.UncaughtExceptionHandler handler = prototype.getUncaughtExceptionHandler();
+                if (handler != prototype.getThreadGroup()
+                        && thread.getUncaughtExceptionHandler() == thread.getThreadGroup()) {
+                    // 未设置时返回的是线程组；线程池设置了处理器时以线程池的为准
+                    thread.setUncaughtExceptionHandler(handler);
+                }
+                return thread;
+            }
+
+            /**
+             * 工厂的类是否覆盖了 {@link ThreadFactoryWithFactoryIdAndThreadId#newThread}
+             *
+             * @param type 工厂的类
+             * @return 是否覆盖
+             */
+            private static boolean overridesNewThread(Class<?> type) {
+                for (Class<?> c = type; c != ThreadFactoryWithFactoryIdAndThreadId.class; c = c.getSuperclass()) {
+                    try {
+                        c.getDeclaredMethod("newThread", Runnable.class);
+                        return true;
+                    } catch (NoSuchMethodException e) {
+                        // 看父类
+                    }
+                }
+                return false;
+            }
+        }
+
+        /** 带装饰的工作窃取线程池 */
+        private static class ForkJoinPoolDecorated extends ForkJoinPool {
+
+            /** 任务装饰器 */
+            private final ConcurrentTaskDecorator decorator;
+
+            /**
+             * 父类构造
+             *
+             * @param parallelism 并行度
+             * @param factory     工作线程工厂
+             * @param handler     未捕获异常的处理器
+             * @param asyncMode   是否先进先出
+             * @param decorator   任务装饰器
+             */
+            private ForkJoinPoolDecorated(int parallelism, ForkJoinWorkerThreadFactory factory,
+                                          Thread.UncaughtExceptionHandler handler, boolean asyncMode,
+                                          ConcurrentTaskDecorator decorator) {
+                super(parallelism, factory, handler, asyncMode);
+                this.decorator = decorator;
+            }
+
+            @Override
+            public void execute(Runnable task) {
+                super.execute(decorator.decorate(task));
+            }
+
+            @Override
+            public ForkJoinTask<?> submit(Runnable task) {
+                return super.submit(decorator.decorate(task));
+            }
+
+            @Override
+            public <T> ForkJoinTask<T> submit(Runnable task, T result) {
+                return super.submit(decorator.decorate(task), result);
+            }
+
+            @Override
+            public <T> ForkJoinTask<T> submit(Callable<T> task) {
+                return super.submit(decorator.decorate(task));
+            }
+
+            @Override
+            public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks) {
+                return super.invokeAll(decorateAll(tasks));
+            }
+
+            @Override
+            public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks, long timeout,
+                                                 TimeUnit unit) throws InterruptedException {
+                return super.invokeAll(decorateAll(tasks), timeout, unit);
+            }
+
+            @Override
+            public <T> T invokeAny(Collection<? extends Callable<T>> tasks)
+                    throws InterruptedException, ExecutionException {
+                return super.invokeAny(decorateAll(tasks));
+            }
+
+            @Override
+            public <T> T invokeAny(Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit)
+                    throws InterruptedException, ExecutionException, TimeoutException {
+                return super.invokeAny(decorateAll(tasks), timeout, unit);
+            }
+
+            /**
+             * 逐个装饰批量任务。批量方法由 ForkJoinPool 自己直接入队，不经过 execute ，因此在这里装饰
+             *
+             * @param tasks 任务
+             * @param <T>   返回值类型
+             * @return 装饰后的任务
+             */
+            private <T> List<Callable<T>> decorateAll(Collection<? extends Callable<T>> tasks) {
+                List<Callable<T>> decorated = new ArrayList<>(tasks.size());
+                for (Callable<T> task : tasks) {
+                    decorated.add(decorator.decorate(task));
+                }
+                return decorated;
+            }
+        }
+    }
+
+    /** 运行时查找的虚拟线程 API ，Java 21 以下找不到 */
+    private static final class VirtualThreads {
+
+        /** Thread.ofVirtual() */
+        private static final MethodHandle OF_VIRTUAL;
+        /** Thread.Builder.factory() */
+        private static final MethodHandle FACTORY;
+        /** Executors.newThreadPerTaskExecutor(ThreadFactory) */
+        private static final MethodHandle NEW_THREAD_PER_TASK_EXECUTOR;
+        /** 是否支持 */
+        private static final boolean SUPPORTED;
+
+        static {
+            MethodHandle ofVirtual = null;
+            MethodHandle factory = null;
+            MethodHandle newThreadPerTaskExecutor = null;
+            boolean supported = false;
+            try {
+                MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+                Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+                Class<?> ofVirtualClass = Class.forName("java.lang.Thread$Builder$OfVirtual");
+                ofVirtual = lookup.findStatic(Thread.class, "ofVirtual", MethodType.methodType(ofVirtualClass));
+                factory = lookup.findVirtual(builderClass, "factory", MethodType.methodType(ThreadFactory.class));
+                newThreadPerTaskExecutor = lookup.findStatic(java.util.concurrent.Executors.class,
+                        "newThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class, ThreadFactory.class));
+                // 预览版本未开启预览时 ofVirtual 会抛出 UnsupportedOperationException
+                ThreadFactory probe = (ThreadFactory) factory.invoke(ofVirtual.invoke());
+                supported = probe != null;
+            } catch (Throwable e) {
+                supported = false;
+            }
+            OF_VIRTUAL = ofVirtual;
+            FACTORY = factory;
+            NEW_THREAD_PER_TASK_EXECUTOR = newThreadPerTaskExecutor;
+            SUPPORTED = supported;
+        }
+
+        /**
+         * 新建虚拟线程工厂
+         *
+         * @return 线程工厂
+         */
+        private static ThreadFactory newFactory() {
+            try {
+                return (ThreadFactory) FACTORY.invoke(OF_VIRTUAL.invoke());
+            } catch (Throwable e) {
+                throw new IllegalStateException("virtual threads are not available", e);
+            }
+        }
+
+        /**
+         * 新建每个任务一个线程的线程池
+         *
+         * @param threadFactory 线程工厂
+         * @return 线程池
+         */
+        private static ExecutorService newThreadPerTaskExecutor(ThreadFactory threadFactory) {
+            try {
+                return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(threadFactory);
+            } catch (Throwable e) {
+                throw new IllegalStateException("virtual threads are not available", e);
+            }
+        }
+
+        /** no construct */
+        private VirtualThreads() {
+        }
+    }
+
+    /**
+     * 实际生效的装饰器，空的装饰器集合视为没有装饰器，直接使用不带装饰的线程池
+     *
+     * @param decorator 装饰器
+     * @return 装饰器，不需要装饰时为空
+     */
+    private static ConcurrentTaskDecorator effective(ConcurrentTaskDecorator decorator) {
+        if (decorator instanceof ConcurrentTaskDecorators decorators && decorators.isEmpty()) {
+            return null;
         }
+        return decorator;
     }
 
     /** no construct */
@@ -0,0 +1,51 @@
+package org.st.shc.framework.concurrent;
+
+import javax.annotation.Nonnull;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * 工作窃取线程池的运行状态快照，各项数据由线程池估算，并发时不保证严格一致
+ *
+ * @param parallelism       并行度
+ * @param poolSize          已启动的工作线程数
+ * @param active            正在执行或窃取任务的线程数
+ * @param running           未阻塞在 join 或其他同步上的线程数
+ * @param steals            累计窃取次数，与总任务数相比越高说明负载越需要在线程之间搬运
+ * @param queuedTasks       各工作线程队列中的任务数
+ * @param queuedSubmissions 从外部提交、尚未开始执行的任务数
+ * @author abomb4 2026-10-17
+ */
+public record ForkJoinPoolStats(int parallelism, int poolSize, int active, int running, long steals,
+                                long queuedTasks, int queuedSubmissions) {
+
+    /**
+     * 读取线程池当前状态
+     *
+     * @param pool 线程池
+     * @return 快照
+     */
+    @Nonnull
+    public static ForkJoinPoolStats of(@Nonnull ForkJoinPool pool) {
+        Objects.requireNonNull(pool, "pool cannot be null");
+        return new ForkJoinPoolStats(pool.getParallelism(), pool.getPoolSize(), pool.getActiveThreadCount(),
+                pool.getRunningThreadCount(), pool.getStealCount(), pool.getQueuedTaskCount(),
+                pool.getQueuedSubmissionCount());
+    }
+
+    /**
+     * 排队总数
+     *
+     * @return 工作线程队列与外部提交队列中的任务数之和
+     */
+    public long queueDepth() {
+        return this.queuedTasks + this.queuedSubmissions;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ForkJoinPool{parallelism=%d, size=%d, active=%d, running=%d, steals=%d, " +
+                        "queuedTasks=%d, queuedSubmissions=%d}",
+                parallelism, poolSize, active, running, steals, queuedTasks, queuedSubmissions);
+    }
+}
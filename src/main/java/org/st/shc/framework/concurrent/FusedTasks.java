@@ -0,0 +1,244 @@
+package org.st.shc.framework.concurrent;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.RunnableScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 合并后的任务包装：一个对象调用一组相邻的 {@link TaskLifecycleDecorator} 的钩子，开始与结束时刻各取一次。
+ * 钩子数组按装饰器的列表顺序排列，靠后的在外层：开始钩子从后往前调用，结束钩子从前往后，
+ * 与逐个套包装时的顺序一致。
+ *
+ * @author abomb4 2026-10-17
+ */
+final class FusedTasks {
+
+    /**
+     * 从外到里调用开始钩子
+     *
+     * @param hooks      钩子
+     * @param readyNanos 可以开始执行的时刻
+     * @param startNanos 开始时刻
+     * @return 已调用的钩子数
+     */
+    private static int start(TaskLifecycleDecorator[] hooks, long readyNanos, long startNanos) {
+        int started = 0;
+        for (int i = hooks.length - 1; i >= 0; i--) {
+            hooks[i].onStart(readyNanos, startNanos);
+            started++;
+        }
+        return started;
+    }
+
+    /**
+     * 从里到外调用已开始的钩子的结束钩子
+     *
+     * @param hooks      钩子
+     * @param started    已调用开始钩子的数量
+     * @param readyNanos 可以开始执行的时刻
+     * @param startNanos 开始时刻
+     * @param ok         是否正常结束
+     */
+    private static void finish(TaskLifecycleDecorator[] hooks, int started, long readyNanos, long startNanos,
+                               boolean ok) {
+        long endNanos = System.nanoTime();
+        for (int i = hooks.length - started; i < hooks.length; i++) {
+            hooks[i].onFinish(readyNanos, startNanos, endNanos, ok);
+        }
+    }
+
+    /**
+     * 执行定时任务的一轮，可以开始执行的时刻按计划时刻算
+     *
+     * @param hooks 钩子
+     * @param task  定时任务，用于取计划时刻
+     * @param body  执行体
+     */
+    private static void runScheduled(TaskLifecycleDecorator[] hooks, RunnableScheduledFuture<?> task, Runnable body) {
+        long startNanos = System.nanoTime();
+        // 开始执行时剩余延迟为负，其绝对值就是比计划晚了多久
+        long readyNanos = startNanos - Math.max(0, -task.getDelay(TimeUnit.NANOSECONDS));
+        int started = 0;
+        boolean ok = false;
+        try {
+            started = start(hooks, readyNanos, startNanos);
+            body.run();
+            ok = true;
+        } finally {
+            finish(hooks, started, readyNanos, startNanos, ok);
+        }
+    }
+
+    /**
+     * 一组相邻的生命周期装饰器合成的一层
+     *
+     * @param hooks 钩子，按装饰器的列表顺序
+     */
+    record Hooks(TaskLifecycleDecorator[] hooks) implements ConcurrentTaskDecorator {
+
+        @Override
+        public Runnable decorate(Runnable runnable) {
+            return runnable == null ? null : new FusedRunnable(this.hooks, runnable, System.nanoTime());
+        }
+
+        @Override
+        public <T> Callable<T> decorate(Callable<T> callable) {
+            return callable == null ? null : new FusedCallable<>(this.hooks, callable, System.nanoTime());
+        }
+
+        @Override
+        public <V> RunnableScheduledFuture<V> decorate(RunnableScheduledFuture<V> task) {
+            return new FusedScheduledFuture<>(this.hooks, task, task);
+        }
+    }
+
+    /** 合并包装的 Runnable */
+    static final class FusedRunnable implements Runnable {
+
+        /** 钩子 */
+        private final TaskLifecycleDecorator[] hooks;
+        /** 任务 */
+        private final Runnable task;
+        /** 提交时刻 */
+        private final long readyNanos;
+
+        /**
+         * 完整构造
+         *
+         * @param hooks      钩子
+         * @param task       任务
+         * @param readyNanos 提交时刻
+         */
+        FusedRunnable(TaskLifecycleDecorator[] hooks, Runnable task, long readyNanos) {
+            this.hooks = hooks;
+            this.task = task;
+            this.readyNanos = readyNanos;
+        }
+
+        @Override
+        public void run() {
+            long startNanos = System.nanoTime();
+            int started = 0;
+            boolean ok = false;
+            try {
+                started = start(this.hooks, this.readyNanos, startNanos);
+                this.task.run();
+                ok = true;
+            } finally {
+                finish(this.hooks, started, this.readyNanos, startNanos, ok);
+            }
+        }
+    }
+
+    /**
+     * 合并包装的 Callable
+     *
+     * @param <T> 返回值类型
+     */
+    static final class FusedCallable<T> implements Callable<T> {
+
+        /** 钩子 */
+        private final TaskLifecycleDecorator[] hooks;
+        /** 任务 */
+        private final Callable<T> task;
+        /** 提交时刻 */
+        private final long readyNanos;
+
+        /**
+         * 完整构造
+         *
+         * @param hooks      钩子
+         * @param task       任务
+         * @param readyNanos 提交时刻
+         */
+        FusedCallable(TaskLifecycleDecorator[] hooks, Callable<T> task, long readyNanos) {
+            this.hooks = hooks;
+            this.task = task;
+            this.readyNanos = readyNanos;
+        }
+
+        @Override
+        public T call() throws Exception {
+            long startNanos = System.nanoTime();
+            int started = 0;
+            boolean ok = false;
+            try {
+                started = start(this.hooks, this.readyNanos, startNanos);
+                T result = this.task.call();
+                ok = true;
+                return result;
+            } finally {
+                finish(this.hooks, started, this.readyNanos, startNanos, ok);
+            }
+        }
+    }
+
+    /**
+     * 合并包装的定时任务，可以开始执行的时刻按计划时刻算，周期任务每一轮单独计算
+     *
+     * @param <V> 返回值类型
+     */
+    static final class FusedScheduledFuture<V> extends RunnableScheduledFutureDecorate<V> {
+
+        /** 钩子 */
+        private final TaskLifecycleDecorator[] hooks;
+        /** 任务 */
+        private final RunnableScheduledFuture<V> task;
+        /** 经过里层装饰器包装后的执行体 */
+        private final Runnable body;
+
+        /**
+         * 完整构造
+         *
+         * @param hooks 钩子
+         * @param task  任务
+         * @param body  经过里层装饰器包装后的执行体，没有里层装饰器时就是任务本身
+         */
+        FusedScheduledFuture(TaskLifecycleDecorator[] hooks, RunnableScheduledFuture<V> task, Runnable body) {
+            super(task, body);
+            this.hooks = hooks;
+            this.task = task;
+            this.body = body;
+        }
+
+        @Override
+        public void run() {
+            runScheduled(this.hooks, this.task, this.body);
+        }
+    }
+
+    /**
+     * 定时任务里层的合并包装，外面还有普通装饰器，可以开始执行的时刻同样按计划时刻算
+     */
+    static final class FusedScheduledRunnable implements Runnable {
+
+        /** 钩子 */
+        private final TaskLifecycleDecorator[] hooks;
+        /** 定时任务 */
+        private final RunnableScheduledFuture<?> task;
+        /** 经过里层装饰器包装后的执行体 */
+        private final Runnable body;
+
+        /**
+         * 完整构造
+         *
+         * @param hooks 钩子
+         * @param task  定时任务，用于取计划时刻
+         * @param body  经过里层装饰器包装后的执行体
+         */
+        FusedScheduledRunnable(TaskLifecycleDecorator[] hooks, RunnableScheduledFuture<?> task, Runnable body) {
+            this.hooks = hooks;
+            this.task = task;
+            this.body = body;
+        }
+
+        @Override
+        public void run() {
+            runScheduled(this.hooks, this.task, this.body);
+        }
+    }
+
+    /** no construct */
+    private FusedTasks() {
+    }
+}
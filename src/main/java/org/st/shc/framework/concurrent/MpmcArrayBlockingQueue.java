@@ -0,0 +1,396 @@
+package org.st.shc.framework.concurrent;
+
+import javax.annotation.Nonnull;
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 无锁的有界多生产者多消费者队列，基于数组与序号（Dmitry Vyukov 的 bounded MPMC queue），可用作线程池的等待队列。
+ * <p>
+ * 每个槽位带一个序号，生产者与消费者各自只在自己的位置计数上 CAS 一次，互不争抢同一把锁；
+ * 单消费者的线程池同样适用。队列空或满时阻塞的一方先让出 CPU 重试几次，仍不行再登记后 park ，
+ * 对方放入或取出元素后 unpark 一个等待者；不阻塞时除了查看等待者队列是否为空，不碰其他共享状态。
+ * <p>
+ * 等待者因超时或中断离开时，如果已经被取出唤醒，会把唤醒转给下一个等待者，线程池中断空闲线程时不会丢失唤醒。
+ * <p>
+ * 容量向上取整到 2 的幂，至少为 2 ：只有一个槽位时“已放入”与“下一轮可放入”的序号相同，无法区分。
+ * 不支持从中间删除元素： {@link #remove(Object)} 总是返回 false ，迭代器的 remove 抛出
+ * {@link ConcurrentModificationException} ，{@link java.util.concurrent.ThreadPoolExecutor#purge} 据此改走
+ * remove(Object) 。因此 {@link java.util.concurrent.ThreadPoolExecutor#remove} 与 purge 对其无效，
+ * 被取消的任务留在队列里，轮到时 {@link java.util.concurrent.FutureTask#run} 直接返回。
+ *
+ * @param <E> 元素类型
+ * @author abomb4 2026-10-17
+ */
+public class MpmcArrayBlockingQueue<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+
+    /** 最大容量 */
+    private static final int MAX_CAPACITY = 1 << 30;
+    /** 登记等待前让出 CPU 重试的次数，短暂的空或满不必 park */
+    private static final int YIELD_RETRIES = 8;
+
+    /** 槽位 */
+    private final AtomicReferenceArray<E> buffer;
+    /** 各槽位的序号：等于放入位置时可放入，等于放入位置 + 1 时可取出 */
+    private final AtomicLongArray sequences;
+    /** 容量减一，用于取模 */
+    private final int mask;
+    /** 下一个放入位置 */
+    private final PaddedAtomicLong enqueuePosition = new PaddedAtomicLong();
+    /** 下一个取出位置 */
+    private final PaddedAtomicLong dequeuePosition = new PaddedAtomicLong();
+    /** 等待元素的消费者 */
+    private final ConcurrentLinkedQueue<Thread> notEmptyWaiters = new ConcurrentLinkedQueue<>();
+    /** 等待空位的生产者 */
+    private final ConcurrentLinkedQueue<Thread> notFullWaiters = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 完整构造
+     *
+     * @param capacity 容量，向上取整到 2 的幂，至少为 2
+     */
+    public MpmcArrayBlockingQueue(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity cannot lesser than 1");
+        }
+        if (capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("capacity cannot greater than " + MAX_CAPACITY);
+        }
+        int size = capacity <= 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+        this.buffer = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            this.sequences.set(i, i);
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * 容量
+     *
+     * @return 容量
+     */
+    public int capacity() {
+        return this.mask + 1;
+    }
+
+    @Override
+    public boolean offer(@Nonnull E e) {
+        Objects.requireNonNull(e, "e cannot be null");
+        long position = this.enqueuePosition.get();
+        int index;
+        while (true) {
+            index = (int) (position & this.mask);
+            long diff = this.sequences.get(index) - position;
+            if (diff == 0) {
+                if (this.enqueuePosition.compareAndSet(position, position + 1)) {
+                    break;
+                }
+                position = this.enqueuePosition.get();
+            } else if (diff < 0) {
+                return false;
+            } else {
+                position = this.enqueuePosition.get();
+            }
+        }
+        this.buffer.lazySet(index, e);
+        // volatile 写，与消费者登记等待之间构成完整的内存屏障，不会漏掉唤醒
+        this.sequences.set(index, position + 1);
+        signal(this.notEmptyWaiters);
+        return true;
+    }
+
+    @Override
+    public E poll() {
+        long position = this.dequeuePosition.get();
+        int index;
+        while (true) {
+            index = (int) (position & this.mask);
+            long diff = this.sequences.get(index) - (position + 1);
+            if (diff == 0) {
+                if (this.dequeuePosition.compareAndSet(position, position + 1)) {
+                    break;
+                }
+                position = this.dequeuePosition.get();
+            } else if (diff < 0) {
+                return null;
+            } else {
+                position = this.dequeuePosition.get();
+            }
+        }
+        E e = this.buffer.get(index);
+        this.buffer.lazySet(index, null);
+        this.sequences.set(index, position + this.mask + 1);
+        signal(this.notFullWaiters);
+        return e;
+    }
+
+    @Override
+    public E peek() {
+        while (true) {
+            long position = this.dequeuePosition.get();
+            int index = (int) (position & this.mask);
+            if (this.sequences.get(index) != position + 1) {
+                return null;
+            }
+            E e = this.buffer.get(index);
+            // 读取期间被取走时重试
+            if (e != null && this.dequeuePosition.get() == position) {
+                return e;
+            }
+        }
+    }
+
+    @Override
+    public void put(@Nonnull E e) throws InterruptedException {
+        this.offer(e, Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public boolean offer(@Nonnull E e, long timeout, @Nonnull TimeUnit unit) throws InterruptedException {
+        Objects.requireNonNull(e, "e cannot be null");
+        if (this.offer(e)) {
+            return true;
+        }
+        for (int i = 0; i < YIELD_RETRIES; i++) {
+            Thread.yield();
+            if (this.offer(e)) {
+                return true;
+            }
+        }
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        Thread current = Thread.currentThread();
+        while (true) {
+            this.notFullWaiters.add(current);
+            if (this.offer(e)) {
+                this.notFullWaiters.remove(current);
+                return true;
+            }
+            boolean inTime;
+            try {
+                inTime = park(deadline);
+            } catch (InterruptedException ex) {
+                leave(this.notFullWaiters, current);
+                throw ex;
+            }
+            if (!inTime) {
+                leave(this.notFullWaiters, current);
+                return false;
+            }
+            this.notFullWaiters.remove(current);
+            if (this.offer(e)) {
+                return true;
+            }
+        }
+    }
+
+    @Nonnull
+    @Override
+    public E take() throws InterruptedException {
+        E e = this.poll(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        if (e == null) {
+            throw new IllegalStateException("poll without timeout returned null");
+        }
+        return e;
+    }
+
+    @Override
+    public E poll(long timeout, @Nonnull TimeUnit unit) throws InterruptedException {
+        E e = this.poll();
+        if (e != null) {
+            return e;
+        }
+        for (int i = 0; i < YIELD_RETRIES; i++) {
+            Thread.yield();
+            e = this.poll();
+            if (e != null) {
+                return e;
+            }
+        }
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        Thread current = Thread.currentThread();
+        while (true) {
+            this.notEmptyWaiters.add(current);
+            e = this.poll();
+            if (e != null) {
+                this.notEmptyWaiters.remove(current);
+                return e;
+            }
+            boolean inTime;
+            try {
+                inTime = park(deadline);
+            } catch (InterruptedException ex) {
+                leave(this.notEmptyWaiters, current);
+                throw ex;
+            }
+            if (!inTime) {
+                leave(this.notEmptyWaiters, current);
+                return null;
+            }
+            this.notEmptyWaiters.remove(current);
+            e = this.poll();
+            if (e != null) {
+                return e;
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        while (true) {
+            long dequeue = this.dequeuePosition.get();
+            long enqueue = this.enqueuePosition.get();
+            if (dequeue == this.dequeuePosition.get()) {
+                return (int) Math.max(0, Math.min(this.capacity(), enqueue - dequeue));
+            }
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.peek() == null;
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return this.capacity() - this.size();
+    }
+
+    /**
+     * 不支持从中间删除
+     *
+     * @param o 元素
+     * @return 总是 false
+     */
+    @Override
+    public boolean remove(Object o) {
+        return false;
+    }
+
+    @Override
+    public int drainTo(@Nonnull Collection<? super E> c) {
+        return this.drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(@Nonnull Collection<? super E> c, int maxElements) {
+        Objects.requireNonNull(c, "c cannot be null");
+        if (c == this) {
+            throw new IllegalArgumentException("cannot drain to self");
+        }
+        int drained = 0;
+        E e;
+        while (drained < maxElements && (e = this.poll()) != null) {
+            c.add(e);
+            drained++;
+        }
+        return drained;
+    }
+
+    /**
+     * 弱一致的快照迭代器，不支持删除，删除时抛出 {@link ConcurrentModificationException}
+     *
+     * @return 迭代器
+     */
+    @Nonnull
+    @Override
+    public Iterator<E> iterator() {
+        List<E> snapshot = new ArrayList<>();
+        long dequeue = this.dequeuePosition.get();
+        long enqueue = this.enqueuePosition.get();
+        for (long position = dequeue; position < enqueue && position - dequeue <= this.mask; position++) {
+            int index = (int) (position & this.mask);
+            E e = this.buffer.get(index);
+            if (e != null && this.sequences.get(index) == position + 1) {
+                snapshot.add(e);
+            }
+        }
+        Iterator<E> delegate = snapshot.iterator();
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return delegate.hasNext();
+            }
+
+            @Override
+            public E next() {
+                if (!delegate.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return delegate.next();
+            }
+
+            @Override
+            public void remove() {
+                // ThreadPoolExecutor#purge 只捕获这个异常
+                throw new ConcurrentModificationException("cannot remove from the middle of the queue");
+            }
+        };
+    }
+
+    /**
+     * 唤醒一个等待者。取出后再唤醒，多个生产者不会重复唤醒同一个线程
+     *
+     * @param waiters 等待者
+     */
+    private static void signal(ConcurrentLinkedQueue<Thread> waiters) {
+        if (!waiters.isEmpty()) {
+            Thread waiter = waiters.poll();
+            if (waiter != null) {
+                LockSupport.unpark(waiter);
+            }
+        }
+    }
+
+    /**
+     * 超时或被中断后不再等待。已经不在等待者中说明唤醒给了自己，转给下一个等待者，否则这次唤醒就丢了
+     *
+     * @param waiters 等待者
+     * @param current 当前线程
+     */
+    private static void leave(ConcurrentLinkedQueue<Thread> waiters, Thread current) {
+        if (!waiters.remove(current)) {
+            signal(waiters);
+        }
+    }
+
+    /**
+     * 等待到被唤醒或超时
+     *
+     * @param deadline 截止时间
+     * @return 是否还没有超时
+     * @throws InterruptedException 被中断
+     */
+    private boolean park(long deadline) throws InterruptedException {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+            return false;
+        }
+        LockSupport.parkNanos(this, remaining);
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        return true;
+    }
+
+    /** 补齐到独占缓存行的计数，避免放入与取出位置互相伪共享 */
+    @SuppressWarnings("unused")
+    private static final class PaddedAtomicLong extends AtomicLong {
+
+        /** 填充 */
+        private long p1, p2, p3, p4, p5, p6, p7;
+    }
+}
@@ -34,6 +34,17 @@ class RunnableScheduledFutureDecorate<V> implements RunnableScheduledFuture<V> {
         this.run = decorator.decorate((Runnable) task);
     }
 
+    /**
+     * 使用已经装饰好的执行体构造，执行体运行时应调用 task 本身
+     *
+     * @param task 任务
+     * @param run  被装饰过的执行体
+     */
+    RunnableScheduledFutureDecorate(RunnableScheduledFuture<V> task, Runnable run) {
+        this.delegate = Objects.requireNonNull(task);
+        this.run = Objects.requireNonNull(run);
+    }
+
     @Override
     public boolean isPeriodic() {
         return delegate.isPeriodic();
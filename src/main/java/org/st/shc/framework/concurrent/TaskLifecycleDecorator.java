@@ -0,0 +1,51 @@
+package org.st.shc.framework.concurrent;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.RunnableScheduledFuture;
+
+/**
+ * 只关心任务开始与结束的裱框师，不需要自己套一层包装。
+ * <p>
+ * 子类只实现 {@link #onStart} 与 {@link #onFinish} ；放进 {@link ConcurrentTaskDecorators} 时，
+ * 相邻的多个此类装饰器会合并成每个任务一个包装对象，开始与结束时刻也只取一次，钩子的先后仍按列表顺序。
+ *
+ * @author abomb4 2026-10-17
+ */
+public abstract class TaskLifecycleDecorator implements ConcurrentTaskDecorator {
+
+    /** 只含自己的钩子数组，单独使用时复用 */
+    private final TaskLifecycleDecorator[] self = {this};
+
+    /**
+     * 任务开始执行
+     *
+     * @param readyNanos 任务可以开始执行的时刻：普通任务为提交时刻，定时任务为计划时刻
+     * @param startNanos 实际开始执行的时刻
+     */
+    protected abstract void onStart(long readyNanos, long startNanos);
+
+    /**
+     * 任务执行结束，与 {@link #onStart} 成对调用
+     *
+     * @param readyNanos 任务可以开始执行的时刻
+     * @param startNanos 实际开始执行的时刻
+     * @param endNanos   结束时刻
+     * @param ok         是否正常结束，异常被 Future 收下的也算正常结束
+     */
+    protected abstract void onFinish(long readyNanos, long startNanos, long endNanos, boolean ok);
+
+    @Override
+    public final Runnable decorate(Runnable runnable) {
+        return runnable == null ? null : new FusedTasks.FusedRunnable(this.self, runnable, System.nanoTime());
+    }
+
+    @Override
+    public final <T> Callable<T> decorate(Callable<T> callable) {
+        return callable == null ? null : new FusedTasks.FusedCallable<>(this.self, callable, System.nanoTime());
+    }
+
+    @Override
+    public final <V> RunnableScheduledFuture<V> decorate(RunnableScheduledFuture<V> task) {
+        return new FusedTasks.FusedScheduledFuture<>(this.self, task, task);
+    }
+}
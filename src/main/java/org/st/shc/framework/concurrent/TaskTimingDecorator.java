@@ -0,0 +1,130 @@
+package org.st.shc.framework.concurrent;
+
+import org.st.shc.framework.metrics.LatencyHistogram;
+import org.st.shc.framework.metrics.StripedLatencyHistogram;
+
+import javax.annotation.Nonnull;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 记录任务排队时间与执行时间的装饰器，一个线程池用一个实例，各自统计。
+ * <p>
+ * 排队时间从装饰（即提交）算到开始执行；定时任务从应当执行的时刻算起，周期任务每一轮都单独记录。
+ * 排队时间的高百分位持续上升说明线程池已经饱和，通常早于调用方看到的延迟暴涨。
+ * 两个直方图都是分条的，工作线程之间没有共享的热点；与相邻的其他 {@link TaskLifecycleDecorator} 一起放进
+ * {@link ConcurrentTaskDecorators} 时合并为每个任务一个包装对象。
+ *
+ * @author abomb4 2026-10-17
+ */
+public class TaskTimingDecorator extends TaskLifecycleDecorator {
+
+    /** 线程池名称 */
+    private final String name;
+    /** 排队时间 */
+    private final StripedLatencyHistogram queueWait = new StripedLatencyHistogram();
+    /** 执行时间 */
+    private final StripedLatencyHistogram runTime = new StripedLatencyHistogram();
+    /** 正在执行的任务数 */
+    private final LongAdder active = new LongAdder();
+    /** 执行时抛出异常的任务数，异常被 Future 收下的不算 */
+    private final LongAdder failed = new LongAdder();
+
+    /**
+     * 完整构造
+     *
+     * @param name 线程池名称，用于区分各线程池的统计
+     */
+    public TaskTimingDecorator(@Nonnull String name) {
+        this.name = Objects.requireNonNull(name, "name cannot be null");
+    }
+
+    @Override
+    protected void onStart(long readyNanos, long startNanos) {
+        this.queueWait.record(startNanos - readyNanos);
+        this.active.increment();
+    }
+
+    @Override
+    protected void onFinish(long readyNanos, long startNanos, long endNanos, boolean ok) {
+        this.runTime.record(endNanos - startNanos);
+        this.active.decrement();
+        if (!ok) {
+            this.failed.increment();
+        }
+    }
+
+    /**
+     * 线程池名称
+     *
+     * @return 名称
+     */
+    @Nonnull
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * 统计快照
+     *
+     * @return 统计
+     */
+    @Nonnull
+    public Stats stats() {
+        return new Stats(this.name, this.queueWait.snapshot(), this.runTime.snapshot(), this.active.sum(),
+                this.failed.sum());
+    }
+
+    /**
+     * 清空排队与执行时间，用于按时间窗口观察
+     */
+    public void reset() {
+        this.queueWait.reset();
+        this.runTime.reset();
+    }
+
+    /**
+     * 线程池任务统计
+     *
+     * @param name      线程池名称
+     * @param queueWait 排队时间分布，单位纳秒
+     * @param runTime   执行时间分布，单位纳秒
+     * @param active    正在执行的任务数
+     * @param failed    执行时抛出异常的任务数，异常被 Future 收下的不算
+     */
+    public record Stats(String name, LatencyHistogram.Snapshot queueWait, LatencyHistogram.Snapshot runTime,
+                        long active, long failed) {
+
+        /**
+         * 排队时间占总耗时的比例，接近 1 说明任务大部分时间在等线程
+         *
+         * @return 比例，没有数据时为 0
+         */
+        public double queueShare() {
+            double total = this.queueWait.mean() + this.runTime.mean();
+            return total == 0 ? 0 : this.queueWait.mean() / total;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s{active=%d, failed=%d, queueWait p50=%.2fms p99=%.2fms max=%.2fms, " +
+                            "runTime p50=%.2fms p99=%.2fms max=%.2fms, queueShare=%.1f%%}",
+                    name, active, failed,
+                    millis(queueWait.valueAtPercentile(50)), millis(queueWait.valueAtPercentile(99)),
+                    millis(queueWait.max()),
+                    millis(runTime.valueAtPercentile(50)), millis(runTime.valueAtPercentile(99)),
+                    millis(runTime.max()), queueShare() * 100);
+        }
+
+        /**
+         * 纳秒转毫秒
+         *
+         * @param nanos 纳秒
+         * @return 毫秒
+         */
+        private static double millis(long nanos) {
+            return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        }
+    }
+}
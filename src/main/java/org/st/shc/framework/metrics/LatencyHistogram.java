@@ -0,0 +1,286 @@
+package org.st.shc.framework.metrics;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 无锁的对数线性延迟直方图，单位纳秒。
+ * <p>
+ * 每个 2 的幂区间再等分为 64 个桶，相对误差不超过 1/64 （约 1.6%），覆盖 0 到 {@link Long#MAX_VALUE} 全部取值，
+ * 占用固定约 30KB 内存。记录只有一次 CAS 级别的原子加，可在多线程中直接使用。
+ *
+ * @author abomb4 2026-10-17
+ */
+public class LatencyHistogram {
+
+    /** 直接计数的小值区间，[0, 128) 每个值一个桶 */
+    private static final int LINEAR_BUCKETS = 128;
+    /** 每个 2 的幂区间的子桶数 */
+    private static final int SUB_BUCKETS = 64;
+    /** 子桶数的位数 */
+    private static final int SUB_BUCKET_BITS = 6;
+    /** 桶总数 */
+    static final int BUCKET_COUNT = LINEAR_BUCKETS + (62 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    /** 各桶计数 */
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    /** 总数 */
+    private final LongAdder totalCount = new LongAdder();
+    /** 总和 */
+    private final LongAdder totalSum = new LongAdder();
+    /** 最小值 */
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+    /** 最大值 */
+    private final AtomicLong max = new AtomicLong(0);
+
+    /**
+     * 记录一个值，负数按 0 记录
+     *
+     * @param nanos 纳秒
+     */
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        this.counts.incrementAndGet(bucketOf(value));
+        this.totalCount.increment();
+        this.totalSum.add(value);
+        if (value < this.min.get()) {
+            this.min.accumulateAndGet(value, Math::min);
+        }
+        if (value > this.max.get()) {
+            this.max.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    /**
+     * 记录一个值
+     *
+     * @param duration 时长
+     * @param unit     时长单位
+     */
+    public void record(long duration, @Nonnull TimeUnit unit) {
+        this.record(unit.toNanos(duration));
+    }
+
+    /**
+     * 把快照中的数据累加进来
+     *
+     * @param snapshot 快照
+     */
+    public void add(@Nonnull Snapshot snapshot) {
+        if (snapshot.totalCount() == 0) {
+            return;
+        }
+        long[] other = snapshot.counts;
+        for (int i = 0; i < other.length; i++) {
+            if (other[i] != 0) {
+                this.counts.addAndGet(i, other[i]);
+            }
+        }
+        this.totalCount.add(snapshot.totalCount());
+        this.totalSum.add(snapshot.totalSum);
+        this.min.accumulateAndGet(snapshot.min(), Math::min);
+        this.max.accumulateAndGet(snapshot.max(), Math::max);
+    }
+
+    /**
+     * 清空
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            this.counts.set(i, 0);
+        }
+        this.totalCount.reset();
+        this.totalSum.reset();
+        this.min.set(Long.MAX_VALUE);
+        this.max.set(0);
+    }
+
+    /**
+     * 总数
+     *
+     * @return 总数
+     */
+    public long totalCount() {
+        return this.totalCount.sum();
+    }
+
+    /**
+     * 获取快照，记录与快照并发时快照内的各项数据不保证严格一致
+     *
+     * @return 快照
+     */
+    @Nonnull
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKET_COUNT];
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            copy[i] = this.counts.get(i);
+            count += copy[i];
+        }
+        return new Snapshot(copy, count, this.totalSum.sum(), count == 0 ? 0 : this.min.get(), this.max.get());
+    }
+
+    /**
+     * 值所在的桶
+     *
+     * @param value 非负值
+     * @return 桶下标
+     */
+    static int bucketOf(long value) {
+        if (value < LINEAR_BUCKETS) {
+            return (int) value;
+        }
+        int shift = (63 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+        return LINEAR_BUCKETS + (shift - 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+    }
+
+    /**
+     * 桶能表示的最大值
+     *
+     * @param bucket 桶下标
+     * @return 最大值
+     */
+    static long highestValueOf(int bucket) {
+        if (bucket < LINEAR_BUCKETS) {
+            return bucket;
+        }
+        int k = bucket - LINEAR_BUCKETS;
+        int shift = k / SUB_BUCKETS + 1;
+        long sub = k % SUB_BUCKETS + SUB_BUCKETS;
+        long next = (sub + 1) << shift;
+        return next <= 0 ? Long.MAX_VALUE : next - 1;
+    }
+
+    /** 直方图快照 */
+    public static final class Snapshot {
+
+        /** 空快照 */
+        public static final Snapshot EMPTY = new Snapshot(new long[BUCKET_COUNT], 0, 0, 0, 0);
+
+        /** 各桶计数 */
+        private final long[] counts;
+        /** 总数 */
+        private final long totalCount;
+        /** 总和 */
+        private final long totalSum;
+        /** 最小值 */
+        private final long min;
+        /** 最大值 */
+        private final long max;
+
+        /**
+         * 完整构造
+         *
+         * @param counts     各桶计数
+         * @param totalCount 总数
+         * @param totalSum   总和
+         * @param min        最小值
+         * @param max        最大值
+         */
+        private Snapshot(long[] counts, long totalCount, long totalSum, long min, long max) {
+            this.counts = counts;
+            this.totalCount = totalCount;
+            this.totalSum = totalSum;
+            this.min = min;
+            this.max = max;
+        }
+
+        /**
+         * 总数
+         *
+         * @return 总数
+         */
+        public long totalCount() {
+            return this.totalCount;
+        }
+
+        /**
+         * 最小值
+         *
+         * @return 最小值，无数据时为 0
+         */
+        public long min() {
+            return this.min;
+        }
+
+        /**
+         * 最大值
+         *
+         * @return 最大值，无数据时为 0
+         */
+        public long max() {
+            return this.max;
+        }
+
+        /**
+         * 平均值
+         *
+         * @return 平均值，无数据时为 0
+         */
+        public double mean() {
+            return this.totalCount == 0 ? 0 : (double) this.totalSum / this.totalCount;
+        }
+
+        /**
+         * 百分位值，结果为所在桶能表示的最大值，且不超过实际最大值
+         *
+         * @param percentile 百分位，如 99.9
+         * @return 值，无数据时为 0
+         */
+        public long valueAtPercentile(double percentile) {
+            if (this.totalCount == 0) {
+                return 0;
+            }
+            double p = Math.min(Math.max(percentile, 0), 100);
+            long rank = Math.max(1, (long) Math.ceil(p / 100 * this.totalCount));
+            long seen = 0;
+            for (int i = 0; i < this.counts.length; i++) {
+                seen += this.counts[i];
+                if (seen >= rank) {
+                    return Math.min(highestValueOf(i), this.max);
+                }
+            }
+            return this.max;
+        }
+
+        /**
+         * 与另一个快照合并
+         *
+         * @param other 另一个快照
+         * @return 新快照
+         */
+        @Nonnull
+        public Snapshot merge(@Nonnull Snapshot other) {
+            if (other.totalCount == 0) {
+                return this;
+            }
+            if (this.totalCount == 0) {
+                return other;
+            }
+            long[] merged = Arrays.copyOf(this.counts, this.counts.length);
+            for (int i = 0; i < merged.length; i++) {
+                merged[i] += other.counts[i];
+            }
+            return new Snapshot(merged, this.totalCount + other.totalCount, this.totalSum + other.totalSum,
+                    Math.min(this.min, other.min), Math.max(this.max, other.max));
+        }
+
+        @Override
+        public String toString() {
+            return "Snapshot{" +
+                    "count=" + totalCount +
+                    ", min=" + min +
+                    ", mean=" + (long) mean() +
+                    ", p50=" + valueAtPercentile(50) +
+                    ", p90=" + valueAtPercentile(90) +
+                    ", p99=" + valueAtPercentile(99) +
+                    ", p99.9=" + valueAtPercentile(99.9) +
+                    ", max=" + max +
+                    '}';
+        }
+    }
+}
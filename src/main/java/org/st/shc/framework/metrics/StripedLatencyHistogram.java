@@ -0,0 +1,125 @@
+package org.st.shc.framework.metrics;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分条的无锁延迟直方图，单位纳秒。
+ * <p>
+ * {@link LatencyHistogram} 的记录虽然无锁，但线程池里所有工作线程都在同一批桶、同一对最值上做原子操作，
+ * 热点桶的缓存行会在核之间来回传递。这里按线程把记录分散到若干条独立的直方图上，
+ * 同一线程总落在同一条，读取时再合并成一份快照。条数取不小于 CPU 数的 2 的幂，最多 {@link #MAX_STRIPES} 条。
+ *
+ * @author abomb4 2026-10-17
+ */
+public class StripedLatencyHistogram {
+
+    /** 最大条数，每条约 30KB */
+    public static final int MAX_STRIPES = 16;
+
+    /** 各条直方图 */
+    private final LatencyHistogram[] stripes;
+    /** 条数减一，用于取模 */
+    private final int mask;
+
+    /**
+     * 按 CPU 数决定条数
+     */
+    public StripedLatencyHistogram() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * 指定条数
+     *
+     * @param stripes 条数，向上取整到 2 的幂，不超过 {@link #MAX_STRIPES}
+     */
+    public StripedLatencyHistogram(int stripes) {
+        if (stripes < 1) {
+            throw new IllegalArgumentException("stripes cannot lesser than 1");
+        }
+        int size = Math.min(MAX_STRIPES, Integer.highestOneBit(stripes - 1) << 1);
+        size = Math.max(1, size);
+        this.stripes = new LatencyHistogram[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new LatencyHistogram();
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * 记录一个值，负数按 0 记录
+     *
+     * @param nanos 纳秒
+     */
+    public void record(long nanos) {
+        this.stripe().record(nanos);
+    }
+
+    /**
+     * 记录一个值
+     *
+     * @param duration 时长
+     * @param unit     时长单位
+     */
+    public void record(long duration, @Nonnull TimeUnit unit) {
+        this.record(unit.toNanos(duration));
+    }
+
+    /**
+     * 总数
+     *
+     * @return 总数
+     */
+    public long totalCount() {
+        long count = 0;
+        for (LatencyHistogram stripe : this.stripes) {
+            count += stripe.totalCount();
+        }
+        return count;
+    }
+
+    /**
+     * 合并各条得到快照，记录与快照并发时快照内的各项数据不保证严格一致
+     *
+     * @return 快照
+     */
+    @Nonnull
+    public LatencyHistogram.Snapshot snapshot() {
+        LatencyHistogram.Snapshot merged = LatencyHistogram.Snapshot.EMPTY;
+        for (LatencyHistogram stripe : this.stripes) {
+            merged = merged.merge(stripe.snapshot());
+        }
+        return merged;
+    }
+
+    /**
+     * 清空
+     */
+    public void reset() {
+        for (LatencyHistogram stripe : this.stripes) {
+            stripe.reset();
+        }
+    }
+
+    /**
+     * 条数
+     *
+     * @return 条数
+     */
+    public int stripes() {
+        return this.stripes.length;
+    }
+
+    /**
+     * 当前线程对应的条
+     *
+     * @return 直方图
+     */
+    private LatencyHistogram stripe() {
+        long id = Thread.currentThread().getId();
+        // 线程编号通常是连续的，混合一下让相邻线程分散到不同的条
+        int hash = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+        return this.stripes[(hash ^ (hash >>> 16)) & this.mask];
+    }
+}
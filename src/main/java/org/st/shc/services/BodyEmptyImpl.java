@@ -25,4 +25,10 @@ public class BodyEmptyImpl implements HttpClientRequestBody {
     public HttpRequest.BodyPublisher asBodyPublisher() {
         return HttpRequest.BodyPublishers.noBody();
     }
+
+    @Nonnull
+    @Override
+    public byte[] encode() {
+        return new byte[0];
+    }
 }
@@ -0,0 +1,176 @@
+package org.st.shc.services;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URLConnection;
+import java.net.http.HttpRequest;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * 文件作为体，发送时按块从内存映射区域读取，无论文件多大都只占用固定的堆内存
+ *
+ * @author abomb4 2026-10-17
+ */
+public class BodyFileImpl implements HttpClientRequestBody {
+
+    /** 文件 */
+    @Nonnull
+    private final Path path;
+    /** 起始位置 */
+    private final long offset;
+    /** 长度 */
+    private final long length;
+    /** Content-Type */
+    @Nullable
+    private final ContentType contentType;
+
+    /**
+     * 完整构造
+     *
+     * @param path        文件
+     * @param offset      起始位置
+     * @param length      长度
+     * @param contentType 媒体类型，为空则根据文件推断
+     */
+    public BodyFileImpl(@Nonnull Path path, long offset, long length, @Nullable ContentType contentType) {
+        this.path = Objects.requireNonNull(path, "path cannot be null");
+        long size;
+        try {
+            size = Files.size(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read size of " + path, e);
+        }
+        if (offset < 0 || length < 0 || offset + length > size) {
+            throw new IllegalArgumentException("Range [" + offset + ", " + (offset + length) +
+                    ") out of file size " + size);
+        }
+        this.offset = offset;
+        this.length = length;
+        this.contentType = contentType != null ? contentType : probeContentType(path);
+    }
+
+    /**
+     * 整个文件，根据文件推断媒体类型
+     *
+     * @param path 文件
+     */
+    public BodyFileImpl(@Nonnull Path path) {
+        this(path, (ContentType) null);
+    }
+
+    /**
+     * 整个文件
+     *
+     * @param path        文件
+     * @param contentType 媒体类型，为空则根据文件推断
+     */
+    public BodyFileImpl(@Nonnull Path path, @Nullable ContentType contentType) {
+        this(path, 0, sizeOf(path), contentType);
+    }
+
+    /**
+     * 推断文件的媒体类型，无法推断时使用二进制流
+     *
+     * @param path 文件
+     * @return 媒体类型
+     */
+    @Nonnull
+    public static ContentType probeContentType(@Nonnull Path path) {
+        String mimeType = null;
+        try {
+            mimeType = Files.probeContentType(path);
+        } catch (IOException ignored) {
+            // 无法探测时按文件名猜测
+        }
+        if (mimeType == null) {
+            mimeType = URLConnection.guessContentTypeFromName(path.getFileName().toString());
+        }
+        return mimeType == null ? ContentType.CONTENT_TYPE_OCTET_STREAM : new ContentType(mimeType);
+    }
+
+    /**
+     * 文件大小
+     *
+     * @param path 文件
+     * @return 大小
+     */
+    private static long sizeOf(Path path) {
+        try {
+            return Files.size(Objects.requireNonNull(path, "path cannot be null"));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read size of " + path, e);
+        }
+    }
+
+    /**
+     * 文件
+     *
+     * @return 文件
+     */
+    @Nonnull
+    public Path getPath() {
+        return this.path;
+    }
+
+    /**
+     * 起始位置
+     *
+     * @return 起始位置
+     */
+    public long getOffset() {
+        return this.offset;
+    }
+
+    /**
+     * 长度
+     *
+     * @return 长度
+     */
+    public long getLength() {
+        return this.length;
+    }
+
+    @Nullable
+    @Override
+    public ContentType getContentType() {
+        return this.contentType;
+    }
+
+    @Nonnull
+    @Override
+    public HttpRequest.BodyPublisher asBodyPublisher() {
+        return new FileRegionPublisher(this.path, this.offset, this.length);
+    }
+
+    @Override
+    public String toString() {
+        return "BodyFileImpl{" +
+                "path=" + path +
+                ", offset=" + offset +
+                ", length=" + length +
+                ", contentType=" + contentType +
+                '}';
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        BodyFileImpl that = (BodyFileImpl) o;
+        return offset == that.offset && length == that.length && path.equals(that.path) &&
+                Objects.equals(contentType, that.contentType);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(path, offset, length, contentType);
+    }
+}
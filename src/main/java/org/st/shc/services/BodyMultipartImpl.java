@@ -0,0 +1,237 @@
+package org.st.shc.services;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.net.http.HttpRequest;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * multipart/form-data 体。
+ * <p>
+ * 各部分在发送时才依次订阅，文件部分按块从磁盘读取，不会把整个表单拼进内存；
+ * 所有部分长度已知时会预先算出 Content-Length ，否则使用分块传输。
+ *
+ * @author abomb4 2026-10-17
+ */
+public class BodyMultipartImpl implements HttpClientRequestBody {
+
+    /** 换行 */
+    private static final String CRLF = "\r\n";
+
+    /** 分隔符 */
+    @Nonnull
+    private final String boundary;
+    /** 各部分 */
+    @Nonnull
+    private final List<Part> parts;
+    /** Content-Type ，带 boundary 参数 */
+    @Nonnull
+    private final ContentType contentType;
+
+    /**
+     * 完整构造
+     *
+     * @param boundary 分隔符
+     * @param parts    各部分
+     */
+    public BodyMultipartImpl(@Nonnull String boundary, @Nonnull List<Part> parts) {
+        this.boundary = Objects.requireNonNull(boundary, "boundary cannot be null");
+        if (boundary.isEmpty() || boundary.length() > 70) {
+            throw new IllegalArgumentException("boundary length must be in [1, 70]");
+        }
+        this.parts = List.copyOf(Objects.requireNonNull(parts, "parts cannot be null"));
+        this.contentType = new ContentType(ContentType.MIME_TYPE_MULTIPART_FORM_DATA, null,
+                ContentType.MIME_TYPE_MULTIPART_FORM_DATA + "; boundary=" + boundary);
+    }
+
+    /**
+     * 构造器
+     *
+     * @return 构造器
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * 分隔符
+     *
+     * @return 分隔符
+     */
+    @Nonnull
+    public String getBoundary() {
+        return this.boundary;
+    }
+
+    /**
+     * 各部分
+     *
+     * @return 各部分
+     */
+    @Nonnull
+    public List<Part> getParts() {
+        return this.parts;
+    }
+
+    @Nonnull
+    @Override
+    public ContentType getContentType() {
+        return this.contentType;
+    }
+
+    @Nonnull
+    @Override
+    public HttpRequest.BodyPublisher asBodyPublisher() {
+        List<HttpRequest.BodyPublisher> publishers = new ArrayList<>(this.parts.size() * 3 + 1);
+        for (Part part : this.parts) {
+            publishers.add(HttpRequest.BodyPublishers.ofString(part.headerBlock(this.boundary),
+                    StandardCharsets.UTF_8));
+            publishers.add(part.body().asBodyPublisher());
+            publishers.add(HttpRequest.BodyPublishers.ofString(CRLF, StandardCharsets.US_ASCII));
+        }
+        publishers.add(HttpRequest.BodyPublishers.ofString("--" + this.boundary + "--" + CRLF,
+                StandardCharsets.US_ASCII));
+        return HttpRequest.BodyPublishers.concat(publishers.toArray(HttpRequest.BodyPublisher[]::new));
+    }
+
+    @Override
+    public String toString() {
+        return "BodyMultipartImpl{" +
+                "boundary='" + boundary + '\'' +
+                ", parts=" + parts +
+                '}';
+    }
+
+    /**
+     * 表单的一部分
+     *
+     * @param name     字段名
+     * @param filename 文件名，普通字段为空
+     * @param body     内容
+     */
+    public record Part(@Nonnull String name, @Nullable String filename, @Nonnull HttpClientRequestBody body) {
+
+        public Part {
+            Objects.requireNonNull(name, "name cannot be null");
+            Objects.requireNonNull(body, "body cannot be null");
+        }
+
+        /**
+         * 该部分在内容之前的分隔符与头
+         *
+         * @param boundary 分隔符
+         * @return 头
+         */
+        String headerBlock(String boundary) {
+            StringBuilder sb = new StringBuilder(128)
+                    .append("--").append(boundary).append(CRLF)
+                    .append("Content-Disposition: form-data; name=\"").append(escape(this.name)).append('"');
+            if (this.filename != null) {
+                sb.append("; filename=\"").append(escape(this.filename)).append('"');
+            }
+            sb.append(CRLF);
+            ContentType type = this.body.getContentType();
+            if (type != null) {
+                sb.append(HttpClientService.CONTENT_TYPE).append(": ").append(type.fullString()).append(CRLF);
+            }
+            return sb.append(CRLF).toString();
+        }
+
+        /**
+         * 按 HTML 规范转义字段名与文件名中的引号和换行
+         *
+         * @param value 原值
+         * @return 转义后
+         */
+        private static String escape(String value) {
+            return value.replace("\"", "%22").replace("\r", "%0D").replace("\n", "%0A");
+        }
+    }
+
+    /** multipart 体构造器 */
+    public static final class Builder {
+
+        /** 分隔符 */
+        private String boundary = "----shc-" + UUID.randomUUID().toString().replace("-", "");
+        /** 各部分 */
+        private final List<Part> parts = new ArrayList<>();
+
+        /** 只能通过 {@link BodyMultipartImpl#builder()} 创建 */
+        private Builder() {
+        }
+
+        /**
+         * 设置分隔符，默认随机生成
+         *
+         * @param boundary 分隔符
+         * @return this
+         */
+        public Builder setBoundary(@Nonnull String boundary) {
+            this.boundary = Objects.requireNonNull(boundary, "boundary cannot be null");
+            return this;
+        }
+
+        /**
+         * 增加一个 UTF-8 文本字段
+         *
+         * @param name  字段名
+         * @param value 值
+         * @return this
+         */
+        public Builder addField(@Nonnull String name, @Nonnull String value) {
+            return this.addField(name, value, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * 增加一个文本字段
+         *
+         * @param name    字段名
+         * @param value   值
+         * @param charset 编码
+         * @return this
+         */
+        public Builder addField(@Nonnull String name, @Nonnull String value, @Nonnull Charset charset) {
+            this.parts.add(new Part(name, null, new BodyStringImpl(value, charset)));
+            return this;
+        }
+
+        /**
+         * 增加一个文件，文件名取自路径，媒体类型根据文件推断
+         *
+         * @param name 字段名
+         * @param path 文件
+         * @return this
+         */
+        public Builder addFile(@Nonnull String name, @Nonnull Path path) {
+            return this.addPart(name, path.getFileName().toString(), new BodyFileImpl(path));
+        }
+
+        /**
+         * 增加一个任意内容的部分
+         *
+         * @param name     字段名
+         * @param filename 文件名，可以为空
+         * @param body     内容
+         * @return this
+         */
+        public Builder addPart(@Nonnull String name, @Nullable String filename, @Nonnull HttpClientRequestBody body) {
+            this.parts.add(new Part(name, filename, body));
+            return this;
+        }
+
+        /**
+         * 构造 multipart 体
+         *
+         * @return multipart 体
+         */
+        public BodyMultipartImpl build() {
+            return new BodyMultipartImpl(this.boundary, this.parts);
+        }
+    }
+}
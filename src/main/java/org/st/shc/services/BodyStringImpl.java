@@ -77,6 +77,12 @@ public class BodyStringImpl implements HttpClientRequestBody {
         return HttpRequest.BodyPublishers.ofString(this.str, this.charset);
     }
 
+    @Nonnull
+    @Override
+    public byte[] encode() {
+        return this.str.getBytes(this.charset);
+    }
+
     @Override
     public String toString() {
         return "BodyStringImpl{" +
@@ -0,0 +1,33 @@
+package org.st.shc.services;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 主机的隔舱已满，请求被直接拒绝，没有发出
+ *
+ * @author abomb4 2026-10-17
+ */
+public class BulkheadFullException extends RejectedExecutionException {
+
+    /** 主机 */
+    private final String host;
+
+    /**
+     * 完整构造
+     *
+     * @param host 主机
+     */
+    public BulkheadFullException(String host) {
+        super("Bulkhead of " + host + " is full");
+        this.host = host;
+    }
+
+    /**
+     * 主机
+     *
+     * @return 主机，形如 host:port
+     */
+    public String getHost() {
+        return this.host;
+    }
+}
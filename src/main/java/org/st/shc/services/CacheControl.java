@@ -0,0 +1,87 @@
+package org.st.shc.services;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Cache-Control 头中与客户端缓存相关的指令
+ *
+ * @param noStore 不允许缓存
+ * @param noCache 可以缓存，但每次使用前都要向源站校验
+ * @param maxAge  新鲜期秒数，没有指定时为 -1
+ * @author abomb4 2026-10-17
+ */
+record CacheControl(boolean noStore, boolean noCache, long maxAge) {
+
+    /** Cache-Control 头 */
+    static final String HEADER = "Cache-Control";
+
+    /** 没有任何指令 */
+    static final CacheControl NONE = new CacheControl(false, false, -1);
+
+    /**
+     * 解析请求头或响应头，头名称不区分大小写
+     *
+     * @param headers 头
+     * @return 指令
+     */
+    static CacheControl parse(Map<String, List<String>> headers) {
+        for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+            if (HEADER.equalsIgnoreCase(entry.getKey())) {
+                return parse(entry.getValue());
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * 解析全部 Cache-Control 值
+     *
+     * @param values 头的值
+     * @return 指令
+     */
+    private static CacheControl parse(List<String> values) {
+        if (values.isEmpty()) {
+            return NONE;
+        }
+        boolean noStore = false;
+        boolean noCache = false;
+        long maxAge = -1;
+        for (String value : values) {
+            for (String directive : value.split(",")) {
+                String d = directive.trim().toLowerCase(Locale.ROOT);
+                if (d.equals("no-store")) {
+                    noStore = true;
+                } else if (d.equals("no-cache") || d.startsWith("no-cache=")) {
+                    noCache = true;
+                } else if (d.startsWith("max-age=")) {
+                    maxAge = parseSeconds(d.substring("max-age=".length()));
+                    // 无法解析的 max-age 按已过期处理
+                    if (maxAge < 0) {
+                        maxAge = 0;
+                    }
+                }
+            }
+        }
+        return new CacheControl(noStore, noCache, maxAge);
+    }
+
+    /**
+     * 解析秒数
+     *
+     * @param value 值，可能带引号
+     * @return 秒数，无法解析时为 -1
+     */
+    static long parseSeconds(String value) {
+        String v = value.trim();
+        if (v.length() > 1 && v.startsWith("\"") && v.endsWith("\"")) {
+            v = v.substring(1, v.length() - 1);
+        }
+        try {
+            return Math.max(0, Long.parseLong(v));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package org.st.shc.services;
+
+import javax.net.ssl.SSLSession;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Optional;
+
+/**
+ * 由缓存直接给出的响应，没有经过网络
+ *
+ * @param statusCode 状态码
+ * @param request    请求
+ * @param headers    响应头
+ * @param body       响应体
+ * @param uri        链接
+ * @param version    缓存时的协议版本
+ * @param <T>        响应体类型
+ * @author abomb4 2026-10-17
+ */
+record CachedHttpResponse<T>(
+        int statusCode,
+        HttpRequest request,
+        HttpHeaders headers,
+        T body,
+        URI uri,
+        HttpClient.Version version
+) implements HttpResponse<T> {
+
+    @Override
+    public Optional<HttpResponse<T>> previousResponse() {
+        return Optional.empty();
+    }
+
+    @Override
+    public Optional<SSLSession> sslSession() {
+        return Optional.empty();
+    }
+
+    /**
+     * 响应头信息，用于向 BodyHandler 提供缓存的响应
+     *
+     * @param statusCode 状态码
+     * @param headers    响应头
+     * @param version    协议版本
+     */
+    record Info(int statusCode, HttpHeaders headers, HttpClient.Version version) implements HttpResponse.ResponseInfo {
+    }
+}
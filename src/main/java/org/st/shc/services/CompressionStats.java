@@ -0,0 +1,75 @@
+package org.st.shc.services;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 压缩统计，记录压缩前后的字节数，用来观察节省了多少带宽
+ *
+ * @author abomb4 2026-10-17
+ */
+public class CompressionStats {
+
+    /** 压缩后（线上传输）的字节数 */
+    private final LongAdder compressedBytes = new LongAdder();
+    /** 压缩前的字节数 */
+    private final LongAdder uncompressedBytes = new LongAdder();
+    /** 经过压缩或解压的消息数 */
+    private final LongAdder messages = new LongAdder();
+
+    /**
+     * 记录一条消息
+     *
+     * @param compressed   压缩后字节数
+     * @param uncompressed 压缩前字节数
+     */
+    public void record(long compressed, long uncompressed) {
+        this.compressedBytes.add(compressed);
+        this.uncompressedBytes.add(uncompressed);
+        this.messages.increment();
+    }
+
+    /**
+     * 压缩后（线上传输）的字节数
+     *
+     * @return 字节数
+     */
+    public long getCompressedBytes() {
+        return this.compressedBytes.sum();
+    }
+
+    /**
+     * 压缩前的字节数
+     *
+     * @return 字节数
+     */
+    public long getUncompressedBytes() {
+        return this.uncompressedBytes.sum();
+    }
+
+    /**
+     * 经过压缩或解压的消息数
+     *
+     * @return 消息数
+     */
+    public long getMessages() {
+        return this.messages.sum();
+    }
+
+    /**
+     * 节省的字节数
+     *
+     * @return 字节数
+     */
+    public long getSavedBytes() {
+        return this.getUncompressedBytes() - this.getCompressedBytes();
+    }
+
+    @Override
+    public String toString() {
+        return "CompressionStats{" +
+                "messages=" + getMessages() +
+                ", compressedBytes=" + getCompressedBytes() +
+                ", uncompressedBytes=" + getUncompressedBytes() +
+                '}';
+    }
+}
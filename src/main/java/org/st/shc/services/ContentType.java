@@ -107,6 +107,34 @@ public record ContentType(
         this(mimeType, null, makeFullString(mimeType, null));
     }
 
+    /**
+     * 解析 Content-Type 头，编码无法识别时忽略编码
+     *
+     * @param header Content-Type 头
+     * @return 内容类型，头为空时返回空
+     */
+    @Nullable
+    public static ContentType parse(@Nullable String header) {
+        if (header == null || header.isBlank()) {
+            return null;
+        }
+        String[] parts = header.split(";");
+        String mimeType = parts[0].trim();
+        Charset charset = null;
+        for (int i = 1; i < parts.length; i++) {
+            String param = parts[i].trim();
+            if (param.regionMatches(true, 0, "charset=", 0, 8)) {
+                String name = param.substring(8).trim().replace("\"", "");
+                try {
+                    charset = Charset.forName(name);
+                } catch (IllegalArgumentException e) {
+                    charset = null;
+                }
+            }
+        }
+        return new ContentType(mimeType, charset, header.trim());
+    }
+
     /**
      * 拼装完整 Content-Type
      *
@@ -0,0 +1,383 @@
+package org.st.shc.services;
+
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * 按响应的 Content-Encoding 边接收边解压的 BodyHandler ，支持 gzip 与 deflate ，其他编码原样交给下游。
+ * <p>
+ * 解压只改变响应体，返回的响应头中仍保留原始的 Content-Encoding 。只有请求声明了 Accept-Encoding 才解压，
+ * 见 {@link #wrapIfAccepted} ；调用方没有自己设置时，预处理会自动声明，见 {@link PreparedHttpRequest#prepare} 。
+ * 压测的请求由 {@link HttpClientService#prepareForLoad} 预处理，不自动声明，也就不付出解压的开销，统计的仍是线上字节数。
+ *
+ * @param <T> 响应体类型
+ * @author abomb4 2026-10-17
+ */
+class DecompressingBodyHandler<T> implements HttpResponse.BodyHandler<T> {
+
+    /** 请求时声明支持的编码 */
+    static final String ACCEPT_ENCODING_VALUE = "gzip, deflate";
+    /** Accept-Encoding 头 */
+    static final String ACCEPT_ENCODING = "Accept-Encoding";
+    /** Content-Encoding 头 */
+    static final String CONTENT_ENCODING = "Content-Encoding";
+
+    /** 下游 */
+    private final HttpResponse.BodyHandler<T> downstream;
+    /** 统计 */
+    private final CompressionStats stats;
+
+    /**
+     * 完整构造
+     *
+     * @param downstream 下游
+     * @param stats      统计
+     */
+    DecompressingBodyHandler(HttpResponse.BodyHandler<T> downstream, CompressionStats stats) {
+        this.downstream = Objects.requireNonNull(downstream, "downstream cannot be null");
+        this.stats = Objects.requireNonNull(stats, "stats cannot be null");
+    }
+
+    /**
+     * 请求声明了 Accept-Encoding 且下游不是只统计线上字节数的 {@link ResponseBodySinks#counting()} 时套上解压
+     *
+     * @param request    请求
+     * @param downstream 下游
+     * @param stats      统计
+     * @param <T>        响应体类型
+     * @return 解压的或原样的 BodyHandler
+     */
+    static <T> HttpResponse.BodyHandler<T> wrapIfAccepted(HttpRequest request,
+                                                          HttpResponse.BodyHandler<T> downstream,
+                                                          CompressionStats stats) {
+        if (ResponseBodySinks.isCounting(downstream) || request.headers().firstValue(ACCEPT_ENCODING).isEmpty()) {
+            return downstream;
+        }
+        return new DecompressingBodyHandler<>(downstream, stats);
+    }
+
+    @Override
+    public HttpResponse.BodySubscriber<T> apply(HttpResponse.ResponseInfo responseInfo) {
+        HttpResponse.BodySubscriber<T> subscriber = this.downstream.apply(responseInfo);
+        String encoding = responseInfo.headers().firstValue(CONTENT_ENCODING)
+                .map(v -> v.trim().toLowerCase(Locale.ROOT))
+                .orElse("");
+        return switch (encoding) {
+            case "gzip", "x-gzip" -> new InflatingSubscriber<>(subscriber, true, this.stats);
+            case "deflate" -> new InflatingSubscriber<>(subscriber, false, this.stats);
+            default -> subscriber;
+        };
+    }
+
+    /**
+     * 边接收边解压的订阅者，每个上游数据块对应一个下游数据块，背压原样透传。
+     * 数据损坏时取消上游、通知下游失败，之后到达的信号都忽略
+     *
+     * @param <T> 响应体类型
+     */
+    private static final class InflatingSubscriber<T> implements HttpResponse.BodySubscriber<T> {
+
+        /** 解压输出块大小 */
+        private static final int OUTPUT_CHUNK_SIZE = 32 * 1024;
+
+        /** 下游 */
+        private final HttpResponse.BodySubscriber<T> downstream;
+        /** 是否 gzip */
+        private final boolean gzip;
+        /** 统计 */
+        private final CompressionStats stats;
+        /** gzip 头解析 */
+        private final GzipHeaderParser header;
+        /** 解压器，收到前两个字节后才能确定 deflate 是否带 zlib 头 */
+        private Inflater inflater;
+        /** deflate 第一块只有一个字节时暂存，-1 表示没有 */
+        private int firstByte = -1;
+        /** 收到的字节数 */
+        private long compressed;
+        /** 解压出的字节数 */
+        private long uncompressed;
+        /** 上游订阅，解压失败时用于取消 */
+        private Flow.Subscription subscription;
+        /** 是否已结束，解压失败后不再处理后续信号 */
+        private boolean terminated;
+
+        /**
+         * 完整构造
+         *
+         * @param downstream 下游
+         * @param gzip       是否 gzip
+         * @param stats      统计
+         */
+        private InflatingSubscriber(HttpResponse.BodySubscriber<T> downstream, boolean gzip, CompressionStats stats) {
+            this.downstream = downstream;
+            this.gzip = gzip;
+            this.stats = stats;
+            this.header = gzip ? new GzipHeaderParser() : null;
+        }
+
+        @Override
+        public CompletionStage<T> getBody() {
+            return this.downstream.getBody();
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            this.downstream.onSubscribe(subscription);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> item) {
+            if (this.terminated) {
+                return;
+            }
+            List<ByteBuffer> out = new ArrayList<>(item.size());
+            try {
+                for (ByteBuffer buffer : item) {
+                    this.compressed += buffer.remaining();
+                    this.inflate(buffer, out);
+                }
+            } catch (DataFormatException | ZipException e) {
+                // 剩余的响应体已无法解压，不再下载
+                this.terminated = true;
+                this.subscription.cancel();
+                this.end();
+                this.downstream.onError(e);
+                return;
+            }
+            this.downstream.onNext(out);
+        }
+
+        /**
+         * 解压一块数据
+         *
+         * @param buffer 压缩数据
+         * @param out    解压结果
+         * @throws DataFormatException 数据损坏
+         * @throws ZipException        gzip 头不合法
+         */
+        private void inflate(ByteBuffer buffer, List<ByteBuffer> out) throws DataFormatException, ZipException {
+            if (this.gzip && !this.header.parse(buffer)) {
+                return;
+            }
+            if (!buffer.hasRemaining()) {
+                return;
+            }
+            if (this.inflater == null) {
+                if (this.firstByte >= 0) {
+                    // 上一块只有一个字节，拼上这一块
+                    buffer = ByteBuffer.allocate(buffer.remaining() + 1).put((byte) this.firstByte).put(buffer).flip();
+                    this.firstByte = -1;
+                } else if (!this.gzip && buffer.remaining() < 2) {
+                    // 判断 zlib 头需要两个字节，留到下一块
+                    this.firstByte = buffer.get() & 0xFF;
+                    return;
+                }
+                // deflate 本应带 zlib 头，但不少服务端发送裸 deflate ，根据前两个字节区分
+                boolean nowrap = this.gzip
+                        || !isZlibHeader(buffer.get(buffer.position()) & 0xFF, buffer.get(buffer.position() + 1) & 0xFF);
+                this.inflater = new Inflater(nowrap);
+            }
+            if (this.inflater.finished()) {
+                // gzip 尾部的 CRC 与长度，忽略
+                buffer.position(buffer.limit());
+                return;
+            }
+            this.inflater.setInput(buffer);
+            while (!this.inflater.finished()) {
+                ByteBuffer chunk = ByteBuffer.allocate(OUTPUT_CHUNK_SIZE);
+                int n = this.inflater.inflate(chunk);
+                if (n == 0) {
+                    if (this.inflater.needsDictionary()) {
+                        throw new DataFormatException("Preset dictionary is not supported");
+                    }
+                    if (this.inflater.needsInput()) {
+                        break;
+                    }
+                }
+                this.uncompressed += n;
+                out.add(chunk.flip());
+            }
+            buffer.position(buffer.limit());
+        }
+
+        /**
+         * 是否 zlib 头：压缩方法为 deflate ，且两个字节按大端组成的数是 31 的倍数
+         *
+         * @param cmf 第一个字节
+         * @param flg 第二个字节
+         * @return 是否 zlib 头
+         */
+        private static boolean isZlibHeader(int cmf, int flg) {
+            return (cmf & 0x0F) == 8 && (cmf * 256 + flg) % 31 == 0;
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            if (this.terminated) {
+                return;
+            }
+            this.terminated = true;
+            this.end();
+            this.downstream.onError(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            if (this.terminated) {
+                return;
+            }
+            this.terminated = true;
+            this.end();
+            this.stats.record(this.compressed, this.uncompressed);
+            this.downstream.onComplete();
+        }
+
+        /**
+         * 释放解压器
+         */
+        private void end() {
+            if (this.inflater != null) {
+                this.inflater.end();
+            }
+        }
+    }
+
+    /** 逐字节解析 gzip 头，头部很短，跨块也能正确处理 */
+    private static final class GzipHeaderParser {
+
+        /** 固定头长度 */
+        private static final int FIXED_LENGTH = 10;
+        /** 标志位：带 CRC16 */
+        private static final int FHCRC = 2;
+        /** 标志位：带扩展字段 */
+        private static final int FEXTRA = 4;
+        /** 标志位：带文件名 */
+        private static final int FNAME = 8;
+        /** 标志位：带注释 */
+        private static final int FCOMMENT = 16;
+
+        /** 已读的固定头字节数 */
+        private int fixedRead;
+        /** 标志位 */
+        private int flags;
+        /** 当前可选段还需跳过的字节数，-1 表示尚未读到长度 */
+        private int skip = -1;
+        /** 扩展字段长度的低字节 */
+        private int extraLow = -1;
+        /** 当前处理到的可选段 */
+        private int section = FEXTRA;
+        /** 是否解析完成 */
+        private boolean done;
+
+        /**
+         * 从 buffer 中消费头部字节
+         *
+         * @param buffer 数据
+         * @return 头部是否已解析完成
+         * @throws ZipException 不是 gzip 数据
+         */
+        private boolean parse(ByteBuffer buffer) throws ZipException {
+            while (!this.done && buffer.hasRemaining()) {
+                int b = buffer.get() & 0xFF;
+                if (this.fixedRead < FIXED_LENGTH) {
+                    this.readFixed(b);
+                } else {
+                    this.readOptional(b);
+                }
+                this.advance();
+            }
+            return this.done;
+        }
+
+        /**
+         * 读取固定头
+         *
+         * @param b 字节
+         * @throws ZipException 不是 gzip 数据
+         */
+        private void readFixed(int b) throws ZipException {
+            switch (this.fixedRead) {
+                case 0 -> {
+                    if (b != 0x1F) {
+                        throw new ZipException("Not in GZIP format");
+                    }
+                }
+                case 1 -> {
+                    if (b != 0x8B) {
+                        throw new ZipException("Not in GZIP format");
+                    }
+                }
+                case 2 -> {
+                    if (b != 8) {
+                        throw new ZipException("Unsupported compression method " + b);
+                    }
+                }
+                case 3 -> this.flags = b;
+                default -> {
+                }
+            }
+            this.fixedRead++;
+        }
+
+        /**
+         * 读取可选段
+         *
+         * @param b 字节
+         */
+        private void readOptional(int b) {
+            switch (this.section) {
+                case FEXTRA -> {
+                    if (this.extraLow < 0) {
+                        this.extraLow = b;
+                    } else if (this.skip < 0) {
+                        this.skip = this.extraLow | (b << 8);
+                    } else {
+                        this.skip--;
+                    }
+                }
+                case FNAME, FCOMMENT -> {
+                    if (b == 0) {
+                        this.skip = 0;
+                    }
+                }
+                case FHCRC -> this.skip = this.skip < 0 ? 1 : this.skip - 1;
+                default -> {
+                }
+            }
+        }
+
+        /**
+         * 跳过不存在的可选段，当前段读完时进入下一段
+         */
+        private void advance() {
+            if (this.fixedRead < FIXED_LENGTH) {
+                return;
+            }
+            while (!this.done) {
+                boolean present = (this.flags & this.section) != 0;
+                boolean finished = this.skip == 0;
+                if (present && !finished) {
+                    return;
+                }
+                this.skip = -1;
+                switch (this.section) {
+                    case FEXTRA -> this.section = FNAME;
+                    case FNAME -> this.section = FCOMMENT;
+                    case FCOMMENT -> this.section = FHCRC;
+                    default -> this.done = true;
+                }
+            }
+        }
+    }
+}
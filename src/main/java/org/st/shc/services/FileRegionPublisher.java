@@ -0,0 +1,200 @@
+package org.st.shc.services;
+
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 从文件区间按需读取的 BodyPublisher ，数据来自内存映射窗口的切片，不经过 Java 堆。
+ * <p>
+ * 每次订阅都会重新打开文件，因此同一个实例可以被重复发送。
+ *
+ * @author abomb4 2026-10-17
+ */
+class FileRegionPublisher implements HttpRequest.BodyPublisher {
+
+    /** 每次推送的块大小 */
+    static final int CHUNK_SIZE = 64 * 1024;
+    /** 每次映射的窗口大小 */
+    static final long WINDOW_SIZE = 4L * 1024 * 1024;
+
+    /** 文件 */
+    private final Path path;
+    /** 起始位置 */
+    private final long offset;
+    /** 长度 */
+    private final long length;
+
+    /**
+     * 完整构造
+     *
+     * @param path   文件
+     * @param offset 起始位置
+     * @param length 长度
+     */
+    FileRegionPublisher(Path path, long offset, long length) {
+        this.path = Objects.requireNonNull(path, "path cannot be null");
+        this.offset = offset;
+        this.length = length;
+    }
+
+    @Override
+    public long contentLength() {
+        return this.length;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber cannot be null");
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(this.path, StandardOpenOption.READ);
+        } catch (IOException e) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(e);
+            return;
+        }
+        RegionSubscription subscription = new RegionSubscription(subscriber, channel);
+        subscriber.onSubscribe(subscription);
+        subscription.drain();
+    }
+
+    /** 一次订阅 */
+    private final class RegionSubscription implements Flow.Subscription {
+
+        /** 订阅者 */
+        private final Flow.Subscriber<? super ByteBuffer> subscriber;
+        /** 文件 */
+        private final FileChannel channel;
+        /** 未满足的需求 */
+        private final AtomicLong demand = new AtomicLong();
+        /** 防止重入的工作计数 */
+        private final AtomicInteger wip = new AtomicInteger();
+        /** 是否已结束 */
+        private final AtomicBoolean terminated = new AtomicBoolean();
+        /** 已推送的字节数，只在 drain 中读写 */
+        private long sent;
+        /** 当前映射窗口，只在 drain 中读写 */
+        private MappedByteBuffer window;
+
+        /**
+         * 完整构造
+         *
+         * @param subscriber 订阅者
+         * @param channel    文件
+         */
+        private RegionSubscription(Flow.Subscriber<? super ByteBuffer> subscriber, FileChannel channel) {
+            this.subscriber = subscriber;
+            this.channel = channel;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                this.fail(new IllegalArgumentException("non-positive request: " + n));
+                return;
+            }
+            this.demand.getAndAccumulate(n, (a, b) -> a + b < 0 ? Long.MAX_VALUE : a + b);
+            this.drain();
+        }
+
+        @Override
+        public void cancel() {
+            if (this.terminated.compareAndSet(false, true)) {
+                this.closeChannel();
+            }
+        }
+
+        /**
+         * 在需求范围内推送数据，同一时刻只有一个线程在推送
+         */
+        private void drain() {
+            if (this.wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                while (!this.terminated.get()) {
+                    if (this.sent >= length) {
+                        if (this.terminated.compareAndSet(false, true)) {
+                            this.closeChannel();
+                            this.subscriber.onComplete();
+                        }
+                        break;
+                    }
+                    if (this.demand.get() == 0) {
+                        break;
+                    }
+                    ByteBuffer chunk;
+                    try {
+                        chunk = this.nextChunk();
+                    } catch (IOException e) {
+                        this.fail(e);
+                        break;
+                    }
+                    this.demand.decrementAndGet();
+                    this.subscriber.onNext(chunk);
+                }
+                missed = this.wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        /**
+         * 从映射窗口中切出下一块，窗口用尽时映射下一个窗口
+         *
+         * @return 数据块
+         * @throws IOException 映射失败
+         */
+        private ByteBuffer nextChunk() throws IOException {
+            if (this.window == null || !this.window.hasRemaining()) {
+                long size = Math.min(WINDOW_SIZE, length - this.sent);
+                this.window = this.channel.map(FileChannel.MapMode.READ_ONLY, offset + this.sent, size);
+            }
+            int size = Math.min(CHUNK_SIZE, this.window.remaining());
+            ByteBuffer chunk = this.window.slice(this.window.position(), size).asReadOnlyBuffer();
+            this.window.position(this.window.position() + size);
+            this.sent += size;
+            return chunk;
+        }
+
+        /**
+         * 以异常结束
+         *
+         * @param e 异常
+         */
+        private void fail(Throwable e) {
+            if (this.terminated.compareAndSet(false, true)) {
+                this.closeChannel();
+                this.subscriber.onError(e);
+            }
+        }
+
+        /**
+         * 关闭文件，映射窗口在被回收前仍然有效
+         */
+        private void closeChannel() {
+            try {
+                this.channel.close();
+            } catch (IOException ignored) {
+                // 只读文件关闭失败不影响结果
+            }
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package org.st.shc.services;
+
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * 边读边 gzip 压缩的 BodyPublisher ，长度未知，发送时使用分块传输。
+ * <p>
+ * 上游每推来一块数据就压缩一次，压缩器暂未产出数据时向上游多要一块，保证不向下游推送空块；
+ * 上游结束后在下游有需求时推送压缩尾部。
+ *
+ * @author abomb4 2026-10-17
+ */
+class GzipBodyPublisher implements HttpRequest.BodyPublisher {
+
+    /** gzip 固定头：魔数、deflate 、无标志、无时间、无额外标志、未知系统 */
+    private static final byte[] HEADER = {0x1F, (byte) 0x8B, 8, 0, 0, 0, 0, 0, 0, (byte) 0xFF};
+    /** gzip 尾长度：CRC32 与原始长度 */
+    private static final int TRAILER_LENGTH = 8;
+    /** 压缩输出缓冲大小 */
+    private static final int OUTPUT_CHUNK_SIZE = 16 * 1024;
+
+    /** 上游 */
+    private final HttpRequest.BodyPublisher upstream;
+    /** 压缩级别 */
+    private final int level;
+    /** 统计 */
+    private final CompressionStats stats;
+
+    /**
+     * 完整构造
+     *
+     * @param upstream 上游
+     * @param level    压缩级别
+     * @param stats    统计
+     */
+    GzipBodyPublisher(HttpRequest.BodyPublisher upstream, int level, CompressionStats stats) {
+        this.upstream = Objects.requireNonNull(upstream, "upstream cannot be null");
+        this.level = level;
+        this.stats = Objects.requireNonNull(stats, "stats cannot be null");
+    }
+
+    @Override
+    public long contentLength() {
+        return -1;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+        this.upstream.subscribe(new GzipProcessor(Objects.requireNonNull(subscriber, "subscriber cannot be null")));
+    }
+
+    /**
+     * 一次发送的压缩过程
+     * <p>
+     * 上游回调与下游 request 可能在不同线程并发，涉及压缩器的操作都在 this 上同步
+     */
+    private final class GzipProcessor implements Flow.Subscriber<ByteBuffer>, Flow.Subscription {
+
+        /** 下游 */
+        private final Flow.Subscriber<? super ByteBuffer> downstream;
+        /** 压缩器，gzip 头尾自己写，因此使用裸 deflate */
+        private final Deflater deflater = new Deflater(level, true);
+        /** 原始数据校验 */
+        private final CRC32 crc = new CRC32();
+        /** 下游未满足的需求 */
+        private final AtomicLong demand = new AtomicLong();
+        /** 是否已结束 */
+        private final AtomicBoolean terminated = new AtomicBoolean();
+        /** 上游订阅 */
+        private Flow.Subscription upstreamSubscription;
+        /** 上游是否已结束 */
+        private volatile boolean upstreamDone;
+        /** 是否已发送 gzip 头 */
+        private boolean headerSent;
+        /** 原始字节数 */
+        private long uncompressed;
+        /** 压缩后字节数 */
+        private long compressed;
+
+        /**
+         * 完整构造
+         *
+         * @param downstream 下游
+         */
+        private GzipProcessor(Flow.Subscriber<? super ByteBuffer> downstream) {
+            this.downstream = downstream;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.upstreamSubscription = subscription;
+            this.downstream.onSubscribe(this);
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                this.upstreamSubscription.cancel();
+                this.fail(new IllegalArgumentException("non-positive request: " + n));
+                return;
+            }
+            this.demand.getAndAccumulate(n, (a, b) -> a + b < 0 ? Long.MAX_VALUE : a + b);
+            if (this.upstreamDone) {
+                this.tryFinish();
+            } else {
+                this.upstreamSubscription.request(n);
+            }
+        }
+
+        @Override
+        public void cancel() {
+            if (this.terminated.compareAndSet(false, true)) {
+                this.upstreamSubscription.cancel();
+                synchronized (this) {
+                    this.release();
+                }
+            }
+        }
+
+        @Override
+        public void onNext(ByteBuffer item) {
+            ByteBuffer out;
+            synchronized (this) {
+                if (this.terminated.get()) {
+                    return;
+                }
+                this.uncompressed += item.remaining();
+                this.crc.update(item.duplicate());
+                this.deflater.setInput(item);
+                out = this.drainDeflater(false);
+            }
+            if (out == null) {
+                // 压缩器还在攒数据，这一块不消耗下游需求，再向上游要一块
+                this.upstreamSubscription.request(1);
+                return;
+            }
+            this.demand.decrementAndGet();
+            this.downstream.onNext(out);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            this.fail(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            this.upstreamDone = true;
+            this.tryFinish();
+        }
+
+        /**
+         * 上游已结束且下游有需求时，推送最后的压缩数据与 gzip 尾
+         */
+        private void tryFinish() {
+            ByteBuffer last;
+            synchronized (this) {
+                if (this.demand.get() <= 0 || !this.terminated.compareAndSet(false, true)) {
+                    return;
+                }
+                this.deflater.finish();
+                ByteBuffer body = this.drainDeflater(true);
+                last = ByteBuffer.allocate((body == null ? 0 : body.remaining()) + TRAILER_LENGTH);
+                if (body != null) {
+                    last.put(body);
+                }
+                putIntLe(last, (int) this.crc.getValue());
+                putIntLe(last, (int) this.uncompressed);
+                this.compressed += TRAILER_LENGTH;
+                last.flip();
+                this.release();
+            }
+            stats.record(this.compressed, this.uncompressed);
+            this.demand.decrementAndGet();
+            this.downstream.onNext(last);
+            this.downstream.onComplete();
+        }
+
+        /**
+         * 取出压缩器中已产出的数据，第一次产出时带上 gzip 头
+         *
+         * @param finishing 是否在收尾，收尾时即使没有数据也要带上 gzip 头
+         * @return 数据，没有数据时为空
+         */
+        private ByteBuffer drainDeflater(boolean finishing) {
+            byte[] buffer = new byte[OUTPUT_CHUNK_SIZE];
+            ByteBuffer out = null;
+            while (finishing ? !this.deflater.finished() : !this.deflater.needsInput()) {
+                int n = this.deflater.deflate(buffer);
+                if (n == 0 && !finishing) {
+                    break;
+                }
+                out = append(out, buffer, n);
+            }
+            if (out == null && !(finishing && !this.headerSent)) {
+                return null;
+            }
+            if (!this.headerSent) {
+                this.headerSent = true;
+                ByteBuffer withHeader = ByteBuffer.allocate(HEADER.length + (out == null ? 0 : out.position()));
+                withHeader.put(HEADER);
+                if (out != null) {
+                    withHeader.put(out.flip());
+                }
+                out = withHeader;
+            }
+            this.compressed += out.position();
+            return out.flip();
+        }
+
+        /**
+         * 以异常结束
+         *
+         * @param throwable 异常
+         */
+        private void fail(Throwable throwable) {
+            if (this.terminated.compareAndSet(false, true)) {
+                synchronized (this) {
+                    this.release();
+                }
+                this.downstream.onError(throwable);
+            }
+        }
+
+        /**
+         * 释放压缩器
+         */
+        private void release() {
+            this.deflater.end();
+        }
+    }
+
+    /**
+     * 追加数据到可写状态的 buffer ，容量不够时扩容
+     *
+     * @param target 目标，可以为空
+     * @param src    数据
+     * @param length 长度
+     * @return 目标
+     */
+    private static ByteBuffer append(ByteBuffer target, byte[] src, int length) {
+        if (target == null) {
+            target = ByteBuffer.allocate(Math.max(length, OUTPUT_CHUNK_SIZE));
+        } else if (target.remaining() < length) {
+            ByteBuffer bigger = ByteBuffer.allocate(Math.max(target.capacity() * 2, target.position() + length));
+            bigger.put(target.flip());
+            target = bigger;
+        }
+        return target.put(src, 0, length);
+    }
+
+    /**
+     * 小端写入 int
+     *
+     * @param buffer 目标
+     * @param value  值
+     */
+    private static void putIntLe(ByteBuffer buffer, int value) {
+        buffer.put((byte) value)
+                .put((byte) (value >>> 8))
+                .put((byte) (value >>> 16))
+                .put((byte) (value >>> 24));
+    }
+}
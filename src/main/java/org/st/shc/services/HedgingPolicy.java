@@ -0,0 +1,320 @@
+package org.st.shc.services;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+
+/**
+ * 对冲请求：幂等请求在最近延迟的某个百分位内没有响应时，再发一份相同的请求，先返回的胜出，另一份被取消。
+ * <p>
+ * 延迟窗口只记录成功交换各自的耗时，每积累一批样本重新计算一次对冲等待时间，样本不足时不对冲。
+ * 对冲次数受比例上限约束，避免后端整体变慢时把负载翻倍。对冲前出现的失败直接交给调用方，对冲不是重试；
+ * 两份都在进行时，收到响应头之前的失败不影响另一份，两份都失败才算失败。
+ * <p>
+ * 先收到响应头的一份独占调用方的响应体处理，另一份的响应体直接丢弃并被取消，
+ * 因此 {@link ResponseBodySinks#onChunk} 这类有状态的处理方式也只会收到一份响应的数据；
+ * 独占之后这一份的失败就是调用的失败。每份请求使用各自的计时器，独占的一份的排队、建连与发送耗时计入调用方的计时器。
+ *
+ * @author abomb4 2026-10-17
+ */
+public class HedgingPolicy {
+
+    /** 幂等的方法 */
+    private static final Set<HttpMethod> IDEMPOTENT_METHODS = Set.of(HttpMethod.GET, HttpMethod.HEAD,
+            HttpMethod.OPTIONS, HttpMethod.PUT, HttpMethod.DELETE);
+    /** 延迟窗口大小 */
+    private static final int WINDOW_SIZE = 1024;
+    /** 开始对冲前至少需要的样本数 */
+    private static final int MIN_SAMPLES = 32;
+    /** 每隔多少个样本重新计算对冲等待时间 */
+    private static final int RECOMPUTE_INTERVAL = 32;
+    /** 默认对冲比例上限 */
+    public static final double DEFAULT_MAX_HEDGE_RATIO = 0.1;
+
+    /** 百分位，0 到 100 之间，与 {@link org.st.shc.framework.metrics.LatencyHistogram} 的百分位一致 */
+    private final double percentile;
+    /** 最短对冲等待时间 */
+    private final long minDelayNanos;
+    /** 对冲次数占调用次数的比例上限 */
+    private final double maxHedgeRatio;
+
+    /** 最近的延迟，环形缓冲 */
+    private final long[] window = new long[WINDOW_SIZE];
+    /** 已记录的样本总数 */
+    private long samples;
+    /** 当前对冲等待时间，样本不足时为 -1 */
+    private volatile long delayNanos = -1;
+
+    /** 调用次数 */
+    private final LongAdder calls = new LongAdder();
+    /** 发出对冲的次数 */
+    private final LongAdder hedged = new LongAdder();
+    /** 对冲请求胜出的次数 */
+    private final LongAdder hedgeWins = new LongAdder();
+
+    /**
+     * 使用默认的对冲比例上限
+     *
+     * @param percentile 百分位，例如 95
+     * @param minDelay   最短对冲等待时间
+     */
+    public HedgingPolicy(double percentile, @Nonnull Duration minDelay) {
+        this(percentile, minDelay, DEFAULT_MAX_HEDGE_RATIO);
+    }
+
+    /**
+     * 完整构造
+     *
+     * @param percentile    百分位，例如 95 ，不含 0 与 100
+     * @param minDelay      最短对冲等待时间
+     * @param maxHedgeRatio 对冲次数占调用次数的比例上限
+     */
+    public HedgingPolicy(double percentile, @Nonnull Duration minDelay, double maxHedgeRatio) {
+        if (!(percentile > 0 && percentile < 100)) {
+            throw new IllegalArgumentException("percentile must between 0 and 100");
+        }
+        Objects.requireNonNull(minDelay, "minDelay cannot be null");
+        if (minDelay.isNegative()) {
+            throw new IllegalArgumentException("minDelay cannot be negative");
+        }
+        if (!(maxHedgeRatio > 0 && maxHedgeRatio <= 1)) {
+            throw new IllegalArgumentException("maxHedgeRatio must between 0 and 1");
+        }
+        this.percentile = percentile;
+        this.minDelayNanos = minDelay.toNanos();
+        this.maxHedgeRatio = maxHedgeRatio;
+    }
+
+    /**
+     * 请求方法能否对冲
+     *
+     * @param method 方法
+     * @return 幂等的方法可以对冲
+     */
+    boolean isHedgeable(HttpMethod method) {
+        return IDEMPOTENT_METHODS.contains(method);
+    }
+
+    /**
+     * 发送请求，超过对冲等待时间仍未响应时再发一份
+     *
+     * @param attempt     用给定的响应体处理与计时器发起一份请求
+     * @param bodyHandler 调用方的响应体处理，只交给先收到响应头的一份
+     * @param timer       调用方的计时器，为空时不计时
+     * @param executor    发起对冲请求使用的线程池
+     * @param <T>         响应体类型
+     * @return 先返回的响应
+     */
+    <T> CompletableFuture<HttpResponse<T>> send(
+            BiFunction<HttpResponse.BodyHandler<T>, HttpCallTimer, CompletableFuture<HttpResponse<T>>> attempt,
+            HttpResponse.BodyHandler<T> bodyHandler,
+            @Nullable HttpCallTimer timer,
+            Executor executor) {
+        this.calls.increment();
+        Race<T> race = new Race<>(attempt, bodyHandler, timer);
+        race.primary = race.launch(false);
+        long delay = this.delayNanos;
+        if (delay >= 0 && !race.result.isDone()) {
+            CompletableFuture<Void> trigger = new CompletableFuture<>();
+            trigger.completeOnTimeout(null, delay, TimeUnit.NANOSECONDS)
+                    .thenRunAsync(race::hedge, executor);
+            // 结果先出来时取消定时，不在延迟队列中留下任务
+            race.result.whenComplete((response, throwable) -> trigger.cancel(false));
+        }
+        return race.result;
+    }
+
+    /**
+     * 记录一次成功交换的耗时，每积累一批样本重新计算对冲等待时间
+     *
+     * @param nanos 耗时
+     */
+    private synchronized void record(long nanos) {
+        this.window[(int) (this.samples % WINDOW_SIZE)] = nanos;
+        this.samples++;
+        if (this.samples >= MIN_SAMPLES && this.samples % RECOMPUTE_INTERVAL == 0) {
+            int size = (int) Math.min(this.samples, WINDOW_SIZE);
+            long[] sorted = Arrays.copyOf(this.window, size);
+            Arrays.sort(sorted);
+            long value = sorted[Math.min(size - 1, (int) Math.ceil(this.percentile / 100 * size) - 1)];
+            this.delayNanos = Math.max(this.minDelayNanos, value);
+        }
+    }
+
+    /**
+     * 当前对冲等待时间
+     *
+     * @return 等待时间，样本不足时为空
+     */
+    public Duration currentDelay() {
+        long delay = this.delayNanos;
+        return delay < 0 ? null : Duration.ofNanos(delay);
+    }
+
+    /**
+     * 统计快照
+     *
+     * @return 统计
+     */
+    @Nonnull
+    public Stats stats() {
+        return new Stats(this.calls.sum(), this.hedged.sum(), this.hedgeWins.sum());
+    }
+
+    /**
+     * 取消未完成的请求
+     *
+     * @param future 请求，可以为空
+     */
+    private static void cancelIfRunning(CompletableFuture<?> future) {
+        if (future != null && !future.isDone()) {
+            future.cancel(true);
+        }
+    }
+
+    /**
+     * 对冲统计
+     *
+     * @param calls     调用次数
+     * @param hedged    发出对冲的次数
+     * @param hedgeWins 对冲请求胜出的次数
+     */
+    public record Stats(long calls, long hedged, long hedgeWins) {
+
+        /**
+         * 发出对冲的调用比例
+         *
+         * @return 比例，没有调用时为 0
+         */
+        public double hedgeRate() {
+            return this.calls == 0 ? 0 : (double) this.hedged / this.calls;
+        }
+
+        /**
+         * 对冲请求胜出的比例
+         *
+         * @return 比例，没有对冲时为 0
+         */
+        public double winRate() {
+            return this.hedged == 0 ? 0 : (double) this.hedgeWins / this.hedged;
+        }
+    }
+
+    /**
+     * 一次调用中主请求与对冲请求的竞争
+     *
+     * @param <T> 响应体类型
+     */
+    private final class Race<T> {
+
+        /** 发起一份请求的方式 */
+        private final BiFunction<HttpResponse.BodyHandler<T>, HttpCallTimer, CompletableFuture<HttpResponse<T>>> attempt;
+        /** 调用方的响应体处理 */
+        private final HttpResponse.BodyHandler<T> bodyHandler;
+        /** 调用方的计时器，可以为空 */
+        private final HttpCallTimer timer;
+        /** 是否已有一份收到响应头并独占了响应体处理 */
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        /** 交给调用方的结果 */
+        private final CompletableFuture<HttpResponse<T>> result = new CompletableFuture<>();
+        /** 还在进行的请求数，降为 0 后不再发出对冲 */
+        private final AtomicInteger pending = new AtomicInteger(1);
+        /** 主请求 */
+        private volatile CompletableFuture<HttpResponse<T>> primary;
+        /** 对冲请求 */
+        private volatile CompletableFuture<HttpResponse<T>> backup;
+
+        /**
+         * 完整构造
+         *
+         * @param attempt     发起一份请求的方式
+         * @param bodyHandler 调用方的响应体处理
+         * @param timer       调用方的计时器，可以为空
+         */
+        private Race(BiFunction<HttpResponse.BodyHandler<T>, HttpCallTimer, CompletableFuture<HttpResponse<T>>> attempt,
+                     HttpResponse.BodyHandler<T> bodyHandler,
+                     @Nullable HttpCallTimer timer) {
+            this.attempt = attempt;
+            this.bodyHandler = bodyHandler;
+            this.timer = timer;
+            // 结果确定后取消还在进行的请求，调用方取消结果时两份都取消
+            this.result.whenComplete((response, throwable) -> {
+                cancelIfRunning(this.primary);
+                cancelIfRunning(this.backup);
+            });
+        }
+
+        /**
+         * 发起一份请求
+         *
+         * @param isBackup 是否对冲请求
+         * @return 请求
+         */
+        private CompletableFuture<HttpResponse<T>> launch(boolean isBackup) {
+            long start = System.nanoTime();
+            HttpCallTimer attemptTimer = this.timer == null ? null : new HttpCallTimer();
+            AtomicBoolean owner = new AtomicBoolean();
+            HttpResponse.BodyHandler<T> handler = info -> {
+                if (!this.claimed.compareAndSet(false, true)) {
+                    // 另一份已经独占，这一份的响应体丢弃，结果也不会被采用
+                    return HttpResponse.BodySubscribers.replacing(null);
+                }
+                owner.set(true);
+                if (attemptTimer != null) {
+                    this.timer.adopt(attemptTimer);
+                }
+                cancelIfRunning(isBackup ? this.primary : this.backup);
+                return this.bodyHandler.apply(info);
+            };
+            CompletableFuture<HttpResponse<T>> future;
+            try {
+                future = this.attempt.apply(handler, attemptTimer);
+            } catch (RuntimeException e) {
+                future = CompletableFuture.failedFuture(e);
+            }
+            future.whenComplete((response, throwable) -> {
+                if (owner.get()) {
+                    if (throwable != null) {
+                        this.result.completeExceptionally(throwable);
+                        return;
+                    }
+                    record(System.nanoTime() - start);
+                    if (this.result.complete(response) && isBackup) {
+                        hedgeWins.increment();
+                    }
+                } else if (throwable != null && this.pending.decrementAndGet() == 0) {
+                    this.result.completeExceptionally(throwable);
+                }
+            });
+            return future;
+        }
+
+        /**
+         * 对冲等待时间到期，结果仍未出来且未超过比例上限时发出对冲请求
+         */
+        private void hedge() {
+            if (this.result.isDone() || this.claimed.get() || hedged.sum() >= maxHedgeRatio * calls.sum()) {
+                return;
+            }
+            if (this.pending.getAndUpdate(n -> n == 0 ? 0 : n + 1) == 0) {
+                return;
+            }
+            hedged.increment();
+            this.backup = this.launch(true);
+            if (this.result.isDone()) {
+                cancelIfRunning(this.backup);
+            }
+        }
+    }
+}
@@ -0,0 +1,351 @@
+package org.st.shc.services;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.net.URI;
+import java.net.http.HttpResponse;
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 按主机隔离的并发隔舱。
+ * <p>
+ * 每个主机有自己的并发上限与有界等待队列，位于传输层之前：并发未满时交换立即发出，
+ * 满了进入该主机的队列，队列也满时立刻以 {@link BulkheadFullException} 失败。
+ * 一个主机变慢只会占满它自己的隔舱，不会拖住发往其他主机的请求。
+ * <p>
+ * 排队中的请求被取消时直接移出队列；命中缓存的请求不经过隔舱。
+ *
+ * @author abomb4 2026-10-17
+ */
+public class HostBulkheads {
+
+    /** 默认的并发上限 */
+    private final int defaultMaxConcurrent;
+    /** 默认的队列长度 */
+    private final int defaultMaxQueued;
+    /** 单独配置的主机，键为 host:port */
+    private final Map<String, int[]> overrides = new ConcurrentHashMap<>();
+    /** 各主机的隔舱 */
+    private final Map<String, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+
+    /**
+     * 完整构造
+     *
+     * @param defaultMaxConcurrent 每个主机默认的并发上限
+     * @param defaultMaxQueued     每个主机默认的队列长度，0 表示不排队
+     */
+    public HostBulkheads(int defaultMaxConcurrent, int defaultMaxQueued) {
+        checkLimits(defaultMaxConcurrent, defaultMaxQueued);
+        this.defaultMaxConcurrent = defaultMaxConcurrent;
+        this.defaultMaxQueued = defaultMaxQueued;
+    }
+
+    /**
+     * 单独配置某个主机，只影响之后第一次访问该主机时创建的隔舱
+     *
+     * @param origin        主机地址，如 https://example.com ，端口省略时按协议取 443 或 80 ，与请求的归类方式一致
+     * @param maxConcurrent 并发上限
+     * @param maxQueued     队列长度，0 表示不排队
+     * @return this
+     */
+    public HostBulkheads configure(@Nonnull URI origin, int maxConcurrent, int maxQueued) {
+        Objects.requireNonNull(origin, "origin cannot be null");
+        if (origin.getHost() == null) {
+            throw new IllegalArgumentException("origin must have a host");
+        }
+        checkLimits(maxConcurrent, maxQueued);
+        this.overrides.put(hostKey(origin), new int[]{maxConcurrent, maxQueued});
+        return this;
+    }
+
+    /**
+     * 经过目标主机的隔舱发起交换
+     *
+     * @param uri      目标
+     * @param exchange 发起交换的方式
+     * @param timer    计时器，排队时间计入其中，可以为空
+     * @param <T>      响应体类型
+     * @return 响应，隔舱已满时以 {@link BulkheadFullException} 失败
+     */
+    <T> CompletableFuture<HttpResponse<T>> submit(URI uri, Supplier<CompletableFuture<HttpResponse<T>>> exchange,
+                                                  @Nullable HttpCallTimer timer) {
+        String key = hostKey(uri);
+        Bulkhead bulkhead = this.bulkheads.get(key);
+        if (bulkhead == null) {
+            bulkhead = this.bulkheads.computeIfAbsent(key, k -> {
+                int[] limits = this.overrides.get(k);
+                return limits == null
+                        ? new Bulkhead(k, this.defaultMaxConcurrent, this.defaultMaxQueued)
+                        : new Bulkhead(k, limits[0], limits[1]);
+            });
+        }
+        return bulkhead.submit(exchange, timer);
+    }
+
+    /**
+     * 各主机的统计快照
+     *
+     * @return 统计，键为 host:port
+     */
+    @Nonnull
+    public Map<String, Stats> stats() {
+        Map<String, Stats> result = new LinkedHashMap<>();
+        for (Bulkhead bulkhead : this.bulkheads.values()) {
+            Stats stats = bulkhead.stats();
+            result.put(stats.host(), stats);
+        }
+        return result;
+    }
+
+    /**
+     * 主机键
+     *
+     * @param uri 链接
+     * @return host:port
+     */
+    private static String hostKey(URI uri) {
+        int port = uri.getPort();
+        if (port == -1) {
+            port = "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+        }
+        return (uri.getHost() == null ? "" : uri.getHost().toLowerCase(Locale.ROOT)) + ':' + port;
+    }
+
+    /**
+     * 检查上限
+     *
+     * @param maxConcurrent 并发上限
+     * @param maxQueued     队列长度
+     */
+    private static void checkLimits(int maxConcurrent, int maxQueued) {
+        if (maxConcurrent < 1) {
+            throw new IllegalArgumentException("maxConcurrent cannot lesser than 1");
+        }
+        if (maxQueued < 0) {
+            throw new IllegalArgumentException("maxQueued cannot lesser than 0");
+        }
+    }
+
+    /**
+     * 一个主机的隔舱统计
+     *
+     * @param host          主机
+     * @param maxConcurrent 并发上限
+     * @param maxQueued     队列长度
+     * @param active        正在进行的交换数
+     * @param queued        正在排队的交换数
+     * @param admitted      立即发出的次数
+     * @param delayed       排队后发出的次数
+     * @param rejected      被拒绝的次数
+     */
+    public record Stats(String host, int maxConcurrent, int maxQueued, int active, int queued,
+                        long admitted, long delayed, long rejected) {
+
+        /**
+         * 并发饱和度
+         *
+         * @return 正在进行的交换数占并发上限的比例
+         */
+        public double saturation() {
+            return (double) this.active / this.maxConcurrent;
+        }
+
+        /**
+         * 被拒绝的比例
+         *
+         * @return 比例，没有请求时为 0
+         */
+        public double rejectRate() {
+            long total = this.admitted + this.delayed + this.rejected;
+            return total == 0 ? 0 : (double) this.rejected / total;
+        }
+    }
+
+    /**
+     * 一个主机的隔舱，状态变化都在自身的锁内完成，发起交换在锁外
+     */
+    private static final class Bulkhead {
+
+        /** 主机 */
+        private final String host;
+        /** 并发上限 */
+        private final int maxConcurrent;
+        /** 队列长度 */
+        private final int maxQueued;
+        /** 等待中的交换 */
+        private final ArrayDeque<Pending<?>> queue = new ArrayDeque<>();
+        /** 正在进行的交换数 */
+        private int active;
+        /** 立即发出的次数 */
+        private long admitted;
+        /** 排队后发出的次数 */
+        private long delayed;
+        /** 被拒绝的次数 */
+        private long rejected;
+
+        /**
+         * 完整构造
+         *
+         * @param host          主机
+         * @param maxConcurrent 并发上限
+         * @param maxQueued     队列长度
+         */
+        private Bulkhead(String host, int maxConcurrent, int maxQueued) {
+            this.host = host;
+            this.maxConcurrent = maxConcurrent;
+            this.maxQueued = maxQueued;
+        }
+
+        /**
+         * 发起或排队
+         *
+         * @param exchange 发起交换的方式
+         * @param timer    计时器，可以为空
+         * @param <T>      响应体类型
+         * @return 响应
+         */
+        private <T> CompletableFuture<HttpResponse<T>> submit(Supplier<CompletableFuture<HttpResponse<T>>> exchange,
+                                                              @Nullable HttpCallTimer timer) {
+            Pending<T> pending;
+            synchronized (this) {
+                if (this.active < this.maxConcurrent) {
+                    this.active++;
+                    this.admitted++;
+                    pending = null;
+                } else if (this.queue.size() < this.maxQueued) {
+                    pending = new Pending<>(exchange, timer);
+                    this.queue.add(pending);
+                } else {
+                    this.rejected++;
+                    return CompletableFuture.failedFuture(new BulkheadFullException(this.host));
+                }
+            }
+            if (pending == null) {
+                return this.start(exchange);
+            }
+            pending.result.whenComplete((response, throwable) -> {
+                if (pending.result.isCancelled()) {
+                    this.remove(pending);
+                }
+            });
+            return pending.result;
+        }
+
+        /**
+         * 发起交换，完成后让出名额
+         *
+         * @param exchange 发起交换的方式
+         * @param <T>      响应体类型
+         * @return 响应
+         */
+        private <T> CompletableFuture<HttpResponse<T>> start(Supplier<CompletableFuture<HttpResponse<T>>> exchange) {
+            CompletableFuture<HttpResponse<T>> future;
+            try {
+                future = exchange.get();
+            } catch (RuntimeException e) {
+                future = CompletableFuture.failedFuture(e);
+            }
+            future.whenComplete((response, throwable) -> this.release());
+            return future;
+        }
+
+        /**
+         * 让出名额，有排队的交换时直接转交给它
+         */
+        private void release() {
+            Pending<?> next;
+            synchronized (this) {
+                next = this.queue.poll();
+                if (next == null) {
+                    this.active--;
+                    return;
+                }
+                this.delayed++;
+            }
+            next.run(this);
+        }
+
+        /**
+         * 移出被取消的排队交换
+         *
+         * @param pending 排队的交换
+         */
+        private synchronized void remove(Pending<?> pending) {
+            this.queue.remove(pending);
+        }
+
+        /**
+         * 统计快照
+         *
+         * @return 统计
+         */
+        private synchronized Stats stats() {
+            return new Stats(this.host, this.maxConcurrent, this.maxQueued, this.active, this.queue.size(),
+                    this.admitted, this.delayed, this.rejected);
+        }
+    }
+
+    /**
+     * 排队中的交换
+     *
+     * @param <T> 响应体类型
+     */
+    private static final class Pending<T> {
+
+        /** 发起交换的方式 */
+        private final Supplier<CompletableFuture<HttpResponse<T>>> exchange;
+        /** 计时器，可以为空 */
+        private final HttpCallTimer timer;
+        /** 开始排队的时间 */
+        private final long queuedNanos = System.nanoTime();
+        /** 交给调用方的结果 */
+        private final CompletableFuture<HttpResponse<T>> result = new CompletableFuture<>();
+
+        /**
+         * 完整构造
+         *
+         * @param exchange 发起交换的方式
+         * @param timer    计时器，可以为空
+         */
+        private Pending(Supplier<CompletableFuture<HttpResponse<T>>> exchange, HttpCallTimer timer) {
+            this.exchange = exchange;
+            this.timer = timer;
+        }
+
+        /**
+         * 轮到自己时发起交换；排队期间已被取消时直接让出名额
+         *
+         * @param bulkhead 所属隔舱
+         */
+        private void run(Bulkhead bulkhead) {
+            if (this.result.isDone()) {
+                bulkhead.release();
+                return;
+            }
+            if (this.timer != null) {
+                this.timer.addQueueWait(System.nanoTime() - this.queuedNanos);
+            }
+            CompletableFuture<HttpResponse<T>> future = bulkhead.start(this.exchange);
+            future.whenComplete((response, throwable) -> {
+                if (throwable != null) {
+                    this.result.completeExceptionally(throwable);
+                } else {
+                    this.result.complete(response);
+                }
+            });
+            // 调用方取消或超时时中止已发出的交换
+            this.result.whenComplete((response, throwable) -> {
+                if (throwable != null && !future.isDone()) {
+                    future.cancel(true);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package org.st.shc.services;
+
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 一次调用的计时器，由 {@link HttpClientService} 创建并交给传输层，传输层记录自己能观测到的阶段。
+ * <p>
+ * 各阶段可能在不同线程记录，字段都是 volatile 。
+ *
+ * @author abomb4 2026-10-17
+ */
+public final class HttpCallTimer {
+
+    /** 调用开始时间 */
+    private final long startNanos = System.nanoTime();
+    /** 累计排队时间 */
+    private final AtomicLong queueWaitNanos = new AtomicLong();
+    /** 域名解析 */
+    private volatile long dnsNanos = HttpCallTiming.UNAVAILABLE;
+    /** TCP 建连 */
+    private volatile long connectNanos = HttpCallTiming.UNAVAILABLE;
+    /** TLS 握手 */
+    private volatile long tlsNanos = HttpCallTiming.UNAVAILABLE;
+    /** 发送请求 */
+    private volatile long writeNanos = HttpCallTiming.UNAVAILABLE;
+    /** 请求发完的时间 */
+    private volatile long requestSentAt = HttpCallTiming.UNAVAILABLE;
+    /** 收到响应头的时间 */
+    private volatile long headersAt = HttpCallTiming.UNAVAILABLE;
+    /** 响应体接收完成的时间 */
+    private volatile long bodyCompleteAt = HttpCallTiming.UNAVAILABLE;
+
+    /**
+     * 只由 {@link HttpClientService} 创建
+     */
+    HttpCallTimer() {
+    }
+
+    /**
+     * 累计一段排队时间
+     *
+     * @param nanos 纳秒
+     */
+    public void addQueueWait(long nanos) {
+        this.queueWaitNanos.addAndGet(Math.max(0, nanos));
+    }
+
+    /**
+     * 记录域名解析耗时
+     *
+     * @param nanos 纳秒
+     */
+    public void recordDns(long nanos) {
+        this.dnsNanos = nanos;
+    }
+
+    /**
+     * 记录 TCP 建连耗时
+     *
+     * @param nanos 纳秒，复用连接时为 0
+     */
+    public void recordConnect(long nanos) {
+        this.connectNanos = nanos;
+    }
+
+    /**
+     * 记录 TLS 握手耗时
+     *
+     * @param nanos 纳秒，复用连接时为 0
+     */
+    public void recordTls(long nanos) {
+        this.tlsNanos = nanos;
+    }
+
+    /**
+     * 记录请求发送耗时，同时视为请求已发完
+     *
+     * @param nanos 纳秒
+     */
+    public void recordWrite(long nanos) {
+        this.writeNanos = nanos;
+        this.requestSentAt = System.nanoTime();
+    }
+
+    /**
+     * 采用另一个计时器记录的排队、域名解析、建连、握手与发送耗时，用于对冲时把胜出的一份计入调用
+     *
+     * @param attempt 一份请求的计时器
+     */
+    void adopt(HttpCallTimer attempt) {
+        this.queueWaitNanos.addAndGet(attempt.queueWaitNanos.get());
+        this.dnsNanos = attempt.dnsNanos;
+        this.connectNanos = attempt.connectNanos;
+        this.tlsNanos = attempt.tlsNanos;
+        this.writeNanos = attempt.writeNanos;
+        this.requestSentAt = attempt.requestSentAt;
+    }
+
+    /**
+     * 包装响应体处理，记录收到响应头与响应体接收完成的时间
+     *
+     * @param bodyHandler 响应体处理
+     * @param <T>         响应体类型
+     * @return 包装后的响应体处理
+     */
+    <T> HttpResponse.BodyHandler<T> wrap(HttpResponse.BodyHandler<T> bodyHandler) {
+        return info -> {
+            this.headersAt = System.nanoTime();
+            return new TimingSubscriber<>(bodyHandler.apply(info));
+        };
+    }
+
+    /**
+     * 结束计时
+     *
+     * @return 耗时
+     */
+    HttpCallTiming finish() {
+        long now = System.nanoTime();
+        long headers = this.headersAt;
+        long complete = this.bodyCompleteAt;
+        long sent = this.requestSentAt;
+        long queueWait = this.queueWaitNanos.get();
+        if (complete != HttpCallTiming.UNAVAILABLE) {
+            // 响应体接收完成到调用方拿到结果，是在线程池中排队的时间
+            queueWait += now - complete;
+        }
+        long ttfb = headers == HttpCallTiming.UNAVAILABLE ? HttpCallTiming.UNAVAILABLE
+                : headers - (sent == HttpCallTiming.UNAVAILABLE ? this.startNanos : sent);
+        long download = headers == HttpCallTiming.UNAVAILABLE || complete == HttpCallTiming.UNAVAILABLE
+                ? HttpCallTiming.UNAVAILABLE : complete - headers;
+        return new HttpCallTiming(queueWait, this.dnsNanos, this.connectNanos, this.tlsNanos, this.writeNanos,
+                ttfb, download, now - this.startNanos);
+    }
+
+    /**
+     * 记录响应体接收完成时间的订阅者
+     *
+     * @param <T> 响应体类型
+     */
+    private final class TimingSubscriber<T> implements HttpResponse.BodySubscriber<T> {
+
+        /** 下游 */
+        private final HttpResponse.BodySubscriber<T> downstream;
+
+        /**
+         * 完整构造
+         *
+         * @param downstream 下游
+         */
+        private TimingSubscriber(HttpResponse.BodySubscriber<T> downstream) {
+            this.downstream = downstream;
+        }
+
+        @Override
+        public CompletionStage<T> getBody() {
+            return this.downstream.getBody();
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.downstream.onSubscribe(subscription);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> item) {
+            this.downstream.onNext(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            this.downstream.onError(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            bodyCompleteAt = System.nanoTime();
+            this.downstream.onComplete();
+        }
+    }
+}
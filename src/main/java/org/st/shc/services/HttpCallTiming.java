@@ -0,0 +1,54 @@
+package org.st.shc.services;
+
+/**
+ * 一次调用的分阶段耗时，单位纳秒，传输层无法观测的阶段为 -1 。
+ * <p>
+ * 排队时间反映自己的线程池与连接池是否成为瓶颈；域名解析、建连、 TLS 与发送反映网络；
+ * 首字节时间为请求发完到收到响应头，主要反映服务端处理耗时；下载为收到响应头到响应体接收完成。
+ *
+ * @param queueWaitNanos       在本地线程池与连接池中排队的时间
+ * @param dnsNanos             域名解析
+ * @param connectNanos         TCP 建连，复用连接时为 0
+ * @param tlsNanos             TLS 握手，复用连接时为 0
+ * @param writeNanos           发送请求
+ * @param timeToFirstByteNanos 首字节时间，发送耗时未知时从调用开始计算
+ * @param downloadNanos        下载响应体
+ * @param totalNanos           总耗时
+ * @author abomb4 2026-10-17
+ */
+public record HttpCallTiming(
+        long queueWaitNanos,
+        long dnsNanos,
+        long connectNanos,
+        long tlsNanos,
+        long writeNanos,
+        long timeToFirstByteNanos,
+        long downloadNanos,
+        long totalNanos
+) {
+
+    /** 无法观测的阶段 */
+    public static final long UNAVAILABLE = -1;
+
+    @Override
+    public String toString() {
+        return "queue=" + millis(this.queueWaitNanos) +
+                " dns=" + millis(this.dnsNanos) +
+                " connect=" + millis(this.connectNanos) +
+                " tls=" + millis(this.tlsNanos) +
+                " write=" + millis(this.writeNanos) +
+                " ttfb=" + millis(this.timeToFirstByteNanos) +
+                " download=" + millis(this.downloadNanos) +
+                " total=" + millis(this.totalNanos);
+    }
+
+    /**
+     * 格式化为毫秒
+     *
+     * @param nanos 纳秒
+     * @return 毫秒文本，无法观测时为 -
+     */
+    private static String millis(long nanos) {
+        return nanos < 0 ? "-" : String.format("%.2fms", nanos / 1_000_000.0);
+    }
+}
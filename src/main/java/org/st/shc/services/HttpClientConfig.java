@@ -0,0 +1,106 @@
+package org.st.shc.services;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.net.ssl.SSLContext;
+import java.net.ProxySelector;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+
+/**
+ * HttpClient 的有效配置，同时作为 {@link HttpClientPool} 的缓存键。
+ * <p>
+ * 配置相同的调用会拿到同一个 HttpClient ，从而复用其中的连接池、HTTP/2 会话与 TLS 会话。
+ * 建连超时只能设置在 HttpClient 上，因此也是键的一部分。
+ *
+ * @param executor       异步线程池
+ * @param version        HTTP 版本
+ * @param redirect       重定向策略
+ * @param proxySelector  代理，为空则不使用代理
+ * @param sslContext     TLS 上下文，为空则使用默认
+ * @param connectTimeout 建连超时，为空则不限制
+ * @author abomb4 2026-10-17
+ */
+public record HttpClientConfig(
+        @Nonnull Executor executor,
+        @Nonnull HttpClient.Version version,
+        @Nonnull HttpClient.Redirect redirect,
+        @Nullable ProxySelector proxySelector,
+        @Nullable SSLContext sslContext,
+        @Nullable Duration connectTimeout
+) {
+
+    public HttpClientConfig {
+        Objects.requireNonNull(executor, "executor cannot be null");
+        Objects.requireNonNull(version, "version cannot be null");
+        Objects.requireNonNull(redirect, "redirect cannot be null");
+        if (connectTimeout != null && (connectTimeout.isNegative() || connectTimeout.isZero())) {
+            throw new IllegalArgumentException("connectTimeout must be positive");
+        }
+    }
+
+    /**
+     * 不限制建连超时的配置
+     *
+     * @param executor      异步线程池
+     * @param version       HTTP 版本
+     * @param redirect      重定向策略
+     * @param proxySelector 代理，为空则不使用代理
+     * @param sslContext    TLS 上下文，为空则使用默认
+     */
+    public HttpClientConfig(@Nonnull Executor executor,
+                            @Nonnull HttpClient.Version version,
+                            @Nonnull HttpClient.Redirect redirect,
+                            @Nullable ProxySelector proxySelector,
+                            @Nullable SSLContext sslContext) {
+        this(executor, version, redirect, proxySelector, sslContext, null);
+    }
+
+    /**
+     * 仅指定线程池的默认配置：HTTP/2 优先，不自动重定向，无代理，默认 TLS
+     *
+     * @param executor 异步线程池
+     */
+    public HttpClientConfig(@Nonnull Executor executor) {
+        this(executor, HttpClient.Version.HTTP_2, HttpClient.Redirect.NEVER, null, null, null);
+    }
+
+    /**
+     * 替换建连超时
+     *
+     * @param connectTimeout 建连超时，为空则不限制
+     * @return 新配置，建连超时相同时返回自身
+     */
+    @Nonnull
+    public HttpClientConfig withConnectTimeout(@Nullable Duration connectTimeout) {
+        if (Objects.equals(connectTimeout, this.connectTimeout)) {
+            return this;
+        }
+        return new HttpClientConfig(this.executor, this.version, this.redirect, this.proxySelector,
+                this.sslContext, connectTimeout);
+    }
+
+    /**
+     * 根据配置创建新的 HttpClient
+     *
+     * @return HttpClient
+     */
+    HttpClient newClient() {
+        HttpClient.Builder builder = HttpClient.newBuilder()
+                .executor(this.executor)
+                .version(this.version)
+                .followRedirects(this.redirect);
+        if (this.proxySelector != null) {
+            builder.proxy(this.proxySelector);
+        }
+        if (this.sslContext != null) {
+            builder.sslContext(this.sslContext);
+        }
+        if (this.connectTimeout != null) {
+            builder.connectTimeout(this.connectTimeout);
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,174 @@
+package org.st.shc.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import java.net.http.HttpClient;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * HttpClient 缓存池，按 {@link HttpClientConfig} 复用 HttpClient 实例。
+ * <p>
+ * 每个 HttpClient 内部维护自己的连接池、HTTP/2 会话与 TLS 会话，每次调用都新建 HttpClient 会让这些全部作废，
+ * 每次请求都要重新握手。本池按配置缓存 HttpClient ，空闲超时或数量超限时淘汰最久未用的实例。
+ * <p>
+ * JDK 17 的 HttpClient 没有 close 方法，被淘汰的实例不再被引用后，其内部选择器线程会自行退出。
+ *
+ * @author abomb4 2026-10-17
+ */
+public class HttpClientPool {
+
+    /** Slf4J */
+    private static final Logger log = LoggerFactory.getLogger(HttpClientPool.class);
+
+    /** 默认最大缓存数 */
+    public static final int DEFAULT_MAX_SIZE = 16;
+    /** 默认空闲淘汰时间 */
+    public static final long DEFAULT_IDLE_TIMEOUT_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+    /** 缓存 */
+    private final Map<HttpClientConfig, PooledClient> clients = new ConcurrentHashMap<>();
+    /** 最大缓存数 */
+    private final int maxSize;
+    /** 空闲淘汰时间 */
+    private final long idleTimeoutNanos;
+
+    /** 新建次数 */
+    private final LongAdder created = new LongAdder();
+    /** 复用次数，每次复用意味着可以沿用已有的热连接 */
+    private final LongAdder reused = new LongAdder();
+    /** 淘汰次数 */
+    private final LongAdder evicted = new LongAdder();
+
+    /**
+     * 默认构造
+     */
+    public HttpClientPool() {
+        this(DEFAULT_MAX_SIZE, DEFAULT_IDLE_TIMEOUT_NANOS, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 完整构造
+     *
+     * @param maxSize     最大缓存数
+     * @param idleTimeout 空闲淘汰时间
+     * @param unit        空闲淘汰时间单位
+     */
+    public HttpClientPool(int maxSize, long idleTimeout, @Nonnull TimeUnit unit) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize cannot lesser than 1");
+        }
+        if (idleTimeout <= 0) {
+            throw new IllegalArgumentException("idleTimeout must be positive");
+        }
+        this.maxSize = maxSize;
+        this.idleTimeoutNanos = Objects.requireNonNull(unit, "unit cannot be null").toNanos(idleTimeout);
+    }
+
+    /**
+     * 获取配置对应的 HttpClient ，不存在则创建
+     *
+     * @param config 配置
+     * @return HttpClient
+     */
+    @Nonnull
+    public HttpClient acquire(@Nonnull HttpClientConfig config) {
+        Objects.requireNonNull(config, "config cannot be null");
+        long now = System.nanoTime();
+        PooledClient pooled = this.clients.get(config);
+        if (pooled != null) {
+            this.reused.increment();
+        } else {
+            pooled = this.clients.computeIfAbsent(config, c -> {
+                this.created.increment();
+                return new PooledClient(c.newClient(), now);
+            });
+            this.evictIfNecessary(now);
+        }
+        pooled.lastUsedNanos = now;
+        return pooled.client;
+    }
+
+    /**
+     * 清除全部缓存
+     */
+    public void clear() {
+        int size = this.clients.size();
+        this.clients.clear();
+        this.evicted.add(size);
+    }
+
+    /**
+     * 统计快照
+     *
+     * @return 统计
+     */
+    @Nonnull
+    public Stats stats() {
+        return new Stats(this.created.sum(), this.reused.sum(), this.evicted.sum(), this.clients.size());
+    }
+
+    /**
+     * 淘汰空闲的与超出数量的实例，只在新建实例时调用，命中时不付出额外开销
+     *
+     * @param now 当前时间
+     */
+    private void evictIfNecessary(long now) {
+        this.clients.entrySet().removeIf(e -> {
+            if (now - e.getValue().lastUsedNanos > this.idleTimeoutNanos) {
+                this.evicted.increment();
+                log.debug("Evict idle HttpClient {}", e.getKey());
+                return true;
+            }
+            return false;
+        });
+
+        while (this.clients.size() > this.maxSize) {
+            this.clients.entrySet().stream()
+                    .min(Comparator.comparingLong(e -> e.getValue().lastUsedNanos))
+                    .ifPresent(e -> {
+                        if (this.clients.remove(e.getKey(), e.getValue())) {
+                            this.evicted.increment();
+                            log.debug("Evict least recently used HttpClient {}", e.getKey());
+                        }
+                    });
+        }
+    }
+
+    /** 缓存中的 HttpClient */
+    private static final class PooledClient {
+
+        /** 实例 */
+        private final HttpClient client;
+        /** 最后使用时间 */
+        private volatile long lastUsedNanos;
+
+        /**
+         * 完整构造
+         *
+         * @param client        实例
+         * @param lastUsedNanos 最后使用时间
+         */
+        private PooledClient(HttpClient client, long lastUsedNanos) {
+            this.client = client;
+            this.lastUsedNanos = lastUsedNanos;
+        }
+    }
+
+    /**
+     * 统计快照
+     *
+     * @param created 新建次数
+     * @param reused  复用次数，即沿用已有连接池的调用次数
+     * @param evicted 淘汰次数
+     * @param size    当前缓存数
+     */
+    public record Stats(long created, long reused, long evicted, int size) {
+    }
+}
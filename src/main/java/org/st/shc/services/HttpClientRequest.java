@@ -11,10 +11,11 @@ import java.util.Objects;
 /**
  * HTTP 请求
  *
- * @param method  HTTP Method
- * @param url     链接
- * @param headers 头
- * @param body    体
+ * @param method   HTTP Method
+ * @param url      链接
+ * @param headers  头
+ * @param body     体
+ * @param timeouts 超时设置
  */
 public record HttpClientRequest(
         @Nonnull
@@ -23,7 +24,9 @@ public record HttpClientRequest(
         String url,
         @Nonnull
         Map<String, List<String>> headers,
-        HttpClientRequestBody body
+        HttpClientRequestBody body,
+        @Nonnull
+        HttpTimeouts timeouts
 ) {
 
     /**
@@ -38,6 +41,27 @@ public record HttpClientRequest(
     /**
      * 构造 HTTP 请求
      *
+     * @param method   HTTP Method
+     * @param url      链接
+     * @param headers  头
+     * @param body     体
+     * @param timeouts 超时设置，为空则不限制
+     */
+    public HttpClientRequest(@Nonnull HttpMethod method,
+                             @Nonnull String url,
+                             @Nonnull Map<String, List<String>> headers,
+                             HttpClientRequestBody body,
+                             HttpTimeouts timeouts) {
+        this.method = Objects.requireNonNull(method, "method cannot be null");
+        this.url = Objects.requireNonNull(url, "url cannot be null");
+        this.headers = Objects.requireNonNull(headers, "headers cannot be null");
+        this.body = body == null ? BodyEmptyImpl.INSTANCE : body;
+        this.timeouts = timeouts == null ? HttpTimeouts.NONE : timeouts;
+    }
+
+    /**
+     * 构造不限制超时的 HTTP 请求
+     *
      * @param method  HTTP Method
      * @param url     链接
      * @param headers 头
@@ -47,10 +71,7 @@ public record HttpClientRequest(
                              @Nonnull String url,
                              @Nonnull Map<String, List<String>> headers,
                              HttpClientRequestBody body) {
-        this.method = Objects.requireNonNull(method, "method cannot be null");
-        this.url = Objects.requireNonNull(url, "url cannot be null");
-        this.headers = Objects.requireNonNull(headers, "headers cannot be null");
-        this.body = body == null ? BodyEmptyImpl.INSTANCE : body;
+        this(method, url, headers, body, HttpTimeouts.NONE);
     }
 
     /**
@@ -94,6 +115,14 @@ public record HttpClientRequest(
          */
         InternalBuilderInterface setHeader(@Nonnull String name, @Nonnull String value);
 
+        /**
+         * 设置超时
+         *
+         * @param timeouts 超时设置
+         * @return this
+         */
+        InternalBuilderInterface setTimeouts(@Nonnull HttpTimeouts timeouts);
+
         /**
          * 利用纯粹的 String 作为 body
          *
@@ -124,6 +153,8 @@ public record HttpClientRequest(
         private String url;
         /** 头 */
         private Map<String, List<String>> headers = new LinkedHashMap<>(16);
+        /** 超时设置 */
+        private HttpTimeouts timeouts = HttpTimeouts.NONE;
 
         /** default constructor */
         public Builder() {
@@ -192,6 +223,18 @@ public record HttpClientRequest(
             return this;
         }
 
+        /**
+         * 设置超时
+         *
+         * @param timeouts 超时设置
+         * @return a reference to this Builder
+         */
+        @Override
+        public Builder setTimeouts(@Nonnull HttpTimeouts timeouts) {
+            this.timeouts = Objects.requireNonNull(timeouts, "timeouts cannot be null");
+            return this;
+        }
+
         /**
          * 利用纯粹的 String 作为 body
          *
@@ -210,7 +253,7 @@ public record HttpClientRequest(
          */
         @Override
         public HttpClientRequest build() {
-            return new HttpClientRequest(this.method, this.url, this.headers, null);
+            return new HttpClientRequest(this.method, this.url, this.headers, null, this.timeouts);
         }
 
         /**
@@ -220,7 +263,7 @@ public record HttpClientRequest(
          * @return a {@code HttpClientRequest} built with parameters of this {@code HttpClientRequest.Builder}
          */
         public HttpClientRequest build(HttpClientRequestBody body) {
-            return new HttpClientRequest(this.method, this.url, this.headers, body);
+            return new HttpClientRequest(this.method, this.url, this.headers, body, this.timeouts);
         }
 
         /**
@@ -270,6 +313,12 @@ public record HttpClientRequest(
                 return this;
             }
 
+            @Override
+            public StringBodyBuilder setTimeouts(@Nonnull HttpTimeouts timeouts) {
+                Builder.this.setTimeouts(timeouts);
+                return this;
+            }
+
             @Override
             public StringBodyBuilder withStringBody(String str) {
                 this.str = str;
@@ -23,6 +23,16 @@ public interface HttpClientRequestBody {
     @Nullable
     ContentType getContentType();
 
+    /**
+     * 指定 Content-Encoding ，允许为空，如压缩过的体返回 {@code gzip}
+     *
+     * @return Content-Encoding
+     */
+    @Nullable
+    default String getContentEncoding() {
+        return null;
+    }
+
     /**
      * 体
      *
@@ -30,4 +40,16 @@ public interface HttpClientRequestBody {
      */
     @Nonnull
     HttpRequest.BodyPublisher asBodyPublisher();
+
+    /**
+     * 预先编码好的体字节，用于同一个请求反复发送时跳过编码。
+     * <p>
+     * 流式读取的体（如文件）不应预先读入内存，返回空即可。
+     *
+     * @return 体字节，不适合预先编码时为空
+     */
+    @Nullable
+    default byte[] encode() {
+        return null;
+    }
 }
@@ -1,22 +1,29 @@
 package org.st.shc.services;
 
-import lombok.SneakyThrows;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.st.shc.framework.concurrent.ExecutorsBuilder;
 import org.st.shc.framework.concurrent.ThreadFactoryWithThreadId;
+import org.st.shc.services.limit.AdaptiveConcurrencyLimiter;
+import org.st.shc.services.limit.ConcurrencyLimitExceededException;
 
-import java.net.URI;
-import java.net.URISyntaxException;
-import java.net.http.HttpClient;
+import javax.annotation.Nullable;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Flow;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 
 /**
  * HTTP 客户端服务
@@ -31,12 +38,45 @@ public class HttpClientService implements AutoCloseable {
     /** 特殊的头 */
     public static final String CONTENT_TYPE = "Content-Type";
 
+    /** 字符串响应体处理，使用同一个实例以便合并相同请求 */
+    private static final HttpResponse.BodyHandler<String> STRING_BODY_HANDLER = HttpResponse.BodyHandlers.ofString();
+
     /** 线程池 */
     private final ExecutorService executor;
 
     /** 线程池是不是自己造的，自己造的要自己 close */
     private final boolean selfCreatedExecutor;
 
+    /** 传输层 */
+    private final HttpTransport transport;
+
+    /** 默认的 HttpClient 配置 */
+    private final HttpClientConfig defaultClientConfig;
+
+    /** 响应解压统计 */
+    private final CompressionStats responseCompressionStats = new CompressionStats();
+
+    /** 被调用方取消的调用数 */
+    private final LongAdder cancelledCalls = new LongAdder();
+
+    /** 超时的调用数 */
+    private final LongAdder timedOutCalls = new LongAdder();
+
+    /** 响应缓存，为空时不缓存 */
+    private volatile HttpResponseCache responseCache;
+
+    /** 相同请求合并，为空时不合并 */
+    private volatile RequestCoalescer requestCoalescer;
+
+    /** 对冲请求，为空时不对冲 */
+    private volatile HedgingPolicy hedgingPolicy;
+
+    /** 按主机隔离的并发隔舱，为空时不限制 */
+    private volatile HostBulkheads hostBulkheads;
+
+    /** 自适应并发上限，为空时不限制 */
+    private volatile AdaptiveConcurrencyLimiter concurrencyLimiter;
+
     /**
      * 默认构造，使用默认创建的线程池，会跟随 HttpClientService 销毁
      */
@@ -49,6 +89,8 @@ public class HttpClientService implements AutoCloseable {
                 })
                 .build();
         this.selfCreatedExecutor = true;
+        this.transport = new JdkHttpTransport();
+        this.defaultClientConfig = new HttpClientConfig(this.executor);
     }
 
     /**
@@ -57,68 +99,519 @@ public class HttpClientService implements AutoCloseable {
      * @param executor 线程池
      */
     public HttpClientService(ExecutorService executor) {
+        this(executor, new HttpClientPool());
+    }
+
+    /**
+     * 带池子与 HttpClient 缓存池构造，不负责线程池的销毁
+     *
+     * @param executor   线程池
+     * @param clientPool HttpClient 缓存池
+     */
+    public HttpClientService(ExecutorService executor, HttpClientPool clientPool) {
+        this(executor, new JdkHttpTransport(clientPool));
+    }
+
+    /**
+     * 带池子与传输层构造，不负责线程池的销毁，传输层随 HttpClientService 关闭
+     *
+     * @param executor  线程池
+     * @param transport 传输层
+     */
+    public HttpClientService(ExecutorService executor, HttpTransport transport) {
         this.executor = Objects.requireNonNull(executor, "executor cannot be null");
         this.selfCreatedExecutor = false;
+        this.transport = Objects.requireNonNull(transport, "transport cannot be null");
+        this.defaultClientConfig = new HttpClientConfig(this.executor);
     }
 
-    @SneakyThrows
+    /**
+     * 使用默认 HttpClient 配置发起请求，响应体完整解码为字符串
+     *
+     * @param request 请求
+     * @return 响应
+     */
     public CompletableFuture<HttpResponse<String>> httpCall(HttpClientRequest request) {
-        HttpClient client = HttpClient.newBuilder()
-                .executor(this.executor)
-                .build();
+        return this.httpCall(request, this.defaultClientConfig, STRING_BODY_HANDLER);
+    }
+
+    /**
+     * 使用指定 HttpClient 配置发起请求，相同配置的调用会复用同一个 HttpClient 及其连接
+     *
+     * @param request      请求
+     * @param clientConfig HttpClient 配置
+     * @return 响应
+     */
+    public CompletableFuture<HttpResponse<String>> httpCall(HttpClientRequest request, HttpClientConfig clientConfig) {
+        return this.httpCall(request, clientConfig, STRING_BODY_HANDLER);
+    }
+
+    /**
+     * 使用默认 HttpClient 配置发起请求，响应体交给指定的 BodyHandler 处理，
+     * 大响应可使用 {@link ResponseBodySinks} 中的流式接收方式
+     *
+     * @param request     请求
+     * @param bodyHandler 响应体处理
+     * @param <T>         响应体类型
+     * @return 响应
+     */
+    public <T> CompletableFuture<HttpResponse<T>> httpCall(HttpClientRequest request,
+                                                           HttpResponse.BodyHandler<T> bodyHandler) {
+        return this.httpCall(request, this.defaultClientConfig, bodyHandler);
+    }
+
+    /**
+     * 流式发起请求，收到响应头即完成，响应体以 Publisher 形式按需拉取，不会在堆中积累
+     *
+     * @param request 请求
+     * @return 响应，响应体需要订阅后才会开始读取
+     */
+    public CompletableFuture<HttpResponse<Flow.Publisher<List<ByteBuffer>>>> httpStream(HttpClientRequest request) {
+        return this.httpCall(request, this.defaultClientConfig, HttpResponse.BodyHandlers.ofPublisher());
+    }
 
-        HttpRequest.Builder builder = HttpRequest.newBuilder();
-        final HttpClientRequestBody body = request.body();
-        ContentType contentType = body.getContentType();
-        if (contentType != null) {
-            builder.setHeader(CONTENT_TYPE, contentType.fullString());
+    /**
+     * 使用指定 HttpClient 配置发起请求，响应体交给指定的 BodyHandler 处理
+     *
+     * @param request      请求
+     * @param clientConfig HttpClient 配置
+     * @param bodyHandler  响应体处理
+     * @param <T>          响应体类型
+     * @return 响应
+     */
+    public <T> CompletableFuture<HttpResponse<T>> httpCall(HttpClientRequest request,
+                                                           HttpClientConfig clientConfig,
+                                                           HttpResponse.BodyHandler<T> bodyHandler) {
+        final PreparedHttpRequest prepared;
+        try {
+            prepared = this.prepare(request);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
         }
-        for (Map.Entry<String, List<String>> entry : request.headers().entrySet()) {
-            String key = entry.getKey();
-            if (CONTENT_TYPE.equals(key)) {
-                builder.setHeader(CONTENT_TYPE, entry.getValue().iterator().next());
+        return this.send(prepared, clientConfig, bodyHandler, null, true);
+    }
+
+    /**
+     * 使用默认 HttpClient 配置发起请求，响应体解码为字符串，同时记录分阶段耗时
+     *
+     * @param request 请求
+     * @return 带耗时的响应
+     */
+    public CompletableFuture<TimedHttpResponse<String>> httpCallTimed(HttpClientRequest request) {
+        return this.httpCallTimed(request, this.defaultClientConfig, STRING_BODY_HANDLER);
+    }
+
+    /**
+     * 使用指定 HttpClient 配置发起请求，同时记录分阶段耗时；按未包装的 bodyHandler 参与相同请求合并，
+     * 共享了其他调用的交换时各网络阶段不可用，只有总耗时
+     *
+     * @param request      请求
+     * @param clientConfig HttpClient 配置
+     * @param bodyHandler  响应体处理
+     * @param <T>          响应体类型
+     * @return 带耗时的响应
+     */
+    public <T> CompletableFuture<TimedHttpResponse<T>> httpCallTimed(HttpClientRequest request,
+                                                                     HttpClientConfig clientConfig,
+                                                                     HttpResponse.BodyHandler<T> bodyHandler) {
+        Objects.requireNonNull(bodyHandler, "bodyHandler cannot be null");
+        HttpCallTimer timer = new HttpCallTimer();
+        final PreparedHttpRequest prepared;
+        try {
+            prepared = this.prepare(request);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture<HttpResponse<T>> call =
+                this.send(prepared, clientConfig, bodyHandler, timer, true);
+        CompletableFuture<TimedHttpResponse<T>> timed =
+                call.thenApply(response -> new TimedHttpResponse<>(response, timer.finish()));
+        timed.whenComplete((response, throwable) -> {
+            if (throwable instanceof CancellationException) {
+                // 取消要传到交换上才能中止它
+                call.cancel(true);
+            }
+        });
+        return timed;
+    }
+
+    /**
+     * 预处理请求，得到的结果可以通过 {@link #send} 反复发送，跳过链接解析、头合并与体编码
+     *
+     * @param request 请求
+     * @return 预处理好的请求
+     * @throws IllegalArgumentException 链接或头不合法
+     */
+    public PreparedHttpRequest prepare(HttpClientRequest request) {
+        return PreparedHttpRequest.prepare(request);
+    }
+
+    /**
+     * 为压测预处理请求，与 {@link #prepare} 相同，只是不自动声明 Accept-Encoding ；
+     * 配合 {@link ResponseBodySinks#counting()} 统计的是服务端默认发送的线上字节数
+     *
+     * @param request 请求
+     * @return 预处理好的请求
+     * @throws IllegalArgumentException 链接或头不合法
+     */
+    public PreparedHttpRequest prepareForLoad(HttpClientRequest request) {
+        return PreparedHttpRequest.prepare(request, false);
+    }
+
+    /**
+     * 使用默认 HttpClient 配置发送预处理好的请求
+     *
+     * @param prepared    预处理好的请求
+     * @param bodyHandler 响应体处理
+     * @param <T>         响应体类型
+     * @return 响应
+     */
+    public <T> CompletableFuture<HttpResponse<T>> send(PreparedHttpRequest prepared,
+                                                       HttpResponse.BodyHandler<T> bodyHandler) {
+        return this.send(prepared, this.defaultClientConfig, bodyHandler);
+    }
+
+    /**
+     * 使用指定 HttpClient 配置发送预处理好的请求，gzip 与 deflate 响应会边接收边解压；
+     * 设置了响应缓存时 GET 请求先经过缓存，新鲜的缓存直接给出响应；
+     * 设置了请求合并时，响应体处理相同（同一实例或 equals 相等）的相同 GET 请求共享同一次交换，
+     * 每次调用都新建的处理方式（如流式接收）不会被合并；
+     * 设置了对冲时，幂等请求迟迟没有响应会再发一份，先返回的胜出。
+     * <p>
+     * 按请求的 {@link HttpTimeouts} 限制耗时；取消返回的 Future 或超时都会中止交换并释放连接，
+     * 合并的请求只取消自己的那一份，共享的交换继续进行。
+     * <p>
+     * 预处理好的请求是压测反复发送的路径，不经过主机隔舱、响应缓存与相同请求合并：
+     * 隔舱的并发上限会压低压测结果，缓存命中与合并则让请求根本不到达服务端，测得的耗时与吞吐都失真。
+     * 这些只作用于 {@link #httpCall} 与 {@link #httpCallTimed} 发起的交互调用。
+     *
+     * @param prepared     预处理好的请求
+     * @param clientConfig HttpClient 配置
+     * @param bodyHandler  响应体处理
+     * @param <T>          响应体类型
+     * @return 响应
+     */
+    public <T> CompletableFuture<HttpResponse<T>> send(PreparedHttpRequest prepared,
+                                                       HttpClientConfig clientConfig,
+                                                       HttpResponse.BodyHandler<T> bodyHandler) {
+        return this.send(prepared, clientConfig, bodyHandler, null, false);
+    }
+
+    /**
+     * 发送预处理好的请求，可选记录分阶段耗时
+     *
+     * @param prepared     预处理好的请求
+     * @param clientConfig HttpClient 配置
+     * @param bodyHandler  响应体处理，计时时在这里套上计时，合并按未包装的处理区分
+     * @param timer        计时器，为空时不记录
+     * @param interactive  是否交互调用，只有交互调用经过主机隔舱、响应缓存与相同请求合并
+     * @param <T>          响应体类型
+     * @return 响应
+     */
+    private <T> CompletableFuture<HttpResponse<T>> send(PreparedHttpRequest prepared,
+                                                        HttpClientConfig clientConfig,
+                                                        HttpResponse.BodyHandler<T> bodyHandler,
+                                                        @Nullable HttpCallTimer timer,
+                                                        boolean interactive) {
+        Objects.requireNonNull(prepared, "prepared cannot be null");
+        Objects.requireNonNull(clientConfig, "clientConfig cannot be null");
+        Objects.requireNonNull(bodyHandler, "bodyHandler cannot be null");
+        AdaptiveConcurrencyLimiter limiter = this.concurrencyLimiter;
+        int inFlight = limiter == null ? 0 : limiter.tryAcquire();
+        if (limiter != null && inFlight == 0) {
+            return CompletableFuture.failedFuture(new ConcurrencyLimitExceededException(limiter.getLimit()));
+        }
+        try {
+            long startNanos = System.nanoTime();
+            HttpTimeouts timeouts = prepared.getSource().timeouts();
+            HttpClientConfig config = timeouts.connect() == null
+                    ? clientConfig : clientConfig.withConnectTimeout(timeouts.connect());
+            HttpResponse.BodyHandler<T> handler = timer == null ? bodyHandler : timer.wrap(bodyHandler);
+            HostBulkheads bulkheads = interactive ? this.hostBulkheads : null;
+            HttpResponseCache cache = interactive ? this.responseCache : null;
+            HedgingPolicy hedging = this.hedgingPolicy;
+            Supplier<CompletableFuture<HttpResponse<T>>> network;
+            if (hedging != null && hedging.isHedgeable(prepared.getMethod())) {
+                network = () -> hedging.send((attemptHandler, attemptTimer) -> this.exchange(prepared, config,
+                        attemptHandler, attemptTimer, cache, bulkheads), handler, timer, config.executor());
             } else {
-                for (String s : entry.getValue()) {
-                    builder.header(key, s);
-                }
+                network = () -> this.exchange(prepared, config, handler, timer, cache, bulkheads);
             }
+            RequestCoalescer coalescer = interactive ? this.requestCoalescer : null;
+            final CompletableFuture<HttpResponse<T>> exchange;
+            if (coalescer != null) {
+                exchange = coalescer.send(prepared, config, bodyHandler, network);
+            } else {
+                exchange = network.get();
+            }
+            CompletableFuture<HttpResponse<T>> result = this.guard(exchange, timeouts.total());
+            if (limiter != null) {
+                result.whenComplete((response, throwable) ->
+                        limiter.onComplete(System.nanoTime() - startNanos, inFlight, response, throwable));
+            }
+            return result;
+        } catch (RuntimeException | Error e) {
+            // 还没挂上结束回调就同步抛出，名额在这里归还，否则永远占着
+            if (limiter != null) {
+                limiter.ignore();
+            }
+            throw e;
         }
+    }
 
-        final URI uri;
-        try {
-            String url = request.url();
-            if (!url.startsWith("http")) {
-                url = "http://" + url;
+    /**
+     * 给交换套上总超时与取消：返回给调用方的是另一个 Future ，它被取消或超时时取消交换，
+     * 传输层据此中止交换；同时统计取消与超时次数
+     *
+     * @param exchange 交换
+     * @param total    总超时，为空则不限制
+     * @param <T>      响应体类型
+     * @return 交给调用方的响应
+     */
+    private <T> CompletableFuture<HttpResponse<T>> guard(CompletableFuture<HttpResponse<T>> exchange,
+                                                         @Nullable Duration total) {
+        CompletableFuture<HttpResponse<T>> result = new CompletableFuture<>();
+        exchange.whenComplete((response, throwable) -> {
+            if (throwable == null) {
+                result.complete(response);
+            } else {
+                result.completeExceptionally(throwable);
+            }
+        });
+        result.whenComplete((response, throwable) -> {
+            if (throwable == null) {
+                return;
             }
-            uri = new URI(url);
-        } catch (URISyntaxException e) {
-            CompletableFuture<HttpResponse<String>> future = new CompletableFuture<>();
-            future.completeExceptionally(e);
-            return future;
+            Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+                    ? throwable.getCause() : throwable;
+            if (cause instanceof CancellationException) {
+                this.cancelledCalls.increment();
+            } else if (cause instanceof TimeoutException || cause instanceof HttpTimeoutException) {
+                this.timedOutCalls.increment();
+            } else {
+                return;
+            }
+            exchange.cancel(true);
+        });
+        if (total != null) {
+            result.orTimeout(total.toNanos(), TimeUnit.NANOSECONDS);
+        }
+        return result;
+    }
+
+    /**
+     * 经过缓存或直接发起交换，实际发往网络的交换经过目标主机的隔舱
+     *
+     * @param prepared     预处理好的请求
+     * @param clientConfig HttpClient 配置
+     * @param bodyHandler  响应体处理
+     * @param timer        计时器，为空时不记录
+     * @param cache        响应缓存，为空时不经过缓存
+     * @param bulkheads    主机隔舱，为空时不经过隔舱
+     * @param <T>          响应体类型
+     * @return 响应
+     */
+    private <T> CompletableFuture<HttpResponse<T>> exchange(PreparedHttpRequest prepared,
+                                                            HttpClientConfig clientConfig,
+                                                            HttpResponse.BodyHandler<T> bodyHandler,
+                                                            @Nullable HttpCallTimer timer,
+                                                            @Nullable HttpResponseCache cache,
+                                                            @Nullable HostBulkheads bulkheads) {
+        if (cache == null) {
+            return this.network(prepared.getHttpRequest(), clientConfig, bodyHandler, timer, bulkheads);
         }
+        return cache.send(prepared, bodyHandler,
+                (httpRequest, handler) -> this.network(httpRequest, clientConfig, handler, timer, bulkheads));
+    }
+
+    /**
+     * 经过隔舱交给传输层，请求声明了 Accept-Encoding 时响应边接收边解压
+     *
+     * @param httpRequest  请求
+     * @param clientConfig HttpClient 配置
+     * @param bodyHandler  响应体处理
+     * @param timer        计时器，为空时不记录
+     * @param bulkheads    主机隔舱，为空时不经过隔舱
+     * @param <T>          响应体类型
+     * @return 响应
+     */
+    private <T> CompletableFuture<HttpResponse<T>> network(HttpRequest httpRequest,
+                                                           HttpClientConfig clientConfig,
+                                                           HttpResponse.BodyHandler<T> bodyHandler,
+                                                           @Nullable HttpCallTimer timer,
+                                                           @Nullable HostBulkheads bulkheads) {
+        HttpResponse.BodyHandler<T> handler =
+                DecompressingBodyHandler.wrapIfAccepted(httpRequest, bodyHandler, this.responseCompressionStats);
+        Supplier<CompletableFuture<HttpResponse<T>>> exchange =
+                () -> this.transport.send(httpRequest, clientConfig, handler, timer);
+        return bulkheads == null ? exchange.get() : bulkheads.submit(httpRequest.uri(), exchange, timer);
+    }
+
+    /**
+     * 发请求使用的线程池
+     *
+     * @return 线程池
+     */
+    public ExecutorService getExecutor() {
+        return this.executor;
+    }
+
+    /**
+     * 默认的 HttpClient 配置
+     *
+     * @return 配置
+     */
+    public HttpClientConfig getDefaultClientConfig() {
+        return this.defaultClientConfig;
+    }
+
+    /**
+     * 传输层
+     *
+     * @return 传输层
+     */
+    public HttpTransport getTransport() {
+        return this.transport;
+    }
+
+    /**
+     * HttpClient 缓存池统计，其中复用次数即沿用热连接的调用次数
+     *
+     * @return 统计，传输层不是 {@link JdkHttpTransport} 时为空
+     */
+    @Nullable
+    public HttpClientPool.Stats getClientPoolStats() {
+        return this.transport instanceof JdkHttpTransport jdk ? jdk.getClientPool().stats() : null;
+    }
+
+    /**
+     * 响应解压统计，压缩前后字节数之差即节省的带宽
+     *
+     * @return 统计
+     */
+    public CompressionStats getResponseCompressionStats() {
+        return this.responseCompressionStats;
+    }
+
+    /**
+     * 被调用方取消的调用数
+     *
+     * @return 次数
+     */
+    public long getCancelledCalls() {
+        return this.cancelledCalls.sum();
+    }
+
+    /**
+     * 超时的调用数，包括建连、读取与总超时
+     *
+     * @return 次数
+     */
+    public long getTimedOutCalls() {
+        return this.timedOutCalls.sum();
+    }
 
-        return switch (request.method()) {
-            case GET -> client.sendAsync(builder
-                    .GET()
-                    .uri(uri)
-                    .build(), HttpResponse.BodyHandlers.ofString());
-            case POST -> client.sendAsync(builder
-                    .POST(body.asBodyPublisher())
-                    .uri(uri)
-                    .build(), HttpResponse.BodyHandlers.ofString());
-            case PUT -> client.sendAsync(builder
-                    .PUT((body.asBodyPublisher()))
-                    .uri(uri)
-                    .build(), HttpResponse.BodyHandlers.ofString());
-            case DELETE -> client.sendAsync(builder
-                    .DELETE()
-                    .uri(uri)
-                    .build(), HttpResponse.BodyHandlers.ofString());
-        };
+    /**
+     * 响应缓存
+     *
+     * @return 响应缓存，没有启用时为空
+     */
+    @Nullable
+    public HttpResponseCache getResponseCache() {
+        return this.responseCache;
+    }
+
+    /**
+     * 设置响应缓存，默认不启用
+     *
+     * @param responseCache 响应缓存，为空时关闭缓存
+     */
+    public void setResponseCache(@Nullable HttpResponseCache responseCache) {
+        this.responseCache = responseCache;
+    }
+
+    /**
+     * 相同请求合并
+     *
+     * @return 请求合并，没有启用时为空
+     */
+    @Nullable
+    public RequestCoalescer getRequestCoalescer() {
+        return this.requestCoalescer;
+    }
+
+    /**
+     * 设置相同请求合并，默认不启用。只有交互调用的 GET 请求会被合并，合并按链接、请求头、 HttpClient 配置
+     * 与响应体处理的 equals 区分，见 {@link RequestCoalescer} ；压测发送预处理好的请求时不合并
+     *
+     * @param requestCoalescer 请求合并，为空时关闭合并
+     */
+    public void setRequestCoalescer(@Nullable RequestCoalescer requestCoalescer) {
+        this.requestCoalescer = requestCoalescer;
+    }
+
+    /**
+     * 对冲请求
+     *
+     * @return 对冲策略，没有启用时为空
+     */
+    @Nullable
+    public HedgingPolicy getHedgingPolicy() {
+        return this.hedgingPolicy;
+    }
+
+    /**
+     * 设置对冲请求，默认不启用；只对幂等方法生效，后端需要有多个副本才有意义
+     *
+     * @param hedgingPolicy 对冲策略，为空时关闭对冲
+     */
+    public void setHedgingPolicy(@Nullable HedgingPolicy hedgingPolicy) {
+        this.hedgingPolicy = hedgingPolicy;
+    }
+
+    /**
+     * 按主机隔离的并发隔舱
+     *
+     * @return 隔舱，没有启用时为空
+     */
+    @Nullable
+    public HostBulkheads getHostBulkheads() {
+        return this.hostBulkheads;
+    }
+
+    /**
+     * 设置按主机隔离的并发隔舱，默认不启用；只作用于 {@link #httpCall} 与 {@link #httpCallTimed} ，
+     * 压测使用的 {@link #send} 不经过隔舱。隔舱满时调用以 {@link BulkheadFullException} 失败
+     *
+     * @param hostBulkheads 隔舱，为空时不限制
+     */
+    public void setHostBulkheads(@Nullable HostBulkheads hostBulkheads) {
+        this.hostBulkheads = hostBulkheads;
+    }
+
+    /**
+     * 自适应并发上限
+     *
+     * @return 限流器，没有启用时为空
+     */
+    @Nullable
+    public AdaptiveConcurrencyLimiter getConcurrencyLimiter() {
+        return this.concurrencyLimiter;
+    }
+
+    /**
+     * 设置自适应并发上限，默认不启用；在途请求达到上限时调用以
+     * {@link ConcurrencyLimitExceededException} 失败
+     *
+     * @param concurrencyLimiter 限流器，为空时不限制
+     */
+    public void setConcurrencyLimiter(@Nullable AdaptiveConcurrencyLimiter concurrencyLimiter) {
+        this.concurrencyLimiter = concurrencyLimiter;
     }
 
     @Override
     public void close() throws Exception {
+        this.transport.close();
         if (this.selfCreatedExecutor && !this.executor.isShutdown()) {
             this.executor.shutdown();
             if (!this.executor.awaitTermination(10, TimeUnit.SECONDS)) {
@@ -6,4 +6,6 @@ public enum HttpMethod {
     POST,
     DELETE,
     PUT,
+    HEAD,
+    OPTIONS,
 }
@@ -0,0 +1,941 @@
+package org.st.shc.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+
+/**
+ * GET 响应缓存，遵循 Cache-Control 、 Expires 、 ETag 与 Last-Modified 。
+ * <p>
+ * 新鲜的缓存直接给出响应，不产生任何网络 IO ；过期但带校验信息的缓存发送条件请求，
+ * 源站返回 304 时沿用缓存的响应体。内存中按最近使用保留有限条目，指定溢出目录时被挤出的条目写入磁盘，
+ * 再次命中时读回内存。读写磁盘都在锁外进行，磁盘慢时不会挡住其他读缓存的线程。
+ * <p>
+ * 缓存的响应体与网络路径交给 BodyHandler 的一致：请求声明了 Accept-Encoding 时是解压后的，响应头与网络路径一样原样保留
+ * Content-Encoding 。带 Content-Encoding 的条目只给 Accept-Encoding 相同的请求使用，避免把未解压的响应体交给期望解压的调用方。
+ *
+ * @author abomb4 2026-10-17
+ */
+public class HttpResponseCache {
+
+    /** Slf4J */
+    private static final Logger log = LoggerFactory.getLogger(HttpResponseCache.class);
+
+    /** 默认内存最大条目数 */
+    public static final int DEFAULT_MAX_ENTRIES = 256;
+    /** 默认单个响应体最大字节数，超过的不缓存 */
+    public static final int DEFAULT_MAX_BODY_BYTES = 1024 * 1024;
+    /** 默认磁盘最大条目数 */
+    public static final int DEFAULT_MAX_DISK_ENTRIES = 4096;
+
+    /** ETag 头 */
+    private static final String ETAG = "ETag";
+    /** Last-Modified 头 */
+    private static final String LAST_MODIFIED = "Last-Modified";
+    /** If-None-Match 头 */
+    private static final String IF_NONE_MATCH = "If-None-Match";
+    /** If-Modified-Since 头 */
+    private static final String IF_MODIFIED_SINCE = "If-Modified-Since";
+    /** Expires 头 */
+    private static final String EXPIRES = "Expires";
+    /** Date 头 */
+    private static final String DATE = "Date";
+    /** Age 头 */
+    private static final String AGE = "Age";
+    /** Vary 头 */
+    private static final String VARY = "Vary";
+    /** Accept-Encoding 头，小写 */
+    private static final String ACCEPT_ENCODING = "accept-encoding";
+    /** Content-Encoding 头 */
+    private static final String CONTENT_ENCODING = "Content-Encoding";
+    /** 304 响应中描述的不是缓存的响应体，刷新时忽略这些头 */
+    private static final Set<String> NOT_MODIFIED_IGNORED_HEADERS = Set.of("content-encoding", "content-length");
+    /** 可以缓存的状态码 */
+    private static final Set<Integer> CACHEABLE_STATUS = Set.of(200, 203, 300, 301, 410);
+    /** 未修改状态码 */
+    private static final int NOT_MODIFIED = 304;
+    /** 磁盘条目文件前缀 */
+    private static final String ENTRY_PREFIX = "shc-cache-";
+    /** 磁盘条目文件后缀 */
+    private static final String ENTRY_SUFFIX = ".entry";
+
+    /** 内存最大条目数 */
+    private final int maxEntries;
+    /** 单个响应体最大字节数 */
+    private final int maxBodyBytes;
+    /** 溢出目录，为空时不溢出 */
+    @Nullable
+    private final Path spillDirectory;
+    /** 磁盘最大条目数 */
+    private final int maxDiskEntries;
+
+    /** 内存条目，按访问顺序排列，在 this 上同步 */
+    private final LinkedHashMap<String, Entry> memory;
+    /** 磁盘条目，按访问顺序排列，在 this 上同步 */
+    private final LinkedHashMap<String, Path> disk = new LinkedHashMap<>(16, 0.75f, true);
+    /** 刚被挤出内存、等待在锁外写入磁盘的条目，在 this 上同步 */
+    @Nullable
+    private Entry evicted;
+
+    /** 命中新鲜缓存次数 */
+    private final LongAdder hits = new LongAdder();
+    /** 未命中次数 */
+    private final LongAdder misses = new LongAdder();
+    /** 发送条件请求次数 */
+    private final LongAdder revalidations = new LongAdder();
+    /** 条件请求返回 304 的次数 */
+    private final LongAdder notModified = new LongAdder();
+    /** 写入缓存次数 */
+    private final LongAdder stores = new LongAdder();
+    /** 溢出到磁盘次数 */
+    private final LongAdder spills = new LongAdder();
+    /** 从磁盘读回次数 */
+    private final LongAdder diskHits = new LongAdder();
+    /** 彻底淘汰次数 */
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * 默认构造，只使用内存
+     */
+    public HttpResponseCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * 指定内存条目数，只使用内存
+     *
+     * @param maxEntries 内存最大条目数
+     */
+    public HttpResponseCache(int maxEntries) {
+        this(maxEntries, DEFAULT_MAX_BODY_BYTES, null, DEFAULT_MAX_DISK_ENTRIES);
+    }
+
+    /**
+     * 完整构造
+     *
+     * @param maxEntries     内存最大条目数
+     * @param maxBodyBytes   单个响应体最大字节数，超过的不缓存
+     * @param spillDirectory 溢出目录，为空时被挤出内存的条目直接丢弃
+     * @param maxDiskEntries 磁盘最大条目数
+     */
+    public HttpResponseCache(int maxEntries, int maxBodyBytes, @Nullable Path spillDirectory, int maxDiskEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries cannot lesser than 1");
+        }
+        if (maxBodyBytes < 0) {
+            throw new IllegalArgumentException("maxBodyBytes cannot lesser than 0");
+        }
+        if (maxDiskEntries < 1) {
+            throw new IllegalArgumentException("maxDiskEntries cannot lesser than 1");
+        }
+        this.maxEntries = maxEntries;
+        this.maxBodyBytes = maxBodyBytes;
+        this.spillDirectory = spillDirectory;
+        this.maxDiskEntries = maxDiskEntries;
+        this.memory = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() <= HttpResponseCache.this.maxEntries) {
+                    return false;
+                }
+                HttpResponseCache.this.evicted = eldest.getValue();
+                return true;
+            }
+        };
+        if (spillDirectory != null) {
+            try {
+                Files.createDirectories(spillDirectory);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * 经过缓存发送请求，只有 GET 会被缓存
+     *
+     * @param prepared    预处理好的请求
+     * @param bodyHandler 响应体处理
+     * @param network     实际发送请求的方式
+     * @param <T>         响应体类型
+     * @return 响应
+     */
+    <T> CompletableFuture<HttpResponse<T>> send(
+            PreparedHttpRequest prepared,
+            HttpResponse.BodyHandler<T> bodyHandler,
+            BiFunction<HttpRequest, HttpResponse.BodyHandler<T>, CompletableFuture<HttpResponse<T>>> network) {
+        CacheControl requestControl = CacheControl.parse(prepared.getHeaders());
+        if (prepared.getMethod() != HttpMethod.GET || requestControl.noStore()) {
+            return network.apply(prepared.getHttpRequest(), bodyHandler);
+        }
+        String key = prepared.getUri().toString();
+        Entry entry = this.lookup(key);
+        if (entry != null && !entry.matchesVary(prepared.getHeaders())) {
+            entry = null;
+        }
+        if (entry != null && !requestControl.noCache() && entry.isFresh(System.currentTimeMillis())) {
+            this.hits.increment();
+            return serve(entry, prepared, bodyHandler);
+        }
+        if (entry == null || !entry.hasValidator()) {
+            this.misses.increment();
+            return network.apply(prepared.getHttpRequest(), this.storing(key, prepared, bodyHandler));
+        }
+
+        this.revalidations.increment();
+        final Entry stale = entry;
+        HttpResponse.BodyHandler<T> conditionalHandler = info -> info.statusCode() == NOT_MODIFIED
+                ? HttpResponse.BodySubscribers.replacing(null)
+                : this.storing(key, prepared, bodyHandler).apply(info);
+        CompletableFuture<HttpResponse<T>> exchange =
+                network.apply(stale.conditional(prepared.getHttpRequest()), conditionalHandler);
+        CompletableFuture<HttpResponse<T>> result = exchange.thenCompose(response -> {
+            if (response.statusCode() != NOT_MODIFIED) {
+                return CompletableFuture.completedFuture(response);
+            }
+            this.notModified.increment();
+            Entry refreshed = stale.refresh(response.headers(), prepared.getHeaders(),
+                    System.currentTimeMillis());
+            if (refreshed != null) {
+                this.put(refreshed);
+            } else {
+                this.remove(key);
+            }
+            return serve(refreshed != null ? refreshed : stale, prepared, bodyHandler);
+        });
+        // 调用方取消或超时时取消的是派生出的 Future ，要传给实际的交换，传输层才会中止
+        result.whenComplete((response, throwable) -> {
+            if (result.isCancelled()) {
+                exchange.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 清空缓存，包括磁盘上的条目
+     */
+    public void clear() {
+        List<Path> paths;
+        synchronized (this) {
+            this.evictions.add(this.memory.size() + this.disk.size());
+            this.memory.clear();
+            paths = new ArrayList<>(this.disk.values());
+            this.disk.clear();
+        }
+        paths.forEach(HttpResponseCache::deleteQuietly);
+    }
+
+    /**
+     * 统计快照
+     *
+     * @return 统计
+     */
+    @Nonnull
+    public Stats stats() {
+        int memorySize;
+        int diskSize;
+        synchronized (this) {
+            memorySize = this.memory.size();
+            diskSize = this.disk.size();
+        }
+        return new Stats(this.hits.sum(), this.misses.sum(), this.revalidations.sum(), this.notModified.sum(),
+                this.stores.sum(), this.spills.sum(), this.diskHits.sum(), this.evictions.sum(),
+                memorySize, diskSize);
+    }
+
+    /**
+     * 包装响应体处理，可缓存的响应在接收完成后写入缓存
+     *
+     * @param key         缓存键
+     * @param prepared    请求
+     * @param bodyHandler 响应体处理
+     * @param <T>         响应体类型
+     * @return 包装后的响应体处理
+     */
+    private <T> HttpResponse.BodyHandler<T> storing(String key, PreparedHttpRequest prepared,
+                                                    HttpResponse.BodyHandler<T> bodyHandler) {
+        return info -> {
+            HttpResponse.BodySubscriber<T> subscriber = bodyHandler.apply(info);
+            Entry template = Entry.of(key, info.statusCode(), info.version(), info.headers().map(),
+                    prepared.getHeaders(), System.currentTimeMillis(), null);
+            if (template == null) {
+                this.remove(key);
+                return subscriber;
+            }
+            return new StoringSubscriber<>(subscriber, template);
+        };
+    }
+
+    /**
+     * 查找条目，内存中没有时尝试从磁盘读回，读盘时不持有锁
+     *
+     * @param key 缓存键
+     * @return 条目，不存在时为空
+     */
+    @Nullable
+    private Entry lookup(String key) {
+        Path path;
+        synchronized (this) {
+            Entry entry = this.memory.get(key);
+            if (entry != null) {
+                return entry;
+            }
+            path = this.disk.remove(key);
+        }
+        if (path == null) {
+            return null;
+        }
+        Entry entry;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            entry = Entry.readFrom(in);
+        } catch (IOException e) {
+            log.warn("Cannot read spilled cache entry {}", path, e);
+            return null;
+        } finally {
+            deleteQuietly(path);
+        }
+        if (!entry.key().equals(key)) {
+            return null;
+        }
+        this.diskHits.increment();
+        Entry evicted;
+        synchronized (this) {
+            // 读盘期间可能已经写入了更新的条目
+            Entry current = this.memory.putIfAbsent(key, entry);
+            if (current != null) {
+                return current;
+            }
+            evicted = this.takeEvicted();
+        }
+        this.spill(evicted);
+        return entry;
+    }
+
+    /**
+     * 写入条目
+     *
+     * @param entry 条目
+     */
+    private void put(Entry entry) {
+        Path spilled;
+        Entry evicted;
+        synchronized (this) {
+            spilled = this.disk.remove(entry.key());
+            this.memory.put(entry.key(), entry);
+            evicted = this.takeEvicted();
+        }
+        this.stores.increment();
+        deleteQuietly(spilled);
+        this.spill(evicted);
+    }
+
+    /**
+     * 移除条目
+     *
+     * @param key 缓存键
+     */
+    private void remove(String key) {
+        Path spilled;
+        synchronized (this) {
+            this.memory.remove(key);
+            spilled = this.disk.remove(key);
+        }
+        deleteQuietly(spilled);
+    }
+
+    /**
+     * 取出刚被挤出内存的条目；调用时已持有 this 锁
+     *
+     * @return 条目，没有时为空
+     */
+    @Nullable
+    private Entry takeEvicted() {
+        Entry entry = this.evicted;
+        this.evicted = null;
+        return entry;
+    }
+
+    /**
+     * 被挤出内存的条目写入磁盘，没有溢出目录或写入失败时直接丢弃；写盘时不持有锁
+     *
+     * @param entry 条目，为空时什么也不做
+     */
+    private void spill(@Nullable Entry entry) {
+        if (entry == null) {
+            return;
+        }
+        if (this.spillDirectory == null) {
+            this.evictions.increment();
+            return;
+        }
+        Path path = null;
+        try {
+            // 每次写新文件，同一个键并发溢出时互不覆盖
+            path = Files.createTempFile(this.spillDirectory, ENTRY_PREFIX, ENTRY_SUFFIX);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+                entry.writeTo(out);
+            }
+        } catch (IOException e) {
+            log.warn("Cannot spill cache entry to {}", path, e);
+            deleteQuietly(path);
+            this.evictions.increment();
+            return;
+        }
+        Path replaced;
+        Path eldestPath = null;
+        synchronized (this) {
+            if (this.memory.containsKey(entry.key())) {
+                // 写盘期间又写入了内存，磁盘上的副本已经过时
+                replaced = path;
+            } else {
+                replaced = this.disk.put(entry.key(), path);
+                this.spills.increment();
+                if (this.disk.size() > this.maxDiskEntries) {
+                    Iterator<Path> eldest = this.disk.values().iterator();
+                    eldestPath = eldest.next();
+                    eldest.remove();
+                    this.evictions.increment();
+                }
+            }
+        }
+        deleteQuietly(replaced);
+        deleteQuietly(eldestPath);
+    }
+
+    /**
+     * 用缓存的条目给出响应
+     *
+     * @param entry       条目
+     * @param prepared    请求
+     * @param bodyHandler 响应体处理
+     * @param <T>         响应体类型
+     * @return 响应
+     */
+    private static <T> CompletableFuture<HttpResponse<T>> serve(Entry entry, PreparedHttpRequest prepared,
+                                                                HttpResponse.BodyHandler<T> bodyHandler) {
+        HttpHeaders headers = entry.httpHeaders();
+        HttpResponse.BodySubscriber<T> subscriber;
+        try {
+            subscriber = bodyHandler.apply(new CachedHttpResponse.Info(entry.statusCode(), headers, entry.version()));
+            subscriber.onSubscribe(new BytesSubscription(subscriber, entry.body()));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return subscriber.getBody().toCompletableFuture().thenApply(body -> new CachedHttpResponse<>(
+                entry.statusCode(), prepared.getHttpRequest(), headers, body, prepared.getUri(), entry.version()));
+    }
+
+    /**
+     * 删除文件，失败只打日志
+     *
+     * @param path 文件，为空时什么也不做
+     */
+    private static void deleteQuietly(@Nullable Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Cannot delete spilled cache entry {}", path, e);
+        }
+    }
+
+    /**
+     * 解析 HTTP 日期
+     *
+     * @param value 值
+     * @return 毫秒时间戳，无法解析时为空
+     */
+    @Nullable
+    private static Long parseDate(@Nullable String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 秒转毫秒，溢出时取最大值
+     *
+     * @param seconds 秒数，非负
+     * @return 毫秒数
+     */
+    private static long secondsToMillis(long seconds) {
+        return seconds > Long.MAX_VALUE / 1000 ? Long.MAX_VALUE : seconds * 1000;
+    }
+
+    /**
+     * 相加，溢出时取最大或最小值
+     *
+     * @param a 加数
+     * @param b 加数
+     * @return 和
+     */
+    private static long saturatedAdd(long a, long b) {
+        long sum = a + b;
+        if (((a ^ sum) & (b ^ sum)) < 0) {
+            return a < 0 ? Long.MIN_VALUE : Long.MAX_VALUE;
+        }
+        return sum;
+    }
+
+    /**
+     * 取头的第一个值，名称不区分大小写
+     *
+     * @param headers 头
+     * @param name    名称
+     * @return 值，不存在时为空
+     */
+    @Nullable
+    private static String first(Map<String, List<String>> headers, String name) {
+        List<String> values = all(headers, name);
+        return values.isEmpty() ? null : values.get(0);
+    }
+
+    /**
+     * 取头的全部值，名称不区分大小写
+     *
+     * @param headers 头
+     * @param name    名称
+     * @return 值
+     */
+    private static List<String> all(Map<String, List<String>> headers, String name) {
+        for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+            if (name.equalsIgnoreCase(entry.getKey())) {
+                return entry.getValue();
+            }
+        }
+        return List.of();
+    }
+
+    /**
+     * 缓存统计
+     *
+     * @param hits          命中新鲜缓存次数，不产生网络 IO
+     * @param misses        未命中次数
+     * @param revalidations 发送条件请求次数
+     * @param notModified   条件请求返回 304 的次数
+     * @param stores        写入缓存次数
+     * @param spills        溢出到磁盘次数
+     * @param diskHits      从磁盘读回次数
+     * @param evictions     彻底淘汰次数
+     * @param memorySize    当前内存条目数
+     * @param diskSize      当前磁盘条目数
+     */
+    public record Stats(long hits, long misses, long revalidations, long notModified, long stores, long spills,
+                        long diskHits, long evictions, int memorySize, int diskSize) {
+
+        /**
+         * 不需要下载响应体的比例，包括新鲜命中与 304
+         *
+         * @return 比例，没有请求时为 0
+         */
+        public double hitRate() {
+            long total = this.hits + this.misses + this.revalidations;
+            return total == 0 ? 0 : (double) (this.hits + this.notModified) / total;
+        }
+    }
+
+    /**
+     * 缓存条目
+     *
+     * @param key           缓存键
+     * @param statusCode    状态码
+     * @param version       协议版本
+     * @param headers       响应头
+     * @param varyValues    Vary 指定的请求头在缓存时的值，名称为小写
+     * @param expiresMillis 新鲜期截止时间戳
+     * @param noCache       每次使用前都要校验
+     * @param body          交给 BodyHandler 的响应体，请求声明了 Accept-Encoding 时是解压后的
+     */
+    private record Entry(String key, int statusCode, HttpClient.Version version,
+                         Map<String, List<String>> headers, Map<String, List<String>> varyValues,
+                         long expiresMillis, boolean noCache, byte[] body) {
+
+        /**
+         * 根据响应头创建条目
+         *
+         * @param key             缓存键
+         * @param statusCode      状态码
+         * @param version         协议版本
+         * @param responseHeaders 响应头
+         * @param requestHeaders  请求头
+         * @param now             收到响应的时间戳
+         * @param body            响应体，尚未接收时为空
+         * @return 条目，不可缓存时为空
+         */
+        @Nullable
+        static Entry of(String key, int statusCode, HttpClient.Version version,
+                        Map<String, List<String>> responseHeaders, Map<String, List<String>> requestHeaders,
+                        long now, @Nullable byte[] body) {
+            if (!CACHEABLE_STATUS.contains(statusCode)) {
+                return null;
+            }
+            CacheControl control = CacheControl.parse(responseHeaders);
+            if (control.noStore()) {
+                return null;
+            }
+            Map<String, List<String>> varyValues = new TreeMap<>();
+            for (String value : all(responseHeaders, VARY)) {
+                for (String name : value.split(",")) {
+                    String n = name.trim().toLowerCase(Locale.ROOT);
+                    if (n.equals("*")) {
+                        return null;
+                    }
+                    if (!n.isEmpty()) {
+                        varyValues.put(n, List.copyOf(all(requestHeaders, n)));
+                    }
+                }
+            }
+            if (first(responseHeaders, CONTENT_ENCODING) != null) {
+                // 是否解压取决于请求是否声明了 Accept-Encoding
+                varyValues.putIfAbsent(ACCEPT_ENCODING, List.copyOf(all(requestHeaders, ACCEPT_ENCODING)));
+            }
+
+            long freshness = 0;
+            if (control.maxAge() >= 0) {
+                freshness = secondsToMillis(control.maxAge());
+            } else if (first(responseHeaders, EXPIRES) != null) {
+                Long expires = parseDate(first(responseHeaders, EXPIRES));
+                Long date = parseDate(first(responseHeaders, DATE));
+                // 无法解析的 Expires 按已过期处理
+                freshness = expires == null ? 0 : expires - (date == null ? now : date);
+            }
+            String ageValue = first(responseHeaders, AGE);
+            long age = ageValue == null ? 0 : Math.max(0, CacheControl.parseSeconds(ageValue));
+            long expiresMillis = saturatedAdd(now, saturatedAdd(freshness, -secondsToMillis(age)));
+            if (expiresMillis <= now && first(responseHeaders, ETAG) == null
+                    && first(responseHeaders, LAST_MODIFIED) == null) {
+                // 既不新鲜也无法校验，缓存没有意义
+                return null;
+            }
+
+            Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            responseHeaders.forEach((k, v) -> headers.put(k, List.copyOf(v)));
+            return new Entry(key, statusCode, version, headers, varyValues, expiresMillis, control.noCache(), body);
+        }
+
+        /**
+         * 接收完响应体后补上
+         *
+         * @param body 响应体
+         * @return 新条目
+         */
+        Entry withBody(byte[] body) {
+            return new Entry(this.key, this.statusCode, this.version, this.headers, this.varyValues,
+                    this.expiresMillis, this.noCache, body);
+        }
+
+        /**
+         * 收到 304 后用新的头刷新条目
+         *
+         * @param notModifiedHeaders 304 响应头
+         * @param requestHeaders     请求头
+         * @param now                当前时间戳
+         * @return 新条目，源站不再允许缓存时为空
+         */
+        @Nullable
+        Entry refresh(HttpHeaders notModifiedHeaders, Map<String, List<String>> requestHeaders, long now) {
+            Map<String, List<String>> merged = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            merged.putAll(this.headers);
+            notModifiedHeaders.map().forEach((k, v) -> {
+                if (!NOT_MODIFIED_IGNORED_HEADERS.contains(k.toLowerCase(Locale.ROOT))) {
+                    merged.put(k, v);
+                }
+            });
+            return of(this.key, this.statusCode, this.version, merged, requestHeaders, now, this.body);
+        }
+
+        /**
+         * 是否仍然新鲜
+         *
+         * @param now 当前时间戳
+         * @return 是否新鲜
+         */
+        boolean isFresh(long now) {
+            return !this.noCache && now < this.expiresMillis;
+        }
+
+        /**
+         * 是否可以发送条件请求
+         *
+         * @return 是否带有 ETag 或 Last-Modified
+         */
+        boolean hasValidator() {
+            return this.headers.containsKey(ETAG) || this.headers.containsKey(LAST_MODIFIED);
+        }
+
+        /**
+         * 请求头是否与 Vary 指定的值一致
+         *
+         * @param requestHeaders 请求头
+         * @return 是否一致
+         */
+        boolean matchesVary(Map<String, List<String>> requestHeaders) {
+            for (Map.Entry<String, List<String>> entry : this.varyValues.entrySet()) {
+                if (!entry.getValue().equals(all(requestHeaders, entry.getKey()))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * 在原请求上加上校验头
+         *
+         * @param request 原请求
+         * @return 条件请求
+         */
+        HttpRequest conditional(HttpRequest request) {
+            HttpRequest.Builder builder = HttpRequest.newBuilder(request, (k, v) ->
+                    !k.equalsIgnoreCase(IF_NONE_MATCH) && !k.equalsIgnoreCase(IF_MODIFIED_SINCE));
+            String etag = first(this.headers, ETAG);
+            if (etag != null) {
+                builder.header(IF_NONE_MATCH, etag);
+            }
+            String lastModified = first(this.headers, LAST_MODIFIED);
+            if (lastModified != null) {
+                builder.header(IF_MODIFIED_SINCE, lastModified);
+            }
+            return builder.build();
+        }
+
+        /**
+         * 响应头
+         *
+         * @return 响应头
+         */
+        HttpHeaders httpHeaders() {
+            return HttpHeaders.of(this.headers, (k, v) -> true);
+        }
+
+        /**
+         * 写入磁盘
+         *
+         * @param out 输出
+         * @throws IOException 写入失败
+         */
+        void writeTo(DataOutputStream out) throws IOException {
+            out.writeUTF(this.key);
+            out.writeInt(this.statusCode);
+            out.writeUTF(this.version.name());
+            writeHeaders(out, this.headers);
+            writeHeaders(out, this.varyValues);
+            out.writeLong(this.expiresMillis);
+            out.writeBoolean(this.noCache);
+            out.writeInt(this.body.length);
+            out.write(this.body);
+        }
+
+        /**
+         * 从磁盘读取
+         *
+         * @param in 输入
+         * @return 条目
+         * @throws IOException 读取失败
+         */
+        static Entry readFrom(DataInputStream in) throws IOException {
+            String key = in.readUTF();
+            int statusCode = in.readInt();
+            HttpClient.Version version = HttpClient.Version.valueOf(in.readUTF());
+            Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            headers.putAll(readHeaders(in));
+            Map<String, List<String>> varyValues = readHeaders(in);
+            long expiresMillis = in.readLong();
+            boolean noCache = in.readBoolean();
+            byte[] body = new byte[in.readInt()];
+            in.readFully(body);
+            return new Entry(key, statusCode, version, headers, varyValues, expiresMillis, noCache, body);
+        }
+
+        /**
+         * 写入头
+         *
+         * @param out     输出
+         * @param headers 头
+         * @throws IOException 写入失败
+         */
+        private static void writeHeaders(DataOutputStream out, Map<String, List<String>> headers) throws IOException {
+            out.writeInt(headers.size());
+            for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeInt(entry.getValue().size());
+                for (String value : entry.getValue()) {
+                    out.writeUTF(value);
+                }
+            }
+        }
+
+        /**
+         * 读取头
+         *
+         * @param in 输入
+         * @return 头
+         * @throws IOException 读取失败
+         */
+        private static Map<String, List<String>> readHeaders(DataInputStream in) throws IOException {
+            int size = in.readInt();
+            Map<String, List<String>> headers = new TreeMap<>();
+            for (int i = 0; i < size; i++) {
+                String name = in.readUTF();
+                int count = in.readInt();
+                List<String> values = new ArrayList<>(count);
+                for (int j = 0; j < count; j++) {
+                    values.add(in.readUTF());
+                }
+                headers.put(name, List.copyOf(values));
+            }
+            return headers;
+        }
+    }
+
+    /**
+     * 转发响应体并保留一份副本，接收完成后写入缓存；响应体超过上限时放弃缓存
+     *
+     * @param <T> 响应体类型
+     */
+    private final class StoringSubscriber<T> implements HttpResponse.BodySubscriber<T> {
+
+        /** 下游 */
+        private final HttpResponse.BodySubscriber<T> downstream;
+        /** 尚未填入响应体的条目 */
+        private final Entry template;
+        /** 响应体副本，超过上限后为空 */
+        private ByteArrayOutputStream copy = new ByteArrayOutputStream();
+
+        /**
+         * 完整构造
+         *
+         * @param downstream 下游
+         * @param template   尚未填入响应体的条目
+         */
+        private StoringSubscriber(HttpResponse.BodySubscriber<T> downstream, Entry template) {
+            this.downstream = downstream;
+            this.template = template;
+        }
+
+        @Override
+        public CompletionStage<T> getBody() {
+            return this.downstream.getBody();
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.downstream.onSubscribe(subscription);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> item) {
+            if (this.copy != null) {
+                for (ByteBuffer buffer : item) {
+                    if (this.copy.size() + buffer.remaining() > maxBodyBytes) {
+                        this.copy = null;
+                        break;
+                    }
+                    byte[] bytes = new byte[buffer.remaining()];
+                    buffer.duplicate().get(bytes);
+                    this.copy.writeBytes(bytes);
+                }
+            }
+            this.downstream.onNext(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            this.copy = null;
+            this.downstream.onError(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            if (this.copy != null) {
+                put(this.template.withBody(this.copy.toByteArray()));
+                this.copy = null;
+            }
+            this.downstream.onComplete();
+        }
+    }
+
+    /**
+     * 向订阅者一次性推送缓存的响应体
+     */
+    private static final class BytesSubscription implements Flow.Subscription {
+
+        /** 订阅者 */
+        private final Flow.Subscriber<? super List<ByteBuffer>> subscriber;
+        /** 响应体 */
+        private final byte[] body;
+        /** 是否已推送或已取消 */
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        /**
+         * 完整构造
+         *
+         * @param subscriber 订阅者
+         * @param body       响应体
+         */
+        private BytesSubscription(Flow.Subscriber<? super List<ByteBuffer>> subscriber, byte[] body) {
+            this.subscriber = subscriber;
+            this.body = body;
+        }
+
+        @Override
+        public void request(long n) {
+            if (!this.done.compareAndSet(false, true)) {
+                return;
+            }
+            if (n <= 0) {
+                this.subscriber.onError(new IllegalArgumentException("non-positive request: " + n));
+                return;
+            }
+            if (this.body.length > 0) {
+                this.subscriber.onNext(List.of(ByteBuffer.wrap(this.body).asReadOnlyBuffer()));
+            }
+            this.subscriber.onComplete();
+        }
+
+        @Override
+        public void cancel() {
+            this.done.set(true);
+        }
+    }
+}
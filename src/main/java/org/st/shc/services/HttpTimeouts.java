@@ -0,0 +1,55 @@
+package org.st.shc.services;
+
+import javax.annotation.Nullable;
+import java.time.Duration;
+
+/**
+ * 请求的超时设置，为空的项不限制。
+ * <p>
+ * 建连超时到期抛出 {@link java.net.http.HttpConnectTimeoutException} ；
+ * 读取超时从发出调用算到收到响应头，到期抛出 {@link java.net.http.HttpTimeoutException} ；
+ * 总超时覆盖包括下载响应体在内的整个调用，到期抛出 {@link java.util.concurrent.TimeoutException} 。
+ * 任一超时到期都会中止交换并释放连接。
+ *
+ * @param connect 建连超时
+ * @param read    读取超时
+ * @param total   总超时
+ * @author abomb4 2026-10-17
+ */
+public record HttpTimeouts(
+        @Nullable Duration connect,
+        @Nullable Duration read,
+        @Nullable Duration total
+) {
+
+    /** 不限制 */
+    public static final HttpTimeouts NONE = new HttpTimeouts(null, null, null);
+
+    public HttpTimeouts {
+        checkPositive(connect, "connect");
+        checkPositive(read, "read");
+        checkPositive(total, "total");
+    }
+
+    /**
+     * 只限制总时间
+     *
+     * @param total 总超时
+     * @return 超时设置
+     */
+    public static HttpTimeouts total(Duration total) {
+        return new HttpTimeouts(null, null, total);
+    }
+
+    /**
+     * 检查超时为正数
+     *
+     * @param timeout 超时
+     * @param name    名称
+     */
+    private static void checkPositive(@Nullable Duration timeout, String name) {
+        if (timeout != null && (timeout.isNegative() || timeout.isZero())) {
+            throw new IllegalArgumentException(name + " timeout must be positive");
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package org.st.shc.services;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 实际执行 HTTP 交换的传输层。
+ * <p>
+ * {@link HttpClientService} 负责请求预处理、解压、缓存与合并，最终的网络交换交给传输层完成。
+ * 默认实现基于 JDK HttpClient ，压测时可以换成开销更小的实现。
+ *
+ * @author abomb4 2026-10-17
+ */
+public interface HttpTransport extends AutoCloseable {
+
+    /**
+     * 发起一次交换
+     *
+     * @param request      请求
+     * @param clientConfig HttpClient 配置，实现可以只支持其中一部分
+     * @param bodyHandler  响应体处理
+     * @param <T>          响应体类型
+     * @return 响应
+     */
+    @Nonnull
+    <T> CompletableFuture<HttpResponse<T>> send(@Nonnull HttpRequest request,
+                                                @Nonnull HttpClientConfig clientConfig,
+                                                @Nonnull HttpResponse.BodyHandler<T> bodyHandler);
+
+    /**
+     * 发起一次交换并记录分阶段耗时，默认不记录，传输层按自己能观测到的阶段覆盖实现
+     *
+     * @param request      请求
+     * @param clientConfig HttpClient 配置
+     * @param bodyHandler  响应体处理
+     * @param timer        计时器，为空时不记录
+     * @param <T>          响应体类型
+     * @return 响应
+     */
+    @Nonnull
+    default <T> CompletableFuture<HttpResponse<T>> send(@Nonnull HttpRequest request,
+                                                        @Nonnull HttpClientConfig clientConfig,
+                                                        @Nonnull HttpResponse.BodyHandler<T> bodyHandler,
+                                                        @Nullable HttpCallTimer timer) {
+        return this.send(request, clientConfig, bodyHandler);
+    }
+
+    /**
+     * 释放连接等资源
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,136 @@
+package org.st.shc.services;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 基于 JDK HttpClient 的传输层，支持 HTTP/2 、 TLS 、代理与重定向，按配置复用 HttpClient 。
+ * <p>
+ * JDK HttpClient 不暴露连接层面的事件，计时的调用只能记录其中一部分阶段：
+ * <ul>
+ *     <li>排队：交换先提交到配置的线程池，从提交到开始执行的时间计入排队；</li>
+ *     <li>域名解析：开始执行后先用 {@link InetAddress} 解析一次目标主机并计时，结果进入 JVM 的地址缓存，
+ *     HttpClient 随后建连时直接命中；使用代理时由代理解析，不记录；</li>
+ *     <li>建连、 TLS 握手与发送请求：无法观测，保持为 {@link HttpCallTiming#UNAVAILABLE} ，
+ *     首字节时间因此从调用开始计算，包含了这几个阶段。</li>
+ * </ul>
+ * 不计时的调用（如压测）直接交给 HttpClient ，不多一次线程池切换。
+ *
+ * @author abomb4 2026-10-17
+ */
+public class JdkHttpTransport implements HttpTransport {
+
+    /** HttpClient 缓存池 */
+    private final HttpClientPool clientPool;
+
+    /**
+     * 默认构造
+     */
+    public JdkHttpTransport() {
+        this(new HttpClientPool());
+    }
+
+    /**
+     * 指定 HttpClient 缓存池
+     *
+     * @param clientPool HttpClient 缓存池
+     */
+    public JdkHttpTransport(@Nonnull HttpClientPool clientPool) {
+        this.clientPool = Objects.requireNonNull(clientPool, "clientPool cannot be null");
+    }
+
+    @Nonnull
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> send(@Nonnull HttpRequest request,
+                                                       @Nonnull HttpClientConfig clientConfig,
+                                                       @Nonnull HttpResponse.BodyHandler<T> bodyHandler) {
+        return this.clientPool.acquire(clientConfig).sendAsync(request, bodyHandler);
+    }
+
+    @Nonnull
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> send(@Nonnull HttpRequest request,
+                                                       @Nonnull HttpClientConfig clientConfig,
+                                                       @Nonnull HttpResponse.BodyHandler<T> bodyHandler,
+                                                       @Nullable HttpCallTimer timer) {
+        if (timer == null) {
+            return this.send(request, clientConfig, bodyHandler);
+        }
+        HttpClient client = this.clientPool.acquire(clientConfig);
+        CompletableFuture<HttpResponse<T>> result = new CompletableFuture<>();
+        long submittedNanos = System.nanoTime();
+        try {
+            clientConfig.executor().execute(() -> {
+                timer.addQueueWait(System.nanoTime() - submittedNanos);
+                if (result.isDone()) {
+                    // 排队时已被取消或超时
+                    return;
+                }
+                if (clientConfig.proxySelector() == null) {
+                    try {
+                        resolve(request.uri().getHost(), timer);
+                    } catch (UnknownHostException e) {
+                        result.completeExceptionally(e);
+                        return;
+                    }
+                }
+                CompletableFuture<HttpResponse<T>> exchange = client.sendAsync(request, bodyHandler);
+                exchange.whenComplete((response, throwable) -> {
+                    if (throwable == null) {
+                        result.complete(response);
+                    } else {
+                        result.completeExceptionally(throwable);
+                    }
+                });
+                // 取消要传到 HttpClient 的交换上才能中止它
+                result.whenComplete((response, throwable) -> {
+                    if (result.isCancelled()) {
+                        exchange.cancel(true);
+                    }
+                });
+            });
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return result;
+    }
+
+    /**
+     * 解析目标主机并记录耗时
+     *
+     * @param host  主机，为空时不解析
+     * @param timer 计时器
+     * @throws UnknownHostException 无法解析
+     */
+    private static void resolve(@Nullable String host, HttpCallTimer timer) throws UnknownHostException {
+        if (host == null) {
+            return;
+        }
+        long start = System.nanoTime();
+        InetAddress.getByName(host);
+        timer.recordDns(System.nanoTime() - start);
+    }
+
+    /**
+     * HttpClient 缓存池
+     *
+     * @return 缓存池
+     */
+    @Nonnull
+    public HttpClientPool getClientPool() {
+        return this.clientPool;
+    }
+
+    @Override
+    public void close() {
+        this.clientPool.clear();
+    }
+}
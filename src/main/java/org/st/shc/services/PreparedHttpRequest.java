@@ -0,0 +1,235 @@
+package org.st.shc.services;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpRequest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 预处理好的请求，不可变，可以反复发送。
+ * <p>
+ * 链接解析、头合并、体编码与 {@link HttpRequest} 构造都只在预处理时做一次，压测与重复发送时直接复用。
+ *
+ * @author abomb4 2026-10-17
+ */
+public final class PreparedHttpRequest {
+
+    /** 原始请求 */
+    @Nonnull
+    private final HttpClientRequest source;
+    /** 解析后的链接 */
+    @Nonnull
+    private final URI uri;
+    /** 最终的头，不可修改 */
+    @Nonnull
+    private final Map<String, List<String>> headers;
+    /** 预先编码的体，流式体为空 */
+    @Nullable
+    private final byte[] body;
+    /** 可反复发送的 JDK 请求 */
+    @Nonnull
+    private final HttpRequest httpRequest;
+
+    /**
+     * 完整构造
+     *
+     * @param source      原始请求
+     * @param uri         解析后的链接
+     * @param headers     最终的头
+     * @param body        预先编码的体
+     * @param httpRequest JDK 请求
+     */
+    private PreparedHttpRequest(HttpClientRequest source, URI uri, Map<String, List<String>> headers,
+                                byte[] body, HttpRequest httpRequest) {
+        this.source = source;
+        this.uri = uri;
+        this.headers = headers;
+        this.body = body;
+        this.httpRequest = httpRequest;
+    }
+
+    /**
+     * 预处理请求，没有指定 Accept-Encoding 时声明支持 gzip 与 deflate
+     *
+     * @param request 请求
+     * @return 预处理好的请求
+     * @throws IllegalArgumentException 链接或头不合法
+     */
+    @Nonnull
+    public static PreparedHttpRequest prepare(@Nonnull HttpClientRequest request) {
+        return prepare(request, true);
+    }
+
+    /**
+     * 预处理请求
+     *
+     * @param request          请求
+     * @param acceptCompressed 没有指定 Accept-Encoding 时是否声明支持 gzip 与 deflate
+     * @return 预处理好的请求
+     * @throws IllegalArgumentException 链接或头不合法
+     */
+    @Nonnull
+    static PreparedHttpRequest prepare(@Nonnull HttpClientRequest request, boolean acceptCompressed) {
+        Objects.requireNonNull(request, "request cannot be null");
+        URI uri = resolveUri(request.url());
+        Map<String, List<String>> headers = resolveHeaders(request, acceptCompressed);
+
+        HttpClientRequestBody body = request.body();
+        byte[] bytes = null;
+        HttpRequest.BodyPublisher publisher = null;
+        if (request.method() == HttpMethod.POST || request.method() == HttpMethod.PUT) {
+            bytes = body.encode();
+            publisher = bytes != null
+                    ? HttpRequest.BodyPublishers.ofByteArray(bytes)
+                    : body.asBodyPublisher();
+        }
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder().uri(uri);
+        if (request.timeouts().read() != null) {
+            builder.timeout(request.timeouts().read());
+        }
+        for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+            for (String value : entry.getValue()) {
+                builder.header(entry.getKey(), value);
+            }
+        }
+        switch (request.method()) {
+            case GET -> builder.GET();
+            case POST -> builder.POST(publisher);
+            case PUT -> builder.PUT(publisher);
+            case DELETE -> builder.DELETE();
+            case HEAD -> builder.method("HEAD", HttpRequest.BodyPublishers.noBody());
+            case OPTIONS -> builder.method("OPTIONS", HttpRequest.BodyPublishers.noBody());
+        }
+        return new PreparedHttpRequest(request, uri, headers, bytes, builder.build());
+    }
+
+    /**
+     * 解析链接，没有协议时补上 http
+     *
+     * @param url 链接
+     * @return URI
+     */
+    private static URI resolveUri(String url) {
+        if (!url.startsWith("http")) {
+            url = "http://" + url;
+        }
+        try {
+            return new URI(url);
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 合并头，headers 中的 Content-Type 优先于体自带的
+     *
+     * @param request          请求
+     * @param acceptCompressed 没有指定 Accept-Encoding 时是否声明支持 gzip 与 deflate
+     * @return 不可修改的头
+     */
+    private static Map<String, List<String>> resolveHeaders(HttpClientRequest request, boolean acceptCompressed) {
+        Map<String, List<String>> headers = new LinkedHashMap<>(request.headers().size() + 3);
+        ContentType contentType = request.body().getContentType();
+        if (contentType != null) {
+            headers.put(HttpClientService.CONTENT_TYPE, List.of(contentType.fullString()));
+        }
+        String contentEncoding = request.body().getContentEncoding();
+        if (contentEncoding != null) {
+            headers.put(DecompressingBodyHandler.CONTENT_ENCODING, List.of(contentEncoding));
+        }
+        for (Map.Entry<String, List<String>> entry : request.headers().entrySet()) {
+            String key = entry.getKey();
+            if (HttpClientService.CONTENT_TYPE.equals(key)) {
+                headers.put(HttpClientService.CONTENT_TYPE, List.of(entry.getValue().iterator().next()));
+            } else {
+                headers.computeIfAbsent(key, k -> new ArrayList<>(entry.getValue().size()))
+                        .addAll(entry.getValue());
+            }
+        }
+        if (acceptCompressed && headers.keySet().stream()
+                .noneMatch(DecompressingBodyHandler.ACCEPT_ENCODING::equalsIgnoreCase)) {
+            headers.put(DecompressingBodyHandler.ACCEPT_ENCODING,
+                    List.of(DecompressingBodyHandler.ACCEPT_ENCODING_VALUE));
+        }
+        headers.replaceAll((k, v) -> List.copyOf(v));
+        return Collections.unmodifiableMap(headers);
+    }
+
+    /**
+     * 原始请求
+     *
+     * @return 原始请求
+     */
+    @Nonnull
+    public HttpClientRequest getSource() {
+        return this.source;
+    }
+
+    /**
+     * HTTP Method
+     *
+     * @return HTTP Method
+     */
+    @Nonnull
+    public HttpMethod getMethod() {
+        return this.source.method();
+    }
+
+    /**
+     * 解析后的链接
+     *
+     * @return 链接
+     */
+    @Nonnull
+    public URI getUri() {
+        return this.uri;
+    }
+
+    /**
+     * 最终的头
+     *
+     * @return 不可修改的头
+     */
+    @Nonnull
+    public Map<String, List<String>> getHeaders() {
+        return this.headers;
+    }
+
+    /**
+     * 预先编码的体，返回副本
+     *
+     * @return 体字节，流式体或没有体的请求为空
+     */
+    @Nullable
+    public byte[] getBody() {
+        return this.body == null ? null : this.body.clone();
+    }
+
+    /**
+     * 可反复发送的 JDK 请求
+     *
+     * @return JDK 请求
+     */
+    @Nonnull
+    public HttpRequest getHttpRequest() {
+        return this.httpRequest;
+    }
+
+    @Override
+    public String toString() {
+        return "PreparedHttpRequest{" +
+                "method=" + source.method() +
+                ", uri=" + uri +
+                ", headers=" + headers +
+                ", bodyLength=" + (body == null ? -1 : body.length) +
+                '}';
+    }
+}
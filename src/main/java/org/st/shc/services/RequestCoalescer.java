@@ -0,0 +1,134 @@
+package org.st.shc.services;
+
+import javax.annotation.Nonnull;
+import java.net.URI;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 合并同时发出的相同 GET 请求。
+ * <p>
+ * 方法、链接、请求头、 HttpClient 配置与响应体处理都相同的请求正在进行时，后来的调用不再发起新的交换，
+ * 直接共享第一次调用的结果。每个调用方拿到的是各自的 future 副本，取消副本不会影响其他调用方，
+ * 也不会取消共享的交换。
+ * <p>
+ * 响应体处理按 equals 区分：共用的实例或按参数相等的处理（如相同上限的 {@link ResponseBodySinks#boundedPrefix(int)} ）
+ * 可以合并，每次调用都新建的处理（如流式接收、写临时文件）自然不会合并。
+ * 响应体会被多个调用方共享，只有产出不可变响应体的处理才应共用实例。
+ * <p>
+ * 只有 {@link HttpClientService#httpCall} 与 {@link HttpClientService#httpCallTimed} 发起的交互调用经过合并，
+ * 压测发送预处理好的请求时每个请求都实际发出。
+ *
+ * @author abomb4 2026-10-17
+ */
+public class RequestCoalescer {
+
+    /** 正在进行的请求 */
+    private final Map<Key, CompletableFuture<?>> inFlight = new ConcurrentHashMap<>();
+
+    /** 实际发出请求的次数 */
+    private final LongAdder leaders = new LongAdder();
+    /** 共享已有结果的次数 */
+    private final LongAdder followers = new LongAdder();
+
+    /**
+     * 发送请求，存在相同的进行中请求时共享其结果
+     *
+     * @param prepared     预处理好的请求
+     * @param clientConfig HttpClient 配置
+     * @param bodyHandler  响应体处理，必须产出不可变的响应体
+     * @param network      实际发送请求的方式
+     * @param <T>          响应体类型
+     * @return 响应
+     */
+    @SuppressWarnings("unchecked")
+    <T> CompletableFuture<HttpResponse<T>> send(PreparedHttpRequest prepared,
+                                                HttpClientConfig clientConfig,
+                                                HttpResponse.BodyHandler<T> bodyHandler,
+                                                Supplier<CompletableFuture<HttpResponse<T>>> network) {
+        if (prepared.getMethod() != HttpMethod.GET) {
+            return network.get();
+        }
+        Key key = new Key(prepared.getUri(), prepared.getHeaders(), clientConfig, bodyHandler);
+        CompletableFuture<HttpResponse<T>> shared = new CompletableFuture<>();
+        CompletableFuture<?> existing = this.inFlight.putIfAbsent(key, shared);
+        if (existing != null) {
+            this.followers.increment();
+            // 键中包含响应体处理，相同键的结果类型一定相同
+            return ((CompletableFuture<HttpResponse<T>>) existing).copy();
+        }
+
+        this.leaders.increment();
+        CompletableFuture<HttpResponse<T>> exchange;
+        try {
+            exchange = network.get();
+        } catch (RuntimeException e) {
+            exchange = CompletableFuture.failedFuture(e);
+        }
+        exchange.whenComplete((response, throwable) -> {
+            // 先移除再完成，完成之后到达的调用会发起新的请求而不是拿到旧结果
+            this.inFlight.remove(key, shared);
+            if (throwable != null) {
+                shared.completeExceptionally(throwable);
+            } else {
+                shared.complete(response);
+            }
+        });
+        return shared.copy();
+    }
+
+    /**
+     * 当前正在进行的不同请求数
+     *
+     * @return 请求数
+     */
+    public int inFlight() {
+        return this.inFlight.size();
+    }
+
+    /**
+     * 统计快照
+     *
+     * @return 统计
+     */
+    @Nonnull
+    public Stats stats() {
+        return new Stats(this.leaders.sum(), this.followers.sum());
+    }
+
+    /**
+     * 合并统计
+     *
+     * @param leaders   实际发出请求的次数
+     * @param followers 共享已有结果的次数
+     */
+    public record Stats(long leaders, long followers) {
+
+        /**
+         * 被合并掉的调用比例
+         *
+         * @return 比例，没有请求时为 0
+         */
+        public double hitRate() {
+            long total = this.leaders + this.followers;
+            return total == 0 ? 0 : (double) this.followers / total;
+        }
+    }
+
+    /**
+     * 合并键
+     *
+     * @param uri          链接
+     * @param headers      请求头
+     * @param clientConfig HttpClient 配置
+     * @param bodyHandler  响应体处理，按 equals 区分
+     */
+    private record Key(URI uri, Map<String, List<String>> headers, HttpClientConfig clientConfig,
+                       HttpResponse.BodyHandler<?> bodyHandler) {
+    }
+}
@@ -0,0 +1,292 @@
+package org.st.shc.services;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+
+/**
+ * 常用的流式响应体接收方式，配合 {@link HttpClientService#httpCall(HttpClientRequest, HttpResponse.BodyHandler)} 使用。
+ * <p>
+ * 这些接收方式都不会把完整响应体放进堆里，适合大响应。
+ *
+ * @author abomb4 2026-10-17
+ */
+public final class ResponseBodySinks {
+
+    /** 临时文件前缀 */
+    private static final String TEMP_FILE_PREFIX = "shc-response-";
+    /** 临时文件后缀 */
+    private static final String TEMP_FILE_SUFFIX = ".body";
+
+    /** 只统计字节数的 BodyHandler ，无状态，所有调用共用 */
+    private static final HttpResponse.BodyHandler<Long> COUNTING = info -> new ChunkSubscriber<>(buffer -> {
+    }, received -> received);
+
+    /**
+     * 只统计字节数，丢弃内容；即使请求声明了 Accept-Encoding 也不解压，统计的是线上字节数
+     *
+     * @return 响应体字节数
+     */
+    @Nonnull
+    public static HttpResponse.BodyHandler<Long> counting() {
+        return COUNTING;
+    }
+
+    /**
+     * 是否 {@link #counting()} 返回的 BodyHandler
+     *
+     * @param handler BodyHandler
+     * @return 是否只统计字节数
+     */
+    static boolean isCounting(HttpResponse.BodyHandler<?> handler) {
+        return handler == COUNTING;
+    }
+
+    /**
+     * 每收到一块数据就回调一次，回调中不要保留 buffer 的引用
+     *
+     * @param onChunk 数据块回调
+     * @return 响应体字节数
+     */
+    @Nonnull
+    public static HttpResponse.BodyHandler<Long> onChunk(@Nonnull Consumer<ByteBuffer> onChunk) {
+        Objects.requireNonNull(onChunk, "onChunk cannot be null");
+        return info -> new ChunkSubscriber<>(onChunk, received -> received);
+    }
+
+    /**
+     * 写入临时文件，由调用方负责删除
+     *
+     * @return 临时文件路径
+     */
+    @Nonnull
+    public static HttpResponse.BodyHandler<Path> toTempFile() {
+        return info -> {
+            try {
+                Path path = Files.createTempFile(TEMP_FILE_PREFIX, TEMP_FILE_SUFFIX);
+                return HttpResponse.BodySubscribers.ofFile(path);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    /**
+     * 只保留前若干字节在内存中，其余只计数；上限相同的处理相等，可参与相同请求合并
+     *
+     * @param maxBytes 最多保留的字节数
+     * @return 有界的响应体
+     */
+    @Nonnull
+    public static HttpResponse.BodyHandler<BoundedBody> boundedPrefix(int maxBytes) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("maxBytes cannot lesser than 0");
+        }
+        return new BoundedPrefixHandler(maxBytes);
+    }
+
+    /**
+     * 有界的响应体
+     *
+     * @param prefix     保留下来的前缀
+     * @param totalBytes 响应体总字节数
+     */
+    public record BoundedBody(@Nonnull byte[] prefix, long totalBytes) {
+
+        /**
+         * 是否被截断
+         *
+         * @return 是否被截断
+         */
+        public boolean truncated() {
+            return this.totalBytes > this.prefix.length;
+        }
+
+        /**
+         * 以指定编码解码前缀
+         *
+         * @param charset 编码
+         * @return 前缀字符串
+         */
+        @Nonnull
+        public String asString(@Nonnull Charset charset) {
+            return new String(this.prefix, charset);
+        }
+
+        @Override
+        public String toString() {
+            return "BoundedBody{" +
+                    "prefixLength=" + prefix.length +
+                    ", totalBytes=" + totalBytes +
+                    '}';
+        }
+    }
+
+    /**
+     * 只保留前缀的处理，无状态，按上限比较相等
+     *
+     * @param maxBytes 最多保留的字节数
+     */
+    private record BoundedPrefixHandler(int maxBytes) implements HttpResponse.BodyHandler<BoundedBody> {
+
+        @Override
+        public HttpResponse.BodySubscriber<BoundedBody> apply(HttpResponse.ResponseInfo responseInfo) {
+            PrefixCollector collector = new PrefixCollector(this.maxBytes);
+            return new ChunkSubscriber<>(collector, collector);
+        }
+    }
+
+    /** 收集前缀，缓冲按需倍增到上限，小响应不必先分配整个上限 */
+    private static final class PrefixCollector implements Consumer<ByteBuffer>, LongFunction<BoundedBody> {
+
+        /** 初始缓冲大小 */
+        private static final int INITIAL_CAPACITY = 8 * 1024;
+
+        /** 最多保留的字节数 */
+        private final int maxBytes;
+        /** 前缀缓冲 */
+        private byte[] prefix;
+        /** 已写入的前缀长度 */
+        private int length;
+
+        /**
+         * 完整构造
+         *
+         * @param maxBytes 最多保留的字节数
+         */
+        private PrefixCollector(int maxBytes) {
+            this.maxBytes = maxBytes;
+            this.prefix = new byte[Math.min(maxBytes, INITIAL_CAPACITY)];
+        }
+
+        @Override
+        public void accept(ByteBuffer buffer) {
+            int copy = Math.min(buffer.remaining(), this.maxBytes - this.length);
+            if (copy > 0) {
+                this.ensureCapacity(this.length + copy);
+                buffer.get(this.prefix, this.length, copy);
+                this.length += copy;
+            }
+        }
+
+        @Override
+        public BoundedBody apply(long received) {
+            byte[] result = this.length == this.prefix.length ? this.prefix : Arrays.copyOf(this.prefix, this.length);
+            return new BoundedBody(result, received);
+        }
+
+        /**
+         * 保证缓冲至少能放下指定长度
+         *
+         * @param required 需要的长度，不超过上限
+         */
+        private void ensureCapacity(int required) {
+            if (required <= this.prefix.length) {
+                return;
+            }
+            int grown = (int) Math.min(this.maxBytes, Math.max(required, this.prefix.length * 2L));
+            this.prefix = Arrays.copyOf(this.prefix, grown);
+        }
+    }
+
+    /**
+     * 逐块消费的订阅者，无背压限制地请求数据，数据块由 JDK 按网络读取速度推送。
+     * 回调抛出异常时取消订阅、以该异常结束结果，之后到达的信号都忽略
+     *
+     * @param <T> 结果类型
+     */
+    private static final class ChunkSubscriber<T> implements HttpResponse.BodySubscriber<T> {
+
+        /** 数据块回调 */
+        private final Consumer<ByteBuffer> onChunk;
+        /** 结束时根据已接收字节数生成结果 */
+        private final LongFunction<T> finisher;
+        /** 结果 */
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        /** 已接收字节数 */
+        private long received;
+        /** 订阅，回调失败时用于取消 */
+        private Flow.Subscription subscription;
+        /** 是否已结束，回调失败后不再处理后续信号 */
+        private boolean terminated;
+
+        /**
+         * 完整构造
+         *
+         * @param onChunk  数据块回调
+         * @param finisher 结束时根据已接收字节数生成结果
+         */
+        private ChunkSubscriber(Consumer<ByteBuffer> onChunk, LongFunction<T> finisher) {
+            this.onChunk = onChunk;
+            this.finisher = finisher;
+        }
+
+        @Override
+        public CompletionStage<T> getBody() {
+            return this.result;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> item) {
+            if (this.terminated) {
+                return;
+            }
+            try {
+                for (ByteBuffer buffer : item) {
+                    this.received += buffer.remaining();
+                    this.onChunk.accept(buffer);
+                }
+            } catch (RuntimeException e) {
+                // 异常不能从 onNext 抛出，取消剩余的响应体并结束结果
+                this.terminated = true;
+                this.subscription.cancel();
+                this.result.completeExceptionally(e);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            if (this.terminated) {
+                return;
+            }
+            this.terminated = true;
+            this.result.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            if (this.terminated) {
+                return;
+            }
+            this.terminated = true;
+            try {
+                this.result.complete(this.finisher.apply(this.received));
+            } catch (RuntimeException e) {
+                this.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    /** no construct */
+    private ResponseBodySinks() {
+    }
+}
@@ -0,0 +1,24 @@
+package org.st.shc.services;
+
+import javax.annotation.Nonnull;
+import java.net.http.HttpResponse;
+import java.util.Objects;
+
+/**
+ * 带分阶段耗时的响应
+ *
+ * @param response 响应
+ * @param timing   耗时
+ * @param <T>      响应体类型
+ * @author abomb4 2026-10-17
+ */
+public record TimedHttpResponse<T>(
+        @Nonnull HttpResponse<T> response,
+        @Nonnull HttpCallTiming timing
+) {
+
+    public TimedHttpResponse {
+        Objects.requireNonNull(response, "response cannot be null");
+        Objects.requireNonNull(timing, "timing cannot be null");
+    }
+}
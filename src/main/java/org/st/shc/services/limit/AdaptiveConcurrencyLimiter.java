@@ -0,0 +1,162 @@
+package org.st.shc.services.limit;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.net.http.HttpResponse;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 自适应并发上限：在途请求数达到上限时拒绝新请求，每个请求结束后按 {@link LimitAlgorithm} 调整上限。
+ * <p>
+ * 延迟平稳时上限增长，延迟上升或出错时回退，最终停在吞吐不再增长、延迟开始上升的拐点附近。
+ * 申请名额无锁；调整上限在锁内完成，以便算法维护自己的状态。
+ *
+ * @author abomb4 2026-10-17
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    /** 请求过多 */
+    private static final int STATUS_TOO_MANY_REQUESTS = 429;
+    /** 服务不可用 */
+    private static final int STATUS_SERVICE_UNAVAILABLE = 503;
+
+    /** 调整算法 */
+    private final LimitAlgorithm algorithm;
+    /** 在途请求数 */
+    private final AtomicInteger inFlight = new AtomicInteger();
+    /** 当前上限 */
+    private volatile int limit;
+
+    /** 放行次数 */
+    private final LongAdder accepted = new LongAdder();
+    /** 拒绝次数 */
+    private final LongAdder rejected = new LongAdder();
+    /** 视为过载的请求数 */
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * 完整构造
+     *
+     * @param algorithm 调整算法，不能与其他限流器共用
+     */
+    public AdaptiveConcurrencyLimiter(@Nonnull LimitAlgorithm algorithm) {
+        this.algorithm = Objects.requireNonNull(algorithm, "algorithm cannot be null");
+        int initial = algorithm.initialLimit();
+        if (initial < 1) {
+            throw new IllegalArgumentException("initialLimit cannot lesser than 1");
+        }
+        this.limit = initial;
+    }
+
+    /**
+     * 申请一个名额
+     *
+     * @return 拿到时返回含自身在内的在途请求数，结束时原样交给 {@link #release} 或 {@link #onComplete} ，
+     * 或调用 {@link #ignore} ；拿不到返回 0
+     */
+    public int tryAcquire() {
+        while (true) {
+            int current = this.inFlight.get();
+            if (current >= this.limit) {
+                this.rejected.increment();
+                return 0;
+            }
+            if (this.inFlight.compareAndSet(current, current + 1)) {
+                this.accepted.increment();
+                return current + 1;
+            }
+        }
+    }
+
+    /**
+     * 请求结束，归还名额并以此次结果调整上限
+     *
+     * @param rttNanos 耗时
+     * @param inFlight 申请名额时 {@link #tryAcquire} 返回的在途请求数
+     * @param dropped  是否失败或被后端拒绝
+     */
+    public void release(long rttNanos, int inFlight, boolean dropped) {
+        if (dropped) {
+            this.dropped.increment();
+        }
+        synchronized (this) {
+            // 用发出时的在途数：结束时的在途数已被之后补上的请求改变，不能说明这次请求面对的负载
+            int next = this.algorithm.update(this.limit, rttNanos, inFlight, dropped);
+            this.limit = Math.max(1, next);
+        }
+        this.inFlight.decrementAndGet();
+    }
+
+    /**
+     * 请求被取消，只归还名额，不参与调整
+     */
+    public void ignore() {
+        this.inFlight.decrementAndGet();
+    }
+
+    /**
+     * 按请求结果归还名额：取消的请求不参与调整，异常、 429 与 503 视为过载
+     *
+     * @param rttNanos  耗时
+     * @param inFlight  申请名额时 {@link #tryAcquire} 返回的在途请求数
+     * @param response  响应，失败时为空
+     * @param throwable 异常，成功时为空
+     */
+    public void onComplete(long rttNanos, int inFlight, @Nullable HttpResponse<?> response, @Nullable Throwable throwable) {
+        Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+                ? throwable.getCause() : throwable;
+        if (cause instanceof CancellationException) {
+            this.ignore();
+            return;
+        }
+        boolean overload = cause != null || response == null
+                || response.statusCode() == STATUS_TOO_MANY_REQUESTS
+                || response.statusCode() == STATUS_SERVICE_UNAVAILABLE;
+        this.release(rttNanos, inFlight, overload);
+    }
+
+    /**
+     * 当前上限
+     *
+     * @return 上限
+     */
+    public int getLimit() {
+        return this.limit;
+    }
+
+    /**
+     * 当前在途请求数
+     *
+     * @return 在途数
+     */
+    public int getInFlight() {
+        return this.inFlight.get();
+    }
+
+    /**
+     * 统计快照
+     *
+     * @return 统计
+     */
+    @Nonnull
+    public Stats stats() {
+        return new Stats(this.limit, this.inFlight.get(), this.accepted.sum(), this.rejected.sum(),
+                this.dropped.sum());
+    }
+
+    /**
+     * 限流统计
+     *
+     * @param limit    当前上限
+     * @param inFlight 在途请求数
+     * @param accepted 放行次数
+     * @param rejected 拒绝次数
+     * @param dropped  视为过载的请求数
+     */
+    public record Stats(int limit, int inFlight, long accepted, long rejected, long dropped) {
+    }
+}
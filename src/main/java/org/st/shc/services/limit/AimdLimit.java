@@ -0,0 +1,116 @@
+package org.st.shc.services.limit;
+
+import javax.annotation.Nonnull;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.function.LongSupplier;
+
+/**
+ * 加性增、乘性减：并发确实被用到一半以上时，每累计上限个数的成功请求，即大约每个耗时，上限加 1 ；
+ * 失败或耗时超过阈值时上限乘以回退系数。
+ * <p>
+ * 同一批在途请求往往一起变慢，与 TCP 一样，一个耗时内最多回退一次，避免上限被连续压到底。
+ * 简单稳定，但只在出现失败或耗时越过阈值后才回退，会在拐点上方来回探测。
+ *
+ * @author abomb4 2026-10-17
+ */
+public class AimdLimit implements LimitAlgorithm {
+
+    /** 初始上限 */
+    private final int initialLimit;
+    /** 最小上限 */
+    private final int minLimit;
+    /** 最大上限 */
+    private final int maxLimit;
+    /** 回退系数 */
+    private final double backoffRatio;
+    /** 耗时超过此值视为过载 */
+    private final long latencyThresholdNanos;
+    /** 纳秒时钟 */
+    private final LongSupplier nanoClock;
+    /** 上次回退的时间 */
+    private long lastBackoffNanos;
+    /** 上次加 1 以来累计的成功次数 */
+    private int increments;
+
+    /**
+     * 完整构造
+     *
+     * @param initialLimit     初始上限
+     * @param minLimit         最小上限
+     * @param maxLimit         最大上限
+     * @param backoffRatio     回退系数，介于 0.5 与 1 之间
+     * @param latencyThreshold 耗时超过此值视为过载
+     */
+    public AimdLimit(int initialLimit, int minLimit, int maxLimit, double backoffRatio,
+                     @Nonnull Duration latencyThreshold) {
+        this(initialLimit, minLimit, maxLimit, backoffRatio, latencyThreshold, System::nanoTime);
+    }
+
+    /**
+     * 指定时钟，测试时用模拟时间驱动
+     *
+     * @param initialLimit     初始上限
+     * @param minLimit         最小上限
+     * @param maxLimit         最大上限
+     * @param backoffRatio     回退系数，介于 0.5 与 1 之间
+     * @param latencyThreshold 耗时超过此值视为过载
+     * @param nanoClock        纳秒时钟
+     */
+    AimdLimit(int initialLimit, int minLimit, int maxLimit, double backoffRatio,
+              @Nonnull Duration latencyThreshold, @Nonnull LongSupplier nanoClock) {
+        if (minLimit < 1) {
+            throw new IllegalArgumentException("minLimit cannot lesser than 1");
+        }
+        if (maxLimit < minLimit) {
+            throw new IllegalArgumentException("maxLimit cannot lesser than minLimit");
+        }
+        if (initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("initialLimit must between minLimit and maxLimit");
+        }
+        if (!(backoffRatio >= 0.5 && backoffRatio < 1)) {
+            throw new IllegalArgumentException("backoffRatio must between 0.5 and 1");
+        }
+        Objects.requireNonNull(latencyThreshold, "latencyThreshold cannot be null");
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.nanoClock = Objects.requireNonNull(nanoClock, "nanoClock cannot be null");
+        this.lastBackoffNanos = nanoClock.getAsLong();
+    }
+
+    /**
+     * 初始 10 ，范围 1 到 1000 ，回退系数 0.9
+     *
+     * @param latencyThreshold 耗时超过此值视为过载
+     */
+    public AimdLimit(@Nonnull Duration latencyThreshold) {
+        this(10, 1, 1000, 0.9, latencyThreshold);
+    }
+
+    @Override
+    public int initialLimit() {
+        return this.initialLimit;
+    }
+
+    @Override
+    public int update(int limit, long rttNanos, int inFlight, boolean dropped) {
+        if (dropped || rttNanos > this.latencyThresholdNanos) {
+            long now = this.nanoClock.getAsLong();
+            if (now - this.lastBackoffNanos < rttNanos) {
+                // 这个请求在上次回退前就已发出，不再重复回退
+                return limit;
+            }
+            this.lastBackoffNanos = now;
+            this.increments = 0;
+            return Math.max(this.minLimit, (int) (limit * this.backoffRatio));
+        }
+        if (inFlight * 2 >= limit && ++this.increments >= limit) {
+            this.increments = 0;
+            return Math.min(this.maxLimit, limit + 1);
+        }
+        return limit;
+    }
+}
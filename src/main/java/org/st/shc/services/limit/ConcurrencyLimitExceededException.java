@@ -0,0 +1,33 @@
+package org.st.shc.services.limit;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 在途请求数已达自适应上限，请求被直接拒绝，没有发出
+ *
+ * @author abomb4 2026-10-17
+ */
+public class ConcurrencyLimitExceededException extends RejectedExecutionException {
+
+    /** 拒绝时的上限 */
+    private final int limit;
+
+    /**
+     * 完整构造
+     *
+     * @param limit 拒绝时的上限
+     */
+    public ConcurrencyLimitExceededException(int limit) {
+        super("Concurrency limit " + limit + " exceeded");
+        this.limit = limit;
+    }
+
+    /**
+     * 拒绝时的上限
+     *
+     * @return 上限
+     */
+    public int getLimit() {
+        return this.limit;
+    }
+}
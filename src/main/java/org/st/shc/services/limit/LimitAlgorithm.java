@@ -0,0 +1,30 @@
+package org.st.shc.services.limit;
+
+/**
+ * 并发上限的调整算法。
+ * <p>
+ * 实现可以带状态，由 {@link AdaptiveConcurrencyLimiter} 在自身的锁内调用，
+ * 因此一个实例只能交给一个限流器使用。
+ *
+ * @author abomb4 2026-10-17
+ */
+public interface LimitAlgorithm {
+
+    /**
+     * 初始上限
+     *
+     * @return 上限，至少为 1
+     */
+    int initialLimit();
+
+    /**
+     * 根据一次请求的结果计算新的上限
+     *
+     * @param limit    当前上限
+     * @param rttNanos 这次请求的耗时
+     * @param inFlight 这次请求发出时的在途请求数，含自身
+     * @param dropped  是否失败或被后端拒绝，超时、 429 、 503 都算
+     * @return 新上限，至少为 1
+     */
+    int update(int limit, long rttNanos, int inFlight, boolean dropped);
+}
@@ -0,0 +1,116 @@
+package org.st.shc.services.limit;
+
+/**
+ * 仿照 TCP Vegas ，根据耗时的增长估计排队长度来调整上限，不需要等到失败。
+ * <p>
+ * 以一段时间内的最小耗时作为无负载耗时，估计排队长度为 {@code 发出时的在途数 * (1 - 无负载耗时 / 耗时)} 。
+ * 排队少于 alpha 时增加上限，多于 beta 时减少，两者都随上限的对数增长；
+ * 与 TCP Vegas 一样每个耗时只调整一步，因此每个样本只走一步的上限分之一，避免在反馈到来前越调越过。
+ * 请求失败时立即减少一整步。
+ * 无负载耗时每隔一批样本重新探测一次，避免后端变慢后一直拿旧值比较：探测时上限先让出 beta 个名额排空排队，
+ * 再从之后的样本里重新取最小耗时。
+ * 上限因此停在延迟开始上升的拐点附近。
+ *
+ * @author abomb4 2026-10-17
+ */
+public class VegasLimit implements LimitAlgorithm {
+
+    /** 每隔多少个样本重新探测无负载耗时 */
+    private static final int PROBE_INTERVAL = 1000;
+
+    /** 初始上限 */
+    private final int initialLimit;
+    /** 最小上限 */
+    private final int minLimit;
+    /** 最大上限 */
+    private final int maxLimit;
+    /** 平滑系数，越小越平稳 */
+    private final double smoothing;
+
+    /** 无负载耗时，还没有样本时为 0 */
+    private long rttNoLoadNanos;
+    /** 距离上次探测的样本数 */
+    private int samplesSinceProbe;
+    /** 平滑后的上限 */
+    private double estimatedLimit;
+
+    /**
+     * 完整构造
+     *
+     * @param initialLimit 初始上限
+     * @param minLimit     最小上限
+     * @param maxLimit     最大上限
+     * @param smoothing    平滑系数，介于 0 与 1 之间，1 表示不平滑
+     */
+    public VegasLimit(int initialLimit, int minLimit, int maxLimit, double smoothing) {
+        if (minLimit < 1) {
+            throw new IllegalArgumentException("minLimit cannot lesser than 1");
+        }
+        if (maxLimit < minLimit) {
+            throw new IllegalArgumentException("maxLimit cannot lesser than minLimit");
+        }
+        if (initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("initialLimit must between minLimit and maxLimit");
+        }
+        if (!(smoothing > 0 && smoothing <= 1)) {
+            throw new IllegalArgumentException("smoothing must between 0 and 1");
+        }
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.smoothing = smoothing;
+        this.estimatedLimit = initialLimit;
+    }
+
+    /**
+     * 初始 10 ，范围 1 到 1000 ，不平滑
+     */
+    public VegasLimit() {
+        this(10, 1, 1000, 1);
+    }
+
+    @Override
+    public int initialLimit() {
+        return this.initialLimit;
+    }
+
+    @Override
+    public int update(int limit, long rttNanos, int inFlight, boolean dropped) {
+        if (++this.samplesSinceProbe >= PROBE_INTERVAL) {
+            // 满载时每个样本都带着排队，直接拿来当无负载耗时会让上限一路漂高；
+            // 先让出 beta 个名额把排队排空，再从之后的样本里重新取最小值
+            this.samplesSinceProbe = 0;
+            this.rttNoLoadNanos = 0;
+            double current = this.estimatedLimit;
+            this.estimatedLimit = Math.max(this.minLimit, current - 6 * Math.max(1, Math.log10(current)));
+            return (int) Math.round(this.estimatedLimit);
+        }
+        if (this.rttNoLoadNanos == 0 || rttNanos < this.rttNoLoadNanos) {
+            this.rttNoLoadNanos = Math.max(1, rttNanos);
+            return limit;
+        }
+        double current = this.estimatedLimit;
+        double step = Math.max(1, Math.log10(current));
+        double next;
+        if (dropped) {
+            next = current - step;
+        } else if (inFlight * 2 < current) {
+            // 并发没有用满，耗时不能说明什么
+            return limit;
+        } else {
+            double queue = Math.ceil(inFlight * (1 - (double) this.rttNoLoadNanos / rttNanos));
+            double alpha = 3 * step;
+            double beta = 6 * step;
+            if (queue < alpha) {
+                next = current + step / current;
+            } else if (queue > beta) {
+                next = current - step / current;
+            } else {
+                return limit;
+            }
+        }
+        next = Math.max(this.minLimit, Math.min(this.maxLimit, next));
+        this.estimatedLimit = (1 - this.smoothing) * current + this.smoothing * next;
+        return (int) Math.round(this.estimatedLimit);
+    }
+}
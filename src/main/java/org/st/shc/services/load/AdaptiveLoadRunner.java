@@ -0,0 +1,219 @@
+package org.st.shc.services.load;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.st.shc.services.HttpClientRequest;
+import org.st.shc.services.HttpClientService;
+import org.st.shc.services.PreparedHttpRequest;
+import org.st.shc.services.ResponseBodySinks;
+import org.st.shc.services.limit.AdaptiveConcurrencyLimiter;
+
+import javax.annotation.Nonnull;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 自适应并发压测：在途请求数跟随 {@link AdaptiveConcurrencyLimiter} 的上限变化，
+ * 延迟平稳时并发增长，延迟上升或出错时回退，最终收敛到吞吐的拐点，不需要手工逐档调整并发数。
+ * <p>
+ * 每个请求结束后尽量补满名额，请求通过 {@link HttpClientService} 的共享线程池驱动。
+ * 取消返回的 Future 即可提前结束压测。
+ *
+ * @author abomb4 2026-10-17
+ */
+public class AdaptiveLoadRunner {
+
+    /** Slf4J */
+    private static final Logger log = LoggerFactory.getLogger(AdaptiveLoadRunner.class);
+
+    /** HTTP 客户端服务 */
+    private final HttpClientService httpClientService;
+
+    /**
+     * 完整构造
+     *
+     * @param httpClientService HTTP 客户端服务，不应再设置自己的并发上限
+     */
+    public AdaptiveLoadRunner(@Nonnull HttpClientService httpClientService) {
+        this.httpClientService = Objects.requireNonNull(httpClientService, "httpClientService cannot be null");
+    }
+
+    /**
+     * 开始压测
+     *
+     * @param request 请求
+     * @param options 压测参数
+     * @return 压测结果，取消即停止压测
+     */
+    @Nonnull
+    public CompletableFuture<AdaptiveRunResult> run(@Nonnull HttpClientRequest request,
+                                                    @Nonnull AdaptiveRunOptions options) {
+        Objects.requireNonNull(request, "request cannot be null");
+        Objects.requireNonNull(options, "options cannot be null");
+        final PreparedHttpRequest prepared;
+        try {
+            prepared = httpClientService.prepareForLoad(request);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        Run run = new Run(prepared, options);
+        run.fill();
+        return run.result;
+    }
+
+    /** 一次压测 */
+    private final class Run {
+
+        /** 预处理好的请求 */
+        private final PreparedHttpRequest request;
+        /** 并发上限 */
+        private final AdaptiveConcurrencyLimiter limiter;
+        /** 记录 */
+        private final LoadRecorder recorder = new LoadRecorder();
+        /** 采样 */
+        private final List<AdaptiveRunResult.Sample> samples = new ArrayList<>();
+        /** 本采样间隔内完成请求的耗时之和 */
+        private final LongAdder windowLatencyNanos = new LongAdder();
+        /** 结果 */
+        private final CompletableFuture<AdaptiveRunResult> result = new CompletableFuture<>();
+        /** 开始时间 */
+        private final long startNanos;
+        /** 截止时间 */
+        private final long deadlineNanos;
+        /** 采样间隔 */
+        private final long sampleIntervalNanos;
+        /** 下次采样时间 */
+        private volatile long nextSampleNanos;
+        /** 上次采样时间，在锁内读写 */
+        private long lastSampleNanos;
+        /** 上次采样时的完成数，在锁内读写 */
+        private long lastCompleted;
+
+        /**
+         * 完整构造
+         *
+         * @param request 请求
+         * @param options 压测参数
+         */
+        private Run(PreparedHttpRequest request, AdaptiveRunOptions options) {
+            this.request = request;
+            this.limiter = new AdaptiveConcurrencyLimiter(options.algorithm());
+            this.startNanos = System.nanoTime();
+            this.deadlineNanos = this.startNanos + options.duration().toNanos();
+            this.sampleIntervalNanos = options.sampleInterval().toNanos();
+            this.lastSampleNanos = this.startNanos;
+            this.nextSampleNanos = this.startNanos + this.sampleIntervalNanos;
+        }
+
+        /**
+         * 按当前上限补满在途请求
+         */
+        private void fill() {
+            int inFlight;
+            while (!this.stopping() && (inFlight = this.limiter.tryAcquire()) > 0) {
+                int acquired = inFlight;
+                try {
+                    httpClientService.getExecutor().execute(() -> this.send(acquired));
+                } catch (RejectedExecutionException e) {
+                    log.warn("Adaptive load run cannot dispatch because executor rejected: {}", e.toString());
+                    this.limiter.ignore();
+                    break;
+                }
+            }
+            this.finishIfDrained();
+        }
+
+        /**
+         * 发送一个请求
+         *
+         * @param inFlight 申请名额时的在途请求数
+         */
+        private void send(int inFlight) {
+            long begin = System.nanoTime();
+            try {
+                httpClientService.send(this.request, ResponseBodySinks.counting())
+                        .whenComplete((response, throwable) -> {
+                            long rtt = System.nanoTime() - begin;
+                            this.recorder.record(rtt, response, throwable);
+                            this.windowLatencyNanos.add(rtt);
+                            this.limiter.onComplete(rtt, inFlight, response, throwable);
+                            this.sample();
+                            this.fill();
+                        });
+            } catch (RuntimeException e) {
+                long rtt = System.nanoTime() - begin;
+                this.recorder.record(rtt, null, e);
+                this.limiter.onComplete(rtt, inFlight, null, e);
+                this.fill();
+            }
+        }
+
+        /**
+         * 是否停止发送
+         *
+         * @return 到时或被取消
+         */
+        private boolean stopping() {
+            return this.result.isDone() || System.nanoTime() >= this.deadlineNanos;
+        }
+
+        /**
+         * 到了采样时间就记录一次上限与吞吐
+         */
+        private void sample() {
+            long now = System.nanoTime();
+            if (now < this.nextSampleNanos) {
+                return;
+            }
+            synchronized (this) {
+                if (now < this.nextSampleNanos) {
+                    return;
+                }
+                this.nextSampleNanos = now + this.sampleIntervalNanos;
+                long completed = this.recorder.completed();
+                long window = Math.max(1, now - this.lastSampleNanos);
+                double throughput = (completed - this.lastCompleted) * 1e9 / window;
+                // Little 定律：平均在途数 = 耗时之和 / 间隔长度
+                double concurrency = (double) this.windowLatencyNanos.sumThenReset() / window;
+                this.lastCompleted = completed;
+                this.lastSampleNanos = now;
+                this.samples.add(new AdaptiveRunResult.Sample(Duration.ofNanos(now - this.startNanos),
+                        this.limiter.getLimit(), concurrency, throughput));
+            }
+        }
+
+        /**
+         * 停止发送且全部请求返回后生成结果
+         */
+        private void finishIfDrained() {
+            if (!this.stopping() || this.limiter.getInFlight() > 0 || this.result.isDone()) {
+                return;
+            }
+            LoadRunResult load = this.recorder.toResult(System.nanoTime() - this.startNanos);
+            List<AdaptiveRunResult.Sample> snapshot;
+            synchronized (this) {
+                snapshot = List.copyOf(this.samples);
+            }
+            // 后半程上限已经收敛，取其平均在途数与吞吐作为拐点
+            long half = (this.deadlineNanos - this.startNanos) / 2;
+            double concurrencySum = 0;
+            double throughputSum = 0;
+            int count = 0;
+            for (AdaptiveRunResult.Sample sample : snapshot) {
+                if (sample.elapsed().toNanos() >= half) {
+                    concurrencySum += sample.concurrency();
+                    throughputSum += sample.throughput();
+                    count++;
+                }
+            }
+            int kneeConcurrency = count == 0 ? this.limiter.getLimit() : (int) Math.round(concurrencySum / count);
+            double kneeThroughput = count == 0 ? load.throughput() : throughputSum / count;
+            this.result.complete(new AdaptiveRunResult(load, kneeConcurrency, kneeThroughput, snapshot));
+        }
+    }
+}
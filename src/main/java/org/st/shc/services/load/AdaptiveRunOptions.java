@@ -0,0 +1,47 @@
+package org.st.shc.services.load;
+
+import org.st.shc.services.limit.LimitAlgorithm;
+
+import javax.annotation.Nonnull;
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * 自适应并发压测参数
+ *
+ * @param algorithm      并发上限调整算法，每次压测使用新的实例
+ * @param duration       持续时间
+ * @param sampleInterval 采样间隔，每个间隔记录一次上限与吞吐
+ * @author abomb4 2026-10-17
+ */
+public record AdaptiveRunOptions(
+        @Nonnull LimitAlgorithm algorithm,
+        @Nonnull Duration duration,
+        @Nonnull Duration sampleInterval
+) {
+
+    /** 默认采样间隔 */
+    public static final Duration DEFAULT_SAMPLE_INTERVAL = Duration.ofSeconds(1);
+
+    public AdaptiveRunOptions {
+        Objects.requireNonNull(algorithm, "algorithm cannot be null");
+        Objects.requireNonNull(duration, "duration cannot be null");
+        Objects.requireNonNull(sampleInterval, "sampleInterval cannot be null");
+        if (duration.isNegative() || duration.isZero()) {
+            throw new IllegalArgumentException("duration must be positive");
+        }
+        if (sampleInterval.isNegative() || sampleInterval.isZero()) {
+            throw new IllegalArgumentException("sampleInterval must be positive");
+        }
+    }
+
+    /**
+     * 使用默认采样间隔
+     *
+     * @param algorithm 并发上限调整算法
+     * @param duration  持续时间
+     */
+    public AdaptiveRunOptions(@Nonnull LimitAlgorithm algorithm, @Nonnull Duration duration) {
+        this(algorithm, duration, DEFAULT_SAMPLE_INTERVAL);
+    }
+}
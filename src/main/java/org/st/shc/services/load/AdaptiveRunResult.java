@@ -0,0 +1,40 @@
+package org.st.shc.services.load;
+
+import javax.annotation.Nonnull;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 自适应并发压测结果。拐点取后半程采样的平均值，此时上限已经收敛。
+ * 上限本身会锯齿式波动，拐点并发数取的是实际的平均在途数。
+ *
+ * @param load            请求结果
+ * @param kneeConcurrency 拐点并发数，即收敛后的平均在途请求数
+ * @param kneeThroughput  拐点吞吐量，每秒完成的请求数
+ * @param samples         每个采样间隔的上限与吞吐
+ * @author abomb4 2026-10-17
+ */
+public record AdaptiveRunResult(
+        @Nonnull LoadRunResult load,
+        int kneeConcurrency,
+        double kneeThroughput,
+        @Nonnull List<Sample> samples
+) {
+
+    @Override
+    public String toString() {
+        return String.format("AdaptiveRunResult{kneeConcurrency=%d, kneeThroughput=%.1f/s, samples=%d, load=%s}",
+                kneeConcurrency, kneeThroughput, samples.size(), load);
+    }
+
+    /**
+     * 一个采样间隔
+     *
+     * @param elapsed     距压测开始的时间
+     * @param limit       间隔结束时的并发上限
+     * @param concurrency 间隔内的平均在途请求数，由完成请求的耗时之和除以间隔长度得出
+     * @param throughput  间隔内每秒完成的请求数
+     */
+    public record Sample(@Nonnull Duration elapsed, int limit, double concurrency, double throughput) {
+    }
+}
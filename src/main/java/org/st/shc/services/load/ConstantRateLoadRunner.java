@@ -0,0 +1,80 @@
+package org.st.shc.services.load;
+
+import org.st.shc.services.HttpClientRequest;
+import org.st.shc.services.HttpClientService;
+
+import javax.annotation.Nonnull;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * 开放模型压测：以恒定到达率发送请求，不等待前一个响应。
+ * <p>
+ * 闭环压测中慢响应会推迟后续发送，延迟尖刺因此被掩盖（coordinated omission）。这里每个请求的延迟都从计划发送时间算起，
+ * 发压端跟不上计划时额外记录滞后次数，结果能如实反映被压服务的排队情况。
+ * <p>
+ * 相当于只有一个恒定阶段的 {@link ProfileLoadRunner} ，节拍由单线程的
+ * {@link java.util.concurrent.ScheduledThreadPoolExecutor} 驱动。取消返回的 Future 即可提前结束压测。
+ *
+ * @author abomb4 2026-10-17
+ */
+public class ConstantRateLoadRunner implements AutoCloseable {
+
+    /** 按负载曲线发压 */
+    private final ProfileLoadRunner profileLoadRunner;
+
+    /**
+     * 使用自建的单线程节拍线程池，会跟随本对象销毁
+     *
+     * @param httpClientService HTTP 客户端服务
+     */
+    public ConstantRateLoadRunner(@Nonnull HttpClientService httpClientService) {
+        this.profileLoadRunner = new ProfileLoadRunner(httpClientService);
+    }
+
+    /**
+     * 使用外部节拍线程池，不负责其销毁
+     *
+     * @param httpClientService HTTP 客户端服务
+     * @param pacer             节拍线程池
+     */
+    public ConstantRateLoadRunner(@Nonnull HttpClientService httpClientService,
+                                  @Nonnull ScheduledExecutorService pacer) {
+        this.profileLoadRunner = new ProfileLoadRunner(httpClientService, pacer);
+    }
+
+    /**
+     * 开始压测
+     *
+     * @param request 请求
+     * @param options 压测参数
+     * @return 压测结果，取消即停止压测
+     */
+    @Nonnull
+    public CompletableFuture<RateRunResult> run(@Nonnull HttpClientRequest request, @Nonnull RateRunOptions options) {
+        Objects.requireNonNull(request, "request cannot be null");
+        Objects.requireNonNull(options, "options cannot be null");
+        final ProfileRunControl control;
+        try {
+            control = this.profileLoadRunner.run(request, new ProfileRunOptions(
+                    LoadProfile.soak(options.ratePerSecond(), options.duration()),
+                    options.maxInFlight(), options.lateTolerance()));
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture<RateRunResult> result = control.result().thenApply(r -> new RateRunResult(
+                r.load(), options.ratePerSecond(), r.scheduled(), r.lateSends(), r.missed()));
+        result.whenComplete((r, throwable) -> {
+            if (result.isCancelled()) {
+                control.result().cancel(false);
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public void close() throws Exception {
+        this.profileLoadRunner.close();
+    }
+}
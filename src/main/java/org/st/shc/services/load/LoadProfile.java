@@ -0,0 +1,376 @@
+package org.st.shc.services.load;
+
+import javax.annotation.Nonnull;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 压测负载曲线：由若干阶段首尾相接组成，每个阶段给出随时间变化的目标到达率。
+ * <p>
+ * 压测结果按阶段分桶，能看出延迟在哪一段开始恶化。常用曲线可以用静态方法直接构造，
+ * 复杂曲线用 {@link #builder()} 拼接。
+ *
+ * @author abomb4 2026-10-17
+ */
+public final class LoadProfile {
+
+    /** 全部阶段 */
+    private final List<Stage> stages;
+    /** 总时长 */
+    private final long durationNanos;
+
+    /**
+     * 由构造器创建
+     *
+     * @param stages 全部阶段
+     */
+    private LoadProfile(List<Stage> stages) {
+        this.stages = List.copyOf(stages);
+        long total = 0;
+        for (Stage stage : this.stages) {
+            total += stage.duration().toNanos();
+        }
+        this.durationNanos = total;
+    }
+
+    /**
+     * 线性爬坡
+     *
+     * @param fromRate 起始速率，每秒请求数
+     * @param toRate   结束速率
+     * @param duration 时长
+     * @return 曲线
+     */
+    public static LoadProfile ramp(double fromRate, double toRate, @Nonnull Duration duration) {
+        return builder().ramp(fromRate, toRate, duration).build();
+    }
+
+    /**
+     * 阶梯：每级保持一段时间后提高一档
+     *
+     * @param startRate    第一级速率
+     * @param stepRate     每级增加的速率
+     * @param steps        级数
+     * @param stepDuration 每级时长
+     * @return 曲线
+     */
+    public static LoadProfile stairs(double startRate, double stepRate, int steps, @Nonnull Duration stepDuration) {
+        if (steps < 1) {
+            throw new IllegalArgumentException("steps cannot lesser than 1");
+        }
+        Builder builder = builder();
+        for (int i = 0; i < steps; i++) {
+            double rate = startRate + stepRate * i;
+            builder.stage("stair " + (i + 1) + " @ " + format(rate) + "/s", stepDuration, rate, rate);
+        }
+        return builder.build();
+    }
+
+    /**
+     * 尖刺：平稳期、突增、恢复期
+     *
+     * @param baseRate      平稳速率
+     * @param spikeRate     尖刺速率
+     * @param before        尖刺前的时长
+     * @param spikeDuration 尖刺时长
+     * @param after         尖刺后的时长
+     * @return 曲线
+     */
+    public static LoadProfile spike(double baseRate, double spikeRate, @Nonnull Duration before,
+                                    @Nonnull Duration spikeDuration, @Nonnull Duration after) {
+        return builder()
+                .stage("before spike", before, baseRate, baseRate)
+                .stage("spike @ " + format(spikeRate) + "/s", spikeDuration, spikeRate, spikeRate)
+                .stage("after spike", after, baseRate, baseRate)
+                .build();
+    }
+
+    /**
+     * 正弦波动，每个周期一个阶段
+     *
+     * @param meanRate  平均速率
+     * @param amplitude 振幅，不能超过平均速率
+     * @param period    周期
+     * @param duration  总时长
+     * @return 曲线
+     */
+    public static LoadProfile sine(double meanRate, double amplitude, @Nonnull Duration period,
+                                   @Nonnull Duration duration) {
+        return builder().sine(meanRate, amplitude, period, duration).build();
+    }
+
+    /**
+     * 长时间恒定速率的浸泡测试，用来暴露泄漏与缓慢劣化
+     *
+     * @param rate     速率
+     * @param duration 时长
+     * @return 曲线
+     */
+    public static LoadProfile soak(double rate, @Nonnull Duration duration) {
+        return builder().stage("soak @ " + format(rate) + "/s", duration, rate, rate).build();
+    }
+
+    /**
+     * 构造器
+     *
+     * @return 构造器
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * 总时长
+     *
+     * @return 时长
+     */
+    @Nonnull
+    public Duration duration() {
+        return Duration.ofNanos(this.durationNanos);
+    }
+
+    /**
+     * 全部阶段
+     *
+     * @return 阶段，不可修改
+     */
+    @Nonnull
+    public List<Stage> stages() {
+        return this.stages;
+    }
+
+    /**
+     * 某时刻所在的阶段
+     *
+     * @param elapsedNanos 距开始的时间
+     * @return 阶段下标，超出总时长时为最后一个阶段
+     */
+    public int stageAt(long elapsedNanos) {
+        long offset = elapsedNanos;
+        for (int i = 0; i < this.stages.size(); i++) {
+            long length = this.stages.get(i).duration().toNanos();
+            if (offset < length) {
+                return i;
+            }
+            offset -= length;
+        }
+        return this.stages.size() - 1;
+    }
+
+    /**
+     * 某时刻的目标速率
+     *
+     * @param elapsedNanos 距开始的时间
+     * @return 每秒请求数，超出总时长时为 0
+     */
+    public double rateAt(long elapsedNanos) {
+        long offset = elapsedNanos;
+        for (Stage stage : this.stages) {
+            long length = stage.duration().toNanos();
+            if (offset < length) {
+                return stage.rateAt(offset);
+            }
+            offset -= length;
+        }
+        return 0;
+    }
+
+    /**
+     * 一段时间内应发送的请求数，即速率对时间的积分，逐阶段精确计算
+     *
+     * @param fromNanos 起始时间
+     * @param toNanos   结束时间，超出总时长的部分按 0 计
+     * @return 请求数
+     */
+    public double integral(long fromNanos, long toNanos) {
+        double sum = 0;
+        long stageStart = 0;
+        for (Stage stage : this.stages) {
+            long length = stage.duration().toNanos();
+            long from = Math.max(fromNanos - stageStart, 0);
+            long to = Math.min(toNanos - stageStart, length);
+            if (to > from) {
+                sum += stage.integral(from, to);
+            }
+            stageStart += length;
+            if (stageStart >= toNanos) {
+                break;
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * 速率格式化
+     *
+     * @param rate 速率
+     * @return 文本
+     */
+    private static String format(double rate) {
+        return rate == Math.rint(rate) ? String.valueOf((long) rate) : String.format("%.1f", rate);
+    }
+
+    /**
+     * 一个阶段：速率在起止之间线性变化，或按正弦波动
+     *
+     * @param name      名称
+     * @param duration  时长
+     * @param startRate 起始速率
+     * @param endRate   结束速率
+     * @param amplitude 正弦振幅，0 表示线性
+     * @param period    正弦周期，线性时不使用
+     */
+    public record Stage(
+            @Nonnull String name,
+            @Nonnull Duration duration,
+            double startRate,
+            double endRate,
+            double amplitude,
+            @Nonnull Duration period
+    ) {
+
+        public Stage {
+            Objects.requireNonNull(name, "name cannot be null");
+            Objects.requireNonNull(duration, "duration cannot be null");
+            Objects.requireNonNull(period, "period cannot be null");
+            if (duration.isNegative() || duration.isZero()) {
+                throw new IllegalArgumentException("duration must be positive");
+            }
+            if (startRate < 0 || endRate < 0 || !Double.isFinite(startRate) || !Double.isFinite(endRate)) {
+                throw new IllegalArgumentException("rate cannot be negative");
+            }
+            if (amplitude < 0 || amplitude > Math.min(startRate, endRate)) {
+                throw new IllegalArgumentException("amplitude must between 0 and rate");
+            }
+            if (amplitude > 0 && (period.isNegative() || period.isZero())) {
+                throw new IllegalArgumentException("period must be positive");
+            }
+        }
+
+        /**
+         * 阶段内某时刻的速率
+         *
+         * @param offsetNanos 距阶段开始的时间
+         * @return 每秒请求数
+         */
+        public double rateAt(long offsetNanos) {
+            double progress = (double) offsetNanos / this.duration.toNanos();
+            double rate = this.startRate + (this.endRate - this.startRate) * progress;
+            if (this.amplitude > 0) {
+                rate += this.amplitude * Math.sin(2 * Math.PI * offsetNanos / this.period.toNanos());
+            }
+            return Math.max(0, rate);
+        }
+
+        /**
+         * 阶段内一段时间应发送的请求数，线性部分与正弦部分都按解析式计算
+         *
+         * @param fromNanos 距阶段开始的起始时间
+         * @param toNanos   距阶段开始的结束时间
+         * @return 请求数
+         */
+        public double integral(long fromNanos, long toNanos) {
+            double length = this.duration.toNanos();
+            double from = fromNanos;
+            double to = toNanos;
+            double slope = (this.endRate - this.startRate) / length;
+            double sum = this.startRate * (to - from) + slope * (to * to - from * from) / 2;
+            if (this.amplitude > 0) {
+                double omega = 2 * Math.PI / this.period.toNanos();
+                sum += this.amplitude / omega * (Math.cos(omega * from) - Math.cos(omega * to));
+            }
+            return Math.max(0, sum / TimeUnit.SECONDS.toNanos(1));
+        }
+    }
+
+    /**
+     * 负载曲线构造器，阶段按添加顺序首尾相接
+     */
+    public static final class Builder {
+
+        /** 已添加的阶段 */
+        private final List<Stage> stages = new ArrayList<>();
+
+        /**
+         * 只由 {@link LoadProfile#builder()} 创建
+         */
+        private Builder() {
+        }
+
+        /**
+         * 添加线性阶段
+         *
+         * @param name      名称
+         * @param duration  时长
+         * @param startRate 起始速率
+         * @param endRate   结束速率
+         * @return this
+         */
+        public Builder stage(@Nonnull String name, @Nonnull Duration duration, double startRate, double endRate) {
+            this.stages.add(new Stage(name, duration, startRate, endRate, 0, Duration.ZERO));
+            return this;
+        }
+
+        /**
+         * 添加恒定速率阶段
+         *
+         * @param rate     速率
+         * @param duration 时长
+         * @return this
+         */
+        public Builder constant(double rate, @Nonnull Duration duration) {
+            return this.stage("constant @ " + format(rate) + "/s", duration, rate, rate);
+        }
+
+        /**
+         * 添加爬坡阶段
+         *
+         * @param fromRate 起始速率
+         * @param toRate   结束速率
+         * @param duration 时长
+         * @return this
+         */
+        public Builder ramp(double fromRate, double toRate, @Nonnull Duration duration) {
+            return this.stage("ramp " + format(fromRate) + "->" + format(toRate) + "/s", duration, fromRate, toRate);
+        }
+
+        /**
+         * 添加正弦波动，每个周期一个阶段，最后不足一个周期的部分单独成段
+         *
+         * @param meanRate  平均速率
+         * @param amplitude 振幅
+         * @param period    周期
+         * @param duration  总时长
+         * @return this
+         */
+        public Builder sine(double meanRate, double amplitude, @Nonnull Duration period, @Nonnull Duration duration) {
+            Objects.requireNonNull(period, "period cannot be null");
+            Objects.requireNonNull(duration, "duration cannot be null");
+            if (period.isNegative() || period.isZero()) {
+                throw new IllegalArgumentException("period must be positive");
+            }
+            Duration remaining = duration;
+            for (int cycle = 1; remaining.compareTo(Duration.ZERO) > 0; cycle++) {
+                Duration length = remaining.compareTo(period) < 0 ? remaining : period;
+                this.stages.add(new Stage("sine cycle " + cycle, length, meanRate, meanRate, amplitude, period));
+                remaining = remaining.minus(length);
+            }
+            return this;
+        }
+
+        /**
+         * 构造负载曲线
+         *
+         * @return 负载曲线
+         */
+        public LoadProfile build() {
+            if (this.stages.isEmpty()) {
+                throw new IllegalArgumentException("at least one stage is required");
+            }
+            return new LoadProfile(this.stages);
+        }
+    }
+}
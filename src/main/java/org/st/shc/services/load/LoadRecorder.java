@@ -0,0 +1,73 @@
+package org.st.shc.services.load;
+
+import org.st.shc.framework.metrics.LatencyHistogram;
+
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 压测过程中的计数与延迟记录，可被多个线程同时写入
+ *
+ * @author abomb4 2026-10-17
+ */
+class LoadRecorder {
+
+    /** HTTP 错误的起始状态码 */
+    private static final int HTTP_ERROR_STATUS = 400;
+
+    /** 延迟分布 */
+    private final LatencyHistogram latency = new LatencyHistogram();
+    /** 成功数 */
+    private final LongAdder successes = new LongAdder();
+    /** HTTP 错误数 */
+    private final LongAdder httpErrors = new LongAdder();
+    /** 失败数 */
+    private final LongAdder failures = new LongAdder();
+    /** 收到的字节数 */
+    private final LongAdder bytesReceived = new LongAdder();
+
+    /**
+     * 记录一次请求结果
+     *
+     * @param latencyNanos 延迟
+     * @param response     响应，失败时为空；响应体为 Long 时视为字节数
+     * @param throwable    异常，成功时为空
+     */
+    void record(long latencyNanos, HttpResponse<?> response, Throwable throwable) {
+        this.latency.record(latencyNanos);
+        if (throwable != null || response == null) {
+            this.failures.increment();
+            return;
+        }
+        if (response.statusCode() >= HTTP_ERROR_STATUS) {
+            this.httpErrors.increment();
+        } else {
+            this.successes.increment();
+        }
+        if (response.body() instanceof Long body) {
+            this.bytesReceived.add(body);
+        }
+    }
+
+    /**
+     * 已完成的请求数
+     *
+     * @return 请求数
+     */
+    long completed() {
+        return this.latency.totalCount();
+    }
+
+    /**
+     * 生成结果
+     *
+     * @param elapsedNanos 实际耗时
+     * @return 结果
+     */
+    LoadRunResult toResult(long elapsedNanos) {
+        LatencyHistogram.Snapshot snapshot = this.latency.snapshot();
+        return new LoadRunResult(snapshot.totalCount(), this.successes.sum(), this.httpErrors.sum(),
+                this.failures.sum(), this.bytesReceived.sum(), Duration.ofNanos(elapsedNanos), snapshot);
+    }
+}
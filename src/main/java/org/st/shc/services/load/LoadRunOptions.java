@@ -0,0 +1,57 @@
+package org.st.shc.services.load;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.Duration;
+
+/**
+ * 压测参数，持续时间与请求数至少指定一个，都指定时先到先停
+ *
+ * @param concurrency  并发数，即同时在途的请求数
+ * @param duration     持续时间，可以为空
+ * @param requestCount 请求总数，0 表示不限
+ * @author abomb4 2026-10-17
+ */
+public record LoadRunOptions(
+        int concurrency,
+        @Nullable Duration duration,
+        long requestCount
+) {
+
+    public LoadRunOptions {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("concurrency cannot lesser than 1");
+        }
+        if (requestCount < 0) {
+            throw new IllegalArgumentException("requestCount cannot lesser than 0");
+        }
+        if (duration != null && (duration.isNegative() || duration.isZero())) {
+            throw new IllegalArgumentException("duration must be positive");
+        }
+        if (duration == null && requestCount == 0) {
+            throw new IllegalArgumentException("either duration or requestCount must be specified");
+        }
+    }
+
+    /**
+     * 按持续时间压测
+     *
+     * @param concurrency 并发数
+     * @param duration    持续时间
+     * @return 参数
+     */
+    public static LoadRunOptions forDuration(int concurrency, @Nonnull Duration duration) {
+        return new LoadRunOptions(concurrency, duration, 0);
+    }
+
+    /**
+     * 按请求数压测
+     *
+     * @param concurrency  并发数
+     * @param requestCount 请求总数
+     * @return 参数
+     */
+    public static LoadRunOptions forCount(int concurrency, long requestCount) {
+        return new LoadRunOptions(concurrency, null, requestCount);
+    }
+}
@@ -0,0 +1,70 @@
+package org.st.shc.services.load;
+
+import org.st.shc.framework.metrics.LatencyHistogram;
+
+import javax.annotation.Nonnull;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 压测结果
+ *
+ * @param requests      完成的请求数
+ * @param successes     状态码小于 400 的请求数
+ * @param httpErrors    状态码大于等于 400 的请求数
+ * @param failures      没有拿到响应的请求数，如连接失败、超时
+ * @param bytesReceived 收到的响应体总字节数
+ * @param elapsed       实际耗时
+ * @param latency       延迟分布，单位纳秒
+ * @author abomb4 2026-10-17
+ */
+public record LoadRunResult(
+        long requests,
+        long successes,
+        long httpErrors,
+        long failures,
+        long bytesReceived,
+        @Nonnull Duration elapsed,
+        @Nonnull LatencyHistogram.Snapshot latency
+) {
+
+    /**
+     * 吞吐量
+     *
+     * @return 每秒完成的请求数
+     */
+    public double throughput() {
+        long nanos = this.elapsed.toNanos();
+        return nanos == 0 ? 0 : this.requests * 1e9 / nanos;
+    }
+
+    /**
+     * 错误数，包括 HTTP 错误与没有拿到响应的请求
+     *
+     * @return 错误数
+     */
+    public long errors() {
+        return this.httpErrors + this.failures;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("LoadRunResult{requests=%d, successes=%d, httpErrors=%d, failures=%d, " +
+                        "throughput=%.1f/s, elapsed=%dms, p50=%.2fms, p90=%.2fms, p99=%.2fms, p99.9=%.2fms, " +
+                        "max=%.2fms}",
+                requests, successes, httpErrors, failures, throughput(), elapsed.toMillis(),
+                millis(latency.valueAtPercentile(50)), millis(latency.valueAtPercentile(90)),
+                millis(latency.valueAtPercentile(99)), millis(latency.valueAtPercentile(99.9)),
+                millis(latency.max()));
+    }
+
+    /**
+     * 纳秒转毫秒
+     *
+     * @param nanos 纳秒
+     * @return 毫秒
+     */
+    private static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,163 @@
+package org.st.shc.services.load;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.st.shc.services.HttpClientRequest;
+import org.st.shc.services.HttpClientService;
+import org.st.shc.services.PreparedHttpRequest;
+import org.st.shc.services.ResponseBodySinks;
+
+import javax.annotation.Nonnull;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 闭环压测：固定数量的并发槽位，每个槽位收到响应后立刻发下一个请求。
+ * <p>
+ * 请求通过 {@link HttpClientService} 的共享线程池驱动，不额外占用阻塞线程；响应体只计数不保留。
+ * 取消返回的 Future 即可提前结束压测。
+ *
+ * @author abomb4 2026-10-17
+ */
+public class LoadRunner {
+
+    /** Slf4J */
+    private static final Logger log = LoggerFactory.getLogger(LoadRunner.class);
+
+    /** HTTP 客户端服务 */
+    private final HttpClientService httpClientService;
+
+    /**
+     * 完整构造
+     *
+     * @param httpClientService HTTP 客户端服务
+     */
+    public LoadRunner(@Nonnull HttpClientService httpClientService) {
+        this.httpClientService = Objects.requireNonNull(httpClientService, "httpClientService cannot be null");
+    }
+
+    /**
+     * 开始压测
+     *
+     * @param request 请求
+     * @param options 压测参数
+     * @return 压测结果，取消即停止压测
+     */
+    @Nonnull
+    public CompletableFuture<LoadRunResult> run(@Nonnull HttpClientRequest request, @Nonnull LoadRunOptions options) {
+        Objects.requireNonNull(request, "request cannot be null");
+        Objects.requireNonNull(options, "options cannot be null");
+        final PreparedHttpRequest prepared;
+        try {
+            prepared = httpClientService.prepareForLoad(request);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        Run run = new Run(prepared, options);
+        run.start();
+        return run.result;
+    }
+
+    /** 一次压测 */
+    private final class Run {
+
+        /** 预处理好的请求 */
+        private final PreparedHttpRequest request;
+        /** 请求总数，0 表示不限 */
+        private final long requestCount;
+        /** 记录 */
+        private final LoadRecorder recorder = new LoadRecorder();
+        /** 已发出的请求数 */
+        private final AtomicLong issued = new AtomicLong();
+        /** 仍在运行的槽位数 */
+        private final AtomicInteger activeSlots;
+        /** 结果 */
+        private final CompletableFuture<LoadRunResult> result = new CompletableFuture<>();
+        /** 开始时间 */
+        private final long startNanos;
+        /** 截止时间，没有持续时间限制时为 {@link Long#MAX_VALUE} */
+        private final long deadlineNanos;
+
+        /**
+         * 完整构造
+         *
+         * @param request 请求
+         * @param options 压测参数
+         */
+        private Run(PreparedHttpRequest request, LoadRunOptions options) {
+            this.request = request;
+            this.requestCount = options.requestCount();
+            this.activeSlots = new AtomicInteger(options.concurrency());
+            this.startNanos = System.nanoTime();
+            this.deadlineNanos = options.duration() == null
+                    ? Long.MAX_VALUE
+                    : this.startNanos + options.duration().toNanos();
+        }
+
+        /**
+         * 启动全部槽位
+         */
+        private void start() {
+            for (int i = 0, n = this.activeSlots.get(); i < n; i++) {
+                this.dispatch();
+            }
+        }
+
+        /**
+         * 把下一次发送交给共享线程池，避免同步完成时递归过深
+         */
+        private void dispatch() {
+            try {
+                httpClientService.getExecutor().execute(this::sendNext);
+            } catch (RejectedExecutionException e) {
+                log.warn("Load run slot stopped because executor rejected: {}", e.toString());
+                this.slotDone();
+            }
+        }
+
+        /**
+         * 发送下一个请求，无法继续时结束本槽位
+         */
+        private void sendNext() {
+            if (!this.claim()) {
+                this.slotDone();
+                return;
+            }
+            long begin = System.nanoTime();
+            try {
+                httpClientService.send(this.request, ResponseBodySinks.counting())
+                        .whenComplete((response, throwable) -> {
+                            this.recorder.record(System.nanoTime() - begin, response, throwable);
+                            this.dispatch();
+                        });
+            } catch (RuntimeException e) {
+                this.recorder.record(System.nanoTime() - begin, null, e);
+                this.dispatch();
+            }
+        }
+
+        /**
+         * 申请发送一个请求
+         *
+         * @return 是否可以继续发送
+         */
+        private boolean claim() {
+            if (this.result.isDone() || System.nanoTime() >= this.deadlineNanos) {
+                return false;
+            }
+            return this.requestCount == 0 || this.issued.incrementAndGet() <= this.requestCount;
+        }
+
+        /**
+         * 一个槽位结束，全部结束时生成结果
+         */
+        private void slotDone() {
+            if (this.activeSlots.decrementAndGet() == 0) {
+                this.result.complete(this.recorder.toResult(System.nanoTime() - this.startNanos));
+            }
+        }
+    }
+}
@@ -0,0 +1,415 @@
+package org.st.shc.services.load;
+
+import org.st.shc.framework.concurrent.ExecutorsBuilder;
+import org.st.shc.framework.concurrent.ThreadFactoryWithThreadId;
+import org.st.shc.services.HttpClientRequest;
+import org.st.shc.services.HttpClientService;
+import org.st.shc.services.PreparedHttpRequest;
+import org.st.shc.services.ResponseBodySinks;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 开放模型压测：按 {@link LoadProfile} 给出的随时间变化的到达率发送请求，不等待前一个响应。
+ * <p>
+ * 节拍线程每毫秒对速率曲线积分，积分每越过一个整数就发出一个请求，计划发送时间在节拍内按线性插值还原，
+ * 每个请求的延迟都从计划发送时间算起，避免 coordinated omission 。请求按计划发送时间归入所在阶段，
+ * 各阶段分别统计。运行中可以通过 {@link ProfileRunControl} 覆盖速率、调整在途上限、暂停与恢复。
+ * <p>
+ * 发送 {@link TrafficMix} 时每个请求按权重抽取接口，延迟与错误按接口分别统计，可以看出各接口在压力下如何互相影响。
+ *
+ * @author abomb4 2026-10-17
+ */
+public class ProfileLoadRunner implements AutoCloseable {
+
+    /** 节拍间隔 */
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /** HTTP 客户端服务 */
+    private final HttpClientService httpClientService;
+    /** 节拍线程池 */
+    private final ScheduledExecutorService pacer;
+    /** 节拍线程池是不是自己造的，自己造的要自己 close */
+    private final boolean selfCreatedPacer;
+
+    /**
+     * 使用自建的单线程节拍线程池，会跟随本对象销毁
+     *
+     * @param httpClientService HTTP 客户端服务
+     */
+    public ProfileLoadRunner(@Nonnull HttpClientService httpClientService) {
+        this.httpClientService = Objects.requireNonNull(httpClientService, "httpClientService cannot be null");
+        this.pacer = ExecutorsBuilder.newScheduledBuilder()
+                .setCorePoolSize(1)
+                .setThreadFactory(new ThreadFactoryWithThreadId(tid -> "load-pacer-" + tid) {
+                })
+                .build();
+        this.selfCreatedPacer = true;
+    }
+
+    /**
+     * 使用外部节拍线程池，不负责其销毁
+     *
+     * @param httpClientService HTTP 客户端服务
+     * @param pacer             节拍线程池
+     */
+    public ProfileLoadRunner(@Nonnull HttpClientService httpClientService, @Nonnull ScheduledExecutorService pacer) {
+        this.httpClientService = Objects.requireNonNull(httpClientService, "httpClientService cannot be null");
+        this.pacer = Objects.requireNonNull(pacer, "pacer cannot be null");
+        this.selfCreatedPacer = false;
+    }
+
+    /**
+     * 开始压测
+     *
+     * @param request 请求
+     * @param options 压测参数
+     * @return 运行中的压测
+     * @throws IllegalArgumentException 请求不合法
+     */
+    @Nonnull
+    public ProfileRunControl run(@Nonnull HttpClientRequest request, @Nonnull ProfileRunOptions options) {
+        return this.run(TrafficMix.single(request), options);
+    }
+
+    /**
+     * 按权重混合多个接口开始压测
+     *
+     * @param mix     流量
+     * @param options 压测参数
+     * @return 运行中的压测
+     * @throws IllegalArgumentException 有请求不合法
+     */
+    @Nonnull
+    public ProfileRunControl run(@Nonnull TrafficMix mix, @Nonnull ProfileRunOptions options) {
+        Objects.requireNonNull(mix, "mix cannot be null");
+        Objects.requireNonNull(options, "options cannot be null");
+        List<TrafficMix.Endpoint> endpoints = mix.endpoints();
+        PreparedHttpRequest[] prepared = new PreparedHttpRequest[endpoints.size()];
+        for (int i = 0; i < prepared.length; i++) {
+            prepared[i] = httpClientService.prepareForLoad(endpoints.get(i).request());
+        }
+        Run run = new Run(mix, prepared, options);
+        run.start();
+        return run;
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (this.selfCreatedPacer && !this.pacer.isShutdown()) {
+            this.pacer.shutdownNow();
+        }
+    }
+
+    /** 一次压测 */
+    private final class Run implements Runnable, ProfileRunControl {
+
+        /** 流量 */
+        private final TrafficMix mix;
+        /** 预处理好的请求，下标与接口对应 */
+        private final PreparedHttpRequest[] requests;
+        /** 负载曲线 */
+        private final LoadProfile profile;
+        /** 曲线总时长 */
+        private final long durationNanos;
+        /** 滞后容忍度 */
+        private final long lateToleranceNanos;
+        /** 按曲线计划发送的请求数，取整曲线积分 */
+        private final long plannedCount;
+        /** 全部请求的记录 */
+        private final LoadRecorder recorder = new LoadRecorder();
+        /** 各阶段的记录 */
+        private final List<LoadRecorder> stageRecorders = new ArrayList<>();
+        /** 各接口的记录，下标与接口对应 */
+        private final LoadRecorder[] endpointRecorders;
+        /** 在途请求数 */
+        private final AtomicLong inFlight = new AtomicLong();
+        /** 结果 */
+        private final CompletableFuture<ProfileRunResult> result = new CompletableFuture<>();
+        /** 覆盖的速率，为空时按曲线 */
+        private volatile Double rateOverride;
+        /** 是否覆盖过速率，覆盖后计划数不再按曲线封顶 */
+        private volatile boolean overridden;
+        /** 在途上限 */
+        private volatile int maxInFlight;
+        /** 是否要求暂停 */
+        private volatile boolean pauseRequested;
+        /** 是否要求结束 */
+        private volatile boolean stopRequested;
+        /** 是否已排完全部计划 */
+        private volatile boolean pacingDone;
+        /** 节拍任务 */
+        private volatile ScheduledFuture<?> tick;
+        /** 开始时间 */
+        private long startNanos;
+        /** 以下字段只在节拍线程中读写；曲线时间，不含暂停 */
+        private long profileNanos;
+        /** 速率积分，即到目前为止应发送的请求数 */
+        private double integral;
+        /** 下一个要发送的序号 */
+        private long next;
+        /** 累计暂停时间 */
+        private long pausedNanos;
+        /** 本次暂停开始时间，没有暂停时为 -1 */
+        private long pauseStartNanos = -1;
+        /** 滞后次数 */
+        private long lateSends;
+        /** 漏发次数 */
+        private long missed;
+
+        /**
+         * 完整构造
+         *
+         * @param mix      流量
+         * @param requests 预处理好的请求
+         * @param options  参数
+         */
+        private Run(TrafficMix mix, PreparedHttpRequest[] requests, ProfileRunOptions options) {
+            this.mix = mix;
+            this.requests = requests;
+            this.endpointRecorders = new LoadRecorder[requests.length];
+            for (int i = 0; i < requests.length; i++) {
+                this.endpointRecorders[i] = new LoadRecorder();
+            }
+            this.profile = options.profile();
+            this.durationNanos = this.profile.duration().toNanos();
+            // 容忍浮点误差，整数个请求的积分不会因为 299.9999 少发一个
+            this.plannedCount = (long) Math.floor(this.profile.integral(0, this.durationNanos) + 1e-6);
+            this.lateToleranceNanos = options.lateTolerance().toNanos();
+            this.maxInFlight = options.maxInFlight();
+            for (int i = 0; i < this.profile.stages().size(); i++) {
+                this.stageRecorders.add(new LoadRecorder());
+            }
+        }
+
+        /**
+         * 启动节拍
+         */
+        private void start() {
+            this.startNanos = System.nanoTime();
+            this.tick = pacer.scheduleAtFixedRate(this, 0, TICK_NANOS, TimeUnit.NANOSECONDS);
+            // 首个节拍可能在赋值前就已排完计划，此时由这里取消
+            if (this.pacingDone) {
+                this.tick.cancel(false);
+            }
+        }
+
+        /**
+         * 节拍：推进曲线时间，发出积分越过的全部请求
+         */
+        @Override
+        public void run() {
+            if (this.pacingDone) {
+                return;
+            }
+            long now = System.nanoTime();
+            if (this.result.isDone() || this.stopRequested) {
+                // 与原恒定速率压测一致，提前结束时计划中剩下的请求记为漏发
+                long planned = this.plannedUntilEnd();
+                if (planned > this.next) {
+                    this.missed += planned - this.next;
+                    this.next = planned;
+                }
+                this.finishPacing();
+                return;
+            }
+            if (this.pauseRequested) {
+                if (this.pauseStartNanos < 0) {
+                    this.pauseStartNanos = now;
+                }
+                return;
+            }
+            if (this.pauseStartNanos >= 0) {
+                this.pausedNanos += now - this.pauseStartNanos;
+                this.pauseStartNanos = -1;
+            }
+            long from = this.profileNanos;
+            long to = Math.min(this.durationNanos, now - this.startNanos - this.pausedNanos);
+            if (to > from) {
+                double added = this.expectedRequests(from, to);
+                double target = this.integral + added;
+                while (this.next < target && (this.overridden || this.next < this.plannedCount)) {
+                    // 在节拍内按积分线性插值还原计划时间
+                    long intendedProfile = from + (long) ((this.next - this.integral) / added * (to - from));
+                    long intended = this.startNanos + this.pausedNanos + intendedProfile;
+                    this.next++;
+                    if (now - intended > this.lateToleranceNanos) {
+                        this.lateSends++;
+                    }
+                    int limit = this.maxInFlight;
+                    if (limit > 0 && this.inFlight.get() >= limit) {
+                        this.missed++;
+                        continue;
+                    }
+                    this.send(intended, this.profile.stageAt(intendedProfile));
+                }
+                this.integral = target;
+                this.profileNanos = to;
+            }
+            if (this.profileNanos >= this.durationNanos) {
+                this.finishPacing();
+            }
+        }
+
+        /**
+         * 一段曲线时间内应发送的请求数，覆盖速率时按覆盖值
+         *
+         * @param fromNanos 起始曲线时间
+         * @param toNanos   结束曲线时间
+         * @return 请求数
+         */
+        private double expectedRequests(long fromNanos, long toNanos) {
+            Double override = this.rateOverride;
+            return override != null
+                    ? override * (toNanos - fromNanos) / TimeUnit.SECONDS.toNanos(1)
+                    : this.profile.integral(fromNanos, toNanos);
+        }
+
+        /**
+         * 按当前速率排到曲线结束时总共应发送的请求数
+         *
+         * @return 请求数
+         */
+        private long plannedUntilEnd() {
+            double total = this.integral + this.expectedRequests(this.profileNanos, this.durationNanos);
+            long planned = (long) Math.floor(total + 1e-6);
+            return this.overridden ? planned : Math.min(planned, this.plannedCount);
+        }
+
+        /**
+         * 按权重抽取接口发送一个请求，延迟从计划时间算起
+         *
+         * @param intendedNanos 计划发送时间
+         * @param stage         所在阶段
+         */
+        private void send(long intendedNanos, int stage) {
+            int endpoint = this.mix.sample();
+            LoadRecorder stageRecorder = this.stageRecorders.get(stage);
+            LoadRecorder endpointRecorder = this.endpointRecorders[endpoint];
+            this.inFlight.incrementAndGet();
+            try {
+                httpClientService.send(this.requests[endpoint], ResponseBodySinks.counting())
+                        .whenComplete((response, throwable) -> {
+                            long latency = System.nanoTime() - intendedNanos;
+                            this.recorder.record(latency, response, throwable);
+                            stageRecorder.record(latency, response, throwable);
+                            endpointRecorder.record(latency, response, throwable);
+                            this.inFlight.decrementAndGet();
+                            this.completeIfFinished();
+                        });
+            } catch (RuntimeException e) {
+                long latency = System.nanoTime() - intendedNanos;
+                this.recorder.record(latency, null, e);
+                stageRecorder.record(latency, null, e);
+                endpointRecorder.record(latency, null, e);
+                this.inFlight.decrementAndGet();
+            }
+        }
+
+        /**
+         * 停止节拍
+         */
+        private void finishPacing() {
+            if (this.pauseStartNanos >= 0) {
+                this.pausedNanos += System.nanoTime() - this.pauseStartNanos;
+                this.pauseStartNanos = -1;
+            }
+            this.pacingDone = true;
+            ScheduledFuture<?> tick = this.tick;
+            if (tick != null) {
+                tick.cancel(false);
+            }
+            this.completeIfFinished();
+        }
+
+        /**
+         * 排完计划且全部请求返回后生成结果
+         */
+        private void completeIfFinished() {
+            if (!this.pacingDone || this.inFlight.get() != 0 || this.result.isDone()) {
+                return;
+            }
+            // 节拍已停止，节拍线程上的字段不再变化
+            synchronized (this) {
+                if (this.result.isDone()) {
+                    return;
+                }
+                long paused = this.pausedNanos;
+                long elapsed = System.nanoTime() - this.startNanos - paused;
+                LoadRunResult load = this.recorder.toResult(elapsed);
+                List<ProfileRunResult.StageResult> stages = new ArrayList<>();
+                long stageStart = 0;
+                for (int i = 0; i < this.stageRecorders.size(); i++) {
+                    LoadProfile.Stage stage = this.profile.stages().get(i);
+                    long length = stage.duration().toNanos();
+                    long ran = Math.max(0, Math.min(length, this.profileNanos - stageStart));
+                    stages.add(new ProfileRunResult.StageResult(stage.name(),
+                            this.stageRecorders.get(i).toResult(ran)));
+                    stageStart += length;
+                }
+                List<ProfileRunResult.EndpointResult> endpoints = new ArrayList<>();
+                for (int i = 0; i < this.endpointRecorders.length; i++) {
+                    endpoints.add(new ProfileRunResult.EndpointResult(this.mix.endpoints().get(i).name(),
+                            this.endpointRecorders[i].toResult(elapsed)));
+                }
+                this.result.complete(new ProfileRunResult(load, List.copyOf(stages), List.copyOf(endpoints),
+                        this.next, this.lateSends, this.missed, Duration.ofNanos(paused)));
+            }
+        }
+
+        @Nonnull
+        @Override
+        public CompletableFuture<ProfileRunResult> result() {
+            return this.result;
+        }
+
+        @Override
+        public void overrideRate(@Nullable Double ratePerSecond) {
+            if (ratePerSecond != null && (!(ratePerSecond >= 0) || Double.isInfinite(ratePerSecond))) {
+                throw new IllegalArgumentException("ratePerSecond cannot be negative");
+            }
+            this.rateOverride = ratePerSecond;
+            if (ratePerSecond != null) {
+                this.overridden = true;
+            }
+        }
+
+        @Override
+        public void setMaxInFlight(int maxInFlight) {
+            if (maxInFlight < 0) {
+                throw new IllegalArgumentException("maxInFlight cannot lesser than 0");
+            }
+            this.maxInFlight = maxInFlight;
+        }
+
+        @Override
+        public void pause() {
+            this.pauseRequested = true;
+        }
+
+        @Override
+        public void resume() {
+            this.pauseRequested = false;
+        }
+
+        @Override
+        public boolean isPaused() {
+            return this.pauseRequested;
+        }
+
+        @Override
+        public void stop() {
+            this.stopRequested = true;
+        }
+    }
+}
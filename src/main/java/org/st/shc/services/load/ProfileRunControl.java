@@ -0,0 +1,59 @@
+package org.st.shc.services.load;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 运行中的负载曲线压测，可以随时调整速率与在途上限、暂停与恢复。
+ * <p>
+ * 暂停期间不再发出新请求，曲线的时间也停止推进，已记录的延迟分布保留；恢复后从暂停处继续。
+ *
+ * @author abomb4 2026-10-17
+ */
+public interface ProfileRunControl {
+
+    /**
+     * 压测结果，取消即停止压测且不再生成结果
+     *
+     * @return 结果
+     */
+    @Nonnull
+    CompletableFuture<ProfileRunResult> result();
+
+    /**
+     * 覆盖曲线给出的速率
+     *
+     * @param ratePerSecond 每秒请求数，为空时恢复按曲线发送
+     */
+    void overrideRate(@Nullable Double ratePerSecond);
+
+    /**
+     * 修改在途上限
+     *
+     * @param maxInFlight 最多同时在途的请求数，0 表示不限
+     */
+    void setMaxInFlight(int maxInFlight);
+
+    /**
+     * 暂停发送
+     */
+    void pause();
+
+    /**
+     * 恢复发送
+     */
+    void resume();
+
+    /**
+     * 是否暂停中
+     *
+     * @return 是否暂停
+     */
+    boolean isPaused();
+
+    /**
+     * 提前结束，等在途请求返回后以已记录的数据生成结果
+     */
+    void stop();
+}
@@ -0,0 +1,37 @@
+package org.st.shc.services.load;
+
+import javax.annotation.Nonnull;
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * 按负载曲线压测的参数
+ *
+ * @param profile       负载曲线
+ * @param maxInFlight   最多同时在途的请求数，超出时放弃该次发送并计为漏发，0 表示不限；运行中可以修改
+ * @param lateTolerance 实际发送时间晚于计划时间超过此值即计为滞后
+ * @author abomb4 2026-10-17
+ */
+public record ProfileRunOptions(
+        @Nonnull LoadProfile profile,
+        int maxInFlight,
+        @Nonnull Duration lateTolerance
+) {
+
+    public ProfileRunOptions {
+        Objects.requireNonNull(profile, "profile cannot be null");
+        if (maxInFlight < 0) {
+            throw new IllegalArgumentException("maxInFlight cannot lesser than 0");
+        }
+        Objects.requireNonNull(lateTolerance, "lateTolerance cannot be null");
+    }
+
+    /**
+     * 不限在途数，使用默认滞后容忍度
+     *
+     * @param profile 负载曲线
+     */
+    public ProfileRunOptions(@Nonnull LoadProfile profile) {
+        this(profile, 0, RateRunOptions.DEFAULT_LATE_TOLERANCE);
+    }
+}
@@ -0,0 +1,64 @@
+package org.st.shc.services.load;
+
+import javax.annotation.Nonnull;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 按负载曲线压测的结果。延迟从计划发送时间算起，请求按计划发送时间归入阶段。
+ *
+ * @param load      全部请求的结果，耗时不含暂停时间
+ * @param stages    各阶段的结果，与负载曲线的阶段一一对应
+ * @param endpoints 各接口的结果，与流量的接口一一对应
+ * @param scheduled 计划发送数，提前结束时仍为排到曲线结束的总数
+ * @param lateSends 晚于计划时间超过容忍度才发出的请求数
+ * @param missed    因在途数达到上限或提前结束而没有发出的请求数
+ * @param paused    累计暂停时间
+ * @author abomb4 2026-10-17
+ */
+public record ProfileRunResult(
+        @Nonnull LoadRunResult load,
+        @Nonnull List<StageResult> stages,
+        @Nonnull List<EndpointResult> endpoints,
+        long scheduled,
+        long lateSends,
+        long missed,
+        @Nonnull Duration paused
+) {
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("ProfileRunResult{scheduled=").append(scheduled)
+                .append(", lateSends=").append(lateSends)
+                .append(", missed=").append(missed)
+                .append(", paused=").append(paused.toMillis()).append("ms")
+                .append(", load=").append(load);
+        for (StageResult stage : stages) {
+            builder.append("\n  ").append(stage.name()).append(": ").append(stage.load());
+        }
+        if (endpoints.size() > 1) {
+            for (EndpointResult endpoint : endpoints) {
+                builder.append("\n  [").append(endpoint.name()).append("]: ").append(endpoint.load());
+            }
+        }
+        return builder.append('}').toString();
+    }
+
+    /**
+     * 一个阶段的结果
+     *
+     * @param name 阶段名称
+     * @param load 该阶段的请求结果，耗时为实际运行到的阶段时长
+     */
+    public record StageResult(@Nonnull String name, @Nonnull LoadRunResult load) {
+    }
+
+    /**
+     * 一个接口的结果
+     *
+     * @param name 接口名称
+     * @param load 该接口的请求结果，耗时为整个压测的耗时
+     */
+    public record EndpointResult(@Nonnull String name, @Nonnull LoadRunResult load) {
+    }
+}
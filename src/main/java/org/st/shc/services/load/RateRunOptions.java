@@ -0,0 +1,49 @@
+package org.st.shc.services.load;
+
+import javax.annotation.Nonnull;
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * 恒定到达率压测参数
+ *
+ * @param ratePerSecond  目标速率，每秒发送的请求数
+ * @param duration       持续时间
+ * @param maxInFlight    最多同时在途的请求数，超出时放弃该次发送并计为漏发，0 表示不限
+ * @param lateTolerance  实际发送时间晚于计划时间超过此值即计为滞后
+ * @author abomb4 2026-10-17
+ */
+public record RateRunOptions(
+        double ratePerSecond,
+        @Nonnull Duration duration,
+        int maxInFlight,
+        @Nonnull Duration lateTolerance
+) {
+
+    /** 默认滞后容忍度 */
+    public static final Duration DEFAULT_LATE_TOLERANCE = Duration.ofMillis(10);
+
+    public RateRunOptions {
+        if (!(ratePerSecond > 0) || Double.isInfinite(ratePerSecond)) {
+            throw new IllegalArgumentException("ratePerSecond must be positive");
+        }
+        Objects.requireNonNull(duration, "duration cannot be null");
+        if (duration.isNegative() || duration.isZero()) {
+            throw new IllegalArgumentException("duration must be positive");
+        }
+        if (maxInFlight < 0) {
+            throw new IllegalArgumentException("maxInFlight cannot lesser than 0");
+        }
+        Objects.requireNonNull(lateTolerance, "lateTolerance cannot be null");
+    }
+
+    /**
+     * 不限在途数，使用默认滞后容忍度
+     *
+     * @param ratePerSecond 目标速率
+     * @param duration      持续时间
+     */
+    public RateRunOptions(double ratePerSecond, @Nonnull Duration duration) {
+        this(ratePerSecond, duration, 0, DEFAULT_LATE_TOLERANCE);
+    }
+}
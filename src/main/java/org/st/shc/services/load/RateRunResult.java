@@ -0,0 +1,33 @@
+package org.st.shc.services.load;
+
+import javax.annotation.Nonnull;
+
+/**
+ * 恒定到达率压测结果。延迟从计划发送时间算起，因此发压端自身的滞后也会体现在延迟中，不会被隐藏。
+ *
+ * @param load       请求结果，延迟从计划发送时间算起
+ * @param targetRate 目标速率
+ * @param scheduled  计划发送数
+ * @param lateSends  晚于计划时间超过容忍度才发出的请求数，即发压端跟不上计划的次数
+ * @param missed     因在途数达到上限或压测被停止而没有发出的请求数
+ * @author abomb4 2026-10-17
+ */
+public record RateRunResult(
+        @Nonnull LoadRunResult load,
+        double targetRate,
+        long scheduled,
+        long lateSends,
+        long missed
+) {
+
+    @Override
+    public String toString() {
+        return "RateRunResult{" +
+                "targetRate=" + targetRate +
+                ", scheduled=" + scheduled +
+                ", lateSends=" + lateSends +
+                ", missed=" + missed +
+                ", load=" + load +
+                '}';
+    }
+}
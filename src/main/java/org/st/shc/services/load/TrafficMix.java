@@ -0,0 +1,186 @@
+package org.st.shc.services.load;
+
+import org.st.shc.services.HttpClientRequest;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 按权重混合的多接口流量，例如 70% 查询、 20% 下单、 10% 删除。
+ * <p>
+ * 抽样使用 Walker 别名法：构造时预先算好概率表与别名表，每次抽样只需一个随机数和一次比较，
+ * 时间复杂度 O(1) 且不分配对象，可以放在发压的热路径上。
+ *
+ * @author abomb4 2026-10-17
+ */
+public final class TrafficMix {
+
+    /** 全部接口 */
+    private final List<Endpoint> endpoints;
+    /** 别名法的概率表，落在第 i 格时以此概率选中 i ，否则选中其别名 */
+    private final double[] probabilities;
+    /** 别名法的别名表 */
+    private final int[] aliases;
+
+    /**
+     * 由构造器创建
+     *
+     * @param endpoints 全部接口
+     */
+    private TrafficMix(List<Endpoint> endpoints) {
+        this.endpoints = List.copyOf(endpoints);
+        int n = this.endpoints.size();
+        this.probabilities = new double[n];
+        this.aliases = new int[n];
+
+        double total = 0;
+        for (Endpoint endpoint : this.endpoints) {
+            total += endpoint.weight();
+        }
+        // 每格按均值缩放，小于 1 的格子用大于 1 的格子补满
+        double[] scaled = new double[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int smallSize = 0;
+        int largeSize = 0;
+        for (int i = 0; i < n; i++) {
+            scaled[i] = this.endpoints.get(i).weight() * n / total;
+            if (scaled[i] < 1) {
+                small[smallSize++] = i;
+            } else {
+                large[largeSize++] = i;
+            }
+        }
+        while (smallSize > 0 && largeSize > 0) {
+            int less = small[--smallSize];
+            int more = large[--largeSize];
+            this.probabilities[less] = scaled[less];
+            this.aliases[less] = more;
+            scaled[more] = scaled[more] + scaled[less] - 1;
+            if (scaled[more] < 1) {
+                small[smallSize++] = more;
+            } else {
+                large[largeSize++] = more;
+            }
+        }
+        // 剩下的格子只差浮点误差，视为满格
+        while (largeSize > 0) {
+            int i = large[--largeSize];
+            this.probabilities[i] = 1;
+            this.aliases[i] = i;
+        }
+        while (smallSize > 0) {
+            int i = small[--smallSize];
+            this.probabilities[i] = 1;
+            this.aliases[i] = i;
+        }
+    }
+
+    /**
+     * 只有一个接口的流量
+     *
+     * @param request 请求
+     * @return 流量
+     */
+    public static TrafficMix single(@Nonnull HttpClientRequest request) {
+        Objects.requireNonNull(request, "request cannot be null");
+        return builder().add(request.method() + " " + request.url(), request, 1).build();
+    }
+
+    /**
+     * 构造器
+     *
+     * @return 构造器
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * 全部接口
+     *
+     * @return 接口，不可修改，下标与 {@link #sample()} 的返回值对应
+     */
+    @Nonnull
+    public List<Endpoint> endpoints() {
+        return this.endpoints;
+    }
+
+    /**
+     * 按权重抽取一个接口
+     *
+     * @return 接口下标
+     */
+    public int sample() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int i = random.nextInt(this.probabilities.length);
+        return random.nextDouble() < this.probabilities[i] ? i : this.aliases[i];
+    }
+
+    /**
+     * 流量中的一个接口
+     *
+     * @param name    名称，用于区分各接口的统计
+     * @param request 请求
+     * @param weight  权重，只看相对大小
+     */
+    public record Endpoint(@Nonnull String name, @Nonnull HttpClientRequest request, double weight) {
+
+        public Endpoint {
+            Objects.requireNonNull(name, "name cannot be null");
+            Objects.requireNonNull(request, "request cannot be null");
+            if (!(weight > 0) || Double.isInfinite(weight)) {
+                throw new IllegalArgumentException("weight must be positive");
+            }
+        }
+    }
+
+    /**
+     * 流量构造器
+     */
+    public static final class Builder {
+
+        /** 已添加的接口 */
+        private final List<Endpoint> endpoints = new ArrayList<>();
+
+        /**
+         * 只由 {@link TrafficMix#builder()} 创建
+         */
+        private Builder() {
+        }
+
+        /**
+         * 添加一个接口
+         *
+         * @param name    名称，不能重复
+         * @param request 请求
+         * @param weight  权重
+         * @return this
+         */
+        public Builder add(@Nonnull String name, @Nonnull HttpClientRequest request, double weight) {
+            Endpoint endpoint = new Endpoint(name, request, weight);
+            for (Endpoint existing : this.endpoints) {
+                if (existing.name().equals(name)) {
+                    throw new IllegalArgumentException("duplicate endpoint name: " + name);
+                }
+            }
+            this.endpoints.add(endpoint);
+            return this;
+        }
+
+        /**
+         * 构造流量
+         *
+         * @return 流量
+         */
+        public TrafficMix build() {
+            if (this.endpoints.isEmpty()) {
+                throw new IllegalArgumentException("at least one endpoint is required");
+            }
+            return new TrafficMix(this.endpoints);
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package org.st.shc.services.load;
+
+import org.st.shc.services.HttpClientRequest;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * 虚拟用户的脚本：先执行一次开始步骤（如登录），再反复执行循环步骤，步骤之间可以有思考时间。
+ * <p>
+ * 每一步由用户的当前状态生成请求，响应可以交给提取器写回用户状态，如保存令牌或下单得到的编号；
+ * Cookie 由用户自己的 Cookie 罐自动收发。
+ *
+ * @author abomb4 2026-10-17
+ */
+public final class UserScenario {
+
+    /** 开始步骤 */
+    private final List<Step> startSteps;
+    /** 循环步骤 */
+    private final List<Step> loopSteps;
+
+    /**
+     * 由构造器创建
+     *
+     * @param startSteps 开始步骤
+     * @param loopSteps  循环步骤
+     */
+    private UserScenario(List<Step> startSteps, List<Step> loopSteps) {
+        this.startSteps = List.copyOf(startSteps);
+        this.loopSteps = List.copyOf(loopSteps);
+    }
+
+    /**
+     * 构造器
+     *
+     * @return 构造器
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * 开始步骤，每个用户只执行一次
+     *
+     * @return 步骤，不可修改
+     */
+    @Nonnull
+    public List<Step> startSteps() {
+        return this.startSteps;
+    }
+
+    /**
+     * 循环步骤
+     *
+     * @return 步骤，不可修改
+     */
+    @Nonnull
+    public List<Step> loopSteps() {
+        return this.loopSteps;
+    }
+
+    /**
+     * 一个步骤
+     *
+     * @param name      名称，用于区分各步骤的统计
+     * @param request   由用户状态生成请求
+     * @param extractor 从响应中提取状态，为空时响应体只计数不保留
+     * @param minThink  执行后的最短思考时间
+     * @param maxThink  执行后的最长思考时间，在最短与最长之间均匀随机
+     */
+    public record Step(
+            @Nonnull String name,
+            @Nonnull Function<VirtualUser, HttpClientRequest> request,
+            @Nullable BiConsumer<VirtualUser, HttpResponse<String>> extractor,
+            @Nonnull Duration minThink,
+            @Nonnull Duration maxThink
+    ) {
+
+        public Step {
+            Objects.requireNonNull(name, "name cannot be null");
+            Objects.requireNonNull(request, "request cannot be null");
+            Objects.requireNonNull(minThink, "minThink cannot be null");
+            Objects.requireNonNull(maxThink, "maxThink cannot be null");
+            if (minThink.isNegative()) {
+                throw new IllegalArgumentException("minThink cannot be negative");
+            }
+            if (maxThink.compareTo(minThink) < 0) {
+                throw new IllegalArgumentException("maxThink cannot lesser than minThink");
+            }
+        }
+
+        /**
+         * 抽取一次思考时间
+         *
+         * @return 纳秒
+         */
+        public long thinkNanos() {
+            long min = this.minThink.toNanos();
+            long max = this.maxThink.toNanos();
+            return min == max ? min : ThreadLocalRandom.current().nextLong(min, max + 1);
+        }
+    }
+
+    /**
+     * 脚本构造器，思考时间与提取器作用于最近添加的步骤
+     */
+    public static final class Builder {
+
+        /** 开始步骤 */
+        private final List<Step> startSteps = new ArrayList<>();
+        /** 循环步骤 */
+        private final List<Step> loopSteps = new ArrayList<>();
+        /** 最近添加的步骤所在的列表 */
+        private List<Step> last;
+
+        /**
+         * 只由 {@link UserScenario#builder()} 创建
+         */
+        private Builder() {
+        }
+
+        /**
+         * 添加开始步骤，请求中的 ${name} 以用户变量替换
+         *
+         * @param name     名称
+         * @param template 请求模板
+         * @return this
+         */
+        public Builder onStart(@Nonnull String name, @Nonnull HttpClientRequest template) {
+            Objects.requireNonNull(template, "template cannot be null");
+            return this.onStart(name, user -> user.resolve(template));
+        }
+
+        /**
+         * 添加开始步骤
+         *
+         * @param name    名称
+         * @param request 由用户状态生成请求
+         * @return this
+         */
+        public Builder onStart(@Nonnull String name, @Nonnull Function<VirtualUser, HttpClientRequest> request) {
+            return this.add(this.startSteps, name, request);
+        }
+
+        /**
+         * 添加循环步骤，请求中的 ${name} 以用户变量替换
+         *
+         * @param name     名称
+         * @param template 请求模板
+         * @return this
+         */
+        public Builder step(@Nonnull String name, @Nonnull HttpClientRequest template) {
+            Objects.requireNonNull(template, "template cannot be null");
+            return this.step(name, user -> user.resolve(template));
+        }
+
+        /**
+         * 添加循环步骤
+         *
+         * @param name    名称
+         * @param request 由用户状态生成请求
+         * @return this
+         */
+        public Builder step(@Nonnull String name, @Nonnull Function<VirtualUser, HttpClientRequest> request) {
+            return this.add(this.loopSteps, name, request);
+        }
+
+        /**
+         * 给最近添加的步骤设置提取器，响应体将以字符串接收
+         *
+         * @param extractor 提取器
+         * @return this
+         */
+        public Builder extract(@Nonnull BiConsumer<VirtualUser, HttpResponse<String>> extractor) {
+            Objects.requireNonNull(extractor, "extractor cannot be null");
+            Step step = this.lastStep();
+            return this.replaceLast(new Step(step.name(), step.request(), extractor, step.minThink(),
+                    step.maxThink()));
+        }
+
+        /**
+         * 给最近添加的步骤设置固定的思考时间
+         *
+         * @param think 思考时间
+         * @return this
+         */
+        public Builder think(@Nonnull Duration think) {
+            return this.think(think, think);
+        }
+
+        /**
+         * 给最近添加的步骤设置随机的思考时间
+         *
+         * @param min 最短
+         * @param max 最长
+         * @return this
+         */
+        public Builder think(@Nonnull Duration min, @Nonnull Duration max) {
+            Step step = this.lastStep();
+            return this.replaceLast(new Step(step.name(), step.request(), step.extractor(), min, max));
+        }
+
+        /**
+         * 构造脚本
+         *
+         * @return 脚本
+         */
+        public UserScenario build() {
+            if (this.loopSteps.isEmpty()) {
+                throw new IllegalArgumentException("at least one loop step is required");
+            }
+            return new UserScenario(this.startSteps, this.loopSteps);
+        }
+
+        /**
+         * 添加步骤
+         *
+         * @param steps   所在列表
+         * @param name    名称
+         * @param request 由用户状态生成请求
+         * @return this
+         */
+        private Builder add(List<Step> steps, String name, Function<VirtualUser, HttpClientRequest> request) {
+            steps.add(new Step(name, request, null, Duration.ZERO, Duration.ZERO));
+            this.last = steps;
+            return this;
+        }
+
+        /**
+         * 最近添加的步骤
+         *
+         * @return 步骤
+         */
+        private Step lastStep() {
+            if (this.last == null) {
+                throw new IllegalStateException("no step added yet");
+            }
+            return this.last.get(this.last.size() - 1);
+        }
+
+        /**
+         * 替换最近添加的步骤
+         *
+         * @param step 新步骤
+         * @return this
+         */
+        private Builder replaceLast(Step step) {
+            this.last.set(this.last.size() - 1, step);
+            return this;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package org.st.shc.services.load;
+
+import org.st.shc.services.HttpClientRequest;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.CookiePolicy;
+import java.net.URI;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 一个虚拟用户的会话状态：自己的 Cookie 、变量与认证令牌。
+ * <p>
+ * 同一个用户的步骤依次执行，前一步的回调先于后一步发生，因此状态不需要加锁；
+ * 不同用户之间互不共享，登录得到的会话只属于这个用户。
+ *
+ * @author abomb4 2026-10-17
+ */
+public final class VirtualUser {
+
+    /** 认证头 */
+    private static final String AUTHORIZATION = "Authorization";
+    /** Cookie 头 */
+    private static final String COOKIE = "Cookie";
+
+    /** 编号，从 0 开始 */
+    private final int id;
+    /** Cookie 罐 */
+    private final CookieManager cookies = new CookieManager(null, CookiePolicy.ACCEPT_ALL);
+    /** 变量 */
+    private final Map<String, String> variables = new HashMap<>();
+    /** 认证令牌 */
+    private String token;
+    /** 已完成的迭代数 */
+    private long iterations;
+
+    /**
+     * 由 {@link VirtualUserRunner} 创建
+     *
+     * @param id 编号
+     */
+    VirtualUser(int id) {
+        this.id = id;
+        this.variables.put("userId", String.valueOf(id));
+    }
+
+    /**
+     * 编号，从 0 开始
+     *
+     * @return 编号
+     */
+    public int getId() {
+        return this.id;
+    }
+
+    /**
+     * 已完成的迭代数
+     *
+     * @return 迭代数
+     */
+    public long getIterations() {
+        return this.iterations;
+    }
+
+    /**
+     * 取变量
+     *
+     * @param name 变量名
+     * @return 变量值，没有时为空
+     */
+    @Nullable
+    public String get(@Nonnull String name) {
+        return this.variables.get(name);
+    }
+
+    /**
+     * 设置变量，可以在请求模板中以 ${name} 引用
+     *
+     * @param name  变量名
+     * @param value 变量值，为空时删除
+     */
+    public void set(@Nonnull String name, @Nullable String value) {
+        Objects.requireNonNull(name, "name cannot be null");
+        if (value == null) {
+            this.variables.remove(name);
+        } else {
+            this.variables.put(name, value);
+        }
+    }
+
+    /**
+     * 认证令牌
+     *
+     * @return 令牌，未登录时为空
+     */
+    @Nullable
+    public String getToken() {
+        return this.token;
+    }
+
+    /**
+     * 设置认证令牌，之后的请求会带上 Bearer 认证头
+     *
+     * @param token 令牌，为空表示登出
+     */
+    public void setToken(@Nullable String token) {
+        this.token = token;
+    }
+
+    /**
+     * 以变量替换文本中的 ${name} ，没有的变量原样保留
+     *
+     * @param template 模板
+     * @return 替换后的文本
+     */
+    @Nonnull
+    public String resolve(@Nonnull String template) {
+        int start = template.indexOf("${");
+        if (start < 0) {
+            return template;
+        }
+        StringBuilder builder = new StringBuilder(template.length() + 16);
+        int from = 0;
+        while (start >= 0) {
+            int end = template.indexOf('}', start + 2);
+            if (end < 0) {
+                break;
+            }
+            String value = this.variables.get(template.substring(start + 2, end));
+            builder.append(template, from, start).append(value == null ? template.substring(start, end + 1) : value);
+            from = end + 1;
+            start = template.indexOf("${", from);
+        }
+        return builder.append(template, from, template.length()).toString();
+    }
+
+    /**
+     * 以变量替换请求模板的链接与头
+     *
+     * @param template 请求模板
+     * @return 请求
+     */
+    @Nonnull
+    public HttpClientRequest resolve(@Nonnull HttpClientRequest template) {
+        Map<String, List<String>> headers = new LinkedHashMap<>(template.headers().size() * 2);
+        for (Map.Entry<String, List<String>> entry : template.headers().entrySet()) {
+            List<String> values = new ArrayList<>(entry.getValue().size());
+            for (String value : entry.getValue()) {
+                values.add(this.resolve(value));
+            }
+            headers.put(entry.getKey(), values);
+        }
+        return new HttpClientRequest(template.method(), this.resolve(template.url()), headers, template.body(),
+                template.timeouts());
+    }
+
+    /**
+     * 给请求带上本用户的 Cookie 与认证头
+     *
+     * @param request 请求
+     * @param uri     请求的链接
+     * @return 带上会话的请求
+     * @throws IOException 读取 Cookie 失败
+     */
+    HttpClientRequest attachSession(HttpClientRequest request, URI uri) throws IOException {
+        List<String> cookie = this.cookies.get(uri, Map.of()).get(COOKIE);
+        boolean hasCookie = cookie != null && !cookie.isEmpty();
+        boolean hasToken = this.token != null
+                && request.headers().keySet().stream().noneMatch(AUTHORIZATION::equalsIgnoreCase);
+        if (!hasCookie && !hasToken) {
+            return request;
+        }
+        Map<String, List<String>> headers = new LinkedHashMap<>(request.headers());
+        if (hasCookie) {
+            headers.put(COOKIE, List.of(String.join("; ", cookie)));
+        }
+        if (hasToken) {
+            headers.put(AUTHORIZATION, List.of("Bearer " + this.token));
+        }
+        return new HttpClientRequest(request.method(), request.url(), headers, request.body(), request.timeouts());
+    }
+
+    /**
+     * 保存响应中的 Cookie
+     *
+     * @param uri      请求的链接
+     * @param response 响应
+     * @throws IOException 保存 Cookie 失败
+     */
+    void storeCookies(URI uri, HttpResponse<?> response) throws IOException {
+        this.cookies.put(uri, response.headers().map());
+    }
+
+    /**
+     * 完成一次迭代
+     */
+    void iterationDone() {
+        this.iterations++;
+    }
+}
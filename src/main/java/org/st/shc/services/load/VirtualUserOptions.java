@@ -0,0 +1,66 @@
+package org.st.shc.services.load;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * 虚拟用户压测参数，持续时间与迭代数至少指定一个，都指定时先到先停
+ *
+ * @param users      用户数
+ * @param rampUp     在这段时间内均匀地启动全部用户
+ * @param duration   持续时间，从第一个用户启动算起，可以为空
+ * @param iterations 每个用户执行循环步骤的次数，0 表示不限
+ * @author abomb4 2026-10-17
+ */
+public record VirtualUserOptions(
+        int users,
+        @Nonnull Duration rampUp,
+        @Nullable Duration duration,
+        long iterations
+) {
+
+    public VirtualUserOptions {
+        if (users < 1) {
+            throw new IllegalArgumentException("users cannot lesser than 1");
+        }
+        Objects.requireNonNull(rampUp, "rampUp cannot be null");
+        if (rampUp.isNegative()) {
+            throw new IllegalArgumentException("rampUp cannot be negative");
+        }
+        if (iterations < 0) {
+            throw new IllegalArgumentException("iterations cannot lesser than 0");
+        }
+        if (duration != null && (duration.isNegative() || duration.isZero())) {
+            throw new IllegalArgumentException("duration must be positive");
+        }
+        if (duration == null && iterations == 0) {
+            throw new IllegalArgumentException("either duration or iterations must be specified");
+        }
+    }
+
+    /**
+     * 按持续时间压测
+     *
+     * @param users    用户数
+     * @param rampUp   启动全部用户的时间
+     * @param duration 持续时间
+     * @return 参数
+     */
+    public static VirtualUserOptions forDuration(int users, @Nonnull Duration rampUp, @Nonnull Duration duration) {
+        return new VirtualUserOptions(users, rampUp, duration, 0);
+    }
+
+    /**
+     * 按迭代数压测
+     *
+     * @param users      用户数
+     * @param rampUp     启动全部用户的时间
+     * @param iterations 每个用户的迭代数
+     * @return 参数
+     */
+    public static VirtualUserOptions forIterations(int users, @Nonnull Duration rampUp, long iterations) {
+        return new VirtualUserOptions(users, rampUp, null, iterations);
+    }
+}
@@ -0,0 +1,41 @@
+package org.st.shc.services.load;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+
+/**
+ * 虚拟用户压测结果，延迟不含思考时间
+ *
+ * @param load       全部请求的结果
+ * @param steps      各步骤的结果，开始步骤在前，循环步骤在后
+ * @param users      启动的用户数
+ * @param iterations 全部用户完成的迭代数之和
+ * @author abomb4 2026-10-17
+ */
+public record VirtualUserRunResult(
+        @Nonnull LoadRunResult load,
+        @Nonnull List<StepResult> steps,
+        int users,
+        long iterations
+) {
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("VirtualUserRunResult{users=").append(users)
+                .append(", iterations=").append(iterations)
+                .append(", load=").append(load);
+        for (StepResult step : steps) {
+            builder.append("\n  ").append(step.name()).append(": ").append(step.load());
+        }
+        return builder.append('}').toString();
+    }
+
+    /**
+     * 一个步骤的结果
+     *
+     * @param name 步骤名称
+     * @param load 该步骤的请求结果
+     */
+    public record StepResult(@Nonnull String name, @Nonnull LoadRunResult load) {
+    }
+}
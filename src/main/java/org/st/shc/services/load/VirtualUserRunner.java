@@ -0,0 +1,271 @@
+package org.st.shc.services.load;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.st.shc.services.HttpClientRequest;
+import org.st.shc.services.HttpClientService;
+import org.st.shc.services.PreparedHttpRequest;
+import org.st.shc.services.ResponseBodySinks;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * 虚拟用户压测：每个用户按 {@link UserScenario} 依次执行步骤，带着自己的 Cookie 、变量与令牌。
+ * <p>
+ * 用户不占线程，而是挂在 {@link CompletableFuture} 上的状态机：发出请求后立即让出线程，响应回来再推进到下一步，
+ * 思考时间由 {@link CompletableFuture#delayedExecutor} 计时，到期后在 {@link HttpClientService} 的共享线程池上继续。
+ * 因此几千个用户也只需要共享线程池里的少量线程。取消返回的 Future 即可提前结束压测。
+ *
+ * @author abomb4 2026-10-17
+ */
+public class VirtualUserRunner {
+
+    /** Slf4J */
+    private static final Logger log = LoggerFactory.getLogger(VirtualUserRunner.class);
+
+    /** HTTP 客户端服务 */
+    private final HttpClientService httpClientService;
+
+    /**
+     * 完整构造
+     *
+     * @param httpClientService HTTP 客户端服务
+     */
+    public VirtualUserRunner(@Nonnull HttpClientService httpClientService) {
+        this.httpClientService = Objects.requireNonNull(httpClientService, "httpClientService cannot be null");
+    }
+
+    /**
+     * 开始压测
+     *
+     * @param scenario 用户脚本
+     * @param options  压测参数
+     * @return 压测结果，取消即停止压测
+     */
+    @Nonnull
+    public CompletableFuture<VirtualUserRunResult> run(@Nonnull UserScenario scenario,
+                                                       @Nonnull VirtualUserOptions options) {
+        Objects.requireNonNull(scenario, "scenario cannot be null");
+        Objects.requireNonNull(options, "options cannot be null");
+        Run run = new Run(scenario, options);
+        run.start();
+        return run.result;
+    }
+
+    /** 一次压测 */
+    private final class Run {
+
+        /** 开始步骤与循环步骤依次排列 */
+        private final UserScenario.Step[] steps;
+        /** 第一个循环步骤的下标 */
+        private final int loopStart;
+        /** 各步骤的记录，下标与步骤对应 */
+        private final LoadRecorder[] stepRecorders;
+        /** 全部请求的记录 */
+        private final LoadRecorder recorder = new LoadRecorder();
+        /** 用户数 */
+        private final int users;
+        /** 启动全部用户的时间 */
+        private final long rampUpNanos;
+        /** 每个用户的迭代数，0 表示不限 */
+        private final long iterationLimit;
+        /** 仍在运行的用户数 */
+        private final AtomicInteger activeUsers;
+        /** 完成的迭代数 */
+        private final LongAdder iterations = new LongAdder();
+        /** 结果 */
+        private final CompletableFuture<VirtualUserRunResult> result = new CompletableFuture<>();
+        /** 开始时间 */
+        private final long startNanos;
+        /** 截止时间，没有持续时间限制时为 {@link Long#MAX_VALUE} */
+        private final long deadlineNanos;
+
+        /**
+         * 完整构造
+         *
+         * @param scenario 用户脚本
+         * @param options  压测参数
+         */
+        private Run(UserScenario scenario, VirtualUserOptions options) {
+            List<UserScenario.Step> all = new ArrayList<>(scenario.startSteps());
+            all.addAll(scenario.loopSteps());
+            this.steps = all.toArray(new UserScenario.Step[0]);
+            this.loopStart = scenario.startSteps().size();
+            this.stepRecorders = new LoadRecorder[this.steps.length];
+            for (int i = 0; i < this.steps.length; i++) {
+                this.stepRecorders[i] = new LoadRecorder();
+            }
+            this.users = options.users();
+            this.rampUpNanos = options.rampUp().toNanos();
+            this.iterationLimit = options.iterations();
+            this.activeUsers = new AtomicInteger(this.users);
+            this.startNanos = System.nanoTime();
+            this.deadlineNanos = options.duration() == null
+                    ? Long.MAX_VALUE
+                    : this.startNanos + options.duration().toNanos();
+        }
+
+        /**
+         * 在爬坡时间内均匀启动全部用户
+         */
+        private void start() {
+            for (int i = 0; i < this.users; i++) {
+                long delay = this.rampUpNanos * i / this.users;
+                this.schedule(new VirtualUser(i), 0, delay);
+            }
+        }
+
+        /**
+         * 在共享线程池上执行用户的某一步
+         *
+         * @param user       用户
+         * @param step       步骤下标
+         * @param delayNanos 延迟，即思考时间
+         */
+        private void schedule(VirtualUser user, int step, long delayNanos) {
+            Executor executor = delayNanos > 0
+                    ? CompletableFuture.delayedExecutor(delayNanos, TimeUnit.NANOSECONDS,
+                    httpClientService.getExecutor())
+                    : httpClientService.getExecutor();
+            try {
+                executor.execute(() -> this.runStep(user, step));
+            } catch (RejectedExecutionException e) {
+                log.warn("Virtual user {} stopped because executor rejected: {}", user.getId(), e.toString());
+                this.userDone();
+            }
+        }
+
+        /**
+         * 执行用户的某一步
+         *
+         * @param user  用户
+         * @param index 步骤下标
+         */
+        private void runStep(VirtualUser user, int index) {
+            if (this.result.isDone() || System.nanoTime() >= this.deadlineNanos) {
+                this.userDone();
+                return;
+            }
+            UserScenario.Step step = this.steps[index];
+            long begin = System.nanoTime();
+            final URI uri;
+            final PreparedHttpRequest prepared;
+            try {
+                HttpClientRequest request = step.request().apply(user);
+                uri = URI.create(request.url());
+                prepared = httpClientService.prepareForLoad(user.attachSession(request, uri));
+            } catch (IOException | RuntimeException e) {
+                this.record(index, System.nanoTime() - begin, null, e);
+                this.advance(user, index);
+                return;
+            }
+            if (step.extractor() == null) {
+                this.exchange(user, index, uri, prepared, ResponseBodySinks.counting(), null, begin);
+            } else {
+                this.exchange(user, index, uri, prepared, HttpResponse.BodyHandlers.ofString(), step.extractor(),
+                        begin);
+            }
+        }
+
+        /**
+         * 发出请求，响应回来后保存 Cookie 、提取状态并推进到下一步
+         *
+         * @param user        用户
+         * @param index       步骤下标
+         * @param uri         链接
+         * @param prepared    预处理好的请求
+         * @param bodyHandler 响应体处理
+         * @param extractor   提取器，可以为空
+         * @param begin       开始时间
+         * @param <T>         响应体类型
+         */
+        private <T> void exchange(VirtualUser user, int index, URI uri, PreparedHttpRequest prepared,
+                                  HttpResponse.BodyHandler<T> bodyHandler,
+                                  BiConsumer<VirtualUser, HttpResponse<T>> extractor, long begin) {
+            try {
+                httpClientService.send(prepared, bodyHandler).whenComplete((response, throwable) -> {
+                    long latency = System.nanoTime() - begin;
+                    Throwable failure = throwable;
+                    if (response != null) {
+                        try {
+                            user.storeCookies(uri, response);
+                            if (extractor != null) {
+                                extractor.accept(user, response);
+                            }
+                        } catch (IOException | RuntimeException e) {
+                            failure = e;
+                        }
+                    }
+                    this.record(index, latency, failure == null ? response : null, failure);
+                    this.advance(user, index);
+                });
+            } catch (RuntimeException e) {
+                this.record(index, System.nanoTime() - begin, null, e);
+                this.advance(user, index);
+            }
+        }
+
+        /**
+         * 记录一步的结果
+         *
+         * @param index     步骤下标
+         * @param latency   耗时
+         * @param response  响应
+         * @param throwable 异常
+         */
+        private void record(int index, long latency, HttpResponse<?> response, Throwable throwable) {
+            this.recorder.record(latency, response, throwable);
+            this.stepRecorders[index].record(latency, response, throwable);
+        }
+
+        /**
+         * 思考后推进到下一步，循环步骤走完一轮即完成一次迭代
+         *
+         * @param user  用户
+         * @param index 刚完成的步骤下标
+         */
+        private void advance(VirtualUser user, int index) {
+            int next = index + 1;
+            if (next == this.steps.length) {
+                user.iterationDone();
+                this.iterations.increment();
+                if (this.iterationLimit > 0 && user.getIterations() >= this.iterationLimit) {
+                    this.userDone();
+                    return;
+                }
+                next = this.loopStart;
+            }
+            this.schedule(user, next, this.steps[index].thinkNanos());
+        }
+
+        /**
+         * 一个用户结束，全部结束时生成结果
+         */
+        private void userDone() {
+            if (this.activeUsers.decrementAndGet() != 0) {
+                return;
+            }
+            long elapsed = System.nanoTime() - this.startNanos;
+            List<VirtualUserRunResult.StepResult> stepResults = new ArrayList<>(this.steps.length);
+            for (int i = 0; i < this.steps.length; i++) {
+                stepResults.add(new VirtualUserRunResult.StepResult(this.steps[i].name(),
+                        this.stepRecorders[i].toResult(elapsed)));
+            }
+            this.result.complete(new VirtualUserRunResult(this.recorder.toResult(elapsed),
+                    List.copyOf(stepResults), this.users, this.iterations.sum()));
+        }
+    }
+}
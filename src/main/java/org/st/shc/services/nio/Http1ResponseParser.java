@@ -0,0 +1,391 @@
+package org.st.shc.services.nio;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.net.http.HttpHeaders;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * HTTP/1.1 响应增量解析，按到达的字节推进状态，支持定长、分块与读到连接关闭三种响应体。
+ * <p>
+ * 一次只解析一个响应，解析完成后剩余字节留在输入中，供流水线上的下一个响应继续解析。
+ * 响应体按块复制到堆内存后交出，输入 buffer 可以立即复用。
+ *
+ * @author abomb4 2026-10-17
+ */
+final class Http1ResponseParser {
+
+    /** 单行最大长度 */
+    private static final int MAX_LINE_LENGTH = 64 * 1024;
+    /** 头部最大总长度 */
+    private static final int MAX_HEADER_BYTES = 256 * 1024;
+
+    /**
+     * 解析事件
+     */
+    interface Listener {
+
+        /**
+         * 收到最终响应头，中间的 1xx 响应不会通知
+         *
+         * @param statusCode 状态码
+         * @param headers    响应头
+         */
+        void onHeaders(int statusCode, HttpHeaders headers);
+
+        /**
+         * 收到一块响应体
+         *
+         * @param chunk 堆内存中的数据
+         */
+        void onBody(ByteBuffer chunk);
+    }
+
+    /** 解析状态 */
+    private enum State {
+        /** 状态行 */
+        STATUS_LINE,
+        /** 头 */
+        HEADERS,
+        /** 定长响应体 */
+        FIXED_BODY,
+        /** 分块长度行 */
+        CHUNK_SIZE,
+        /** 分块数据 */
+        CHUNK_DATA,
+        /** 分块数据后的换行 */
+        CHUNK_END,
+        /** 分块尾部的头 */
+        TRAILERS,
+        /** 读到连接关闭为止 */
+        UNTIL_CLOSE,
+        /** 完成 */
+        DONE
+    }
+
+    /** 事件接收者 */
+    private final Listener listener;
+    /** 行缓冲，跨 buffer 的行在这里拼接 */
+    private byte[] line = new byte[256];
+    /** 行缓冲已用长度 */
+    private int lineLength;
+
+    /** 当前状态 */
+    private State state = State.DONE;
+    /** 是否 HEAD 请求，HEAD 响应没有体 */
+    private boolean headRequest;
+    /** 状态码 */
+    private int statusCode;
+    /** 是否 HTTP/1.1 */
+    private boolean http11;
+    /** 正在收集的头 */
+    private Map<String, List<String>> headers;
+    /** 上一个头的名称，用于折行 */
+    private String lastHeader;
+    /** 头部已读字节数 */
+    private int headerBytes;
+    /** 当前定长体或分块剩余字节数 */
+    private long remaining;
+    /** 响应结束后连接能否复用 */
+    private boolean keepAlive;
+
+    /**
+     * 完整构造
+     *
+     * @param listener 事件接收者
+     */
+    Http1ResponseParser(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 准备解析下一个响应
+     *
+     * @param headRequest 是否 HEAD 请求
+     */
+    void reset(boolean headRequest) {
+        this.state = State.STATUS_LINE;
+        this.headRequest = headRequest;
+        this.lineLength = 0;
+        this.headerBytes = 0;
+        this.headers = null;
+        this.lastHeader = null;
+        this.keepAlive = false;
+    }
+
+    /**
+     * 消费输入，直到输入耗尽或当前响应解析完成
+     *
+     * @param in 输入
+     * @return 当前响应是否解析完成
+     * @throws IOException 响应格式不合法
+     */
+    boolean parse(ByteBuffer in) throws IOException {
+        while (in.hasRemaining() && this.state != State.DONE) {
+            switch (this.state) {
+                case FIXED_BODY, CHUNK_DATA -> {
+                    int n = (int) Math.min(this.remaining, in.remaining());
+                    this.emit(in, n);
+                    this.remaining -= n;
+                    if (this.remaining == 0) {
+                        this.state = this.state == State.FIXED_BODY ? State.DONE : State.CHUNK_END;
+                    }
+                }
+                case UNTIL_CLOSE -> this.emit(in, in.remaining());
+                default -> {
+                    String text = this.readLine(in);
+                    if (text != null) {
+                        this.handleLine(text);
+                    }
+                }
+            }
+        }
+        return this.state == State.DONE;
+    }
+
+    /**
+     * 连接被对端关闭
+     *
+     * @return 当前响应是否因此正常结束
+     * @throws EOFException 响应只收到一部分
+     */
+    boolean onEof() throws EOFException {
+        if (this.state == State.UNTIL_CLOSE) {
+            this.state = State.DONE;
+            return true;
+        }
+        if (this.isStarted()) {
+            throw new EOFException("Connection closed before response complete");
+        }
+        return false;
+    }
+
+    /**
+     * 当前响应是否已收到任何字节，没有收到时可以安全重试
+     *
+     * @return 是否已收到
+     */
+    boolean isStarted() {
+        return this.state != State.DONE && (this.state != State.STATUS_LINE || this.lineLength > 0
+                || this.headerBytes > 0);
+    }
+
+    /**
+     * 响应结束后连接能否复用
+     *
+     * @return 能否复用
+     */
+    boolean isKeepAlive() {
+        return this.keepAlive;
+    }
+
+    /**
+     * 读取一行，不含换行
+     *
+     * @param in 输入
+     * @return 完整的行，还没读完时为空
+     * @throws ProtocolException 行太长
+     */
+    private String readLine(ByteBuffer in) throws ProtocolException {
+        int start = in.position();
+        int limit = in.limit();
+        int end = start;
+        while (end < limit && in.get(end) != '\n') {
+            end++;
+        }
+        boolean found = end < limit;
+        int length = end - start;
+        if (this.lineLength + length > MAX_LINE_LENGTH) {
+            throw new ProtocolException("Response line too long");
+        }
+        if (this.lineLength + length > this.line.length) {
+            this.line = Arrays.copyOf(this.line, Math.max(this.line.length * 2, this.lineLength + length));
+        }
+        in.get(this.line, this.lineLength, length);
+        this.lineLength += length;
+        this.headerBytes += length;
+        if (!found) {
+            return null;
+        }
+        in.get();
+        this.headerBytes++;
+        int textLength = this.lineLength;
+        if (textLength > 0 && this.line[textLength - 1] == '\r') {
+            textLength--;
+        }
+        this.lineLength = 0;
+        return new String(this.line, 0, textLength, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * 处理一行
+     *
+     * @param text 行
+     * @throws IOException 格式不合法
+     */
+    private void handleLine(String text) throws IOException {
+        if (this.headerBytes > MAX_HEADER_BYTES) {
+            throw new ProtocolException("Response headers too large");
+        }
+        switch (this.state) {
+            case STATUS_LINE -> this.handleStatusLine(text);
+            case HEADERS -> {
+                if (text.isEmpty()) {
+                    this.headersComplete();
+                } else {
+                    this.handleHeader(text);
+                }
+            }
+            case CHUNK_SIZE -> {
+                int semicolon = text.indexOf(';');
+                String size = (semicolon < 0 ? text : text.substring(0, semicolon)).trim();
+                try {
+                    this.remaining = Long.parseLong(size, 16);
+                } catch (NumberFormatException e) {
+                    throw new ProtocolException("Invalid chunk size: " + text);
+                }
+                if (this.remaining < 0) {
+                    throw new ProtocolException("Invalid chunk size: " + text);
+                }
+                this.state = this.remaining == 0 ? State.TRAILERS : State.CHUNK_DATA;
+            }
+            case CHUNK_END -> {
+                if (!text.isEmpty()) {
+                    throw new ProtocolException("Missing CRLF after chunk");
+                }
+                this.state = State.CHUNK_SIZE;
+            }
+            case TRAILERS -> {
+                if (text.isEmpty()) {
+                    this.state = State.DONE;
+                }
+            }
+            default -> throw new IllegalStateException("Unexpected state " + this.state);
+        }
+    }
+
+    /**
+     * 处理状态行
+     *
+     * @param text 状态行
+     * @throws ProtocolException 格式不合法
+     */
+    private void handleStatusLine(String text) throws ProtocolException {
+        if (text.isEmpty()) {
+            // 容忍响应之间多余的空行
+            return;
+        }
+        if (!text.startsWith("HTTP/1.") || text.length() < 12 || text.charAt(8) != ' ') {
+            throw new ProtocolException("Invalid status line: " + text);
+        }
+        try {
+            this.statusCode = Integer.parseInt(text.substring(9, 12));
+        } catch (NumberFormatException e) {
+            throw new ProtocolException("Invalid status line: " + text);
+        }
+        this.http11 = text.charAt(7) != '0';
+        this.headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        this.lastHeader = null;
+        this.state = State.HEADERS;
+    }
+
+    /**
+     * 处理一个头
+     *
+     * @param text 头所在行
+     * @throws ProtocolException 格式不合法
+     */
+    private void handleHeader(String text) throws ProtocolException {
+        char first = text.charAt(0);
+        if ((first == ' ' || first == '\t') && this.lastHeader != null) {
+            // 过时的折行写法，拼到上一个头的最后一个值
+            List<String> values = this.headers.get(this.lastHeader);
+            int last = values.size() - 1;
+            values.set(last, values.get(last) + ' ' + text.trim());
+            return;
+        }
+        int colon = text.indexOf(':');
+        if (colon <= 0) {
+            throw new ProtocolException("Invalid header: " + text);
+        }
+        String name = text.substring(0, colon).trim();
+        this.headers.computeIfAbsent(name, k -> new ArrayList<>(2)).add(text.substring(colon + 1).trim());
+        this.lastHeader = name;
+    }
+
+    /**
+     * 头部结束，确定响应体的分帧方式
+     *
+     * @throws ProtocolException 不支持的响应
+     */
+    private void headersComplete() throws ProtocolException {
+        if (this.statusCode >= 100 && this.statusCode < 200) {
+            if (this.statusCode == 101) {
+                throw new ProtocolException("Protocol switching is not supported");
+            }
+            // 丢弃中间响应，继续读最终响应
+            this.state = State.STATUS_LINE;
+            return;
+        }
+        String connection = this.first("Connection");
+        String token = connection == null ? "" : connection.toLowerCase(Locale.ROOT);
+        this.keepAlive = this.http11 ? !token.contains("close") : token.contains("keep-alive");
+
+        this.listener.onHeaders(this.statusCode, HttpHeaders.of(this.headers, (k, v) -> true));
+
+        String transferEncoding = this.first("Transfer-Encoding");
+        String contentLength = this.first("Content-Length");
+        if (this.headRequest || this.statusCode == 204 || this.statusCode == 304) {
+            this.state = State.DONE;
+        } else if (transferEncoding != null && transferEncoding.toLowerCase(Locale.ROOT).contains("chunked")) {
+            this.state = State.CHUNK_SIZE;
+        } else if (contentLength != null) {
+            try {
+                this.remaining = Long.parseLong(contentLength.trim());
+            } catch (NumberFormatException e) {
+                throw new ProtocolException("Invalid Content-Length: " + contentLength);
+            }
+            if (this.remaining < 0) {
+                throw new ProtocolException("Invalid Content-Length: " + contentLength);
+            }
+            this.state = this.remaining == 0 ? State.DONE : State.FIXED_BODY;
+        } else {
+            this.state = State.UNTIL_CLOSE;
+            this.keepAlive = false;
+        }
+    }
+
+    /**
+     * 取头的第一个值
+     *
+     * @param name 名称
+     * @return 值，不存在时为空
+     */
+    private String first(String name) {
+        List<String> values = this.headers.get(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    /**
+     * 复制一段响应体交出
+     *
+     * @param in     输入
+     * @param length 长度
+     */
+    private void emit(ByteBuffer in, int length) {
+        if (length <= 0) {
+            return;
+        }
+        byte[] copy = new byte[length];
+        in.get(copy);
+        this.listener.onBody(ByteBuffer.wrap(copy));
+    }
+}
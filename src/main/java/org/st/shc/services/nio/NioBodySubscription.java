@@ -0,0 +1,155 @@
+package org.st.shc.services.nio;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 把选择器线程读到的响应体按下游需求交给 BodySubscriber 。
+ * <p>
+ * 下游没有需求时数据暂存在队列中，队列积压到一定程度后连接停止读取，下游再次请求时通过回调恢复读取，
+ * 从而把背压一直传到 TCP 窗口。
+ *
+ * @author abomb4 2026-10-17
+ */
+final class NioBodySubscription implements Flow.Subscription {
+
+    /** 积压多少块后停止读取 */
+    private static final int MAX_PENDING = 16;
+
+    /** 下游 */
+    private final Flow.Subscriber<? super List<ByteBuffer>> subscriber;
+    /** 下游重新产生需求时的回调 */
+    private final Runnable onDemand;
+    /** 待推送的数据 */
+    private final Queue<List<ByteBuffer>> pending = new ConcurrentLinkedQueue<>();
+    /** 待推送的块数 */
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    /** 下游未满足的需求 */
+    private final AtomicLong demand = new AtomicLong();
+    /** 推送循环的进入计数 */
+    private final AtomicInteger wip = new AtomicInteger();
+    /** 上游是否已结束 */
+    private volatile boolean completed;
+    /** 上游异常 */
+    private volatile Throwable error;
+    /** 下游是否已取消 */
+    private volatile boolean cancelled;
+    /** 是否已通知下游结束，只在推送循环中访问 */
+    private boolean terminated;
+
+    /**
+     * 完整构造
+     *
+     * @param subscriber 下游
+     * @param onDemand   下游重新产生需求时的回调
+     */
+    NioBodySubscription(Flow.Subscriber<? super List<ByteBuffer>> subscriber, Runnable onDemand) {
+        this.subscriber = subscriber;
+        this.onDemand = onDemand;
+    }
+
+    /**
+     * 放入一块数据
+     *
+     * @param chunk 数据
+     */
+    void offer(ByteBuffer chunk) {
+        if (this.cancelled) {
+            return;
+        }
+        this.pending.add(List.of(chunk));
+        this.pendingCount.incrementAndGet();
+        this.drain();
+    }
+
+    /**
+     * 响应体结束
+     */
+    void complete() {
+        this.completed = true;
+        this.drain();
+    }
+
+    /**
+     * 以异常结束
+     *
+     * @param throwable 异常
+     */
+    void fail(Throwable throwable) {
+        this.error = throwable;
+        this.drain();
+    }
+
+    /**
+     * 积压是否过多，过多时连接应停止读取
+     *
+     * @return 是否过多
+     */
+    boolean isSaturated() {
+        return !this.cancelled && this.pendingCount.get() >= MAX_PENDING;
+    }
+
+    @Override
+    public void request(long n) {
+        if (n <= 0) {
+            this.fail(new IllegalArgumentException("non-positive request: " + n));
+            return;
+        }
+        this.demand.getAndAccumulate(n, (a, b) -> a + b < 0 ? Long.MAX_VALUE : a + b);
+        this.drain();
+        this.onDemand.run();
+    }
+
+    @Override
+    public void cancel() {
+        this.cancelled = true;
+        this.drain();
+        this.onDemand.run();
+    }
+
+    /**
+     * 推送循环，任意线程都可以触发，同一时刻只有一个线程在推送
+     */
+    private void drain() {
+        if (this.wip.getAndIncrement() != 0) {
+            return;
+        }
+        do {
+            while (!this.terminated) {
+                if (this.cancelled) {
+                    this.terminated = true;
+                    this.pending.clear();
+                    break;
+                }
+                Throwable e = this.error;
+                if (e != null) {
+                    this.terminated = true;
+                    this.pending.clear();
+                    this.subscriber.onError(e);
+                    break;
+                }
+                if (this.demand.get() > 0) {
+                    List<ByteBuffer> item = this.pending.poll();
+                    if (item != null) {
+                        this.pendingCount.decrementAndGet();
+                        if (this.demand.get() != Long.MAX_VALUE) {
+                            this.demand.decrementAndGet();
+                        }
+                        this.subscriber.onNext(item);
+                        continue;
+                    }
+                }
+                if (this.completed && this.pending.isEmpty()) {
+                    this.terminated = true;
+                    this.subscriber.onComplete();
+                }
+                break;
+            }
+        } while (this.wip.decrementAndGet() != 0);
+    }
+}
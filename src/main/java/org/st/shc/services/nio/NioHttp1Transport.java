@@ -0,0 +1,1294 @@
+package org.st.shc.services.nio;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.st.shc.services.HttpCallTimer;
+import org.st.shc.services.HttpClientConfig;
+import org.st.shc.services.HttpTransport;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.ProtocolException;
+import java.net.StandardSocketOptions;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 基于单个选择器线程的精简 HTTP/1.1 传输层，用于压测时降低客户端自身的开销。
+ * <p>
+ * 所有连接状态只在选择器线程上访问，不需要加锁；读写共用两块直接内存，不随连接或请求分配，
+ * 读到的数据当场解析并复制出响应体。每个主机维护一组长连接，空闲超时后关闭，连接数达到上限时请求排队。
+ * 开启流水线后，没有请求体的 GET 与 HEAD 可以在同一连接上连续发出，响应按发送顺序匹配。
+ * 复用的连接被对端关闭时，尚未收到任何响应字节的幂等请求会在新连接上重试一次。
+ * <p>
+ * 只支持明文 http ，不支持 TLS 、代理与重定向，配置中这几项会被忽略；请求体发送前会先完整读入内存。
+ * 主机地址在配置的线程池上解析，不阻塞调用方与选择器线程，解析结果缓存 30 秒，过期后先沿用旧地址并在后台刷新。
+ * 没有请求体的请求编码结果按请求缓存，同一个预处理好的请求反复发送时只编码一次。响应的 future 在配置的线程池上完成。
+ * <p>
+ * 传入计时器时记录排队、域名解析、建连与发送耗时；明文连接没有 TLS 握手，记为 0 。
+ * <p>
+ * 支持配置中的建连超时与请求的 {@link HttpRequest#timeout()} ，后者从调用开始算到收到响应头；
+ * 超时或被取消的交换会关闭承载它的连接，从而中止交换。
+ *
+ * @author abomb4 2026-10-17
+ */
+public class NioHttp1Transport implements HttpTransport {
+
+    /** Slf4J */
+    private static final Logger log = LoggerFactory.getLogger(NioHttp1Transport.class);
+
+    /** 默认每个主机的最大连接数 */
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 64;
+    /** 默认流水线深度，1 表示不使用流水线 */
+    public static final int DEFAULT_PIPELINE_DEPTH = 1;
+    /** 默认空闲连接超时 */
+    public static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofSeconds(30);
+
+    /** 读写缓冲大小 */
+    private static final int BUFFER_SIZE = 64 * 1024;
+    /** 选择器最长等待时间，顺便用作空闲连接的检查间隔 */
+    private static final long SELECT_TIMEOUT_MILLIS = 1000;
+    /** 最多尝试次数 */
+    private static final int MAX_ATTEMPTS = 2;
+    /** 由传输层自己生成的请求头 */
+    private static final Set<String> GENERATED_HEADERS = Set.of("host", "content-length", "transfer-encoding");
+    /** 幂等的方法 */
+    private static final Set<String> IDEMPOTENT_METHODS = Set.of("GET", "HEAD", "PUT", "DELETE", "OPTIONS", "TRACE");
+    /** 一定要带 Content-Length 的方法 */
+    private static final Set<String> METHODS_WITH_BODY = Set.of("POST", "PUT", "PATCH");
+    /** 主机地址缓存时间 */
+    private static final long ADDRESS_TTL_NANOS = TimeUnit.SECONDS.toNanos(30);
+    /** 编码结果最多缓存的请求数，超过时清空重来 */
+    private static final int ENCODED_CACHE_SIZE = 256;
+    /** 传输层编号 */
+    private static final AtomicInteger TRANSPORT_ID = new AtomicInteger();
+
+    /** 每个主机的最大连接数 */
+    private final int maxConnectionsPerHost;
+    /** 流水线深度 */
+    private final int pipelineDepth;
+    /** 空闲连接超时 */
+    private final long idleTimeoutNanos;
+
+    /** 选择器 */
+    private final Selector selector;
+    /** 选择器线程 */
+    private final Thread selectorThread;
+    /** 交给选择器线程执行的任务 */
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    /** 是否已唤醒选择器，避免重复唤醒 */
+    private final AtomicBoolean wakeupPending = new AtomicBoolean();
+    /** 各主机的连接池 */
+    private final Map<String, HostPool> hosts = new ConcurrentHashMap<>();
+    /** 没有请求体的请求的编码结果，只读共享 */
+    private final Map<HttpRequest, byte[]> encodedRequests = new ConcurrentHashMap<>();
+    /** 共用的读缓冲，只在选择器线程使用 */
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    /** 共用的写缓冲，只在选择器线程使用 */
+    private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    /** 是否已关闭 */
+    private volatile boolean closed;
+    /** 上次检查空闲连接的时间，只在选择器线程使用 */
+    private long lastSweepNanos = System.nanoTime();
+    /** 待检查的超时，按到期时间排序，只在选择器线程使用 */
+    private final PriorityQueue<Deadline> deadlines = new PriorityQueue<>(Comparator.comparingLong(Deadline::at));
+    /** 已取消但仍留在堆中的超时数，只在选择器线程使用 */
+    private int cancelledDeadlines;
+
+    /** 建立连接次数 */
+    private final LongAdder connectionsOpened = new LongAdder();
+    /** 当前连接数 */
+    private final AtomicInteger openConnections = new AtomicInteger();
+    /** 发出的交换数，含重试 */
+    private final LongAdder exchanges = new LongAdder();
+    /** 在复用连接上发出的交换数 */
+    private final LongAdder reused = new LongAdder();
+    /** 以流水线方式发出的交换数 */
+    private final LongAdder pipelined = new LongAdder();
+    /** 重试次数 */
+    private final LongAdder retried = new LongAdder();
+
+    /**
+     * 默认构造：每主机 64 连接，不使用流水线，空闲 30 秒关闭
+     */
+    public NioHttp1Transport() {
+        this(DEFAULT_MAX_CONNECTIONS_PER_HOST, DEFAULT_PIPELINE_DEPTH, DEFAULT_IDLE_TIMEOUT);
+    }
+
+    /**
+     * 完整构造
+     *
+     * @param maxConnectionsPerHost 每个主机的最大连接数
+     * @param pipelineDepth         每个连接上最多同时等待响应的请求数，1 表示不使用流水线
+     * @param idleTimeout           空闲连接超时
+     */
+    public NioHttp1Transport(int maxConnectionsPerHost, int pipelineDepth, @Nonnull Duration idleTimeout) {
+        if (maxConnectionsPerHost < 1) {
+            throw new IllegalArgumentException("maxConnectionsPerHost cannot lesser than 1");
+        }
+        if (pipelineDepth < 1) {
+            throw new IllegalArgumentException("pipelineDepth cannot lesser than 1");
+        }
+        Objects.requireNonNull(idleTimeout, "idleTimeout cannot be null");
+        if (idleTimeout.isNegative() || idleTimeout.isZero()) {
+            throw new IllegalArgumentException("idleTimeout must be positive");
+        }
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+        this.pipelineDepth = pipelineDepth;
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        try {
+            this.selector = Selector.open();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.selectorThread = new Thread(this::loop, "nio-http1-" + TRANSPORT_ID.incrementAndGet());
+        this.selectorThread.setDaemon(true);
+        this.selectorThread.start();
+    }
+
+    @Nonnull
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> send(@Nonnull HttpRequest request,
+                                                       @Nonnull HttpClientConfig clientConfig,
+                                                       @Nonnull HttpResponse.BodyHandler<T> bodyHandler) {
+        return this.send(request, clientConfig, bodyHandler, null);
+    }
+
+    @Nonnull
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> send(@Nonnull HttpRequest request,
+                                                       @Nonnull HttpClientConfig clientConfig,
+                                                       @Nonnull HttpResponse.BodyHandler<T> bodyHandler,
+                                                       @Nullable HttpCallTimer timer) {
+        Objects.requireNonNull(request, "request cannot be null");
+        Objects.requireNonNull(clientConfig, "clientConfig cannot be null");
+        Objects.requireNonNull(bodyHandler, "bodyHandler cannot be null");
+        if (this.closed) {
+            return CompletableFuture.failedFuture(new IllegalStateException("transport is closed"));
+        }
+        long startNanos = System.nanoTime();
+        URI uri = request.uri();
+        if (!"http".equalsIgnoreCase(uri.getScheme()) || uri.getHost() == null) {
+            return CompletableFuture.failedFuture(
+                    new IllegalArgumentException("Only plain http is supported: " + uri));
+        }
+        int port = uri.getPort() == -1 ? 80 : uri.getPort();
+        String hostKey = uri.getHost() + ':' + port;
+        HostPool pool = this.hosts.get(hostKey);
+        if (pool == null) {
+            // 这里不解析地址，第一次建连前才在线程池上解析
+            pool = this.hosts.computeIfAbsent(hostKey, k -> new HostPool(uri.getHost(), port));
+        }
+        Exchange<T> exchange = new Exchange<>(request, pool, bodyHandler, clientConfig, timer);
+        exchange.future.whenComplete((r, t) -> {
+            if (t instanceof CancellationException) {
+                this.post(() -> this.abort(exchange));
+            }
+        });
+        collectBody(request).whenComplete((body, t) -> {
+            if (t != null) {
+                exchange.future.completeExceptionally(t);
+                return;
+            }
+            exchange.out = ByteBuffer.wrap(this.encoded(request, uri, port, body));
+            exchange.queuedNanos = System.nanoTime();
+            this.post(() -> {
+                if (request.timeout().isPresent() && !exchange.future.isDone()) {
+                    exchange.readDeadline = this.schedule(startNanos + request.timeout().get().toNanos(),
+                            () -> this.readTimedOut(exchange));
+                }
+                this.dispatch(exchange);
+            });
+        });
+        return exchange.future;
+    }
+
+    /**
+     * 统计快照
+     *
+     * @return 统计
+     */
+    @Nonnull
+    public Stats stats() {
+        return new Stats(this.connectionsOpened.sum(), this.openConnections.get(), this.exchanges.sum(),
+                this.reused.sum(), this.pipelined.sum(), this.retried.sum());
+    }
+
+    @Override
+    public void close() {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        this.selector.wakeup();
+        if (Thread.currentThread() != this.selectorThread) {
+            try {
+                this.selectorThread.join(SELECT_TIMEOUT_MILLIS * 5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * 交给选择器线程执行
+     *
+     * @param task 任务
+     */
+    private void post(Runnable task) {
+        this.tasks.add(task);
+        if (Thread.currentThread() != this.selectorThread && this.wakeupPending.compareAndSet(false, true)) {
+            this.selector.wakeup();
+        }
+    }
+
+    /**
+     * 选择器线程主循环
+     */
+    private void loop() {
+        while (!this.closed) {
+            try {
+                this.selector.select(this::handle, this.selectTimeoutMillis());
+                this.wakeupPending.set(false);
+                this.runTasks();
+                this.runDeadlines();
+                this.sweepIdle();
+            } catch (Throwable e) {
+                log.error("Selector loop error", e);
+            }
+        }
+        this.shutdown();
+    }
+
+    /**
+     * 执行积压的任务
+     */
+    private void runTasks() {
+        Runnable task;
+        while ((task = this.tasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                log.error("Transport task failed", e);
+            }
+        }
+    }
+
+    /**
+     * 登记一个超时检查
+     *
+     * @param at     到期时间
+     * @param action 到期后执行，需要自己判断交换或连接是否已经结束
+     * @return 超时检查，可用 {@link #unschedule} 提前取消
+     */
+    private Deadline schedule(long at, Runnable action) {
+        Deadline deadline = new Deadline(at, action);
+        this.deadlines.add(deadline);
+        return deadline;
+    }
+
+    /**
+     * 取消超时检查：立即丢弃其动作，不再引用交换；已取消的超时超过堆的一半时一并移出
+     *
+     * @param deadline 超时检查，为空或已取消时什么也不做
+     */
+    private void unschedule(@Nullable Deadline deadline) {
+        if (deadline == null || deadline.action == null) {
+            return;
+        }
+        deadline.action = null;
+        this.cancelledDeadlines++;
+        if (this.cancelledDeadlines * 2 > this.deadlines.size()) {
+            this.deadlines.removeIf(d -> d.action == null);
+            this.cancelledDeadlines = 0;
+        }
+    }
+
+    /**
+     * 本轮选择最长等待时间，不晚于最近的超时
+     *
+     * @return 毫秒，至少为 1
+     */
+    private long selectTimeoutMillis() {
+        Deadline next = this.deadlines.peek();
+        if (next == null) {
+            return SELECT_TIMEOUT_MILLIS;
+        }
+        long millis = (next.at() - System.nanoTime() + 999_999L) / 1_000_000L;
+        return Math.max(1, Math.min(SELECT_TIMEOUT_MILLIS, millis));
+    }
+
+    /**
+     * 执行到期的超时检查
+     */
+    private void runDeadlines() {
+        long now = System.nanoTime();
+        Deadline next;
+        while ((next = this.deadlines.peek()) != null && next.at() - now <= 0) {
+            this.deadlines.poll();
+            Runnable action = next.action;
+            if (action == null) {
+                this.cancelledDeadlines--;
+                continue;
+            }
+            next.action = null;
+            try {
+                action.run();
+            } catch (RuntimeException e) {
+                log.error("Deadline action failed", e);
+            }
+        }
+    }
+
+    /**
+     * 读取超时：到期仍未收到响应头则以超时结束，并关闭承载它的连接
+     *
+     * @param exchange 交换
+     */
+    private void readTimedOut(Exchange<?> exchange) {
+        if (exchange.future.isDone() || exchange.subscription != null) {
+            return;
+        }
+        HttpTimeoutException timeout = new HttpTimeoutException("request timed out");
+        Connection connection = exchange.connection;
+        exchange.fail(timeout);
+        if (connection != null) {
+            connection.close(timeout);
+        } else {
+            exchange.pool.waiting.remove(exchange);
+        }
+    }
+
+    /**
+     * 处理就绪的连接
+     *
+     * @param key 就绪的键
+     */
+    private void handle(SelectionKey key) {
+        Connection connection = (Connection) key.attachment();
+        try {
+            if (key.isValid() && key.isConnectable()) {
+                connection.finishConnect();
+            }
+            if (key.isValid() && key.isWritable()) {
+                connection.flush();
+            }
+            if (key.isValid() && key.isReadable()) {
+                connection.read();
+            }
+        } catch (IOException | RuntimeException e) {
+            connection.close(e);
+        }
+    }
+
+    /**
+     * 为交换分配连接，没有可用连接时排队
+     *
+     * @param exchange 交换
+     */
+    private void dispatch(Exchange<?> exchange) {
+        if (exchange.future.isDone()) {
+            return;
+        }
+        if (this.closed) {
+            exchange.fail(new IOException("transport is closed"));
+            return;
+        }
+        HostPool pool = exchange.pool;
+        if (exchange.timer != null && pool.address != null) {
+            // 地址已缓存，不需要解析
+            exchange.timer.recordDns(0);
+        }
+        pool.waiting.add(exchange);
+        pool.serveWaiting();
+    }
+
+    /**
+     * 调用方取消了交换，关闭承载它的连接以中止交换
+     *
+     * @param exchange 交换
+     */
+    private void abort(Exchange<?> exchange) {
+        this.unschedule(exchange.readDeadline);
+        Connection connection = exchange.connection;
+        if (connection != null) {
+            connection.close(new CancellationException("exchange cancelled"));
+        } else {
+            exchange.pool.waiting.remove(exchange);
+        }
+    }
+
+    /**
+     * 关闭空闲超时的连接
+     */
+    private void sweepIdle() {
+        long now = System.nanoTime();
+        if (now - this.lastSweepNanos < SELECT_TIMEOUT_MILLIS * 1_000_000L) {
+            return;
+        }
+        this.lastSweepNanos = now;
+        for (HostPool pool : this.hosts.values()) {
+            for (Connection connection : new ArrayList<>(pool.connections)) {
+                if (connection.outstanding.isEmpty() && now - connection.lastUsedNanos > this.idleTimeoutNanos) {
+                    connection.close(null);
+                }
+            }
+        }
+    }
+
+    /**
+     * 关闭全部连接，失败全部未完成的交换
+     */
+    private void shutdown() {
+        this.runTasks();
+        IOException closedException = new IOException("transport is closed");
+        for (HostPool pool : this.hosts.values()) {
+            for (Connection connection : new ArrayList<>(pool.connections)) {
+                connection.close(closedException);
+            }
+            Exchange<?> waiting;
+            while ((waiting = pool.waiting.poll()) != null) {
+                waiting.fail(closedException);
+            }
+        }
+        this.hosts.clear();
+        this.deadlines.clear();
+        this.cancelledDeadlines = 0;
+        try {
+            this.selector.close();
+        } catch (IOException e) {
+            log.warn("Cannot close selector", e);
+        }
+    }
+
+    /**
+     * 完整读入请求体
+     *
+     * @param request 请求
+     * @return 请求体
+     */
+    private static CompletableFuture<byte[]> collectBody(HttpRequest request) {
+        HttpRequest.BodyPublisher publisher = request.bodyPublisher().orElse(null);
+        if (publisher == null || publisher.contentLength() == 0) {
+            return CompletableFuture.completedFuture(new byte[0]);
+        }
+        CompletableFuture<byte[]> result = new CompletableFuture<>();
+        long length = publisher.contentLength();
+        publisher.subscribe(new Flow.Subscriber<>() {
+
+            /** 收集的数据 */
+            private final ByteArrayOutputStream out = new ByteArrayOutputStream(
+                    length > 0 && length < Integer.MAX_VALUE ? (int) length : 1024);
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(ByteBuffer item) {
+                byte[] bytes = new byte[item.remaining()];
+                item.get(bytes);
+                this.out.writeBytes(bytes);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                result.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                result.complete(this.out.toByteArray());
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 取编码结果，没有请求体的请求优先用缓存
+     *
+     * @param request 请求
+     * @param uri     链接
+     * @param port    端口
+     * @param body    请求体
+     * @return 完整的请求字节，只读
+     */
+    private byte[] encoded(HttpRequest request, URI uri, int port, byte[] body) {
+        if (body.length > 0) {
+            return encode(request, uri, port, body);
+        }
+        byte[] bytes = this.encodedRequests.get(request);
+        if (bytes == null) {
+            bytes = encode(request, uri, port, body);
+            if (this.encodedRequests.size() >= ENCODED_CACHE_SIZE) {
+                this.encodedRequests.clear();
+            }
+            this.encodedRequests.put(request, bytes);
+        }
+        return bytes;
+    }
+
+    /**
+     * 编码请求行、头与体
+     *
+     * @param request 请求
+     * @param uri     链接
+     * @param port    端口
+     * @param body    请求体
+     * @return 完整的请求字节
+     */
+    private static byte[] encode(HttpRequest request, URI uri, int port, byte[] body) {
+        StringBuilder head = new StringBuilder(256);
+        String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+        head.append(request.method()).append(' ').append(path);
+        if (uri.getRawQuery() != null) {
+            head.append('?').append(uri.getRawQuery());
+        }
+        head.append(" HTTP/1.1\r\nHost: ").append(uri.getHost());
+        if (port != 80) {
+            head.append(':').append(port);
+        }
+        head.append("\r\n");
+        for (Map.Entry<String, List<String>> entry : request.headers().map().entrySet()) {
+            if (GENERATED_HEADERS.contains(entry.getKey().toLowerCase(Locale.ROOT))) {
+                continue;
+            }
+            for (String value : entry.getValue()) {
+                head.append(entry.getKey()).append(": ").append(value).append("\r\n");
+            }
+        }
+        if (body.length > 0 || METHODS_WITH_BODY.contains(request.method())) {
+            head.append("Content-Length: ").append(body.length).append("\r\n");
+        }
+        head.append("\r\n");
+        byte[] headBytes = head.toString().getBytes(StandardCharsets.ISO_8859_1);
+        if (body.length == 0) {
+            return headBytes;
+        }
+        byte[] data = new byte[headBytes.length + body.length];
+        System.arraycopy(headBytes, 0, data, 0, headBytes.length);
+        System.arraycopy(body, 0, data, headBytes.length, body.length);
+        return data;
+    }
+
+    /**
+     * 传输层统计
+     *
+     * @param connectionsOpened 建立连接次数
+     * @param openConnections   当前连接数
+     * @param exchanges         发出的交换数，含重试
+     * @param reused            在复用连接上发出的交换数
+     * @param pipelined         以流水线方式发出的交换数
+     * @param retried           重试次数
+     */
+    public record Stats(long connectionsOpened, int openConnections, long exchanges, long reused,
+                        long pipelined, long retried) {
+    }
+
+    /**
+     * 超时检查，只在选择器线程访问
+     */
+    private static final class Deadline {
+
+        /** 到期时间 */
+        private final long at;
+        /** 到期后执行，已执行或已取消时为空 */
+        private Runnable action;
+
+        /**
+         * 完整构造
+         *
+         * @param at     到期时间
+         * @param action 到期后执行
+         */
+        private Deadline(long at, Runnable action) {
+            this.at = at;
+            this.action = action;
+        }
+
+        /**
+         * 到期时间
+         *
+         * @return 到期时间
+         */
+        private long at() {
+            return this.at;
+        }
+    }
+
+    /**
+     * 一个主机的连接池，只在选择器线程访问
+     */
+    private final class HostPool {
+
+        /** 主机名 */
+        private final String host;
+        /** 端口 */
+        private final int port;
+        /** 全部连接 */
+        private final List<Connection> connections = new ArrayList<>();
+        /** 等待连接的交换 */
+        private final Queue<Exchange<?>> waiting = new ArrayDeque<>();
+        /** 解析出的地址，尚未解析成功时为空 */
+        private InetSocketAddress address;
+        /** 地址解析成功的时间 */
+        private long resolvedNanos;
+        /** 是否正在解析 */
+        private boolean resolving;
+
+        /**
+         * 完整构造
+         *
+         * @param host 主机名
+         * @param port 端口
+         */
+        private HostPool(String host, int port) {
+            this.host = host;
+            this.port = port;
+        }
+
+        /**
+         * 尽量为排队的交换分配连接
+         */
+        private void serveWaiting() {
+            Exchange<?> exchange;
+            while ((exchange = this.waiting.peek()) != null) {
+                if (exchange.future.isDone()) {
+                    this.waiting.poll();
+                    continue;
+                }
+                Connection connection = this.pick(exchange.pipelinable);
+                if (connection == null && this.connections.size() < maxConnectionsPerHost) {
+                    if (this.address == null) {
+                        this.resolve(exchange.executor);
+                        return;
+                    }
+                    if (System.nanoTime() - this.resolvedNanos > ADDRESS_TTL_NANOS) {
+                        // 过期的地址先继续用，后台刷新
+                        this.resolve(exchange.executor);
+                    }
+                    try {
+                        connection = this.open(exchange.connectTimeoutNanos);
+                    } catch (IOException e) {
+                        this.waiting.poll();
+                        exchange.fail(e);
+                        continue;
+                    }
+                }
+                if (connection == null) {
+                    return;
+                }
+                this.waiting.poll();
+                connection.assign(exchange);
+            }
+        }
+
+        /**
+         * 在线程池上解析地址，完成后回到选择器线程继续分配连接；已在解析时什么也不做
+         *
+         * @param executor 执行解析的线程池
+         */
+        private void resolve(Executor executor) {
+            if (this.resolving) {
+                return;
+            }
+            this.resolving = true;
+            long startNanos = System.nanoTime();
+            CompletableFuture<InetSocketAddress> resolution;
+            try {
+                resolution = CompletableFuture.supplyAsync(() -> new InetSocketAddress(this.host, this.port), executor);
+            } catch (RejectedExecutionException e) {
+                resolution = CompletableFuture.failedFuture(e);
+            }
+            resolution.whenComplete((resolved, throwable) -> post(() -> this.resolved(resolved, throwable, startNanos)));
+        }
+
+        /**
+         * 地址解析结束。成功时记录排队交换的解析耗时并分配连接；失败且没有旧地址时以异常结束排队的交换，
+         * 有旧地址时继续沿用，过了缓存时间再重试
+         *
+         * @param resolved   解析结果
+         * @param throwable  异常
+         * @param startNanos 开始解析的时间
+         */
+        private void resolved(@Nullable InetSocketAddress resolved, @Nullable Throwable throwable, long startNanos) {
+            this.resolving = false;
+            long now = System.nanoTime();
+            if (throwable == null && resolved != null && !resolved.isUnresolved()) {
+                this.address = resolved;
+                this.resolvedNanos = now;
+                for (Exchange<?> exchange : this.waiting) {
+                    if (exchange.timer != null) {
+                        exchange.timer.recordDns(now - Math.max(startNanos, exchange.queuedNanos));
+                    }
+                    // 解析耗时不再计入排队
+                    exchange.queuedNanos = now;
+                }
+            } else if (this.address == null) {
+                UnknownHostException failure = new UnknownHostException(this.host);
+                failure.initCause(throwable);
+                Exchange<?> exchange;
+                while ((exchange = this.waiting.poll()) != null) {
+                    exchange.fail(failure);
+                }
+                return;
+            } else {
+                log.warn("Cannot refresh address of {}, keep using {}", this.host, this.address, throwable);
+                this.resolvedNanos = now;
+            }
+            this.serveWaiting();
+        }
+
+        /**
+         * 挑选连接：优先空闲连接，其次是流水线上等待数最少的连接
+         *
+         * @param pipelinable 交换能否走流水线
+         * @return 连接，没有可用的时为空
+         */
+        private Connection pick(boolean pipelinable) {
+            Connection best = null;
+            for (Connection connection : this.connections) {
+                int depth = connection.outstanding.size();
+                if (depth == 0) {
+                    return connection;
+                }
+                if (pipelinable && depth < pipelineDepth && connection.isPipelinable()
+                        && (best == null || depth < best.outstanding.size())) {
+                    best = connection;
+                }
+            }
+            return best;
+        }
+
+        /**
+         * 建立新连接
+         *
+         * @param connectTimeoutNanos 建连超时，不大于 0 时不限制
+         * @return 连接
+         * @throws IOException 建立失败
+         */
+        private Connection open(long connectTimeoutNanos) throws IOException {
+            SocketChannel channel = SocketChannel.open();
+            try {
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                Connection connection = new Connection(this, channel);
+                connection.connected = channel.connect(this.address);
+                if (connection.connected) {
+                    connection.connectNanos = System.nanoTime() - connection.connectStartNanos;
+                }
+                connection.key = channel.register(selector,
+                        connection.connected ? SelectionKey.OP_READ : SelectionKey.OP_CONNECT, connection);
+                this.connections.add(connection);
+                connectionsOpened.increment();
+                openConnections.incrementAndGet();
+                if (!connection.connected && connectTimeoutNanos > 0) {
+                    schedule(connection.connectStartNanos + connectTimeoutNanos, connection::connectTimedOut);
+                }
+                return connection;
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * 一条连接，只在选择器线程访问
+     */
+    private final class Connection implements Http1ResponseParser.Listener {
+
+        /** 所属连接池 */
+        private final HostPool pool;
+        /** 通道 */
+        private final SocketChannel channel;
+        /** 等待响应的交换，按发送顺序 */
+        private final ArrayDeque<Exchange<?>> outstanding = new ArrayDeque<>();
+        /** 请求还没写完的交换 */
+        private final ArrayDeque<Exchange<?>> writeQueue = new ArrayDeque<>();
+        /** 响应解析 */
+        private final Http1ResponseParser parser = new Http1ResponseParser(this);
+        /** 选择键 */
+        private SelectionKey key;
+        /** 是否已连上 */
+        private boolean connected;
+        /** 是否还有数据没写完 */
+        private boolean writing;
+        /** 是否因下游积压暂停读取，其他线程会读取 */
+        private volatile boolean readPaused;
+        /** 是否已关闭 */
+        private boolean closed;
+        /** 已完成的交换数 */
+        private long served;
+        /** 最后一次完成交换的时间 */
+        private long lastUsedNanos = System.nanoTime();
+        /** 开始建连的时间 */
+        private final long connectStartNanos = System.nanoTime();
+        /** 建连耗时 */
+        private long connectNanos;
+        /** 建连耗时是否已计入某个交换 */
+        private boolean connectReported;
+
+        /**
+         * 完整构造
+         *
+         * @param pool    所属连接池
+         * @param channel 通道
+         */
+        private Connection(HostPool pool, SocketChannel channel) {
+            this.pool = pool;
+            this.channel = channel;
+        }
+
+        /**
+         * 等待中的交换是否都可以走流水线
+         *
+         * @return 是否都可以
+         */
+        private boolean isPipelinable() {
+            for (Exchange<?> exchange : this.outstanding) {
+                if (!exchange.pipelinable) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * 在此连接上发出交换
+         *
+         * @param exchange 交换
+         */
+        private void assign(Exchange<?> exchange) {
+            exchanges.increment();
+            if (this.served > 0) {
+                reused.increment();
+            }
+            if (!this.outstanding.isEmpty()) {
+                pipelined.increment();
+            } else {
+                this.parser.reset(exchange.head);
+            }
+            this.outstanding.add(exchange);
+            exchange.connection = this;
+            exchange.attempts++;
+            exchange.out.rewind();
+            if (exchange.timer != null) {
+                exchange.timer.addQueueWait(System.nanoTime() - exchange.queuedNanos);
+            }
+            this.writeQueue.add(exchange);
+            if (this.connected) {
+                this.startWrite(exchange);
+                try {
+                    this.flush();
+                } catch (IOException e) {
+                    this.close(e);
+                }
+            }
+        }
+
+        /**
+         * 完成连接
+         *
+         * @throws IOException 连接失败
+         */
+        private void finishConnect() throws IOException {
+            if (this.channel.finishConnect()) {
+                this.connected = true;
+                this.connectNanos = System.nanoTime() - this.connectStartNanos;
+                for (Exchange<?> exchange : this.writeQueue) {
+                    this.startWrite(exchange);
+                }
+                this.flush();
+            }
+        }
+
+        /**
+         * 建连超时：到期仍未连上则以超时结束其上全部交换，不重试
+         */
+        private void connectTimedOut() {
+            if (this.connected || this.closed) {
+                return;
+            }
+            HttpConnectTimeoutException timeout = new HttpConnectTimeoutException("HTTP connect timed out");
+            for (Exchange<?> exchange : this.outstanding) {
+                exchange.fail(timeout);
+            }
+            this.close(timeout);
+        }
+
+        /**
+         * 连接可写后交换开始发送，建连耗时只计入第一个交换
+         *
+         * @param exchange 交换
+         */
+        private void startWrite(Exchange<?> exchange) {
+            exchange.writeStartNanos = System.nanoTime();
+            if (exchange.timer != null) {
+                exchange.timer.recordConnect(this.connectReported ? 0 : this.connectNanos);
+                exchange.timer.recordTls(0);
+            }
+            this.connectReported = true;
+        }
+
+        /**
+         * 经共用的直接内存写出待写数据，写不完时关注可写事件
+         *
+         * @throws IOException 写失败
+         */
+        private void flush() throws IOException {
+            ByteBuffer buffer = writeBuffer;
+            while (!this.writeQueue.isEmpty()) {
+                buffer.clear();
+                for (Exchange<?> exchange : this.writeQueue) {
+                    if (!buffer.hasRemaining()) {
+                        break;
+                    }
+                    ByteBuffer part = exchange.out.duplicate();
+                    part.limit(part.position() + Math.min(part.remaining(), buffer.remaining()));
+                    buffer.put(part);
+                }
+                buffer.flip();
+                int written = this.channel.write(buffer);
+                boolean blocked = buffer.hasRemaining();
+                while (written > 0) {
+                    Exchange<?> exchange = this.writeQueue.peek();
+                    ByteBuffer src = exchange.out;
+                    int n = Math.min(written, src.remaining());
+                    src.position(src.position() + n);
+                    written -= n;
+                    if (!src.hasRemaining()) {
+                        this.writeQueue.poll();
+                        if (exchange.timer != null) {
+                            exchange.timer.recordWrite(System.nanoTime() - exchange.writeStartNanos);
+                        }
+                    }
+                }
+                if (blocked) {
+                    this.writing = true;
+                    this.updateInterest();
+                    return;
+                }
+            }
+            this.writing = false;
+            this.updateInterest();
+        }
+
+        /**
+         * 读取并解析，读到的数据全部消费完
+         *
+         * @throws IOException 读取失败或响应不合法
+         */
+        private void read() throws IOException {
+            ByteBuffer buffer = readBuffer;
+            buffer.clear();
+            int n = this.channel.read(buffer);
+            if (n < 0) {
+                this.onEof();
+                return;
+            }
+            buffer.flip();
+            while (buffer.hasRemaining() && !this.closed) {
+                Exchange<?> exchange = this.outstanding.peek();
+                if (exchange == null) {
+                    throw new ProtocolException("Unexpected data on idle connection");
+                }
+                if (this.parser.parse(buffer)) {
+                    this.complete(exchange);
+                }
+            }
+            Exchange<?> current = this.outstanding.peek();
+            if (!this.closed && current != null && current.subscription != null
+                    && current.subscription.isSaturated()) {
+                this.readPaused = true;
+                this.updateInterest();
+            }
+        }
+
+        /**
+         * 对端关闭连接
+         *
+         * @throws IOException 响应只收到一部分
+         */
+        private void onEof() throws IOException {
+            Exchange<?> exchange = this.outstanding.peek();
+            if (exchange != null && this.parser.onEof()) {
+                this.complete(exchange);
+            }
+            if (!this.closed) {
+                this.close(this.outstanding.isEmpty() ? null : new IOException("Connection closed by peer"));
+            }
+        }
+
+        /**
+         * 队首交换的响应解析完成
+         *
+         * @param exchange 交换
+         */
+        private void complete(Exchange<?> exchange) {
+            this.outstanding.poll();
+            exchange.connection = null;
+            exchange.complete();
+            this.served++;
+            this.lastUsedNanos = System.nanoTime();
+            if (!this.parser.isKeepAlive()) {
+                this.close(null);
+                return;
+            }
+            Exchange<?> next = this.outstanding.peek();
+            if (next != null) {
+                this.parser.reset(next.head);
+            }
+            if (this.readPaused) {
+                this.readPaused = false;
+                this.updateInterest();
+            }
+            this.pool.serveWaiting();
+        }
+
+        /**
+         * 下游重新产生需求，积压消化后恢复读取
+         */
+        private void resumeIfDrained() {
+            Exchange<?> current = this.outstanding.peek();
+            if (this.readPaused && !this.closed
+                    && (current == null || current.subscription == null || !current.subscription.isSaturated())) {
+                this.readPaused = false;
+                this.updateInterest();
+            }
+        }
+
+        /**
+         * 关闭连接，尚未收到响应的幂等交换重新分配，其余交换以异常结束
+         *
+         * @param cause 原因，正常关闭时为空
+         */
+        private void close(Throwable cause) {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+            this.pool.connections.remove(this);
+            openConnections.decrementAndGet();
+            if (this.key != null) {
+                this.key.cancel();
+            }
+            try {
+                this.channel.close();
+            } catch (IOException e) {
+                log.debug("Cannot close channel", e);
+            }
+            boolean first = true;
+            Exchange<?> exchange;
+            while ((exchange = this.outstanding.poll()) != null) {
+                boolean started = first && this.parser.isStarted();
+                first = false;
+                exchange.connection = null;
+                if (!started && !closed() && exchange.attempts < MAX_ATTEMPTS && exchange.idempotent
+                        && !exchange.future.isDone()) {
+                    retried.increment();
+                    exchange.queuedNanos = System.nanoTime();
+                    this.pool.waiting.add(exchange);
+                } else {
+                    exchange.fail(cause != null ? cause : new IOException("Connection closed"));
+                }
+            }
+            this.writeQueue.clear();
+            if (!closed()) {
+                this.pool.serveWaiting();
+            }
+        }
+
+        /**
+         * 传输层是否已关闭
+         *
+         * @return 是否已关闭
+         */
+        private boolean closed() {
+            return NioHttp1Transport.this.closed;
+        }
+
+        /**
+         * 根据写入与暂停状态更新关注的事件
+         */
+        private void updateInterest() {
+            if (this.key == null || !this.key.isValid() || !this.connected) {
+                return;
+            }
+            int ops = (this.writing ? SelectionKey.OP_WRITE : 0) | (this.readPaused ? 0 : SelectionKey.OP_READ);
+            if (this.key.interestOps() != ops) {
+                this.key.interestOps(ops);
+            }
+        }
+
+        @Override
+        public void onHeaders(int statusCode, HttpHeaders headers) {
+            this.outstanding.getFirst().onHeaders(statusCode, headers, this);
+        }
+
+        @Override
+        public void onBody(ByteBuffer chunk) {
+            NioBodySubscription subscription = this.outstanding.getFirst().subscription;
+            if (subscription != null) {
+                subscription.offer(chunk);
+            }
+        }
+    }
+
+    /**
+     * 一次交换
+     *
+     * @param <T> 响应体类型
+     */
+    private final class Exchange<T> {
+
+        /** 请求 */
+        private final HttpRequest request;
+        /** 所属连接池 */
+        private final HostPool pool;
+        /** 响应体处理 */
+        private final HttpResponse.BodyHandler<T> bodyHandler;
+        /** 完成响应使用的线程池 */
+        private final Executor executor;
+        /** 返回给调用方的 future */
+        private final CompletableFuture<HttpResponse<T>> future = new CompletableFuture<>();
+        /** 是否 HEAD 请求 */
+        private final boolean head;
+        /** 是否幂等 */
+        private final boolean idempotent;
+        /** 能否走流水线 */
+        private final boolean pipelinable;
+        /** 计时器，可以为空 */
+        private final HttpCallTimer timer;
+        /** 建连超时，不大于 0 时不限制 */
+        private final long connectTimeoutNanos;
+        /** 完整的请求字节，重试时从头发送 */
+        private ByteBuffer out;
+        /** 开始排队的时间 */
+        private long queuedNanos;
+        /** 开始发送的时间 */
+        private long writeStartNanos;
+        /** 当前承载的连接 */
+        private Connection connection;
+        /** 已尝试次数 */
+        private int attempts;
+        /** 响应体推送 */
+        private NioBodySubscription subscription;
+        /** 读取超时，收到响应头或结束后取消 */
+        private Deadline readDeadline;
+
+        /**
+         * 完整构造
+         *
+         * @param request      请求
+         * @param pool         所属连接池
+         * @param bodyHandler  响应体处理
+         * @param clientConfig 配置，取其中的线程池与建连超时
+         * @param timer        计时器，可以为空
+         */
+        private Exchange(HttpRequest request, HostPool pool, HttpResponse.BodyHandler<T> bodyHandler,
+                         HttpClientConfig clientConfig, HttpCallTimer timer) {
+            this.request = request;
+            this.pool = pool;
+            this.bodyHandler = bodyHandler;
+            this.executor = clientConfig.executor();
+            this.timer = timer;
+            this.connectTimeoutNanos = clientConfig.connectTimeout() == null
+                    ? 0 : clientConfig.connectTimeout().toNanos();
+            String method = request.method();
+            this.head = "HEAD".equals(method);
+            this.idempotent = IDEMPOTENT_METHODS.contains(method);
+            boolean hasBody = request.bodyPublisher().map(p -> p.contentLength() != 0).orElse(false);
+            this.pipelinable = ("GET".equals(method) || this.head) && !hasBody;
+        }
+
+        /**
+         * 收到响应头，交给响应体处理
+         *
+         * @param statusCode 状态码
+         * @param headers    响应头
+         * @param connection 连接
+         */
+        private void onHeaders(int statusCode, HttpHeaders headers, Connection connection) {
+            // 读取超时只管到收到响应头为止
+            unschedule(this.readDeadline);
+            HttpResponse.BodySubscriber<T> subscriber = this.bodyHandler.apply(
+                    new NioHttpResponse.Info(statusCode, headers, HttpClient.Version.HTTP_1_1));
+            this.subscription = new NioBodySubscription(subscriber, () -> {
+                if (connection.readPaused) {
+                    post(connection::resumeIfDrained);
+                }
+            });
+            subscriber.getBody().whenCompleteAsync((body, throwable) -> {
+                if (throwable != null) {
+                    this.future.completeExceptionally(throwable);
+                } else {
+                    this.future.complete(new NioHttpResponse<>(statusCode, this.request, headers, body,
+                            this.request.uri(), HttpClient.Version.HTTP_1_1));
+                }
+            }, this.executor);
+            subscriber.onSubscribe(this.subscription);
+        }
+
+        /**
+         * 响应体接收完成
+         */
+        private void complete() {
+            if (this.subscription != null) {
+                this.subscription.complete();
+            }
+        }
+
+        /**
+         * 以异常结束
+         *
+         * @param throwable 异常
+         */
+        private void fail(Throwable throwable) {
+            unschedule(this.readDeadline);
+            if (this.subscription != null) {
+                this.subscription.fail(throwable);
+            } else {
+                this.future.completeExceptionally(throwable);
+            }
+        }
+    }
+}
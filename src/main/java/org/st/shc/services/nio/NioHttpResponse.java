@@ -0,0 +1,51 @@
+package org.st.shc.services.nio;
+
+import javax.net.ssl.SSLSession;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Optional;
+
+/**
+ * NIO 传输层得到的响应
+ *
+ * @param statusCode 状态码
+ * @param request    请求
+ * @param headers    响应头
+ * @param body       响应体
+ * @param uri        链接
+ * @param version    协议版本
+ * @param <T>        响应体类型
+ * @author abomb4 2026-10-17
+ */
+record NioHttpResponse<T>(
+        int statusCode,
+        HttpRequest request,
+        HttpHeaders headers,
+        T body,
+        URI uri,
+        HttpClient.Version version
+) implements HttpResponse<T> {
+
+    @Override
+    public Optional<HttpResponse<T>> previousResponse() {
+        return Optional.empty();
+    }
+
+    @Override
+    public Optional<SSLSession> sslSession() {
+        return Optional.empty();
+    }
+
+    /**
+     * 响应头信息，提供给 BodyHandler
+     *
+     * @param statusCode 状态码
+     * @param headers    响应头
+     * @param version    协议版本
+     */
+    record Info(int statusCode, HttpHeaders headers, HttpClient.Version version) implements HttpResponse.ResponseInfo {
+    }
+}
@@ -0,0 +1,88 @@
+package org.st.shc.framework.concurrent;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 爬山决定只拿爬山走过的一步与吞吐比较
+ *
+ * @author abomb4 2026-10-17
+ */
+class AdaptivePoolSizerTest {
+
+    /** 被调整的线程池，不提交任务 */
+    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(8, 32, 1, TimeUnit.MINUTES,
+            new LinkedBlockingQueue<>());
+    /** 调整器，不启动采样，直接喂采样 */
+    private final AdaptivePoolSizer sizer = AdaptivePoolSizer.newBuilder(this.executor)
+            .setMinPoolSize(4)
+            .setMaxPoolSize(32)
+            .setStep(2)
+            .build();
+
+    @AfterEach
+    void shutdown() {
+        this.executor.shutdownNow();
+    }
+
+    @Test
+    void climbsWhileThroughputImproves() {
+        this.decide(100, true, false);
+        assertEquals(10, this.executor.getCorePoolSize());
+        this.decide(120, true, false);
+        assertEquals(12, this.executor.getCorePoolSize());
+        // 加线程让吞吐下降，掉头
+        this.decide(90, true, false);
+        assertEquals(10, this.executor.getCorePoolSize());
+        // 减线程让吞吐回升，继续减
+        this.decide(110, true, false);
+        assertEquals(8, this.executor.getCorePoolSize());
+    }
+
+    @Test
+    void shrinkForCpuIsNotAProbe() {
+        this.decide(100, true, false);
+        this.decide(120, true, false);
+        assertEquals(12, this.executor.getCorePoolSize());
+        this.decide(120, true, true);
+        assertEquals(10, this.executor.getCorePoolSize());
+
+        // CPU 饱和时缩小后吞吐下降，不能当成向上试探失败而继续往下走
+        this.decide(80, true, false);
+        assertEquals(12, this.executor.getCorePoolSize());
+        assertEquals("backlog, probing up", this.sizer.lastDecision().reason());
+    }
+
+    @Test
+    void shrinkWhenIdleIsNotAProbe() {
+        this.decide(100, true, false);
+        this.decide(80, true, false);
+        // 向上试探让吞吐下降，掉头向下
+        assertEquals(8, this.executor.getCorePoolSize());
+        this.decide(80, false, false);
+        assertEquals(6, this.executor.getCorePoolSize());
+
+        // 空闲缩小之后重新按当前方向试探，不拿空闲时的吞吐作比较
+        this.decide(200, true, false);
+        assertEquals(4, this.executor.getCorePoolSize());
+        assertEquals("backlog, probing down", this.sizer.lastDecision().reason());
+    }
+
+    /**
+     * 喂一次采样
+     *
+     * @param throughput 每秒完成任务数
+     * @param backlog    是否有积压
+     * @param cpuBusy    CPU 是否饱和
+     */
+    private void decide(double throughput, boolean backlog, boolean cpuBusy) {
+        this.sizer.decide(new AdaptivePoolSizer.Sample(throughput, -1, cpuBusy ? 1 : 0.5,
+                backlog ? 10 : 0, 0));
+    }
+}
@@ -0,0 +1,190 @@
+package org.st.shc.framework.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RunnableScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 合并后的装饰器链与逐个套包装的顺序一致
+ *
+ * @author abomb4 2026-10-17
+ */
+class ConcurrentTaskDecoratorsTest {
+
+    /** 普通装饰器设置的上下文 */
+    private static final ThreadLocal<String> CONTEXT = new ThreadLocal<>();
+
+    /** 调用记录 */
+    private final List<String> events = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    void runnableKeepsListOrder() {
+        ConcurrentTaskDecorators decorators = this.chain();
+        decorators.decorate((Runnable) () -> this.events.add("task")).run();
+        assertEquals(this.expected(), this.events);
+    }
+
+    @Test
+    void callableKeepsListOrder() throws Exception {
+        ConcurrentTaskDecorators decorators = this.chain();
+        Callable<String> callable = decorators.decorate(() -> {
+            this.events.add("task");
+            return "ok";
+        });
+        assertEquals("ok", callable.call());
+        assertEquals(this.expected(), this.events);
+    }
+
+    @Test
+    void scheduledKeepsListOrder() throws Exception {
+        ConcurrentTaskDecorators decorators = this.chain();
+        this.schedule(decorators);
+        assertEquals(this.expected(), this.events);
+    }
+
+    @Test
+    void scheduledOutermostPlainDecorator() throws Exception {
+        ConcurrentTaskDecorators decorators = new ConcurrentTaskDecorators(List.of(
+                new Hook("inner"), new Context("ctx")));
+        this.schedule(decorators);
+        assertEquals(List.of("ctx:enter", "inner:start@ctx", "task", "inner:finish@ctx", "ctx:exit"), this.events);
+    }
+
+    @Test
+    void nestedChainsFlattenAndMerge() {
+        ConcurrentTaskDecorators inner = new ConcurrentTaskDecorators(List.of(new Hook("a"), new Hook("b")));
+        ConcurrentTaskDecorators outer = new ConcurrentTaskDecorators(List.of(inner, new Hook("c")));
+        outer.decorate((Runnable) () -> this.events.add("task")).run();
+        assertEquals(List.of("c:start@", "b:start@", "a:start@", "task", "a:finish@", "b:finish@", "c:finish@"),
+                this.events);
+    }
+
+    @Test
+    void emptyChainReturnsTask() {
+        Runnable task = () -> {
+        };
+        ConcurrentTaskDecorators decorators = new ConcurrentTaskDecorators(new ArrayList<>(List.of()));
+        assertTrue(decorators.isEmpty());
+        assertSame(task, decorators.decorate(task));
+    }
+
+    /**
+     * 在装饰了的定时线程池里执行一次任务
+     *
+     * @param decorators 装饰器链
+     * @throws InterruptedException 等待时被中断
+     */
+    private void schedule(ConcurrentTaskDecorators decorators) throws InterruptedException {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1) {
+            @Override
+            protected <V> RunnableScheduledFuture<V> decorateTask(Runnable runnable, RunnableScheduledFuture<V> task) {
+                return decorators.decorate(task);
+            }
+        };
+        Runnable task = () -> this.events.add("task");
+        executor.schedule(task, 1, TimeUnit.MILLISECONDS);
+        // 结束钩子在 Future 完成之后才调用，等线程池结束再看记录
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    /**
+     * 里层生命周期装饰器、设置上下文的普通装饰器、外层两个生命周期装饰器
+     *
+     * @return 装饰器链
+     */
+    private ConcurrentTaskDecorators chain() {
+        return new ConcurrentTaskDecorators(List.of(
+                new Hook("inner"), new Context("ctx"), new Hook("outer1"), new Hook("outer2")));
+    }
+
+    /**
+     * 逐个套包装时的调用顺序：靠后的在外层，里层的钩子看得到上下文
+     *
+     * @return 调用记录
+     */
+    private List<String> expected() {
+        return List.of("outer2:start@", "outer1:start@", "ctx:enter", "inner:start@ctx", "task",
+                "inner:finish@ctx", "ctx:exit", "outer1:finish@", "outer2:finish@");
+    }
+
+    /** 记录调用与当时上下文的生命周期装饰器 */
+    private final class Hook extends TaskLifecycleDecorator {
+
+        /** 名称 */
+        private final String name;
+
+        /**
+         * 完整构造
+         *
+         * @param name 名称
+         */
+        private Hook(String name) {
+            this.name = name;
+        }
+
+        @Override
+        protected void onStart(long readyNanos, long startNanos) {
+            events.add(this.name + ":start@" + (CONTEXT.get() == null ? "" : CONTEXT.get()));
+        }
+
+        @Override
+        protected void onFinish(long readyNanos, long startNanos, long endNanos, boolean ok) {
+            events.add(this.name + ":finish@" + (CONTEXT.get() == null ? "" : CONTEXT.get()));
+        }
+    }
+
+    /** 执行期间设置上下文的普通装饰器 */
+    private final class Context implements ConcurrentTaskDecorator {
+
+        /** 上下文 */
+        private final String value;
+
+        /**
+         * 完整构造
+         *
+         * @param value 上下文
+         */
+        private Context(String value) {
+            this.value = value;
+        }
+
+        @Override
+        public Runnable decorate(Runnable runnable) {
+            return () -> {
+                events.add(this.value + ":enter");
+                CONTEXT.set(this.value);
+                try {
+                    runnable.run();
+                } finally {
+                    CONTEXT.remove();
+                    events.add(this.value + ":exit");
+                }
+            };
+        }
+
+        @Override
+        public <T> Callable<T> decorate(Callable<T> callable) {
+            return () -> {
+                events.add(this.value + ":enter");
+                CONTEXT.set(this.value);
+                try {
+                    return callable.call();
+                } finally {
+                    CONTEXT.remove();
+                    events.add(this.value + ":exit");
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package org.st.shc.framework.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 工作窃取线程池的工作线程按线程工厂的规则创建
+ *
+ * @author abomb4 2026-10-17
+ */
+class ForkJoinPoolBuilderTest {
+
+    @Test
+    void namingOnlyFactoryKeepsWorkerDefaults() throws Exception {
+        ForkJoinPool pool = ExecutorsBuilder.newForkJoinBuilder()
+                .setParallelism(1)
+                .setThreadFactory(new ThreadFactoryWithFactoryIdAndThreadId((fid, tid) -> "fj-" + tid) {})
+                .build();
+        try {
+            Thread worker = pool.submit(Thread::currentThread).get(5, TimeUnit.SECONDS);
+            assertEquals("fj-1", worker.getName());
+            // 没有覆盖 newThread 时保持工作线程默认的守护线程，不挡住 JVM 退出
+            assertTrue(worker.isDaemon());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void overriddenNewThreadAppliesToWorkers() throws Exception {
+        Thread.UncaughtExceptionHandler handler = (t, e) -> {
+        };
+        ThreadFactoryWithFactoryIdAndThreadId factory = new ThreadFactoryWithFactoryIdAndThreadId(
+                (fid, tid) -> "fj-custom-" + tid) {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = super.newThread(r);
+                thread.setDaemon(false);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                thread.setUncaughtExceptionHandler(handler);
+                return thread;
+            }
+        };
+        ForkJoinPool pool = ExecutorsBuilder.newForkJoinBuilder()
+                .setParallelism(1)
+                .setThreadFactory(factory)
+                .build();
+        try {
+            Thread worker = pool.submit(Thread::currentThread).get(5, TimeUnit.SECONDS);
+            assertEquals("fj-custom-1", worker.getName());
+            assertFalse(worker.isDaemon());
+            assertEquals(Thread.MIN_PRIORITY, worker.getPriority());
+            assertSame(handler, worker.getUncaughtExceptionHandler());
+        } finally {
+            pool.shutdownNow();
+            assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package org.st.shc.framework.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 无锁队列的基本语义与等待者被中断、超时时的唤醒传递
+ *
+ * @author abomb4 2026-10-17
+ */
+class MpmcArrayBlockingQueueTest {
+
+    /** 唤醒测试的轮数 */
+    private static final int ROUNDS = 500;
+
+    @Test
+    void fifoAndCapacity() {
+        MpmcArrayBlockingQueue<Integer> queue = new MpmcArrayBlockingQueue<>(3);
+        assertEquals(4, queue.capacity());
+        for (int i = 0; i < 4; i++) {
+            assertTrue(queue.offer(i));
+        }
+        assertFalse(queue.offer(4));
+        assertEquals(4, queue.size());
+        assertEquals(0, queue.peek());
+        for (int i = 0; i < 4; i++) {
+            assertEquals(i, queue.poll());
+        }
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    void singleSlotRoundsUpToTwo() {
+        // 只有一个槽位时已放入与下一轮可放入的序号相同，生产者会覆盖未取走的元素
+        MpmcArrayBlockingQueue<Integer> queue = new MpmcArrayBlockingQueue<>(1);
+        assertEquals(2, queue.capacity());
+        assertTrue(queue.offer(1));
+        assertTrue(queue.offer(2));
+        assertFalse(queue.offer(3));
+        assertEquals(1, queue.poll());
+        assertEquals(2, queue.poll());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    void timedWaitsExpire() throws InterruptedException {
+        MpmcArrayBlockingQueue<Integer> queue = new MpmcArrayBlockingQueue<>(2);
+        assertNull(queue.poll(10, TimeUnit.MILLISECONDS));
+        queue.put(1);
+        queue.put(2);
+        assertFalse(queue.offer(3, 10, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void iteratorRemoveSignalsUnsupportedModification() {
+        MpmcArrayBlockingQueue<Integer> queue = new MpmcArrayBlockingQueue<>(4);
+        queue.offer(1);
+        queue.offer(2);
+        Iterator<Integer> iterator = queue.iterator();
+        assertEquals(1, iterator.next());
+        // ThreadPoolExecutor#purge 只捕获这个异常，之后改用 remove(Object)
+        assertThrows(ConcurrentModificationException.class, iterator::remove);
+        assertFalse(queue.remove(2));
+        assertEquals(2, queue.size());
+    }
+
+    /**
+     * 被唤醒的消费者随后因中断离开时，唤醒必须转给后面的等待者，否则元素留在队列里而一直等待的消费者不醒。
+     * 线程池在调整核心线程数、关闭时中断空闲线程，正是这种情形。每一轮让先登记的消费者收到唤醒后立即被中断，
+     * 后登记的消费者必须拿到元素。
+     */
+    @Test
+    void wakeupPassesOnWhenConsumerIsInterrupted() throws InterruptedException {
+        MpmcArrayBlockingQueue<Integer> queue = new MpmcArrayBlockingQueue<>(16);
+        for (int round = 0; round < ROUNDS; round++) {
+            AtomicBoolean took = new AtomicBoolean();
+            Thread leaving = waiter(() -> took.set(queue.poll(1, TimeUnit.MINUTES) != null));
+            Thread staying = waiter(queue::take);
+
+            queue.offer(round);
+            leaving.interrupt();
+            leaving.join();
+            if (took.get()) {
+                // 被中断前已经取走，这一轮没有考到，补一个让另一个消费者结束
+                queue.offer(round);
+            }
+
+            staying.join(TimeUnit.SECONDS.toMillis(5));
+            assertFalse(staying.isAlive(), "wakeup lost in round " + round + ", left " + queue.size());
+        }
+    }
+
+    /**
+     * 生产者一侧同理：被唤醒的生产者因中断离开时，空位的唤醒要转给后面等待的生产者
+     */
+    @Test
+    void wakeupPassesOnWhenProducerIsInterrupted() throws InterruptedException {
+        MpmcArrayBlockingQueue<Integer> queue = new MpmcArrayBlockingQueue<>(2);
+        for (int round = 0; round < ROUNDS; round++) {
+            queue.clear();
+            queue.offer(-1);
+            queue.offer(-2);
+            AtomicBoolean put = new AtomicBoolean();
+            Thread leaving = waiter(() -> put.set(queue.offer(-3, 1, TimeUnit.MINUTES)));
+            Thread staying = waiter(() -> queue.put(1));
+
+            queue.poll();
+            leaving.interrupt();
+            leaving.join();
+            if (put.get()) {
+                queue.poll();
+            }
+
+            staying.join(TimeUnit.SECONDS.toMillis(5));
+            assertFalse(staying.isAlive(), "wakeup lost in round " + round);
+        }
+    }
+
+    /**
+     * 启动一个等待者，等到它 park 后返回
+     *
+     * @param wait 等待动作
+     * @return 线程
+     */
+    private static Thread waiter(Wait wait) {
+        Thread thread = new Thread(() -> {
+            try {
+                wait.run();
+            } catch (InterruptedException e) {
+                // 离开
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+        while (thread.getState() != Thread.State.TIMED_WAITING) {
+            Thread.yield();
+        }
+        return thread;
+    }
+
+    /** 会阻塞的队列操作 */
+    @FunctionalInterface
+    private interface Wait {
+
+        /**
+         * 执行
+         *
+         * @throws InterruptedException 被中断
+         */
+        void run() throws InterruptedException;
+    }
+}
@@ -0,0 +1,240 @@
+package org.st.shc.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 边接收边解压的 BodyHandler
+ *
+ * @author abomb4 2026-10-17
+ */
+class DecompressingBodyHandlerTest {
+
+    /** 解压后的内容，足够长以便分成多个输出块 */
+    private static final String TEXT = "The quick brown fox jumps over the lazy dog. ".repeat(2000);
+
+    /** 标志位：带 CRC16 */
+    private static final int FHCRC = 2;
+    /** 标志位：带扩展字段 */
+    private static final int FEXTRA = 4;
+    /** 标志位：带文件名 */
+    private static final int FNAME = 8;
+    /** 标志位：带注释 */
+    private static final int FCOMMENT = 16;
+
+    @Test
+    void gzipOptionalFieldsSplitAtEveryHeaderByte() throws Exception {
+        int flags = FHCRC | FEXTRA | FNAME | FCOMMENT;
+        byte[] gzip = gzip(flags, TEXT.getBytes(StandardCharsets.UTF_8));
+        int headerLength = gzip.length - deflate(TEXT.getBytes(StandardCharsets.UTF_8), true).length - 8;
+        // 在头部每个字节处切开，再多切到压缩数据里几个字节
+        for (int split = 0; split <= headerLength + 4; split++) {
+            assertEquals(TEXT, this.inflate("gzip", List.of(slice(gzip, 0, split),
+                    slice(gzip, split, gzip.length))), "split at " + split);
+        }
+    }
+
+    @Test
+    void gzipEachFlagAlone() throws Exception {
+        for (int flags : new int[]{0, FHCRC, FEXTRA, FNAME, FCOMMENT}) {
+            byte[] gzip = gzip(flags, TEXT.getBytes(StandardCharsets.UTF_8));
+            assertEquals(TEXT, this.inflate("gzip", List.of(gzip)), "flags " + flags);
+        }
+    }
+
+    @Test
+    void gzipOneByteAtATime() throws Exception {
+        byte[] gzip = gzip(FHCRC | FEXTRA | FNAME | FCOMMENT, "short body".getBytes(StandardCharsets.UTF_8));
+        List<byte[]> chunks = new ArrayList<>(gzip.length);
+        for (int i = 0; i < gzip.length; i++) {
+            chunks.add(slice(gzip, i, i + 1));
+        }
+        assertEquals("short body", this.inflate("gzip", chunks));
+    }
+
+    @Test
+    void deflateWithAndWithoutZlibHeader() throws Exception {
+        byte[] text = TEXT.getBytes(StandardCharsets.UTF_8);
+        for (boolean nowrap : new boolean[]{false, true}) {
+            byte[] deflated = deflate(text, nowrap);
+            assertEquals(TEXT, this.inflate("deflate", List.of(deflated)));
+            // 第一块只有一个字节时要等第二个字节才能判断有没有 zlib 头
+            assertEquals(TEXT, this.inflate("deflate", List.of(slice(deflated, 0, 1),
+                    slice(deflated, 1, deflated.length))));
+        }
+    }
+
+    @Test
+    void corruptBodyCancelsUpstreamOnce() {
+        HttpResponse.BodySubscriber<String> subscriber = new DecompressingBodyHandler<>(
+                HttpResponse.BodyHandlers.ofString(), new CompressionStats()).apply(info("gzip"));
+        RecordingSubscription subscription = new RecordingSubscription();
+        subscriber.onSubscribe(subscription);
+
+        subscriber.onNext(List.of(ByteBuffer.wrap("not gzip".getBytes(StandardCharsets.US_ASCII))));
+        assertTrue(subscription.cancelled.get());
+
+        // 取消前已在路上的数据块与结束信号被忽略，不会再次解析或再次通知失败
+        subscriber.onNext(List.of(ByteBuffer.wrap("more".getBytes(StandardCharsets.US_ASCII))));
+        subscriber.onComplete();
+        CompletableFuture<String> body = subscriber.getBody().toCompletableFuture();
+        ExecutionException e = assertThrows(ExecutionException.class, body::get);
+        assertInstanceOf(ZipException.class, e.getCause());
+    }
+
+    /**
+     * 按块推给解压订阅者，取出解压后的文本
+     *
+     * @param encoding Content-Encoding
+     * @param chunks   数据块
+     * @return 解压后的文本
+     * @throws Exception 解压失败
+     */
+    private String inflate(String encoding, List<byte[]> chunks) throws Exception {
+        HttpResponse.BodySubscriber<String> subscriber = new DecompressingBodyHandler<>(
+                HttpResponse.BodyHandlers.ofString(), new CompressionStats()).apply(info(encoding));
+        subscriber.onSubscribe(new RecordingSubscription());
+        for (byte[] chunk : chunks) {
+            subscriber.onNext(List.of(ByteBuffer.wrap(chunk)));
+        }
+        subscriber.onComplete();
+        return subscriber.getBody().toCompletableFuture().get();
+    }
+
+    /**
+     * 按标志位带上可选段压缩
+     *
+     * @param flags 标志位
+     * @param data  原文
+     * @return gzip 数据
+     */
+    private static byte[] gzip(int flags, byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(new byte[]{0x1F, (byte) 0x8B, 8, (byte) flags, 1, 2, 3, 4, 0, (byte) 255});
+        if ((flags & FEXTRA) != 0) {
+            // 长度 0x0103 ，高字节不为 0 才能发现高低字节的顺序错误
+            byte[] extra = new byte[0x0103];
+            out.write(extra.length & 0xFF);
+            out.write(extra.length >>> 8);
+            out.writeBytes(extra);
+        }
+        if ((flags & FNAME) != 0) {
+            out.writeBytes("name.txt\0".getBytes(StandardCharsets.ISO_8859_1));
+        }
+        if ((flags & FCOMMENT) != 0) {
+            out.writeBytes("a comment\0".getBytes(StandardCharsets.ISO_8859_1));
+        }
+        if ((flags & FHCRC) != 0) {
+            CRC32 headerCrc = new CRC32();
+            headerCrc.update(out.toByteArray());
+            out.write((int) headerCrc.getValue() & 0xFF);
+            out.write((int) (headerCrc.getValue() >>> 8) & 0xFF);
+        }
+        out.writeBytes(deflate(data, true));
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        for (long v : new long[]{crc.getValue(), data.length}) {
+            for (int i = 0; i < 4; i++) {
+                out.write((int) (v >>> (8 * i)) & 0xFF);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * deflate 压缩
+     *
+     * @param data   原文
+     * @param nowrap 是否不带 zlib 头
+     * @return 压缩数据
+     */
+    private static byte[] deflate(byte[] data, boolean nowrap) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, nowrap);
+        deflater.setInput(data);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        while (!deflater.finished()) {
+            out.write(buffer, 0, deflater.deflate(buffer));
+        }
+        deflater.end();
+        return out.toByteArray();
+    }
+
+    /**
+     * 复制一段
+     *
+     * @param bytes 数据
+     * @param from  起点
+     * @param to    终点，不含
+     * @return 副本
+     */
+    private static byte[] slice(byte[] bytes, int from, int to) {
+        return Arrays.copyOfRange(bytes, from, to);
+    }
+
+    /**
+     * 只带 Content-Encoding 的响应信息
+     *
+     * @param encoding 编码
+     * @return 响应信息
+     */
+    static HttpResponse.ResponseInfo info(String encoding) {
+        HttpHeaders headers = HttpHeaders.of(Map.of(DecompressingBodyHandler.CONTENT_ENCODING, List.of(encoding)),
+                (name, value) -> true);
+        return new HttpResponse.ResponseInfo() {
+            @Override
+            public int statusCode() {
+                return 200;
+            }
+
+            @Override
+            public HttpHeaders headers() {
+                return headers;
+            }
+
+            @Override
+            public HttpClient.Version version() {
+                return HttpClient.Version.HTTP_1_1;
+            }
+        };
+    }
+
+    /** 记录是否被取消的订阅 */
+    static final class RecordingSubscription implements Flow.Subscription {
+
+        /** 是否被取消 */
+        final AtomicBoolean cancelled = new AtomicBoolean();
+
+        @Override
+        public void request(long n) {
+        }
+
+        @Override
+        public void cancel() {
+            this.cancelled.set(true);
+        }
+    }
+}
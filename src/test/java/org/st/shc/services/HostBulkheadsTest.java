@@ -0,0 +1,40 @@
+package org.st.shc.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 按主机配置的隔舱与请求使用相同的 host:port
+ *
+ * @author abomb4 2026-10-17
+ */
+class HostBulkheadsTest {
+
+    @Test
+    void configuredOriginMatchesRequestsByScheme() {
+        HostBulkheads bulkheads = new HostBulkheads(8, 0)
+                .configure(URI.create("https://secure.test"), 2, 0)
+                .configure(URI.create("http://plain.test"), 3, 0)
+                .configure(URI.create("https://custom.test:8443"), 4, 0);
+        for (String url : new String[]{"https://secure.test/a", "http://plain.test/b", "https://custom.test:8443/c",
+                "http://secure.test/d"}) {
+            bulkheads.submit(URI.create(url), CompletableFuture::new, null);
+        }
+        assertEquals(2, bulkheads.stats().get("secure.test:443").maxConcurrent());
+        assertEquals(3, bulkheads.stats().get("plain.test:80").maxConcurrent());
+        assertEquals(4, bulkheads.stats().get("custom.test:8443").maxConcurrent());
+        // 同一主机的 http 是另一个隔舱，使用默认上限
+        assertEquals(8, bulkheads.stats().get("secure.test:80").maxConcurrent());
+    }
+
+    @Test
+    void originWithoutHostIsRejected() {
+        HostBulkheads bulkheads = new HostBulkheads(8, 0);
+        assertThrows(IllegalArgumentException.class, () -> bulkheads.configure(URI.create("secure.test"), 2, 0));
+    }
+}
@@ -0,0 +1,214 @@
+package org.st.shc.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.net.ssl.SSLSession;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 交互调用与压测调用经过的环节
+ *
+ * @author abomb4 2026-10-17
+ */
+class HttpClientServiceTest {
+
+    /** 响应体 */
+    private static final String BODY = "hello";
+
+    /** 线程池 */
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+    /** 计数的传输层 */
+    private final FakeTransport transport = new FakeTransport();
+    /** 被测服务 */
+    private final HttpClientService service = new HttpClientService(this.executor, this.transport);
+
+    @AfterEach
+    void shutdown() throws Exception {
+        this.service.close();
+        this.executor.shutdownNow();
+    }
+
+    @Test
+    void cacheAnswersInteractiveCalls() throws Exception {
+        this.service.setResponseCache(new HttpResponseCache());
+        HttpClientRequest request = request();
+        for (int i = 0; i < 3; i++) {
+            HttpResponse<String> response = this.service.httpCall(request, this.service.getDefaultClientConfig(),
+                    HttpResponse.BodyHandlers.ofString()).get(5, TimeUnit.SECONDS);
+            assertEquals(BODY, response.body());
+        }
+        assertEquals(1, this.transport.exchanges.get());
+    }
+
+    @Test
+    void loadPathBypassesCache() throws Exception {
+        this.service.setResponseCache(new HttpResponseCache());
+        PreparedHttpRequest prepared = this.service.prepareForLoad(request());
+        for (int i = 0; i < 3; i++) {
+            long received = this.service.send(prepared, ResponseBodySinks.counting()).get(5, TimeUnit.SECONDS).body();
+            assertEquals(BODY.length(), received);
+        }
+        assertEquals(3, this.transport.exchanges.get());
+        assertEquals(0, this.service.getResponseCache().stats().hits());
+    }
+
+    @Test
+    void coalescerMergesInteractiveCalls() throws Exception {
+        this.service.setRequestCoalescer(new RequestCoalescer());
+        this.transport.gate = new CompletableFuture<>();
+        HttpResponse.BodyHandler<ResponseBodySinks.BoundedBody> handler = ResponseBodySinks.boundedPrefix(64);
+        List<CompletableFuture<HttpResponse<ResponseBodySinks.BoundedBody>>> calls = List.of(
+                this.service.httpCall(request(), this.service.getDefaultClientConfig(), handler),
+                this.service.httpCall(request(), this.service.getDefaultClientConfig(), handler),
+                this.service.httpCall(request(), this.service.getDefaultClientConfig(), handler));
+        this.transport.gate.complete(null);
+        for (CompletableFuture<HttpResponse<ResponseBodySinks.BoundedBody>> call : calls) {
+            assertEquals(BODY.length(), call.get(5, TimeUnit.SECONDS).body().totalBytes());
+        }
+        assertEquals(1, this.transport.exchanges.get());
+    }
+
+    @Test
+    void loadPathBypassesCoalescer() throws Exception {
+        this.service.setRequestCoalescer(new RequestCoalescer());
+        this.transport.gate = new CompletableFuture<>();
+        PreparedHttpRequest prepared = this.service.prepareForLoad(request());
+        List<CompletableFuture<HttpResponse<Long>>> sends = List.of(
+                this.service.send(prepared, ResponseBodySinks.counting()),
+                this.service.send(prepared, ResponseBodySinks.counting()),
+                this.service.send(prepared, ResponseBodySinks.counting()));
+        this.transport.gate.complete(null);
+        for (CompletableFuture<HttpResponse<Long>> send : sends) {
+            assertEquals(BODY.length(), send.get(5, TimeUnit.SECONDS).body());
+        }
+        assertEquals(3, this.transport.exchanges.get());
+    }
+
+    /**
+     * 可缓存的 GET 请求
+     *
+     * @return 请求
+     */
+    static HttpClientRequest request() {
+        return HttpClientRequest.builder().setUrl("http://example.test/resource").build();
+    }
+
+    /**
+     * 不走网络的传输层，每次交换都返回可缓存一分钟的响应；响应可以被延后，用于观察合并
+     */
+    static final class FakeTransport implements HttpTransport {
+
+        /** 交换次数 */
+        final AtomicInteger exchanges = new AtomicInteger();
+        /** 交换等它完成后才响应 */
+        volatile CompletableFuture<Void> gate = CompletableFuture.completedFuture(null);
+
+        @Override
+        public <T> CompletableFuture<HttpResponse<T>> send(HttpRequest request, HttpClientConfig clientConfig,
+                                                           HttpResponse.BodyHandler<T> bodyHandler) {
+            this.exchanges.incrementAndGet();
+            return this.gate.thenCompose(ignored -> respond(request, bodyHandler));
+        }
+
+        @Override
+        public void close() {
+        }
+
+        /**
+         * 按 BodyHandler 生成响应
+         *
+         * @param request     请求
+         * @param bodyHandler 响应体处理
+         * @param <T>         响应体类型
+         * @return 响应
+         */
+        private static <T> CompletableFuture<HttpResponse<T>> respond(HttpRequest request,
+                                                                      HttpResponse.BodyHandler<T> bodyHandler) {
+            HttpHeaders headers = HttpHeaders.of(Map.of("Cache-Control", List.of("max-age=60")),
+                    (name, value) -> true);
+            HttpResponse.BodySubscriber<T> subscriber = bodyHandler.apply(new HttpResponse.ResponseInfo() {
+                @Override
+                public int statusCode() {
+                    return 200;
+                }
+
+                @Override
+                public HttpHeaders headers() {
+                    return headers;
+                }
+
+                @Override
+                public HttpClient.Version version() {
+                    return HttpClient.Version.HTTP_1_1;
+                }
+            });
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onNext(List.of(ByteBuffer.wrap(BODY.getBytes(StandardCharsets.US_ASCII))));
+            subscriber.onComplete();
+            return subscriber.getBody().toCompletableFuture().thenApply(body -> new FakeResponse<>(
+                    request, headers, body));
+        }
+    }
+
+    /**
+     * 假的响应
+     *
+     * @param request 请求
+     * @param headers 响应头
+     * @param body    响应体
+     * @param <T>     响应体类型
+     */
+    private record FakeResponse<T>(HttpRequest request, HttpHeaders headers, T body) implements HttpResponse<T> {
+
+        @Override
+        public int statusCode() {
+            return 200;
+        }
+
+        @Override
+        public Optional<HttpResponse<T>> previousResponse() {
+            return Optional.empty();
+        }
+
+        @Override
+        public Optional<SSLSession> sslSession() {
+            return Optional.empty();
+        }
+
+        @Override
+        public URI uri() {
+            return this.request.uri();
+        }
+
+        @Override
+        public HttpClient.Version version() {
+            return HttpClient.Version.HTTP_1_1;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package org.st.shc.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * JDK 传输层能记录的计时阶段
+ *
+ * @author abomb4 2026-10-17
+ */
+class JdkHttpTransportTest {
+
+    /** 单线程池，先被占住以产生排队 */
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    /** 被测传输层 */
+    private final JdkHttpTransport transport = new JdkHttpTransport();
+
+    @AfterEach
+    void shutdown() {
+        this.transport.close();
+        this.executor.shutdownNow();
+    }
+
+    @Test
+    void recordsQueueWaitAndDns() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        this.executor.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        HttpCallTimer timer = new HttpCallTimer();
+        // 端口 1 上没有服务，连接会被拒绝，计时只关心交换之前的阶段
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:1/")).build();
+        CompletableFuture<HttpResponse<Void>> response = this.transport.send(request,
+                new HttpClientConfig(this.executor), HttpResponse.BodyHandlers.discarding(), timer);
+        Thread.sleep(50);
+        release.countDown();
+        assertThrows(ExecutionException.class, () -> response.get(10, TimeUnit.SECONDS));
+
+        HttpCallTiming timing = timer.finish();
+        assertTrue(timing.queueWaitNanos() >= TimeUnit.MILLISECONDS.toNanos(50), timing.toString());
+        assertTrue(timing.dnsNanos() >= 0, timing.toString());
+        assertEquals(HttpCallTiming.UNAVAILABLE, timing.connectNanos());
+        assertEquals(HttpCallTiming.UNAVAILABLE, timing.tlsNanos());
+        assertEquals(HttpCallTiming.UNAVAILABLE, timing.writeNanos());
+    }
+}
@@ -0,0 +1,76 @@
+package org.st.shc.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 流式响应体接收方式
+ *
+ * @author abomb4 2026-10-17
+ */
+class ResponseBodySinksTest {
+
+    @Test
+    void boundedPrefixKeepsPrefixAndCountsAll() throws Exception {
+        HttpResponse.BodySubscriber<ResponseBodySinks.BoundedBody> subscriber =
+                ResponseBodySinks.boundedPrefix(4).apply(null);
+        subscriber.onSubscribe(new RecordingSubscription());
+        subscriber.onNext(List.of(ByteBuffer.wrap(new byte[]{1, 2, 3}), ByteBuffer.wrap(new byte[]{4, 5, 6})));
+        subscriber.onComplete();
+
+        ResponseBodySinks.BoundedBody body = subscriber.getBody().toCompletableFuture().get();
+        assertEquals(6, body.totalBytes());
+        assertEquals(4, body.prefix().length);
+        assertTrue(body.truncated());
+    }
+
+    @Test
+    void failingCallbackCancelsAndFailsBody() {
+        IllegalStateException failure = new IllegalStateException("boom");
+        HttpResponse.BodySubscriber<Long> subscriber = ResponseBodySinks.onChunk(buffer -> {
+            throw failure;
+        }).apply(null);
+        RecordingSubscription subscription = new RecordingSubscription();
+        subscriber.onSubscribe(subscription);
+
+        // 回调的异常不能从 onNext 抛出
+        subscriber.onNext(List.of(ByteBuffer.allocate(8)));
+        assertTrue(subscription.cancelled.get());
+        CompletableFuture<Long> body = subscriber.getBody().toCompletableFuture();
+        ExecutionException e = assertThrows(ExecutionException.class, body::get);
+        assertSame(failure, e.getCause());
+
+        // 取消前已在路上的信号被忽略
+        subscriber.onNext(List.of(ByteBuffer.allocate(8)));
+        subscriber.onComplete();
+        assertTrue(body.isCompletedExceptionally());
+    }
+
+    /** 记录是否被取消的订阅 */
+    private static final class RecordingSubscription implements Flow.Subscription {
+
+        /** 是否被取消 */
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+
+        @Override
+        public void request(long n) {
+        }
+
+        @Override
+        public void cancel() {
+            this.cancelled.set(true);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package org.st.shc.services.limit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 用模拟时间驱动限流器与算法，结果只取决于输入，不受机器快慢影响。
+ * <p>
+ * 模拟的后端能同时处理 {@link #CAPACITY} 个请求，耗时 {@link #BASE_RTT_NANOS} ；
+ * 超出后按处理器共享排队，耗时随发出时的在途数线性增长。调用方始终按上限补满在途请求。
+ *
+ * @author abomb4 2026-10-17
+ */
+class LimitAlgorithmSimulationTest {
+
+    /** 后端并发能力 */
+    private static final int CAPACITY = 50;
+    /** 无负载耗时 */
+    private static final long BASE_RTT_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    /** 模拟的请求数 */
+    private static final int REQUESTS = 200_000;
+
+    @Test
+    void aimdSettlesAtLatencyThreshold() {
+        Simulation simulation = new Simulation();
+        AimdLimit aimd = new AimdLimit(10, 1, 1000, 0.9, Duration.ofNanos(BASE_RTT_NANOS * 3 / 2),
+                () -> simulation.now);
+        List<Integer> limits = simulation.run(new AdaptiveConcurrencyLimiter(aimd), REQUESTS, -1);
+
+        List<Integer> tail = limits.subList(limits.size() / 2, limits.size());
+        int min = tail.stream().mapToInt(Integer::intValue).min().orElseThrow();
+        int max = tail.stream().mapToInt(Integer::intValue).max().orElseThrow();
+        // 在途数越过 1.5 倍容量后耗时超过阈值，回退到 0.9 倍，之后每个耗时加 1
+        assertTrue(min >= CAPACITY * 3 / 2 * 9 / 10 - 1, "min " + min);
+        assertTrue(max <= CAPACITY * 3 / 2 + 2, "max " + max);
+    }
+
+    @Test
+    void aimdBacksOffOncePerRoundTrip() {
+        Simulation simulation = new Simulation();
+        AimdLimit aimd = new AimdLimit(100, 1, 1000, 0.5, Duration.ofSeconds(1), () -> simulation.now);
+
+        simulation.now = BASE_RTT_NANOS;
+        assertEquals(50, aimd.update(100, BASE_RTT_NANOS, 100, true));
+        // 同一批在途请求随后的失败不再回退
+        simulation.now += BASE_RTT_NANOS / 2;
+        assertEquals(50, aimd.update(50, BASE_RTT_NANOS, 100, true));
+        simulation.now += BASE_RTT_NANOS;
+        assertEquals(25, aimd.update(50, BASE_RTT_NANOS, 50, true));
+    }
+
+    @Test
+    void vegasSettlesJustAboveCapacity() {
+        Simulation simulation = new Simulation();
+        List<Integer> limits = simulation.run(new AdaptiveConcurrencyLimiter(new VegasLimit()), REQUESTS, -1);
+
+        List<Integer> tail = limits.subList(limits.size() / 2, limits.size());
+        int min = tail.stream().mapToInt(Integer::intValue).min().orElseThrow();
+        int max = tail.stream().mapToInt(Integer::intValue).max().orElseThrow();
+        // 排队长度保持在 alpha 与 beta 之间，即比容量多出 3 到 6 倍 log10(limit) ，探测时让出 beta 个名额
+        assertTrue(min >= CAPACITY * 4 / 5, "min " + min);
+        assertTrue(max <= CAPACITY + 12, "max " + max);
+    }
+
+    @Test
+    void vegasBacksOffOnDrops() {
+        Simulation simulation = new Simulation();
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(new VegasLimit());
+        simulation.run(limiter, REQUESTS / 4, -1);
+        int settled = limiter.getLimit();
+
+        // 后端开始拒绝一半的请求，耗时不变
+        simulation.run(limiter, REQUESTS / 4, 2);
+        assertTrue(limiter.getLimit() < settled / 2, "limit " + limiter.getLimit() + " settled " + settled);
+    }
+
+    @Test
+    void algorithmSeesInFlightAtAcquire() {
+        List<Integer> seen = new ArrayList<>();
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(new LimitAlgorithm() {
+            @Override
+            public int initialLimit() {
+                return 10;
+            }
+
+            @Override
+            public int update(int limit, long rttNanos, int inFlight, boolean dropped) {
+                seen.add(inFlight);
+                return limit;
+            }
+        });
+
+        int first = limiter.tryAcquire();
+        int second = limiter.tryAcquire();
+        int third = limiter.tryAcquire();
+        assertEquals(1, first);
+        assertEquals(2, second);
+        assertEquals(3, third);
+
+        // 第一个请求发出时只有它自己，结束时在途已有 3 个
+        limiter.release(BASE_RTT_NANOS, first, false);
+        limiter.release(BASE_RTT_NANOS, third, false);
+        assertEquals(List.of(1, 3), seen);
+        assertEquals(1, limiter.getInFlight());
+    }
+
+    @Test
+    void rejectsAtLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(new VegasLimit(2, 1, 10, 1));
+        assertEquals(1, limiter.tryAcquire());
+        assertEquals(2, limiter.tryAcquire());
+        assertEquals(0, limiter.tryAcquire());
+        limiter.ignore();
+        assertEquals(2, limiter.tryAcquire());
+        assertEquals(1, limiter.stats().rejected());
+    }
+
+    /**
+     * 离散事件模拟：按完成时间依次结束请求，每结束一个就按上限补满
+     */
+    private static final class Simulation {
+
+        /** 模拟时间 */
+        private long now;
+        /** 在途请求，按完成时间排序：完成时间、耗时、发出时的在途数、序号 */
+        private final PriorityQueue<long[]> pending = new PriorityQueue<>((a, b) -> Long.compare(a[0], b[0]));
+        /** 已发出的请求数 */
+        private long sequence;
+
+        /**
+         * 运行
+         *
+         * @param limiter   限流器
+         * @param requests  结束多少个请求后停止
+         * @param dropEvery 每隔几个请求被拒绝一次，小于 1 表示不拒绝
+         * @return 每个请求结束后的上限
+         */
+        private List<Integer> run(AdaptiveConcurrencyLimiter limiter, int requests, int dropEvery) {
+            List<Integer> limits = new ArrayList<>(requests);
+            this.fill(limiter);
+            for (int i = 0; i < requests; i++) {
+                long[] next = this.pending.poll();
+                this.now = next[0];
+                boolean dropped = dropEvery > 0 && next[3] % dropEvery == 0;
+                limiter.release(next[1], (int) next[2], dropped);
+                limits.add(limiter.getLimit());
+                this.fill(limiter);
+            }
+            return limits;
+        }
+
+        /**
+         * 按上限补满在途请求
+         *
+         * @param limiter 限流器
+         */
+        private void fill(AdaptiveConcurrencyLimiter limiter) {
+            int inFlight;
+            while ((inFlight = limiter.tryAcquire()) > 0) {
+                long rtt = BASE_RTT_NANOS * Math.max(CAPACITY, inFlight) / CAPACITY;
+                this.pending.add(new long[]{this.now + rtt, rtt, inFlight, this.sequence++});
+            }
+        }
+    }
+}
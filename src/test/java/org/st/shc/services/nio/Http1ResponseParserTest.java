@@ -0,0 +1,246 @@
+package org.st.shc.services.nio;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.net.http.HttpHeaders;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * HTTP/1.1 响应增量解析，每种分帧方式都在每个字节处切开输入再解析一遍
+ *
+ * @author abomb4 2026-10-17
+ */
+class Http1ResponseParserTest {
+
+    @Test
+    void contentLengthBody() throws IOException {
+        String response = "HTTP/1.1 200 OK\r\nContent-Length: 5\r\nX-Test: a\r\n\r\nhello";
+        for (Result result : parseAtEverySplit(response, false)) {
+            assertEquals(200, result.statusCode);
+            assertEquals("hello", result.body());
+            assertEquals(List.of("a"), result.headers.allValues("x-test"));
+            assertTrue(result.keepAlive);
+            assertEquals(0, result.leftover);
+        }
+    }
+
+    @Test
+    void chunkedBodyWithExtensionsAndTrailers() throws IOException {
+        String response = "HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n"
+                + "5;name=value\r\nhello\r\n"
+                + "7 ; quoted=\"a;b\"\r\n, world\r\n"
+                + "0;last\r\nX-Checksum: abc\r\nX-Other: def\r\n\r\n";
+        for (Result result : parseAtEverySplit(response, false)) {
+            assertEquals("hello, world", result.body());
+            assertTrue(result.keepAlive);
+            assertEquals(0, result.leftover);
+        }
+    }
+
+    @Test
+    void readToCloseBody() throws IOException {
+        String response = "HTTP/1.1 200 OK\r\nContent-Type: text/plain\r\n\r\nuntil the end";
+        for (Result result : parseAtEverySplit(response, false)) {
+            assertFalse(result.completedBeforeEof);
+            assertTrue(result.completedAtEof);
+            assertEquals("until the end", result.body());
+            assertFalse(result.keepAlive);
+        }
+    }
+
+    @Test
+    void headersSplitAcrossReadsWithFoldingAndInterimResponse() throws IOException {
+        String response = "HTTP/1.1 100 Continue\r\n\r\n"
+                + "HTTP/1.0 200 OK\r\nConnection: keep-alive\r\nX-Folded: first\r\n\tsecond\r\n"
+                + "Content-Length: 2\r\n\r\nok";
+        for (Result result : parseAtEverySplit(response, false)) {
+            assertEquals(200, result.statusCode);
+            assertEquals(List.of("first second"), result.headers.allValues("X-Folded"));
+            assertEquals("ok", result.body());
+            assertTrue(result.keepAlive);
+        }
+    }
+
+    @Test
+    void responsesWithoutBody() throws IOException {
+        // 这些响应即使带 Content-Length 或分块声明也没有体，后面的字节属于下一个响应
+        String next = "HTTP/1.1 200 OK\r\n";
+        List<String> responses = List.of(
+                "HTTP/1.1 204 No Content\r\nContent-Length: 10\r\n\r\n",
+                "HTTP/1.1 304 Not Modified\r\nTransfer-Encoding: chunked\r\n\r\n");
+        for (String response : responses) {
+            for (Result result : parseAtEverySplit(response + next, false)) {
+                assertTrue(result.completedBeforeEof, response);
+                assertEquals("", result.body());
+                assertEquals(next.length(), result.leftover);
+            }
+        }
+        for (Result result : parseAtEverySplit("HTTP/1.1 200 OK\r\nContent-Length: 10\r\n\r\n" + next, true)) {
+            assertTrue(result.completedBeforeEof);
+            assertEquals("", result.body());
+            assertEquals(next.length(), result.leftover);
+        }
+    }
+
+    @Test
+    void pipelinedResponsesLeaveTheRestInInput() throws IOException {
+        Recorder recorder = new Recorder();
+        Http1ResponseParser parser = new Http1ResponseParser(recorder);
+        ByteBuffer in = ascii("HTTP/1.1 200 OK\r\nContent-Length: 1\r\n\r\na"
+                + "HTTP/1.1 200 OK\r\nContent-Length: 1\r\n\r\nb");
+        parser.reset(false);
+        assertTrue(parser.parse(in));
+        parser.reset(false);
+        assertTrue(parser.parse(in));
+        assertEquals("ab", recorder.body.toString(StandardCharsets.ISO_8859_1));
+        assertFalse(in.hasRemaining());
+    }
+
+    @Test
+    void truncatedResponseFailsAtEof() throws IOException {
+        Http1ResponseParser parser = new Http1ResponseParser(new Recorder());
+        parser.reset(false);
+        assertFalse(parser.parse(ascii("HTTP/1.1 200 OK\r\nContent-Length: 10\r\n\r\nabc")));
+        assertThrows(EOFException.class, parser::onEof);
+    }
+
+    @Test
+    void malformedInputIsRejected() {
+        assertThrows(ProtocolException.class, () -> parseWhole("SPDY/3 200 OK\r\n\r\n"));
+        assertThrows(ProtocolException.class, () -> parseWhole("HTTP/1.1 200 OK\r\nno colon\r\n\r\n"));
+        assertThrows(ProtocolException.class,
+                () -> parseWhole("HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\nzz\r\n"));
+        assertThrows(ProtocolException.class,
+                () -> parseWhole("HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n1\r\naX\r\n"));
+    }
+
+    /**
+     * 不切开，一次解析
+     *
+     * @param response 响应
+     * @throws IOException 格式不合法
+     */
+    private static void parseWhole(String response) throws IOException {
+        Http1ResponseParser parser = new Http1ResponseParser(new Recorder());
+        parser.reset(false);
+        parser.parse(ascii(response));
+    }
+
+    /**
+     * 在每个字节处把响应切成两次读取，再逐字节读取一次，分别解析；输入读完后模拟连接关闭
+     *
+     * @param response    响应
+     * @param headRequest 是否 HEAD 请求
+     * @return 每种切法的结果
+     * @throws IOException 格式不合法
+     */
+    private static List<Result> parseAtEverySplit(String response, boolean headRequest) throws IOException {
+        byte[] bytes = response.getBytes(StandardCharsets.ISO_8859_1);
+        List<Result> results = new ArrayList<>(bytes.length + 2);
+        for (int split = 0; split <= bytes.length; split++) {
+            results.add(parse(bytes, headRequest, split, bytes.length));
+        }
+        results.add(parse(bytes, headRequest, 1, 1));
+        return results;
+    }
+
+    /**
+     * 按指定方式切开后解析
+     *
+     * @param bytes       响应
+     * @param headRequest 是否 HEAD 请求
+     * @param first       第一次读取的字节数
+     * @param step        之后每次读取的字节数
+     * @return 结果
+     * @throws IOException 格式不合法
+     */
+    private static Result parse(byte[] bytes, boolean headRequest, int first, int step) throws IOException {
+        Recorder recorder = new Recorder();
+        Http1ResponseParser parser = new Http1ResponseParser(recorder);
+        parser.reset(headRequest);
+        boolean done = false;
+        int position = 0;
+        int leftover = 0;
+        int size = first;
+        while (position < bytes.length && !done) {
+            int length = Math.min(size, bytes.length - position);
+            ByteBuffer in = ByteBuffer.wrap(bytes, position, length);
+            done = parser.parse(in);
+            leftover = in.remaining();
+            position += length;
+            size = step;
+        }
+        leftover += bytes.length - position;
+        boolean atEof = !done && parser.onEof();
+        return new Result(recorder.statusCode, recorder.headers, recorder.body.toByteArray(), done, atEof,
+                parser.isKeepAlive(), leftover);
+    }
+
+    /**
+     * 以 ISO-8859-1 编码
+     *
+     * @param text 文本
+     * @return buffer
+     */
+    private static ByteBuffer ascii(String text) {
+        return ByteBuffer.wrap(text.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * 一次解析的结果
+     *
+     * @param statusCode         状态码
+     * @param headers            响应头
+     * @param bytes              响应体
+     * @param completedBeforeEof 输入读完之前就完成
+     * @param completedAtEof     连接关闭时正常完成
+     * @param keepAlive          连接能否复用
+     * @param leftover           完成后留在输入中的字节数
+     */
+    private record Result(int statusCode, HttpHeaders headers, byte[] bytes, boolean completedBeforeEof,
+                          boolean completedAtEof, boolean keepAlive, int leftover) {
+
+        /**
+         * 响应体文本
+         *
+         * @return 文本
+         */
+        private String body() {
+            return new String(this.bytes, StandardCharsets.ISO_8859_1);
+        }
+    }
+
+    /** 记录解析事件 */
+    private static final class Recorder implements Http1ResponseParser.Listener {
+
+        /** 状态码 */
+        private int statusCode;
+        /** 响应头 */
+        private HttpHeaders headers;
+        /** 响应体 */
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+        @Override
+        public void onHeaders(int statusCode, HttpHeaders headers) {
+            this.statusCode = statusCode;
+            this.headers = headers;
+        }
+
+        @Override
+        public void onBody(ByteBuffer chunk) {
+            this.body.write(chunk.array(), chunk.arrayOffset() + chunk.position(), chunk.remaining());
+        }
+    }
+}